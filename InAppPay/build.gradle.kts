@@ -31,6 +31,23 @@ android {
         targetCompatibility = JavaVersion.VERSION_11
     }
 
+    testFixtures {
+        // Mock back-end shared by unit tests, load tests and host apps
+        enable = true
+    }
+
+    testOptions {
+        unitTests {
+            all { test ->
+                // Forward -Pinapppay.loadtest* / -Pinapppay.benchmark properties
+                // to the load-test harness and the benchmarks
+                project.properties
+                    .filterKeys { key -> key.startsWith("inapppay.loadtest") || key == "inapppay.benchmark" }
+                    .forEach { (key, value) -> test.systemProperty(key, value.toString()) }
+            }
+        }
+    }
+
     publishing {
         singleVariant("release") {
             withSourcesJar()
@@ -52,9 +69,22 @@ dependencies {
     implementation(libs.retrofit2.converter.gson)
     implementation(libs.okhttp)
     implementation(libs.okhttp3.logging.interceptor)
+    implementation(libs.okhttp.brotli)
 
     implementation(libs.gson)
     implementation(libs.lottie)
+    // Installs src/main/baseline-prof.txt on sideloaded and debug installs too
+    implementation(libs.profileinstaller)
+    // Background entitlement sync (EntitlementSync)
+    implementation(libs.work.runtime)
+
+    testFixturesApi(libs.retrofit)
+    testFixturesApi(libs.retrofit.mock)
+    testFixturesApi(libs.okhttp3.mockwebserver)
+    testFixturesImplementation(libs.gson)
+    testFixturesImplementation(libs.okhttp3.logging.interceptor)
+    testImplementation(libs.json)
+    testImplementation(libs.okhttp3.logging.interceptor)
 }
 
 afterEvaluate {
@@ -0,0 +1,510 @@
+package com.dev.inapppaysdk;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.ApiConfig;
+import com.dev.inapppaysdk.api.CardRequestBody;
+import com.dev.inapppaysdk.api.CardTokenizer;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.models.CardPayload;
+import com.dev.inapppaysdk.api.models.CardToken;
+import com.dev.inapppaysdk.api.models.PaymentDetails;
+import com.dev.inapppaysdk.api.models.Product;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+import com.dev.inapppaysdk.api.models.TokenizationKey;
+import com.dev.inapppaysdk.callbacks.PurchaseCallback;
+import com.dev.inapppaysdk.callbacks.TokenizeCallback;
+import com.dev.inapppaysdk.callbacks.ValidationCallback;
+import com.dev.inapppaysdk.constants.InAppConstants;
+import com.dev.inapppaysdk.logic.CardBrand;
+import com.dev.inapppaysdk.utils.FlightRecorder;
+import com.dev.inapppaysdk.utils.SdkLog;
+import com.dev.inapppaysdk.utils.SdkTrace;
+import com.dev.inapppaysdk.utils.TokenizationKeyCache;
+
+import org.json.JSONObject;
+
+import java.security.GeneralSecurityException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * <h1>InAppPayClient</h1>
+ *
+ * <p>
+ * Headless purchase API: the same <code>validateItemForPurchase</code> /
+ * <code>processPurchase</code> pipeline that {@link InAppPaySDK} drives, without
+ * any dialog, {@link android.content.Context} or Activity. Use it to build your
+ * own checkout UI, for server-driven flows, or to run purchase flows in tests
+ * against a mock back-end.
+ * </p>
+ *
+ * <h2>Typical usage</h2>
+ * <pre>{@code
+ * InAppPayClient client = new InAppPayClient("MyProject", userId);
+ * client.validate("premium_01", new ValidationCallback() {
+ *     public void onValidated(PurchaseSession session) {
+ *         client.purchase(session, PaymentDetails.card(number, expiry, cvv, name), purchaseCallback);
+ *     }
+ *     public void onError(String error, String code) { … }
+ * });
+ * }</pre>
+ *
+ * <p><strong>Threading</strong> – callbacks run on Retrofit's callback
+ * executor (the main thread on Android). Unlike {@code InAppPaySDK#buy}, the
+ * client does not serialize flows: any number of sessions may be in flight
+ * concurrently.</p>
+ */
+public class InAppPayClient {
+    /**
+     * Error code: the back-end has no tokenization key. Card purchases then
+     * fail with {@code TOKENIZATION_FAILED} unless
+     * {@link ApiConfig.Builder#plaintextCardFallback(boolean)} allows sending
+     * card data in clear.
+     */
+    public static final String TOKENIZATION_UNSUPPORTED = "TOKENIZATION_UNSUPPORTED";
+    /** Error code: the token was sealed with a key the back-end has rotated out. */
+    public static final String TOKENIZATION_KEY_EXPIRED = "TOKENIZATION_KEY_EXPIRED";
+
+    private static final long DEFAULT_KEY_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private final String projectName;
+    private final String userId;
+    private final InAppApiService apiService;
+    private final TokenizationKeyCache keyCache;
+
+    /**
+     * Creates a client using the shared {@link ApiClient} service.
+     *
+     * @param projectName Firebase Functions project name
+     * @param userId      identifier of the paying user
+     */
+    public InAppPayClient(String projectName, String userId) {
+        this(projectName, userId, ApiClient.getApiService());
+    }
+
+    /**
+     * Creates a client on top of an explicit service, e.g. a mock back-end.
+     *
+     * @param projectName Firebase Functions project name
+     * @param userId      identifier of the paying user
+     * @param apiService  service implementation to call
+     */
+    public InAppPayClient(String projectName, String userId, InAppApiService apiService) {
+        this.projectName = projectName;
+        this.userId = userId;
+        this.apiService = apiService;
+        this.keyCache = TokenizationKeyCache.getInstance();
+    }
+
+    public String getProjectName() { return projectName; }
+    public String getUserId() { return userId; }
+
+    /**
+     * Calls <code>validateItemForPurchase</code> and returns the typed item data.
+     *
+     * @param productId product key exactly as defined in your back‑end
+     * @param callback  receives a {@link PurchaseSession} on success
+     */
+    public void validate(String productId, ValidationCallback callback) {
+        final FlightRecorder recorder = FlightRecorder.getInstance();
+        final long started = System.currentTimeMillis();
+        recorder.record(FlightRecorder.VALIDATE_START, productId);
+        startValidate(productId, new ValidationCallback() {
+            @Override
+            public void onValidated(PurchaseSession session) {
+                recorder.record(FlightRecorder.VALIDATE_OK, productId, null,
+                        System.currentTimeMillis() - started);
+                callback.onValidated(session);
+            }
+
+            @Override
+            public void onError(String error, String errorCode) {
+                recorder.record(FlightRecorder.VALIDATE_ERROR, productId, errorCode,
+                        System.currentTimeMillis() - started);
+                callback.onError(error, errorCode);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void startValidate(String productId, ValidationCallback callback) {
+        if (!checkIdentity(callback::onError)) {
+            return;
+        }
+
+        Map<String, Object> requestData = new HashMap<>();
+        requestData.put("projectName", projectName);
+        requestData.put("productId", productId);
+        requestData.put("userId", userId);
+
+        final String sessionId = UUID.randomUUID().toString();
+        final int trace = SdkTrace.beginAsync(SdkTrace.VALIDATE);
+        Call<Map<String, Object>> call = apiService.validateItemForPurchase(requestData, sessionId);
+        call.enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                SdkTrace.endAsync(SdkTrace.VALIDATE, trace);
+                if (response.isSuccessful() && response.body() != null) {
+                    Map<String, Object> responseBody = response.body();
+                    Boolean success = (Boolean) responseBody.get("success");
+
+                    if (Boolean.TRUE.equals(success)) {
+                        Map<String, Object> itemData = (Map<String, Object>) responseBody.get("data");
+                        String itemType = itemData != null ? (String) itemData.get("type") : null;
+
+                        if (!isKnownType(itemType)) {
+                            callback.onError("Unknown item type: " + itemType, "INVALID_ITEM_TYPE");
+                            return;
+                        }
+                        // Have the key ready by the time the card is submitted
+                        prefetchTokenizationKey();
+                        Product item = Product.fromMap(itemData, productId);
+                        Date serverTime = response.headers().getDate("Date");
+                        callback.onValidated(new PurchaseSession(sessionId, productId, item, itemData,
+                                System.currentTimeMillis(), serverTime != null ? serverTime.getTime() : 0));
+                    } else {
+                        String error = (String) responseBody.get("error");
+                        String errorCode = (String) responseBody.get("errorCode");
+                        callback.onError(error != null ? error : "Item validation failed",
+                                errorCode != null ? errorCode : "VALIDATION_FAILED");
+                    }
+                } else {
+                    deliverHttpError(response, callback::onError);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkTrace.endAsync(SdkTrace.VALIDATE, trace);
+                SdkLog.w(SdkLog.Category.VALIDATE, "validateItemForPurchase failed for {}", productId, t);
+                callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
+            }
+        });
+    }
+
+    /**
+     * Calls <code>processPurchase</code> for a previously validated session.
+     *
+     * <p>Card details are tokenized on the device first (see
+     * {@link #tokenize}) and only the token is sent. If the back-end offers no
+     * tokenization key, the card is streamed in clear as before.</p>
+     *
+     * @param session        result of {@link #validate}
+     * @param paymentDetails card, card token or PayPal details
+     * @param callback       host‑side handler for success / error
+     */
+    public void purchase(PurchaseSession session, PaymentDetails paymentDetails, PurchaseCallback callback) {
+        // Spans tokenization and the network call, up to the result
+        final int trace = SdkTrace.beginAsync(SdkTrace.PURCHASE);
+        final FlightRecorder recorder = FlightRecorder.getInstance();
+        final String productId = session != null ? session.getProductId() : null;
+        final long started = System.currentTimeMillis();
+        recorder.record(FlightRecorder.PURCHASE_START, productId,
+                paymentDetails != null ? paymentDetails.getPaymentMethod() : null);
+        startPurchase(session, paymentDetails, new PurchaseCallback() {
+            @Override
+            public void onSuccess(String message, Map<String, Object> data) {
+                SdkTrace.endAsync(SdkTrace.PURCHASE, trace);
+                recorder.record(FlightRecorder.PURCHASE_OK, productId, null,
+                        System.currentTimeMillis() - started);
+                callback.onSuccess(message, data);
+            }
+
+            @Override
+            public void onError(String error, String errorCode) {
+                SdkTrace.endAsync(SdkTrace.PURCHASE, trace);
+                recorder.record(FlightRecorder.PURCHASE_ERROR, productId, errorCode,
+                        System.currentTimeMillis() - started);
+                callback.onError(error, errorCode);
+            }
+        });
+    }
+
+    private void startPurchase(PurchaseSession session, PaymentDetails paymentDetails, PurchaseCallback callback) {
+        if (!checkIdentity(callback::onError)) {
+            wipe(paymentDetails != null ? paymentDetails.getCard() : null);
+            return;
+        }
+        if (session == null || paymentDetails == null) {
+            wipe(paymentDetails != null ? paymentDetails.getCard() : null);
+            callback.onError("Invalid purchase context", "INVALID_CONTEXT");
+            return;
+        }
+
+        final CardPayload card = paymentDetails.getCard();
+        if (card == null) {
+            Map<String, Object> purchaseData = purchaseData(session, paymentDetails.getPaymentMethod());
+            if (paymentDetails.getCardToken() != null) {
+                purchaseData.put("cardToken", paymentDetails.getCardToken().toMap());
+            } else if (InAppConstants.PAYMENT_METHOD_PAYPAL.equals(paymentDetails.getPaymentMethod())) {
+                // processPurchase only checks that the map is present; the
+                // e-mail stays on the device as it always has
+                purchaseData.put("paypalData", new HashMap<String, Object>());
+            }
+            apiService.processPurchase(purchaseData, session.getSessionId())
+                    .enqueue(new PurchaseResponse(null, callback));
+            return;
+        }
+
+        tokenize(card, new TokenizeCallback() {
+            @Override
+            public void onTokenized(CardToken token) {
+                Map<String, Object> purchaseData = purchaseData(session, InAppConstants.PAYMENT_METHOD_CARD);
+                purchaseData.put("cardToken", token.toMap());
+                apiService.processPurchase(purchaseData, session.getSessionId())
+                        .enqueue(new PurchaseResponse(null, callback));
+            }
+
+            @Override
+            public void onError(String error, String errorCode) {
+                if (TOKENIZATION_UNSUPPORTED.equals(errorCode)) {
+                    if (ApiClient.getConfig().isPlaintextCardFallback() && !card.isWiped()) {
+                        // Card data is streamed from its char buffers, never put in a map
+                        apiService.processCardPurchase(new CardRequestBody(projectName, userId,
+                                session.getProductId(), detectCardType(card.getNumber()), card),
+                                session.getSessionId())
+                                .enqueue(new PurchaseResponse(card, callback));
+                        return;
+                    }
+                    SdkLog.w(SdkLog.Category.TOKENIZE, "No tokenization key; not sending card data in clear");
+                    wipe(card);
+                    callback.onError("Card tokenization is not available", "TOKENIZATION_FAILED");
+                    return;
+                }
+                wipe(card);
+                callback.onError(error, errorCode);
+            }
+        });
+    }
+
+    /**
+     * Encrypts card details on the device with the project's tokenization
+     * key, fetching the key first if it is not cached. The payload is wiped
+     * once tokenized; the resulting token can be passed to
+     * {@link PaymentDetails#token} for any number of purchase attempts.
+     *
+     * @param card     card buffers
+     * @param callback receives the token, or {@code TOKENIZATION_UNSUPPORTED}
+     *                 (payload left intact) if the back-end cannot tokenize
+     */
+    public void tokenize(CardPayload card, TokenizeCallback callback) {
+        withKey((key, error, errorCode) -> {
+            if (key == null) {
+                callback.onError(error, errorCode);
+                return;
+            }
+            CardToken token;
+            SdkTrace.begin(SdkTrace.TOKENIZE);
+            long started = System.currentTimeMillis();
+            try {
+                token = CardTokenizer.tokenize(key, card, detectCardType(card.getNumber()));
+            } catch (GeneralSecurityException e) {
+                SdkLog.e(SdkLog.Category.TOKENIZE, "Card tokenization failed", e);
+                FlightRecorder.getInstance().record(FlightRecorder.ERROR, null, "TOKENIZATION_FAILED");
+                callback.onError("Card tokenization failed: " + e.getMessage(), "TOKENIZATION_FAILED");
+                return;
+            } finally {
+                SdkTrace.end();
+            }
+            FlightRecorder.getInstance().record(FlightRecorder.TOKENIZE, null, null,
+                    System.currentTimeMillis() - started);
+            callback.onTokenized(token);
+        });
+    }
+
+    /**
+     * Fetches the tokenization key in the background if it is not cached, so
+     * that submitting a card does not wait for it. Called automatically once
+     * an item has been validated.
+     */
+    public void prefetchTokenizationKey() {
+        withKey((key, error, errorCode) -> { });
+    }
+
+    private Map<String, Object> purchaseData(PurchaseSession session, String paymentMethod) {
+        // Prepare purchase data for Firebase Function matching the expected schema
+        Map<String, Object> purchaseData = new HashMap<>();
+        purchaseData.put("projectName", projectName);  // Cloud function expects this
+        purchaseData.put("userId", userId);
+        purchaseData.put("productId", session.getProductId());
+        purchaseData.put("paymentMethod", paymentMethod);
+        return purchaseData;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void withKey(TokenizationKeyCache.Waiter waiter) {
+        TokenizationKey cached = keyCache.get(projectName);
+        if (cached != null) {
+            waiter.onKey(cached, null, null);
+            return;
+        }
+        if (keyCache.isUnsupported(projectName)) {
+            waiter.onKey(null, "Card tokenization is not available", TOKENIZATION_UNSUPPORTED);
+            return;
+        }
+        if (!keyCache.join(projectName, waiter)) {
+            return; // another caller is already fetching it
+        }
+
+        Map<String, Object> requestData = new HashMap<>();
+        requestData.put("projectName", projectName);
+        apiService.getTokenizationKey(requestData).enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                if (response.code() == 404) {
+                    // Back-end predates tokenization
+                    keyCache.markUnsupported(projectName);
+                    keyCache.complete(projectName, null, "Card tokenization is not available", TOKENIZATION_UNSUPPORTED);
+                } else if (response.isSuccessful() && response.body() != null) {
+                    Map<String, Object> responseBody = response.body();
+                    if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                        try {
+                            keyCache.complete(projectName, TokenizationKey.fromMap(
+                                    (Map<String, Object>) responseBody.get("data"), DEFAULT_KEY_TTL_MS), null, null);
+                        } catch (IllegalArgumentException e) {
+                            keyCache.complete(projectName, null, e.getMessage(), "TOKENIZATION_FAILED");
+                        }
+                    } else {
+                        String error = (String) responseBody.get("error");
+                        String errorCode = (String) responseBody.get("errorCode");
+                        keyCache.complete(projectName, null,
+                                error != null ? error : "Could not fetch tokenization key",
+                                errorCode != null ? errorCode : "TOKENIZATION_FAILED");
+                    }
+                } else {
+                    deliverHttpError(response, (error, errorCode) -> keyCache.complete(projectName, null, error, errorCode));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                keyCache.complete(projectName, null, "Network error: " + t.getMessage(), "NETWORK_ERROR");
+            }
+        });
+    }
+
+    /** Delivers a <code>processPurchase</code> response, wiping the card payload if any. */
+    private final class PurchaseResponse implements Callback<Map<String, Object>> {
+        private final CardPayload card;
+        private final PurchaseCallback callback;
+
+        PurchaseResponse(CardPayload card, PurchaseCallback callback) {
+            this.card = card;
+            this.callback = callback;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+            wipe(card);
+            if (response.isSuccessful() && response.body() != null) {
+                Map<String, Object> responseBody = response.body();
+                Boolean success = (Boolean) responseBody.get("success");
+
+                if (Boolean.TRUE.equals(success)) {
+                    String message = (String) responseBody.get("message");
+                    Map<String, Object> responseData = (Map<String, Object>) responseBody.get("data");
+                    callback.onSuccess(message != null ? message : "Purchase completed successfully", responseData);
+                } else {
+                    String error = (String) responseBody.get("error");
+                    String errorCode = (String) responseBody.get("errorCode");
+                    if (TOKENIZATION_KEY_EXPIRED.equals(errorCode)) {
+                        keyCache.invalidate(projectName); // rotated server-side
+                    }
+                    SdkLog.w(SdkLog.Category.PURCHASE, "processPurchase rejected: {}", errorCode);
+                    callback.onError(error != null ? error : "Purchase failed",
+                            errorCode != null ? errorCode : "PURCHASE_FAILED");
+                }
+            } else if (response.code() >= 500) {
+                // Unless it says otherwise, a failing back-end may have charged before failing
+                deliverHttpError(response, "Unknown server error", "UNKNOWN_ERROR", callback::onError);
+            } else {
+                deliverHttpError(response, "Purchase failed", "PURCHASE_FAILED", callback::onError);
+            }
+        }
+
+        @Override
+        public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+            wipe(card); // the body may never have been written
+            SdkLog.w(SdkLog.Category.PURCHASE, "processPurchase failed", t);
+            callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
+        }
+    }
+
+    private static void wipe(CardPayload card) {
+        if (card != null) {
+            card.wipe();
+        }
+    }
+
+    /** Receives an error message and code; matches every SDK callback's onError. */
+    interface ErrorSink {
+        void onError(String error, String errorCode);
+    }
+
+    private boolean checkIdentity(ErrorSink sink) {
+        if (userId == null || userId.isEmpty()) {
+            sink.onError("Could not get device ID", "MISSING_DEVICE_ID");
+            return false;
+        }
+        if (projectName == null || projectName.isEmpty()) {
+            sink.onError("Project name is required", "MISSING_PROJECT_NAME");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a failed {@link #purchase} may still have charged: the
+     * request may have reached the back-end but its answer was lost or
+     * unreadable. Other errors are definitive rejections.
+     *
+     * @param errorCode code passed to {@link PurchaseCallback#onError}
+     * @return true if the outcome must be asked from the back-end
+     */
+    public static boolean isOutcomeUnknown(String errorCode) {
+        return "NETWORK_ERROR".equals(errorCode)
+                || "UNKNOWN_ERROR".equals(errorCode)
+                || "ERROR_PARSE_FAILED".equals(errorCode);
+    }
+
+    static void deliverHttpError(Response<?> response, ErrorSink sink) {
+        deliverHttpError(response, "Validation failed", "VALIDATION_FAILED", sink);
+    }
+
+    // Cloud functions report HTTP errors as {"error": ..., "errorCode": ...}
+    static void deliverHttpError(Response<?> response, String defaultError, String defaultCode, ErrorSink sink) {
+        try {
+            String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
+
+            if (errorJson != null) {
+                JSONObject errorObj = new JSONObject(errorJson);
+                String errorMessage = errorObj.optString("error", defaultError);
+                String errorCode = errorObj.optString("errorCode", defaultCode);
+
+                sink.onError(errorMessage, errorCode);
+            } else {
+                sink.onError("Unknown server error", "UNKNOWN_ERROR");
+            }
+        } catch (Exception e) {
+            sink.onError("Failed to parse error: " + e.getMessage(), "ERROR_PARSE_FAILED");
+        }
+    }
+
+    private static boolean isKnownType(String itemType) {
+        return InAppConstants.TYPE_ONETIME.equals(itemType)
+                || InAppConstants.TYPE_REPURCHASE.equals(itemType)
+                || InAppConstants.TYPE_SUBSCRIPTION.equals(itemType);
+    }
+
+    // Brand name for the back-end, from the card's BIN range
+    static String detectCardType(char[] digits) {
+        return CardBrand.detect(digits).getCode();
+    }
+}
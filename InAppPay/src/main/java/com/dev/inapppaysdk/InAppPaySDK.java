@@ -3,17 +3,29 @@ package com.dev.inapppaysdk;
 import android.content.Context;
 import com.dev.inapppaysdk.api.ApiClient;
 import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.models.CardPayload;
+import com.dev.inapppaysdk.api.models.PaymentDetails;
+import com.dev.inapppaysdk.api.models.Product;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
 import com.dev.inapppaysdk.callbacks.*;
 import com.dev.inapppaysdk.utils.*;
 import com.dev.inapppaysdk.ui.PurchaseDialogManager;
 import com.dev.inapppaysdk.interfaces.Popupable;
+import com.dev.inapppaysdk.tenant.Tenant;
+import com.dev.inapppaysdk.tenant.TenantRegistry;
 import com.dev.inapppaysdk.constants.InAppConstants;
+import com.dev.inapppaysdk.sync.EntitlementStore;
+import com.dev.inapppaysdk.sync.EntitlementSync;
+import com.dev.inapppaysdk.sync.Entitlements;
 import com.dev.inapppaysdk.utils.ErrorDialogHelper;
 
-import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -46,6 +58,15 @@ import retrofit2.Response;
  *       <li>{@link #getUserSubscriptions(PurchasesCallback)}</li>
  *     </ul>
  *   </li>
+ *   <li><strong>Headless mode</strong> &mdash; {@link #getClient()} exposes
+ *       the same validation / purchase pipeline without any UI, see
+ *       {@link InAppPayClient}.</li>
+ *   <li><strong>Catalog</strong> &mdash; {@link #getCatalog(CatalogCallback)}
+ *       loads every product of the project in one cached request, so store
+ *       pages can be rendered without calling {@code buy()}.</li>
+ *   <li><strong>Multiple storefronts</strong> &mdash; each project name gets
+ *       its own {@link Tenant} from {@link TenantRegistry}, so several
+ *       projects can be used side by side in one app.</li>
  * </ul>
  *
  <h2>Typical usage</h2>
@@ -83,7 +104,8 @@ import retrofit2.Response;
  <pre>
  {@code @Override}
  protected void onDestroy() {
- paySdk = null;   // allow GC; SDK keeps no static references
+ paySdk.close();  // the project's tenant may now be evicted
+ paySdk = null;
  super.onDestroy();
  }
  }
@@ -100,33 +122,132 @@ import retrofit2.Response;
  */
 public class InAppPaySDK implements Popupable, PurchaseDialogManager.PurchaseDialogCallback {
 
+    // How far purchasedAt may trail the validation clock and still count as this purchase
+    static final long SERVER_SKEW_MS = 1_000L;
+    static final long DEVICE_SKEW_MS = 5 * 60 * 1000L;
+
     private Context context;
     private String userId;
     private String projectName;
     private String userCountry;
+    private final Tenant tenant;
+    private final AtomicBoolean closed = new AtomicBoolean();
     private final InAppApiService apiService;
+    private InAppPayClient client;
     private final PurchaseContextManager contextManager;
+    private final CatalogCache catalogCache;
+    private final PurchaseStateMachine stateMachine;
+    private final SubscriptionTracker subscriptionTracker;
+    private final PurchaseSessionStore sessionStore;
     private PurchaseDialogManager dialogManager;
+    private final DialogPresenter presenter;
+
+    /** Shows the purchase dialog of a validated item; replaced in tests. */
+    interface DialogPresenter {
+        /** @return {@code false} if no dialog could be shown */
+        boolean show(Product item);
+    }
 
     private InAppPaySDK() {
+        tenant = null;
         apiService = ApiClient.getApiService();
         contextManager = PurchaseContextManager.getInstance();
+        catalogCache = CatalogCache.getInstance();
+        stateMachine = PurchaseStateMachine.getInstance();
+        subscriptionTracker = new SubscriptionTracker(null, apiService);
+        sessionStore = null;
+        presenter = this::showDialog;
     }
 
     /**
      * Creates a new {@code InAppPaySDK} instance bound to a Firebase project.
      *
+     * <p>Instances for the same project share that project's
+     * {@link Tenant} (caches, purchase state); instances for different
+     * projects are fully isolated from each other.</p>
+     *
      * @param projectName Firebase Functions project name
      * @param context     any valid Android Activity {@link Context}
      */
     public InAppPaySDK(String projectName, Context context) {
+        SdkTrace.begin(SdkTrace.INIT);
         this.context = context;
-        this.apiService = ApiClient.getApiService();
-        this.contextManager = PurchaseContextManager.getInstance();
-        this.dialogManager = new PurchaseDialogManager(context, this);
+        this.tenant = TenantRegistry.getInstance().acquire(projectName);
+        this.apiService = tenant.getApiService();
+        this.contextManager = tenant.getContextManager();
+        this.catalogCache = tenant.getCatalogCache();
+        this.stateMachine = tenant.getStateMachine();
+        this.subscriptionTracker = tenant.getSubscriptionTracker();
+        this.sessionStore = PurchaseSessionStore.getInstance(context);
+        this.dialogManager = new PurchaseDialogManager(context, this, contextManager);
+        this.presenter = this::showDialog;
         this.projectName = projectName;
         this.userId = DeviceUtils.getAndroidId(context);
         this.userCountry = DeviceUtils.detectUserCountry(context);
+        this.client = new InAppPayClient(projectName, userId, apiService);
+        LoadingDialogHelper.preload(context);
+        restoreEntitlements(context.getApplicationContext());
+        SdkTrace.end();
+    }
+
+    // For tests: no Activity or tenant; purchase dialogs go to the presenter
+    InAppPaySDK(String projectName, String userId, InAppApiService apiService,
+                PurchaseStateMachine stateMachine, PurchaseSessionStore sessionStore,
+                DialogPresenter presenter) {
+        this(projectName, userId, apiService, stateMachine, sessionStore, presenter, new CatalogCache());
+    }
+
+    InAppPaySDK(String projectName, String userId, InAppApiService apiService,
+                PurchaseStateMachine stateMachine, PurchaseSessionStore sessionStore,
+                DialogPresenter presenter, CatalogCache catalogCache) {
+        this.tenant = null;
+        this.apiService = apiService;
+        this.contextManager = new PurchaseContextManager();
+        this.catalogCache = catalogCache;
+        this.stateMachine = stateMachine;
+        this.subscriptionTracker = new SubscriptionTracker(projectName, apiService);
+        this.sessionStore = sessionStore;
+        this.presenter = presenter;
+        this.projectName = projectName;
+        this.userId = userId;
+        this.client = new InAppPayClient(projectName, userId, apiService);
+    }
+
+    // Seeds expiry tracking from the last background sync, off the main thread
+    private void restoreEntitlements(Context appContext) {
+        if (userId == null || projectName == null) {
+            return;
+        }
+        ApiClient.getTimer().execute(() -> {
+            Entitlements cached = EntitlementStore.getInstance(appContext).load(projectName, userId);
+            if (cached != null) {
+                subscriptionTracker.updateAll(userId, cached.getSubscriptions());
+            }
+        });
+    }
+
+    /**
+     * Releases every tenant and the SDK's network resources: the connection
+     * pool and the dispatcher, probe and timer threads. A flight recorder
+     * spill is flushed and stopped; recorded events are kept. Instances created
+     * earlier must not be used afterwards; new instances start afresh.
+     * Call it when the app no longer needs payments, e.g. on logout.
+     */
+    public static void shutdown() {
+        FlightRecorder.getInstance().stopSpilling();
+        TenantRegistry.getInstance().clear();
+        ApiClient.shutdown();
+    }
+
+    /**
+     * Releases this instance's hold on its project's {@link Tenant}, so the
+     * registry may evict the tenant once no other instance holds it. Call it
+     * from {@code onDestroy()}; calling it again has no effect.
+     */
+    public void close() {
+        if (tenant != null && !closed.getAndSet(true)) {
+            TenantRegistry.getInstance().release(tenant);
+        }
     }
 
     /**
@@ -166,6 +287,88 @@ public class InAppPaySDK implements Popupable, PurchaseDialogManager.PurchaseDia
         return userId;
     }
 
+    /**
+     * @return the project's isolated caches, purchase state and latency
+     *         statistics
+     */
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    /**
+     * @return the UI-less client this instance uses for validation and
+     *         purchases, for hosts that render their own checkout
+     */
+    public InAppPayClient getClient() {
+        return client;
+    }
+
+    /**
+     * @param productId product key
+     * @return where the purchase flow of {@code productId} currently stands
+     */
+    public PurchaseStateMachine.State getPurchaseState(String productId) {
+        return stateMachine.getState(productId);
+    }
+
+    /**
+     * Registers an observer for purchase flow transitions of every product.
+     *
+     * @param listener invoked on the thread that performed the transition
+     */
+    public void addPurchaseStateListener(PurchaseStateListener listener) {
+        stateMachine.addListener(listener);
+    }
+
+    public void removePurchaseStateListener(PurchaseStateListener listener) {
+        stateMachine.removeListener(listener);
+    }
+
+    /**
+     * Registers an observer for expiries and renewals of the subscriptions
+     * this project has seen through {@link #isUserSubscribed},
+     * {@link #getUserSubscriptions} or a subscription purchase. Expiries are
+     * scheduled locally; the back-end is only asked again close to them.
+     *
+     * @param listener invoked on the main thread
+     */
+    public void addSubscriptionListener(SubscriptionListener listener) {
+        subscriptionTracker.addListener(listener);
+    }
+
+    public void removeSubscriptionListener(SubscriptionListener listener) {
+        subscriptionTracker.removeListener(listener);
+    }
+
+    /**
+     * Refreshes this user's purchases and subscriptions in the background
+     * (unmetered network, charging, idle), one batch per user, so later
+     * launches start with warm data. Safe to call on every launch.
+     */
+    public void enableBackgroundSync() {
+        EntitlementSync.schedule(context, projectName, userId);
+    }
+
+    /**
+     * @return purchases and subscriptions as of the last background sync, or
+     *         {@code null} if none ran yet. Reads from disk; avoid the main
+     *         thread.
+     */
+    public Entitlements getCachedEntitlements() {
+        return EntitlementStore.getInstance(context).load(projectName, userId);
+    }
+
+    /**
+     * Answers {@link #isUserSubscribed} from the last known state, without a
+     * network call.
+     *
+     * @param productId subscription product key
+     * @return the cached state, or {@code null} if it was never checked
+     */
+    public Boolean getCachedSubscriptionState(String productId) {
+        return subscriptionTracker.isSubscribed(userId, productId);
+    }
+
     /**
  * Starts a purchase flow.
  *
@@ -178,10 +381,24 @@ public class InAppPaySDK implements Popupable, PurchaseDialogManager.PurchaseDia
  *   <li>Invokes {@link PurchaseCallback} on success or failure.</li>
  * </ul>
  *
+ * <p>While a flow is running, further calls (e.g. a double tap on the buy
+ * button) are rejected with {@code PURCHASE_IN_PROGRESS} without any network
+ * call or dialog.</p>
+ *
  * @param productId product key exactly as defined in your back‑end
  * @param callback  host‑side handler for success / error
  */
 public void buy(String productId, PurchaseCallback callback) {
+    SdkTrace.begin(SdkTrace.BUY);
+    try {
+        startBuy(productId, callback);
+    } finally {
+        SdkTrace.end();
+    }
+}
+
+private void startBuy(String productId, PurchaseCallback callback) {
+    FlightRecorder.getInstance().record(FlightRecorder.BUY, productId);
     if (userId == null || userId.isEmpty()) {
         ErrorDialogHelper.showErrorDialogWithCode(context, 
             "Could not get device ID", "MISSING_DEVICE_ID");
@@ -196,92 +413,199 @@ public void buy(String productId, PurchaseCallback callback) {
         return;
     }
 
-    contextManager.setPurchaseContext(productId, callback);
+    if (productId == null || productId.isEmpty()) {
+        ErrorDialogHelper.showErrorDialogWithCode(context,
+            "Product ID is required", "MISSING_PRODUCT_ID");
+        callback.onError("Product ID is required", "MISSING_PRODUCT_ID");
+        return;
+    }
 
-    Map<String, Object> requestData = new HashMap<>();
-    requestData.put("projectName", projectName);
-    requestData.put("productId", productId);
-    requestData.put("userId", userId);
+    if (!stateMachine.tryBegin(productId)) {
+        FlightRecorder.getInstance().record(FlightRecorder.ERROR, productId, "PURCHASE_IN_PROGRESS");
+        callback.onError("A purchase is already in progress", "PURCHASE_IN_PROGRESS");
+        return;
+    }
+
+    contextManager.setPurchaseContext(productId, callback);
 
     LoadingDialogHelper loadingDialog = new LoadingDialogHelper();
     loadingDialog.show(context); // Show loading before network call
 
-    Call<Map<String, Object>> call = apiService.validateItemForPurchase(requestData);
-    call.enqueue(new Callback<Map<String, Object>>() {
+    client.validate(productId, new ValidationCallback() {
         @Override
-        public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+        public void onValidated(PurchaseSession session) {
             loadingDialog.dismiss(); // Hide loading after response
 
-            if (response.isSuccessful() && response.body() != null) {
-                Map<String, Object> responseBody = response.body();
-                Boolean success = (Boolean) responseBody.get("success");
-
-                if (Boolean.TRUE.equals(success)) {
-                    Map<String, Object> itemData = (Map<String, Object>) responseBody.get("data");
-                    String itemType = (String) itemData.get("type");
-
-                    contextManager.setItemData(itemData, itemType);
-
-                    switch (itemType) {
-                        case InAppConstants.TYPE_ONETIME:
-                            dialogManager.showOnetimeDialog((String) itemData.get("name"), (String) itemData.get("description"));
-                            break;
-                        case InAppConstants.TYPE_REPURCHASE:
-                            dialogManager.showRepurchaseDialog((String) itemData.get("name"), (String) itemData.get("description"));
-                            break;
-                        case InAppConstants.TYPE_SUBSCRIPTION:
-                            dialogManager.showSubscriptionDialog((String) itemData.get("name"), (String) itemData.get("description"));
-                            break;
-                        default:
-                            String errorMsg = "Unknown item type: " + itemType;
-                            ErrorDialogHelper.showErrorDialogWithCode(context, errorMsg, "INVALID_ITEM_TYPE");
-                            callback.onError(errorMsg, "INVALID_ITEM_TYPE");
-                            contextManager.reset();
-                            break;
-                    }
-                } else {
-                    String error = (String) responseBody.get("error");
-                    String errorCode = (String) responseBody.get("errorCode");
-                    String errorMessage = error != null ? error : "Item validation failed";
-                    String finalErrorCode = errorCode != null ? errorCode : "VALIDATION_FAILED";
-                    
-                    ErrorDialogHelper.showErrorDialogWithCode(context, errorMessage, finalErrorCode);
-                    callback.onError(errorMessage, finalErrorCode);
-                    contextManager.reset();
-                }
-            } else {
-                try {
-                    String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
+            showValidated(session);
+        }
 
-                    if (errorJson != null) {
-                        JSONObject errorObj = new JSONObject(errorJson);
-                        String errorMessage = errorObj.optString("error", "Validation failed");
-                        String errorCode = errorObj.optString("errorCode", "VALIDATION_FAILED");
+        @Override
+        public void onError(String error, String errorCode) {
+            loadingDialog.dismiss(); // Hide loading on failure
+            ErrorDialogHelper.showErrorDialogWithCode(context, error, errorCode);
+            callback.onError(error, errorCode);
+            endSession();
+            stateMachine.abort(productId);
+        }
+    });
+}
 
-                        ErrorDialogHelper.showErrorDialogWithCode(context, errorMessage, errorCode);
-                        callback.onError(errorMessage, errorCode);
-                    } else {
-                        ErrorDialogHelper.showErrorDialogWithCode(context, "Unknown server error", "UNKNOWN_ERROR");
-                        callback.onError("Unknown server error", "UNKNOWN_ERROR");
-                    }
-                } catch (Exception e) {
-                    String errorMsg = "Failed to parse error: " + e.getMessage();
-                    ErrorDialogHelper.showErrorDialogWithCode(context, errorMsg, "ERROR_PARSE_FAILED");
-                    callback.onError(errorMsg, "ERROR_PARSE_FAILED");
-                }
-                contextManager.reset();
+/**
+ * Resumes a purchase whose dialog was open when the OS killed the process
+ * or the Activity was recreated. Call it when the host Activity is
+ * recreated, e.g. from {@code onCreate} with a non-null
+ * {@code savedInstanceState}.
+ *
+ * <p>The session saved when the dialog opened is restored with the same
+ * session id. If it was validated less than
+ * {@link PurchaseSessionStore#FRESH_MS} ago the dialog reopens straight
+ * away; otherwise the product is validated again as in {@link #buy}. Card
+ * details are never saved, so the user enters them again. A flow of the
+ * same product still waiting for input in this process (its dialog went
+ * with the old Activity) is taken over.</p>
+ *
+ * <p>If the payment had already been sent, the dialog is never reopened:
+ * a charge still running in this process reports to {@code callback};
+ * otherwise the back-end is asked whether the purchase went through, and
+ * {@code callback} gets {@code onSuccess} or a
+ * {@code PURCHASE_UNCONFIRMED} error. This includes a payment whose
+ * answer was lost to a network or server error; a payment the back-end
+ * rejected leaves nothing to resume.</p>
+ *
+ * <p>Reads a small file; it is safe but not free on the main thread.</p>
+ *
+ * @param callback host‑side handler for the resumed purchase
+ * @return {@code true} if a pending purchase was found and is resuming;
+ *         {@code callback} is then invoked as for {@link #buy}
+ */
+public boolean resumePurchase(PurchaseCallback callback) {
+    if (sessionStore == null || userId == null || projectName == null) {
+        return false;
+    }
+    PurchaseSessionStore.Pending pending = sessionStore.load(projectName, userId);
+    if (pending == null) {
+        return false;
+    }
+    PurchaseSession session = pending.getSession();
+    String productId = session.getProductId();
+    if (pending.isSubmitted()) {
+        resumeSubmitted(session, callback);
+        return true;
+    }
+    releaseOrphanedFlow(productId);
+    if (session.getItem() == null || !PurchaseSessionStore.isFresh(session)) {
+        SdkLog.i(SdkLog.Category.PURCHASE, "Re-validating resumed purchase of {}", productId);
+        buy(productId, callback);
+        return true;
+    }
+    if (!stateMachine.tryBegin(productId)) {
+        callback.onError("A purchase is already in progress", "PURCHASE_IN_PROGRESS");
+        return true;
+    }
+    SdkLog.i(SdkLog.Category.PURCHASE, "Resuming purchase of {}", productId);
+    FlightRecorder.getInstance().record(FlightRecorder.BUY, productId, "resumed");
+    contextManager.setPurchaseContext(productId, callback);
+    showValidated(session);
+    return true;
+}
+
+// Same process, recreated Activity: the waiting flow's dialog died with the old window
+private void releaseOrphanedFlow(String productId) {
+    if (productId.equals(stateMachine.getActiveProductId())
+            && stateMachine.transition(productId, PurchaseStateMachine.State.AWAITING_INPUT,
+                    PurchaseStateMachine.State.IDLE)) {
+        SdkLog.i(SdkLog.Category.PURCHASE, "Taking over the waiting purchase flow of {}", productId);
+    }
+}
+
+// The payment was sent: report its outcome, never charge again
+private void resumeSubmitted(PurchaseSession session, PurchaseCallback callback) {
+    String productId = session.getProductId();
+    if (productId.equals(stateMachine.getActiveProductId())
+            && stateMachine.getState(productId) == PurchaseStateMachine.State.PROCESSING) {
+        SdkLog.i(SdkLog.Category.PURCHASE, "Purchase of {} is still processing", productId);
+        contextManager.setPurchaseContext(productId, callback);
+        return;
+    }
+    SdkLog.i(SdkLog.Category.PURCHASE, "Checking the outcome of submitted purchase of {}", productId);
+    FlightRecorder.getInstance().record(FlightRecorder.BUY, productId, "resumed-submitted");
+    String type = session.getItem() != null ? session.getItem().getType() : null;
+    CheckCallback check = new CheckCallback() {
+        @Override
+        public void onResult(boolean owned, Map<String, Object> data) {
+            sessionStore.remove(projectName, userId);
+            // A consumable may be owned from an earlier purchase: only a newer one counts
+            if (owned && (!InAppConstants.TYPE_REPURCHASE.equals(type)
+                    || isNewerThan(data, session))) {
+                callback.onSuccess("Purchase completed successfully", data);
+            } else {
+                callback.onError("The interrupted purchase was not completed", "PURCHASE_UNCONFIRMED");
             }
         }
 
         @Override
-        public void onFailure(Call<Map<String, Object>> call, Throwable t) {
-            loadingDialog.dismiss(); // Hide loading on failure
-            String errorMsg = "Network error: " + t.getMessage();
-            ErrorDialogHelper.showErrorDialogWithCode(context, errorMsg, "NETWORK_ERROR");
-            callback.onError(errorMsg, "NETWORK_ERROR");
-            contextManager.reset();
+        public void onError(String error, String errorCode) {
+            // The record is kept so a later resume can ask again
+            callback.onError(error, errorCode);
         }
-    });
+    };
+    if (InAppConstants.TYPE_SUBSCRIPTION.equals(type)) {
+        isUserSubscribed(productId, check);
+    } else {
+        isUserPurchased(productId, check);
+    }
+}
+
+// purchasedAt is server time: compare it with the server's validation time when known,
+// otherwise with the device's, allowing for a clock that runs ahead
+private static boolean isNewerThan(Map<String, Object> purchaseData, PurchaseSession session) {
+    Object purchasedAt = purchaseData != null ? purchaseData.get("purchasedAt") : null;
+    long since = session.getServerValidatedAt() > 0
+            ? session.getServerValidatedAt() - SERVER_SKEW_MS
+            : session.getValidatedAt() - DEVICE_SKEW_MS;
+    return purchasedAt instanceof Number && ((Number) purchasedAt).longValue() >= since;
+}
+
+// Validated (or restored) session: remember it and ask for payment details
+private void showValidated(PurchaseSession session) {
+    contextManager.setSession(session);
+    if (sessionStore != null) {
+        sessionStore.save(projectName, userId, session);
+    }
+    String productId = session.getProductId();
+    stateMachine.transition(productId, PurchaseStateMachine.State.VALIDATING,
+            PurchaseStateMachine.State.AWAITING_INPUT);
+
+    if (!presenter.show(session.getItem())) {
+        // No dialog means nothing will ever end this flow: release it now.
+        // The saved session is kept so resumePurchase() can pick it up.
+        PurchaseCallback callback = contextManager.getCurrentPurchaseCallback();
+        contextManager.reset();
+        stateMachine.abort(productId);
+        FlightRecorder.getInstance().record(FlightRecorder.ERROR, productId, "DIALOG_UNAVAILABLE");
+        if (callback != null) {
+            callback.onError("Purchase dialog could not be shown", "DIALOG_UNAVAILABLE");
+        }
+    }
+}
+
+private boolean showDialog(Product item) {
+    switch (item.getType()) {
+        case InAppConstants.TYPE_ONETIME:
+            return dialogManager.showOnetimeDialog(item.getName(), item.getDescription());
+        case InAppConstants.TYPE_REPURCHASE:
+            return dialogManager.showRepurchaseDialog(item.getName(), item.getDescription());
+        default:
+            return dialogManager.showSubscriptionDialog(item.getName(), item.getDescription());
+    }
+}
+
+// The flow ended: nothing is left to resume
+private void endSession() {
+    contextManager.reset();
+    if (sessionStore != null) {
+        sessionStore.remove(projectName, userId);
+    }
 }
 
 
@@ -328,26 +652,13 @@ public void buy(String productId, PurchaseCallback callback) {
                         callback.onError(error != null ? error : "Failed to check purchase status", errorCode);
                     }
                 } else {
-                    try {
-                        String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
-
-                        if (errorJson != null) {
-                            JSONObject errorObj = new JSONObject(errorJson);
-                            String errorMessage = errorObj.optString("error", "Validation failed");
-                            String errorCode = errorObj.optString("errorCode", "VALIDATION_FAILED");
-
-                            callback.onError(errorMessage, errorCode);
-                        } else {
-                            callback.onError("Unknown server error", "UNKNOWN_ERROR");
-                        }
-                    } catch (Exception e) {
-                        callback.onError("Failed to parse error: " + e.getMessage(), "ERROR_PARSE_FAILED");
-                    }
+                    InAppPayClient.deliverHttpError(response, callback::onError);
                 }
             }
 
             @Override
             public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkLog.w(SdkLog.Category.NETWORK, "{} failed", call.request().url().encodedPath(), t);
                 callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
             }
         });
@@ -388,6 +699,7 @@ public void buy(String productId, PurchaseCallback callback) {
                         Map<String, Object> responseData = (Map<String, Object>) responseBody.get("data");
                         Boolean subscribed = (Boolean) responseData.get("subscribed");
                         Map<String, Object> subscriptionData = (Map<String, Object>) responseData.get("subscriptionData");
+                        subscriptionTracker.update(userId, productId, Boolean.TRUE.equals(subscribed), subscriptionData);
                         callback.onResult(Boolean.TRUE.equals(subscribed), subscriptionData);
                     } else {
                         String error = (String) responseBody.get("message"); // Cloud function uses "message" for error
@@ -395,26 +707,13 @@ public void buy(String productId, PurchaseCallback callback) {
                         callback.onError(error != null ? error : "Failed to check subscription status", errorCode);
                     }
                 } else {
-                    try {
-                        String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
-
-                        if (errorJson != null) {
-                            JSONObject errorObj = new JSONObject(errorJson);
-                            String errorMessage = errorObj.optString("error", "Validation failed");
-                            String errorCode = errorObj.optString("errorCode", "VALIDATION_FAILED");
-
-                            callback.onError(errorMessage, errorCode);
-                        } else {
-                            callback.onError("Unknown server error", "UNKNOWN_ERROR");
-                        }
-                    } catch (Exception e) {
-                        callback.onError("Failed to parse error: " + e.getMessage(), "ERROR_PARSE_FAILED");
-                    }
+                    InAppPayClient.deliverHttpError(response, callback::onError);
                 }
             }
 
             @Override
             public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkLog.w(SdkLog.Category.NETWORK, "{} failed", call.request().url().encodedPath(), t);
                 callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
             }
         });
@@ -451,37 +750,117 @@ public void buy(String productId, PurchaseCallback callback) {
 
                     if (Boolean.TRUE.equals(success)) {
                         Object subscriptionsData = responseBody.get("data");
+                        subscriptionTracker.updateAll(userId, subscriptionsData);
                         callback.onSuccess(subscriptionsData);
                     } else {
                         String error = (String) responseBody.get("message"); // Cloud function uses "message"
                         callback.onError(error != null ? error : "Failed to get subscriptions", "GET_SUBSCRIPTIONS_FAILED");
                     }
                 } else {
-                    try {
-                        String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
-
-                        if (errorJson != null) {
-                            JSONObject errorObj = new JSONObject(errorJson);
-                            String errorMessage = errorObj.optString("error", "Validation failed");
-                            String errorCode = errorObj.optString("errorCode", "VALIDATION_FAILED");
-
-                            callback.onError(errorMessage, errorCode);
-                        } else {
-                            callback.onError("Unknown server error", "UNKNOWN_ERROR");
-                        }
-                    } catch (Exception e) {
-                        callback.onError("Failed to parse error: " + e.getMessage(), "ERROR_PARSE_FAILED");
+                    InAppPayClient.deliverHttpError(response, callback::onError);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkLog.w(SdkLog.Category.NETWORK, "{} failed", call.request().url().encodedPath(), t);
+                callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
+            }
+        });
+    }
+
+    /**
+     * Retrieves every product of the project in a single request.
+     * Results are cached by {@link CatalogCache}; a cached catalog is
+     * posted to the main thread without touching the network, so the
+     * callback never runs before this method returns.
+     *
+     * @param callback invoked with the typed product list
+     */
+    public void getCatalog(CatalogCallback callback) {
+        getCatalog(false, callback);
+    }
+
+    /**
+     * Retrieves every product of the project in a single request.
+     *
+     * @param forceRefresh {@code true} to bypass the local cache
+     * @param callback     invoked with the typed product list
+     */
+    public void getCatalog(boolean forceRefresh, CatalogCallback callback) {
+        if (projectName == null || projectName.isEmpty()) {
+            callback.onError("Project name is required", "MISSING_PROJECT_NAME");
+            return;
+        }
+
+        if (!forceRefresh) {
+            List<Product> cached = catalogCache.get(projectName);
+            if (cached != null) {
+                UiThread.post(() -> callback.onSuccess(cached));
+                return;
+            }
+        }
+
+        Map<String, Object> requestData = new HashMap<>();
+        requestData.put("projectName", projectName);
+
+        Call<Map<String, Object>> call = apiService.getCatalog(requestData);
+        call.enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    Map<String, Object> responseBody = response.body();
+                    Boolean success = (Boolean) responseBody.get("success");
+
+                    if (Boolean.TRUE.equals(success)) {
+                        List<Product> products = Collections.unmodifiableList(parseCatalog(responseBody.get("data")));
+                        catalogCache.put(projectName, products);
+                        callback.onSuccess(products);
+                    } else {
+                        String error = (String) responseBody.get("message"); // Cloud function uses "message"
+                        callback.onError(error != null ? error : "Failed to get catalog", "GET_CATALOG_FAILED");
                     }
+                } else {
+                    InAppPayClient.deliverHttpError(response, "Failed to get catalog", "GET_CATALOG_FAILED",
+                            callback::onError);
                 }
             }
 
             @Override
             public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkLog.w(SdkLog.Category.NETWORK, "{} failed", call.request().url().encodedPath(), t);
                 callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
             }
         });
     }
 
+    // The catalog arrives either as a list of products, as {"products": [...]}
+    // or as an object keyed by product id; accept all three shapes.
+    @SuppressWarnings("unchecked")
+    private static List<Product> parseCatalog(Object data) {
+        List<Product> products = new ArrayList<>();
+        if (data instanceof Map && ((Map<String, Object>) data).get("products") != null) {
+            data = ((Map<String, Object>) data).get("products");
+        }
+
+        if (data instanceof List) {
+            for (Object entry : (List<Object>) data) {
+                if (entry instanceof Map) {
+                    Product product = Product.fromMap((Map<String, Object>) entry, null);
+                    if (product != null) products.add(product);
+                }
+            }
+        } else if (data instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) data).entrySet()) {
+                if (entry.getValue() instanceof Map) {
+                    Product product = Product.fromMap((Map<String, Object>) entry.getValue(), entry.getKey());
+                    if (product != null) products.add(product);
+                }
+            }
+        }
+        return products;
+    }
+
     /**
      * Internal bridge from {@link PurchaseDialogManager} to the purchase
      * pipeline.
@@ -494,7 +873,15 @@ public void buy(String productId, PurchaseCallback callback) {
      */
     @Override
     public void onPurchaseRequested(String paymentMethod, String cardNumber, String expiry, String cvv, String name) {
-        processPurchase(paymentMethod, cardNumber, expiry, cvv, name);
+        PaymentDetails paymentDetails = InAppConstants.PAYMENT_METHOD_PAYPAL.equals(paymentMethod)
+                ? PaymentDetails.paypal(cardNumber) // the dialog passes the PayPal e-mail here
+                : PaymentDetails.card(cardNumber, expiry, cvv, name);
+        processPurchase(paymentDetails);
+    }
+
+    @Override
+    public void onCardPurchaseRequested(CardPayload card) {
+        processPurchase(PaymentDetails.card(card));
     }
 
     @Override
@@ -503,125 +890,74 @@ public void buy(String productId, PurchaseCallback callback) {
         if (callback != null) {
             callback.onError("Purchase cancelled by user", "USER_CANCELLED");
         }
-        contextManager.reset();
+        stateMachine.abort(contextManager.getCurrentItemKey());
+        endSession();
     }
 
-    // Call the server through
-    private void processPurchase(String paymentMethod, String cardNumber, String expiry, String cvv, String name) {
-        if (!contextManager.isValidContext()) {
+    // Call the server through the headless client
+    private void processPurchase(PaymentDetails paymentDetails) {
+        PurchaseSession session = contextManager.getCurrentSession();
+        if (!contextManager.isValidContext() || session == null) {
+            wipe(paymentDetails);
             PurchaseCallback callback = contextManager.getCurrentPurchaseCallback();
+            stateMachine.abort(session != null ? session.getProductId() : contextManager.getCurrentItemKey());
+            endSession();
             if (callback != null) {
                 callback.onError("Invalid purchase context", "INVALID_CONTEXT");
             }
             return;
         }
 
-        // Prepare purchase data for Firebase Function matching the expected schema
-        Map<String, Object> purchaseData = new HashMap<>();
-        purchaseData.put("projectName", projectName);  // Cloud function expects this
-        purchaseData.put("userId", userId);
-        purchaseData.put("productId", contextManager.getCurrentItemKey());  // Changed from itemKey to productId
-        purchaseData.put("paymentMethod", paymentMethod);
-
-        // Add payment details based on method
-        if (InAppConstants.PAYMENT_METHOD_CARD.equals(paymentMethod)) {
-            Map<String, Object> cardData = new HashMap<>();
-            cardData.put("cardNumber", cardNumber);
-            cardData.put("expiry", expiry);
-            cardData.put("cvv", cvv);
-            cardData.put("name", name);
-            // Detect card type based on card number
-            cardData.put("cardType", detectCardType(cardNumber));
-            purchaseData.put("cardData", cardData);
-        } else if (InAppConstants.PAYMENT_METHOD_PAYPAL.equals(paymentMethod)) {
-            // Add PayPal data if needed
-            Map<String, Object> paypalData = new HashMap<>();
-            // Add PayPal specific fields here if you have them
-            purchaseData.put("paypalData", paypalData);
+        // Ignore duplicate submits: only the first one moves the flow forward
+        final String productId = session.getProductId();
+        if (!stateMachine.transition(productId, PurchaseStateMachine.State.AWAITING_INPUT,
+                PurchaseStateMachine.State.PROCESSING)) {
+            wipe(paymentDetails);
+            return;
         }
 
-        // Make Retrofit call to Firebase Function
-        Call<Map<String, Object>> call = apiService.processPurchase(purchaseData);
-        call.enqueue(new Callback<Map<String, Object>>() {
+        Runnable send = () -> client.purchase(session, paymentDetails, new PurchaseCallback() {
             @Override
-            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+            public void onSuccess(String message, Map<String, Object> data) {
                 PurchaseCallback callback = contextManager.getCurrentPurchaseCallback();
-
-                if (response.isSuccessful() && response.body() != null) {
-                    Map<String, Object> responseBody = response.body();
-                    Boolean success = (Boolean) responseBody.get("success");
-
-                    if (Boolean.TRUE.equals(success)) {
-                        String message = (String) responseBody.get("message");
-                        Map<String, Object> responseData = (Map<String, Object>) responseBody.get("data");
-
-                        if (callback != null) {
-                            callback.onSuccess(
-                                    message != null ? message : "Purchase completed successfully",
-                                    responseData
-                            );
-                        }
-                    } else {
-                        String error = (String) responseBody.get("error");
-                        String errorCode = (String) responseBody.get("errorCode");
-
-                        if (callback != null) {
-                            callback.onError(
-                                    error != null ? error : "Purchase failed",
-                                    errorCode != null ? errorCode : "PURCHASE_FAILED"
-                            );
-                        }
-                    }
-                } else if (context != null) {
-                    try {
-                        String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
-
-                        if (errorJson != null) {
-                            JSONObject errorObj = new JSONObject(errorJson);
-                            String errorMessage = errorObj.optString("error", "Validation failed");
-                            String errorCode = errorObj.optString("errorCode", "VALIDATION_FAILED");
-
-                            callback.onError(errorMessage, errorCode);
-                        } else {
-                            callback.onError("Unknown server error", "UNKNOWN_ERROR");
-                        }
-                    } catch (Exception e) {
-                        callback.onError("Failed to parse error: " + e.getMessage(), "ERROR_PARSE_FAILED");
-                    }
+                if (InAppConstants.TYPE_SUBSCRIPTION.equals(session.getItem().getType())) {
+                    subscriptionTracker.update(userId, productId, true, data);
+                }
+                endSession();
+                stateMachine.transition(productId, PurchaseStateMachine.State.PROCESSING,
+                        PurchaseStateMachine.State.DONE);
+                if (callback != null) {
+                    callback.onSuccess(message, data);
                 }
-                contextManager.reset();
             }
 
             @Override
-            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+            public void onError(String error, String errorCode) {
                 PurchaseCallback callback = contextManager.getCurrentPurchaseCallback();
+                if (InAppPayClient.isOutcomeUnknown(errorCode)) {
+                    // The back-end may have charged: keep the record so resumePurchase() can ask
+                    contextManager.reset();
+                } else {
+                    endSession();
+                }
+                stateMachine.abort(productId);
                 if (callback != null) {
-                    callback.onError("Network error: " + t.getMessage(), "NETWORK_ERROR");
+                    callback.onError(error, errorCode);
                 }
-                contextManager.reset();
             }
         });
-    }
-
-    // Helper method to detect card type
-    private String detectCardType(String cardNumber) {
-        if (cardNumber == null || cardNumber.isEmpty()) {
-            return "unknown";
+        // From here on the back-end may charge: a resumed flow must not reopen the dialog
+        if (sessionStore != null) {
+            sessionStore.markSubmitted(projectName, userId, session, send);
+        } else {
+            send.run();
         }
+    }
 
-        String cleanNumber = cardNumber.replaceAll("\\s+", "");
-
-        if (cleanNumber.startsWith("4")) {
-            return "visa";
-        } else if (cleanNumber.startsWith("5") || cleanNumber.startsWith("2")) {
-            return "mastercard";
-        } else if (cleanNumber.startsWith("3")) {
-            return "amex";
-        } else if (cleanNumber.startsWith("6")) {
-            return "discover";
+    private static void wipe(PaymentDetails paymentDetails) {
+        if (paymentDetails.getCard() != null) {
+            paymentDetails.getCard().wipe();
         }
-
-        return "unknown";
     }
 
     /**
@@ -0,0 +1,300 @@
+package com.dev.inapppaysdk.admin;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.RequestPriority;
+import com.dev.inapppaysdk.api.RequestScheduler;
+import com.dev.inapppaysdk.callbacks.BatchCallback;
+import com.dev.inapppaysdk.tenant.Tenant;
+import com.dev.inapppaysdk.tenant.TenantRegistry;
+import com.dev.inapppaysdk.utils.SdkLog;
+import com.dev.inapppaysdk.utils.UiThread;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Checks purchases and subscriptions of many (user, product) pairs, e.g. for
+ * an internal support app. Unlike {@link com.dev.inapppaysdk.InAppPaySDK},
+ * which always asks about the device's own user, every query names its user.
+ *
+ * <p>Queries go through the same {@code checkUserPurchased} and
+ * {@code checkUserSubscribed} endpoints, at background priority. At most
+ * {@code parallelism} calls are in flight; the next query is only sent when
+ * one of them returns, so a run of thousands of pairs never floods the
+ * dispatcher or the back-end. Duplicate queries are sent once.</p>
+ *
+ * <p>With a {@link RequestScheduler}, parallelism is capped at the slots it
+ * grants background calls, so the batch itself never waits in the
+ * scheduler's queue and cannot overflow it. Other background traffic may
+ * still hold slots; a check shed because it waited too long behind it is
+ * reported as {@code FAILED} with {@code NETWORK_ERROR}. Hedged attempts
+ * do not take scheduler slots.</p>
+ *
+ * <pre>{@code
+ * List<EntitlementQuery> queries = new ArrayList<>();
+ * for (String user : userIds) queries.add(EntitlementQuery.purchase(user, "premium"));
+ * new BatchChecker("my-project", 4).run(queries, new BatchCallback() {
+ *     public void onProgress(BatchReport.Result r, int done, int total) { progress.setProgress(done); }
+ *     public void onComplete(BatchReport report) { show(report.filter(BatchReport.Status.FAILED)); }
+ * });
+ * }</pre>
+ */
+public class BatchChecker {
+    public static final int DEFAULT_PARALLELISM = 4;
+    /**
+     * Upper bound without a {@link RequestScheduler}: every check goes to the
+     * same host, and OkHttp runs at most 5 requests per host by default.
+     */
+    public static final int MAX_PARALLELISM = 5;
+
+    private final String projectName;
+    private final InAppApiService apiService;
+    private final int parallelism;
+
+    /** Uses the project's transport and {@link #DEFAULT_PARALLELISM}. */
+    public BatchChecker(String projectName) {
+        this(projectName, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Uses the project's {@link Tenant} transport.
+     *
+     * @param parallelism calls in flight at once, 1 to
+     *                    {@link #maxParallelism(RequestScheduler)}
+     */
+    public BatchChecker(String projectName, int parallelism) {
+        this(projectName, serviceOf(projectName), parallelism, ApiClient.getConfig().getScheduler());
+    }
+
+    // Only the service is kept, and it outlives the tenant's eviction
+    private static InAppApiService serviceOf(String projectName) {
+        TenantRegistry registry = TenantRegistry.getInstance();
+        Tenant tenant = registry.acquire(projectName);
+        registry.release(tenant);
+        return tenant.getApiService();
+    }
+
+    /** Sends through {@code apiService}, whose calls are not scheduled. */
+    public BatchChecker(String projectName, InAppApiService apiService, int parallelism) {
+        this(projectName, apiService, parallelism, null);
+    }
+
+    /**
+     * @param scheduler the scheduler {@code apiService}'s calls go through,
+     *                  or {@code null}
+     */
+    public BatchChecker(String projectName, InAppApiService apiService, int parallelism,
+                        RequestScheduler scheduler) {
+        if (projectName == null || projectName.isEmpty()) {
+            throw new IllegalArgumentException("Project name is required");
+        }
+        this.projectName = projectName;
+        this.apiService = apiService;
+        this.parallelism = Math.max(1, Math.min(maxParallelism(scheduler), parallelism));
+    }
+
+    /**
+     * @return the most checks kept in flight when calls go through
+     *         {@code scheduler}, or {@link #MAX_PARALLELISM} without one
+     */
+    public static int maxParallelism(RequestScheduler scheduler) {
+        return scheduler != null
+                ? scheduler.getMaxConcurrent(RequestPriority.BACKGROUND)
+                : MAX_PARALLELISM;
+    }
+
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Starts checking {@code queries}; results stream to
+     * {@link BatchCallback#onProgress} and are collected into the
+     * {@link BatchReport} passed to {@link BatchCallback#onComplete}.
+     *
+     * @return handle to follow or cancel the run
+     */
+    public Batch run(Collection<EntitlementQuery> queries, BatchCallback callback) {
+        Batch batch = new Batch(new ArrayList<>(new LinkedHashSet<>(queries)), callback);
+        batch.pump();
+        return batch;
+    }
+
+    /** A running {@link #run}. Thread-safe. */
+    public final class Batch {
+        private final List<EntitlementQuery> queries;
+        private final BatchReport.Result[] results;
+        private final Call<?>[] calls;
+        private final BatchCallback callback;
+        private final long startedAt = System.currentTimeMillis();
+        private int next;
+        private int inFlight;
+        private int completed;
+        private boolean cancelled;
+        private boolean finished;
+
+        Batch(List<EntitlementQuery> queries, BatchCallback callback) {
+            this.queries = queries;
+            this.results = new BatchReport.Result[queries.size()];
+            this.calls = new Call<?>[queries.size()];
+            this.callback = callback;
+        }
+
+        public synchronized int getCompleted() { return completed; }
+        public int getTotal() { return queries.size(); }
+
+        /**
+         * Stops sending queries and cancels those in flight;
+         * {@link BatchCallback#onComplete} then reports what completed.
+         */
+        public void cancel() {
+            List<Call<?>> running = new ArrayList<>();
+            synchronized (this) {
+                if (finished || cancelled) {
+                    return;
+                }
+                cancelled = true;
+                for (int i = 0; i < calls.length; i++) {
+                    if (calls[i] != null) {
+                        running.add(calls[i]);
+                        calls[i] = null;
+                    }
+                }
+                inFlight = 0;
+            }
+            for (Call<?> call : running) {
+                call.cancel();
+            }
+            finish();
+        }
+
+        // Fills the free slots; called again whenever a call returns
+        void pump() {
+            while (true) {
+                int index;
+                synchronized (this) {
+                    if (cancelled || inFlight >= parallelism || next >= queries.size()) {
+                        break;
+                    }
+                    index = next++;
+                    inFlight++;
+                }
+                send(index);
+            }
+            boolean done;
+            synchronized (this) {
+                done = completed == queries.size();
+            }
+            if (done) {
+                finish();
+            }
+        }
+
+        private void send(int index) {
+            EntitlementQuery query = queries.get(index);
+            Map<String, Object> requestData = new HashMap<>();
+            requestData.put("projectName", projectName);
+            requestData.put("productId", query.getProductId());
+            requestData.put("userId", query.getUserId());
+            Call<Map<String, Object>> call = query.getKind() == EntitlementQuery.Kind.PURCHASE
+                    ? apiService.checkUserPurchased(requestData)
+                    : apiService.checkUserSubscribed(requestData);
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                calls[index] = call;
+            }
+            call.enqueue(new Callback<Map<String, Object>>() {
+                @Override
+                public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                    complete(index, toResult(query, response));
+                }
+
+                @Override
+                public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                    if (!call.isCanceled()) {
+                        SdkLog.w(SdkLog.Category.NETWORK, "Batch check of {} failed", query, t);
+                    }
+                    complete(index, new BatchReport.Result(query, BatchReport.Status.FAILED, null,
+                            "Network error: " + t.getMessage(), "NETWORK_ERROR"));
+                }
+            });
+        }
+
+        private void complete(int index, BatchReport.Result result) {
+            int done;
+            synchronized (this) {
+                if (cancelled || results[index] != null) {
+                    return;
+                }
+                results[index] = result;
+                calls[index] = null;
+                inFlight--;
+                done = ++completed;
+            }
+            UiThread.run(() -> callback.onProgress(result, done, queries.size()));
+            pump();
+        }
+
+        private void finish() {
+            BatchReport report;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                List<BatchReport.Result> list = new ArrayList<>(completed);
+                for (BatchReport.Result result : results) {
+                    if (result != null) {
+                        list.add(result);
+                    }
+                }
+                report = new BatchReport(list, queries.size(), cancelled,
+                        System.currentTimeMillis() - startedAt);
+            }
+            UiThread.run(() -> callback.onComplete(report));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BatchReport.Result toResult(EntitlementQuery query, Response<Map<String, Object>> response) {
+        Map<String, Object> body = response.body();
+        boolean purchase = query.getKind() == EntitlementQuery.Kind.PURCHASE;
+        if (response.isSuccessful() && body != null) {
+            if (Boolean.TRUE.equals(body.get("success")) && body.get("data") instanceof Map) {
+                Map<String, Object> data = (Map<String, Object>) body.get("data");
+                boolean owned = Boolean.TRUE.equals(data.get(purchase ? "purchased" : "subscribed"));
+                Object details = data.get(purchase ? "purchaseData" : "subscriptionData");
+                return new BatchReport.Result(query, owned ? BatchReport.Status.OWNED : BatchReport.Status.NOT_OWNED,
+                        details instanceof Map ? (Map<String, Object>) details : null, null, null);
+            }
+            Object message = body.get("message"); // the check functions report errors as "message"
+            return new BatchReport.Result(query, BatchReport.Status.FAILED, null,
+                    message instanceof String ? (String) message : "Failed to check status", "CHECK_FAILED");
+        }
+        String error = "Unknown server error";
+        String errorCode = "UNKNOWN_ERROR";
+        try {
+            String errorJson = response.errorBody() != null ? response.errorBody().string() : null;
+            if (errorJson != null) {
+                JSONObject errorObj = new JSONObject(errorJson);
+                error = errorObj.optString("error", error);
+                errorCode = errorObj.optString("errorCode", errorCode);
+            }
+        } catch (Exception e) {
+            error = "Failed to parse error: " + e.getMessage();
+            errorCode = "ERROR_PARSE_FAILED";
+        }
+        return new BatchReport.Result(query, BatchReport.Status.FAILED, null, error, errorCode);
+    }
+}
@@ -0,0 +1,87 @@
+package com.dev.inapppaysdk.admin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a {@link BatchChecker} run: one {@link Result} per distinct
+ * query, in input order. A cancelled run only holds the results that
+ * completed before {@link BatchChecker.Batch#cancel()}.
+ */
+public class BatchReport {
+    public enum Status { OWNED, NOT_OWNED, FAILED }
+
+    private final List<Result> results;
+    private final int total;
+    private final boolean cancelled;
+    private final long elapsedMs;
+
+    BatchReport(List<Result> results, int total, boolean cancelled, long elapsedMs) {
+        this.results = Collections.unmodifiableList(results);
+        this.total = total;
+        this.cancelled = cancelled;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<Result> getResults() { return results; }
+    /** @return number of distinct queries in the run, completed or not */
+    public int getTotal() { return total; }
+    public boolean isCancelled() { return cancelled; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    public int getOwnedCount() { return count(Status.OWNED); }
+    public int getNotOwnedCount() { return count(Status.NOT_OWNED); }
+    public int getFailedCount() { return count(Status.FAILED); }
+
+    /** @return the results with the given status, e.g. failures to run again */
+    public List<Result> filter(Status status) {
+        List<Result> matching = new ArrayList<>();
+        for (Result result : results) {
+            if (result.status == status) {
+                matching.add(result);
+            }
+        }
+        return matching;
+    }
+
+    private int count(Status status) {
+        int count = 0;
+        for (Result result : results) {
+            if (result.status == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Answer of the back-end for one query. */
+    public static class Result {
+        private final EntitlementQuery query;
+        private final Status status;
+        private final Map<String, Object> data;
+        private final String error;
+        private final String errorCode;
+
+        Result(EntitlementQuery query, Status status, Map<String, Object> data, String error, String errorCode) {
+            this.query = query;
+            this.status = status;
+            this.data = data;
+            this.error = error;
+            this.errorCode = errorCode;
+        }
+
+        public EntitlementQuery getQuery() { return query; }
+        public Status getStatus() { return status; }
+        /** @return {@code purchaseData} or {@code subscriptionData}, if any */
+        public Map<String, Object> getData() { return data; }
+        public String getError() { return error; }
+        public String getErrorCode() { return errorCode; }
+
+        @Override
+        public String toString() {
+            return query + " " + status + (errorCode != null ? " (" + errorCode + ")" : "");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.dev.inapppaysdk.admin;
+
+import java.util.Objects;
+
+/**
+ * One (user, product) pair to check in a {@link BatchChecker} run, either
+ * for a purchase ({@code checkUserPurchased}) or an active subscription
+ * ({@code checkUserSubscribed}). Immutable; equal queries are checked once.
+ */
+public final class EntitlementQuery {
+    public enum Kind { PURCHASE, SUBSCRIPTION }
+
+    private final String userId;
+    private final String productId;
+    private final Kind kind;
+
+    public EntitlementQuery(String userId, String productId, Kind kind) {
+        if (userId == null || userId.isEmpty() || productId == null || productId.isEmpty() || kind == null) {
+            throw new IllegalArgumentException("userId, productId and kind are required");
+        }
+        this.userId = userId;
+        this.productId = productId;
+        this.kind = kind;
+    }
+
+    public static EntitlementQuery purchase(String userId, String productId) {
+        return new EntitlementQuery(userId, productId, Kind.PURCHASE);
+    }
+
+    public static EntitlementQuery subscription(String userId, String productId) {
+        return new EntitlementQuery(userId, productId, Kind.SUBSCRIPTION);
+    }
+
+    public String getUserId() { return userId; }
+    public String getProductId() { return productId; }
+    public Kind getKind() { return kind; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EntitlementQuery)) return false;
+        EntitlementQuery other = (EntitlementQuery) o;
+        return kind == other.kind && userId.equals(other.userId) && productId.equals(other.productId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, productId, kind);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "{" + userId + ", " + productId + "}";
+    }
+}
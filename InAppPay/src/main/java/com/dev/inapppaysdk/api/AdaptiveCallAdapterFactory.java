@@ -0,0 +1,313 @@
+package com.dev.inapppaysdk.api;
+
+import com.dev.inapppaysdk.utils.FlightRecorder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.POST;
+
+/**
+ * Retrofit {@link CallAdapter.Factory} that gives every endpoint an adaptive
+ * timeout and hedges idempotent reads.
+ *
+ * <ul>
+ *   <li><strong>Timeout</strong> &mdash; each call gets an OkHttp call
+ *       timeout of {@code p99 × factor}, clamped to the endpoint's
+ *       {@link TimeoutBounds}. Until {@link #MIN_SAMPLES} calls have completed
+ *       the ceiling applies.</li>
+ *   <li><strong>Hedging</strong> &mdash; for {@link Idempotent} endpoints, a
+ *       second identical request is fired if the first has not answered by the
+ *       endpoint's p95. The first response wins; the other attempt is
+ *       cancelled.</li>
+ * </ul>
+ *
+ * <p>The adapter wraps the raw network call before Retrofit's default adapter
+ * hops to the callback executor, so latencies are measured on the network
+ * thread. Failed calls are recorded too, as a lower bound: a call that timed
+ * out counts as taking its full timeout. Otherwise a slow back-end would only
+ * show its fast answers and the timeout would keep shrinking.</p>
+ */
+public class AdaptiveCallAdapterFactory extends CallAdapter.Factory {
+    /** Samples needed before the histogram is trusted. */
+    public static final int MIN_SAMPLES = 20;
+
+    private static final long DEFAULT_FLOOR_MS = 2_000;
+    private static final long DEFAULT_CEILING_MS = 30_000;
+
+    private final LatencyTracker tracker;
+    private final double factor;
+    private final boolean hedging;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param tracker latency store shared by all endpoints
+     * @param factor  multiplier applied to p99 to derive the timeout
+     * @param hedging whether {@link Idempotent} calls may be hedged
+     * @param timer   schedules hedge attempts
+     */
+    public AdaptiveCallAdapterFactory(LatencyTracker tracker, double factor, boolean hedging,
+                                      ScheduledExecutorService timer) {
+        this.tracker = tracker;
+        this.factor = factor;
+        this.hedging = hedging;
+        this.timer = timer;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Object> delegate =
+                (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+
+        String endpoint = null;
+        long floorMs = DEFAULT_FLOOR_MS;
+        long ceilingMs = DEFAULT_CEILING_MS;
+        boolean idempotent = false;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof POST) {
+                endpoint = ((POST) annotation).value();
+            } else if (annotation instanceof TimeoutBounds) {
+                floorMs = ((TimeoutBounds) annotation).floorMs();
+                ceilingMs = ((TimeoutBounds) annotation).ceilingMs();
+            } else if (annotation instanceof Idempotent) {
+                idempotent = true;
+            }
+        }
+        if (endpoint == null) {
+            return delegate;
+        }
+
+        final Policy policy = new Policy(endpoint, floorMs, ceilingMs, hedging && idempotent);
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return delegate.adapt(new AdaptiveCall<>(call, policy));
+            }
+        };
+    }
+
+    /** @return the call timeout currently applied to {@code endpoint} */
+    long timeoutMs(Policy policy) {
+        LatencyHistogram histogram = tracker.histogram(policy.endpoint);
+        if (histogram.size() < MIN_SAMPLES) {
+            return policy.ceilingMs;
+        }
+        long adaptive = (long) (histogram.percentileMs(99) * factor);
+        return Math.max(policy.floorMs, Math.min(policy.ceilingMs, adaptive));
+    }
+
+    /** @return delay after which a hedge is fired, or -1 to not hedge */
+    long hedgeDelayMs(Policy policy) {
+        if (!policy.hedged) {
+            return -1;
+        }
+        LatencyHistogram histogram = tracker.histogram(policy.endpoint);
+        return histogram.size() < MIN_SAMPLES ? -1 : histogram.percentileMs(95);
+    }
+
+    static final class Policy {
+        final String endpoint;
+        final long floorMs;
+        final long ceilingMs;
+        final boolean hedged;
+
+        Policy(String endpoint, long floorMs, long ceilingMs, boolean hedged) {
+            this.endpoint = endpoint;
+            this.floorMs = floorMs;
+            this.ceilingMs = ceilingMs;
+            this.hedged = hedged;
+        }
+    }
+
+    /** Call wrapper applying the timeout, recording latency and hedging. */
+    final class AdaptiveCall<T> implements Call<T> {
+        private final Call<T> primary;
+        private final Policy policy;
+        private volatile Call<T> hedge;
+        private volatile ScheduledFuture<?> hedgeTimer;
+        // Tracked separately: the losing attempt is cancelled, the call is not
+        private volatile boolean canceled;
+
+        AdaptiveCall(Call<T> primary, Policy policy) {
+            this.primary = primary;
+            this.policy = policy;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            long timeout = timeoutMs(policy);
+            primary.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+            long start = System.nanoTime();
+            Response<T> response;
+            try {
+                response = primary.execute();
+            } catch (IOException e) {
+                if (!primary.isCanceled()) {
+                    recordFailure(start, timeout, e);
+                }
+                throw e;
+            }
+            tracker.record(policy.endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return response;
+        }
+
+        // Censored sample: the call took at least this long, or its whole
+        // timeout if that is what ended it
+        private void recordFailure(long start, long timeout, Throwable t) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            tracker.record(policy.endpoint, t instanceof InterruptedIOException ? Math.max(elapsed, timeout) : elapsed);
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            final long timeout = timeoutMs(policy);
+            final long start = System.nanoTime();
+            final AtomicBoolean delivered = new AtomicBoolean();
+            final AtomicInteger outstanding = new AtomicInteger(1);
+
+            primary.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+            primary.enqueue(new Attempt(callback, start, timeout, delivered, outstanding));
+
+            long hedgeDelay = hedgeDelayMs(policy);
+            if (hedgeDelay >= 0 && hedgeDelay < timeout) {
+                hedgeTimer = timer.schedule(() -> {
+                    if (delivered.get() || canceled) {
+                        return;
+                    }
+                    Call<T> second = primary.clone();
+                    second.timeout().timeout(timeout - hedgeDelay, TimeUnit.MILLISECONDS);
+                    hedge = second;
+                    // A result or cancel() that came before hedge was set could not cancel it
+                    if (delivered.get() || canceled) {
+                        second.cancel();
+                        return;
+                    }
+                    outstanding.incrementAndGet();
+                    FlightRecorder.getInstance().record(FlightRecorder.RETRY, policy.endpoint, "hedge", 2);
+                    second.enqueue(new Attempt(callback, start, timeout, delivered, outstanding));
+                }, hedgeDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /** One network attempt; the first to finish delivers the result. */
+        private final class Attempt implements Callback<T> {
+            private final Callback<T> callback;
+            private final long start;
+            private final long timeout;
+            private final AtomicBoolean delivered;
+            private final AtomicInteger outstanding;
+
+            Attempt(Callback<T> callback, long start, long timeout, AtomicBoolean delivered,
+                    AtomicInteger outstanding) {
+                this.callback = callback;
+                this.start = start;
+                this.timeout = timeout;
+                this.delivered = delivered;
+                this.outstanding = outstanding;
+            }
+
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                outstanding.decrementAndGet();
+                if (!delivered.compareAndSet(false, true)) {
+                    return;
+                }
+                tracker.record(policy.endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                cancelOthers(call);
+                callback.onResponse(AdaptiveCall.this, response);
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                // A failed attempt only counts once no other attempt can still succeed
+                if (outstanding.decrementAndGet() > 0 && !isCanceled()) {
+                    return;
+                }
+                if (!delivered.compareAndSet(false, true)) {
+                    return;
+                }
+                if (!isCanceled()) {
+                    recordFailure(start, timeout, t);
+                }
+                cancelOthers(call);
+                callback.onFailure(AdaptiveCall.this, t);
+            }
+
+            private void cancelOthers(Call<T> winner) {
+                ScheduledFuture<?> pending = hedgeTimer;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                if (winner != primary) {
+                    primary.cancel();
+                }
+                Call<T> second = hedge;
+                if (second != null && winner != second) {
+                    second.cancel();
+                }
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return primary.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            ScheduledFuture<?> pending = hedgeTimer;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            primary.cancel();
+            Call<T> second = hedge;
+            if (second != null) {
+                second.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new AdaptiveCall<>(primary.clone(), policy);
+        }
+
+        @Override
+        public Request request() {
+            return primary.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return primary.timeout();
+        }
+    }
+}
@@ -1,50 +1,311 @@
 package com.dev.inapppaysdk.api;
 
+import com.dev.inapppaysdk.utils.SdkLog;
+import com.dev.inapppaysdk.utils.SdkTrace;
+
 import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.brotli.BrotliInterceptor;
 import okhttp3.logging.HttpLoggingInterceptor;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Singleton Retrofit API client for communicating with Firebase Cloud Functions.
+ *
+ * <p>The OkHttp client, Retrofit instance and default service are built
+ * together on first use and published through a single atomic reference, so
+ * every thread sees the same connection pool. Initialisation is lock-free:
+ * threads racing on first use may each build a candidate, but only one is
+ * published and the others are dropped before they open a connection or
+ * start a thread. {@link #shutdown()} releases the pool and every SDK
+ * thread.</p>
  */
 public class ApiClient {
-    private static final String BASE_URL = "https://us-central1-inapppay-47111.cloudfunctions.net";
-    private static Retrofit retrofit = null;
-    private static InAppApiService apiService = null;
+    private static volatile ApiConfig config = ApiConfig.defaults();
+    private static final AtomicReference<Transport> transport = new AtomicReference<>();
+    private static final AtomicReference<ScheduledExecutorService> timer = new AtomicReference<>();
+    private static final LatencyTracker latencyTracker = new LatencyTracker();
+
+    /**
+     * Replaces the transport configuration. Must be called before the first
+     * {@code InAppPaySDK} is created; services handed out earlier keep the
+     * previous configuration.
+     *
+     * @param apiConfig the new configuration
+     */
+    public static void configure(ApiConfig apiConfig) {
+        config = apiConfig != null ? apiConfig : ApiConfig.defaults();
+        Transport previous = transport.getAndSet(null);
+        if (previous != null) {
+            previous.retire();
+        }
+    }
+
+    /** @return the configuration new services are built with */
+    public static ApiConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Releases the connection pool and stops the dispatcher, probe and timer
+     * threads. In-flight calls are cancelled and services obtained earlier
+     * must not be used again; the next {@link #getApiService()} starts afresh
+     * with the current configuration.
+     */
+    public static void shutdown() {
+        Transport previous = transport.getAndSet(null);
+        if (previous != null) {
+            previous.shutdown();
+        }
+        ScheduledExecutorService previousTimer = timer.getAndSet(null);
+        if (previousTimer != null) {
+            previousTimer.shutdownNow();
+        }
+    }
 
     /**
      * Provides singleton access to the API service interface.
      */
     public static InAppApiService getApiService() {
-        if (apiService == null) {
-            apiService = getRetrofitInstance().create(InAppApiService.class);
+        return transport().apiService;
+    }
+
+    /**
+     * Finishes SDK initialisation on a background thread so the first
+     * {@code buy()} does not pay for it: builds the OkHttp client and Retrofit
+     * instance, parses every {@link InAppApiService} method and resolves the
+     * crypto providers used for card tokenization. Call it early, e.g. from
+     * {@code Application.onCreate()}; calling it again is cheap.
+     */
+    public static void warmUp() {
+        getTimer().execute(() -> {
+            warmUp(getApiService());
+            CardTokenizer.warmUp();
+        });
+    }
+
+    /**
+     * Makes Retrofit parse every method of {@code service} now. Invoking a
+     * method only builds its (never executed) {@code Call}; the annotations,
+     * converters and call adapters it resolves are cached for real calls.
+     */
+    static void warmUp(InAppApiService service) {
+        SdkTrace.begin(SdkTrace.WARM_UP);
+        try {
+            for (Method method : InAppApiService.class.getMethods()) {
+                method.invoke(service, new Object[method.getParameterTypes().length]);
+            }
+        } catch (ReflectiveOperationException ignored) {
+            // a broken method fails again, with a proper error, when called
+        } finally {
+            SdkTrace.end();
+        }
+    }
+
+    /** Runs {@link #warmUp(InAppApiService)} on the SDK's background thread. */
+    public static void warmUpAsync(InAppApiService service) {
+        getTimer().execute(() -> warmUp(service));
+    }
+
+    /**
+     * @return observed per-endpoint latencies, shared by all configurations
+     */
+    public static LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * @return per-region latency and health, or {@code null} unless several
+     *         regions are configured and the service has been created
+     */
+    public static RegionSelector getRegionSelector() {
+        Transport current = transport.get();
+        return current != null ? current.regionSelector : null;
+    }
+
+    /**
+     * Creates a service with its own latency statistics on top of the shared
+     * connection pool, e.g. one per tenant. Adaptive timeouts of the returned
+     * service only learn from its own calls.
+     *
+     * @param tracker latency store for this service's endpoints
+     */
+    public static InAppApiService createApiService(LatencyTracker tracker) {
+        SdkTrace.begin(SdkTrace.RETROFIT);
+        try {
+            Transport current = transport();
+            return buildRetrofit(current.config, current.httpClient, tracker)
+                    .create(InAppApiService.class);
+        } finally {
+            SdkTrace.end();
+        }
+    }
+
+    /**
+     * Returns the published transport of the current configuration, building
+     * it on first use. Losing a publication race costs one discarded, unused
+     * candidate; nothing it owns has been started yet.
+     */
+    private static Transport transport() {
+        while (true) {
+            ApiConfig current = config;
+            Transport published = transport.get();
+            if (published != null && published.config == current) {
+                return published;
+            }
+            Transport candidate = new Transport(current);
+            if (transport.compareAndSet(published, candidate)) {
+                if (published != null) {
+                    published.retire();
+                }
+                candidate.start();
+                return candidate;
+            }
+        }
+    }
+
+    private static Retrofit buildRetrofit(ApiConfig config, OkHttpClient client, LatencyTracker tracker) {
+        Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl(config.getBaseUrl())
+                .client(client)
+                .addConverterFactory(config.getConverterFactory());
+        if (config.isAdaptiveTimeouts()) {
+            builder.addCallAdapterFactory(new AdaptiveCallAdapterFactory(
+                    tracker, config.getTimeoutFactor(), config.isHedging(), getTimer()));
         }
-        return apiService;
+        RequestScheduler scheduler = config.getScheduler();
+        if (scheduler != null) {
+            // Added after the adaptive factory so it wraps it: queue time
+            // does not count towards observed latency
+            builder.addCallAdapterFactory(new ScheduledCallAdapterFactory(scheduler));
+        }
+        return builder.build();
     }
 
     /**
-     * Builds and returns a configured Retrofit instance.
+     * @return the OkHttp client (connection pool, dispatcher, interceptors)
+     *         shared by every service of the current configuration
      */
-    private static Retrofit getRetrofitInstance() {
-        if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY); // Log request/response bodies
+    static OkHttpClient getHttpClient() {
+        return transport().httpClient;
+    }
 
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS)
-                    .build();
+    /**
+     * @return the SDK's background timer thread, for short non-blocking tasks;
+     *         recreated on demand after {@link #shutdown()}
+     */
+    public static ScheduledExecutorService getTimer() {
+        while (true) {
+            ScheduledExecutorService published = timer.get();
+            if (published != null) {
+                return published;
+            }
+            // The worker thread starts with the first task, so a losing
+            // candidate owns no thread yet
+            ScheduledExecutorService candidate = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "InAppPay-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (timer.compareAndSet(null, candidate)) {
+                return candidate;
+            }
+            candidate.shutdownNow();
+        }
+    }
+
+    /**
+     * Everything built from one {@link ApiConfig}: published as a unit so a
+     * service never pairs with another configuration's client.
+     */
+    private static final class Transport {
+        final ApiConfig config;
+        final OkHttpClient httpClient;
+        final RegionSelector regionSelector;
+        final InAppApiService apiService;
+
+        Transport(ApiConfig config) {
+            this.config = config;
+            SdkTrace.begin(SdkTrace.HTTP_CLIENT);
+            try {
+                // Through SdkLog, so card fields are redacted and the category level applies
+                HttpLoggingInterceptor logging = new HttpLoggingInterceptor(
+                        message -> SdkLog.i(SdkLog.Category.NETWORK, message));
+                logging.setLevel(config.getHttpLogLevel()); // Log request/response bodies by default
+
+                OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
+                if (config.getRegions().size() > 1) {
+                    // First, so later interceptors and the logger see the routed URL
+                    regionSelector = new RegionSelector(config.getRegions());
+                    clientBuilder.addInterceptor(new RegionInterceptor(regionSelector));
+                } else {
+                    regionSelector = null;
+                }
+                RequestScheduler scheduler = config.getScheduler();
+                if (scheduler != null) {
+                    // The scheduler is the real limit; leave headroom for hedged attempts
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequestsPerHost(Math.max(5, scheduler.getMaxConcurrent() * 2));
+                    clientBuilder.dispatcher(dispatcher);
+                }
+                if (config.isBrotliResponses()) {
+                    // Adds "Accept-Encoding: br,gzip" and decodes the response
+                    clientBuilder.addInterceptor(BrotliInterceptor.INSTANCE);
+                }
+                if (config.isCompressRequests()) {
+                    clientBuilder.addInterceptor(new GzipRequestInterceptor(config.getGzipMinBytes()));
+                }
+
+                // With adaptive timeouts the per-call timeout is the real bound, so
+                // reads/writes may block up to the longest endpoint ceiling
+                long ioTimeoutSeconds = config.isAdaptiveTimeouts() ? 60 : 30;
+                httpClient = clientBuilder
+                        // Skipped entirely, bodies and all, while network logging is off
+                        .addInterceptor(chain -> SdkLog.isLoggable(SdkLog.Level.INFO, SdkLog.Category.NETWORK)
+                                ? logging.intercept(chain)
+                                : chain.proceed(chain.request()))
+                        .connectTimeout(30, TimeUnit.SECONDS)
+                        .readTimeout(ioTimeoutSeconds, TimeUnit.SECONDS)
+                        .writeTimeout(ioTimeoutSeconds, TimeUnit.SECONDS)
+                        .build();
+            } finally {
+                SdkTrace.end();
+            }
+            SdkTrace.begin(SdkTrace.RETROFIT);
+            try {
+                apiService = buildRetrofit(config, httpClient, latencyTracker).create(InAppApiService.class);
+            } finally {
+                SdkTrace.end();
+            }
+        }
+
+        // Only the published transport may start threads
+        void start() {
+            if (regionSelector != null) {
+                regionSelector.startProbing(httpClient, getTimer(), config.getProbeIntervalMs());
+            }
+        }
+
+        // Replaced by a new configuration: services handed out earlier keep
+        // working, but idle connections and probes are dropped
+        void retire() {
+            if (regionSelector != null) {
+                regionSelector.stopProbing();
+            }
+            httpClient.connectionPool().evictAll();
+        }
 
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
+        void shutdown() {
+            retire();
+            httpClient.dispatcher().cancelAll();
+            httpClient.dispatcher().executorService().shutdown();
+            // Cancelled calls release their connections; drop those too
+            httpClient.connectionPool().evictAll();
         }
-        return retrofit;
     }
 }
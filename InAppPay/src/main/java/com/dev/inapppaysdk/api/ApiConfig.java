@@ -0,0 +1,255 @@
+package com.dev.inapppaysdk.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.Converter;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Immutable transport configuration consumed by {@link ApiClient}.
+ *
+ * <p>The defaults reproduce the SDK's historical behaviour (plain JSON via
+ * Gson, no request compression, fixed 30 s timeouts, no hedging or
+ * request scheduling). Opt into the compact transport with
+ * {@link Builder#compressRequests(boolean)} and
+ * {@link Builder#brotliResponses(boolean)}, or plug a different wire format
+ * (CBOR, protobuf, ...) through {@link Builder#converterFactory(Converter.Factory)}
+ * when your back-end speaks it.</p>
+ *
+ * <pre>{@code
+ * ApiClient.configure(new ApiConfig.Builder()
+ *         .compressRequests(true)
+ *         .brotliResponses(true)
+ *         .build());
+ * }</pre>
+ *
+ * <p>To serve users from the nearest deployment, declare every regional base
+ * URL with {@link Builder#region(String, String)}; {@link RegionSelector} then
+ * routes each call to the fastest healthy region.</p>
+ */
+public class ApiConfig {
+    /** Production Cloud Functions endpoint. */
+    public static final String DEFAULT_BASE_URL = "https://us-central1-inapppay-47111.cloudfunctions.net";
+    /** Request bodies smaller than this are not worth compressing. */
+    public static final long DEFAULT_GZIP_MIN_BYTES = 512;
+    /** Interval between background latency probes of each region. */
+    public static final long DEFAULT_PROBE_INTERVAL_MS = 60_000;
+
+    private final String baseUrl;
+    private final HttpLoggingInterceptor.Level httpLogLevel;
+    private final boolean adaptiveTimeouts;
+    private final double timeoutFactor;
+    private final boolean hedging;
+    private final RequestScheduler scheduler;
+    private final boolean compressRequests;
+    private final long gzipMinBytes;
+    private final boolean brotliResponses;
+    private final Converter.Factory converterFactory;
+    private final Map<String, String> regions;
+    private final long probeIntervalMs;
+    private final boolean plaintextCardFallback;
+
+    private ApiConfig(Builder builder) {
+        // With regions, the first one declared is the base Retrofit resolves against
+        this.baseUrl = builder.regions.isEmpty() ? builder.baseUrl : builder.regions.values().iterator().next();
+        this.httpLogLevel = builder.httpLogLevel;
+        this.adaptiveTimeouts = builder.adaptiveTimeouts;
+        this.timeoutFactor = builder.timeoutFactor;
+        this.hedging = builder.hedging;
+        this.scheduler = builder.priorityScheduling
+                ? (builder.scheduler != null ? builder.scheduler : new RequestScheduler())
+                : null;
+        this.compressRequests = builder.compressRequests;
+        this.gzipMinBytes = builder.gzipMinBytes;
+        this.brotliResponses = builder.brotliResponses;
+        this.converterFactory = builder.converterFactory != null
+                ? builder.converterFactory
+                : GsonConverterFactory.create(JsonMapAdapter.gson());
+        this.regions = Collections.unmodifiableMap(new LinkedHashMap<>(builder.regions));
+        this.probeIntervalMs = builder.probeIntervalMs;
+        this.plaintextCardFallback = builder.plaintextCardFallback;
+    }
+
+    /** @return the configuration used when {@link ApiClient#configure} is never called */
+    public static ApiConfig defaults() {
+        return new Builder().build();
+    }
+
+    public String getBaseUrl() { return baseUrl; }
+    public HttpLoggingInterceptor.Level getHttpLogLevel() { return httpLogLevel; }
+    public boolean isAdaptiveTimeouts() { return adaptiveTimeouts; }
+    public double getTimeoutFactor() { return timeoutFactor; }
+    public boolean isHedging() { return hedging; }
+    /** @return the scheduler calls go through, or {@code null} if disabled */
+    public RequestScheduler getScheduler() { return scheduler; }
+    public boolean isCompressRequests() { return compressRequests; }
+    public long getGzipMinBytes() { return gzipMinBytes; }
+    public boolean isBrotliResponses() { return brotliResponses; }
+    public Converter.Factory getConverterFactory() { return converterFactory; }
+    /** @return region name → base URL in declaration order; empty for a single back-end */
+    public Map<String, String> getRegions() { return regions; }
+    public long getProbeIntervalMs() { return probeIntervalMs; }
+    public boolean isPlaintextCardFallback() { return plaintextCardFallback; }
+
+    /**
+     * Fluent Builder for creating ApiConfig instances.
+     */
+    public static class Builder {
+        private String baseUrl = DEFAULT_BASE_URL;
+        private HttpLoggingInterceptor.Level httpLogLevel = HttpLoggingInterceptor.Level.BODY;
+        private boolean adaptiveTimeouts = false;
+        private double timeoutFactor = 2.0;
+        private boolean hedging = false;
+        private boolean priorityScheduling = false;
+        private RequestScheduler scheduler;
+        private boolean compressRequests = false;
+        private long gzipMinBytes = DEFAULT_GZIP_MIN_BYTES;
+        private boolean brotliResponses = false;
+        private Converter.Factory converterFactory;
+        private final Map<String, String> regions = new LinkedHashMap<>();
+        private long probeIntervalMs = DEFAULT_PROBE_INTERVAL_MS;
+        private boolean plaintextCardFallback = false;
+
+        /**
+         * Points the SDK at another back-end, e.g. a local mock server in tests.
+         *
+         * @param baseUrl absolute URL; must end with {@code /} if it has a path
+         */
+        public Builder baseUrl(String baseUrl) {
+            if (baseUrl == null || baseUrl.isEmpty()) {
+                throw new IllegalArgumentException("baseUrl is required");
+            }
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /** Verbosity of OkHttp's request/response log ({@code BODY} by default). */
+        public Builder httpLogLevel(HttpLoggingInterceptor.Level level) {
+            this.httpLogLevel = level != null ? level : HttpLoggingInterceptor.Level.NONE;
+            return this;
+        }
+
+        /**
+         * Derive each endpoint's call timeout from its observed p99 latency
+         * instead of a fixed 30 s. Disabled by default.
+         */
+        public Builder adaptiveTimeouts(boolean enabled) {
+            this.adaptiveTimeouts = enabled;
+            return this;
+        }
+
+        /** Multiplier applied to p99 latency to obtain the timeout (default 2). */
+        public Builder timeoutFactor(double factor) {
+            if (factor < 1) {
+                throw new IllegalArgumentException("factor must be >= 1");
+            }
+            this.timeoutFactor = factor;
+            return this;
+        }
+
+        /**
+         * Re-send idempotent reads that have not answered by their p95 latency
+         * and keep whichever response arrives first. Disabled by default;
+         * requires adaptive timeouts.
+         */
+        public Builder hedging(boolean enabled) {
+            this.hedging = enabled;
+            return this;
+        }
+
+        /**
+         * Route calls through a {@link RequestScheduler} so payments go first
+         * and stale background work is shed. Disabled by default.
+         */
+        public Builder priorityScheduling(boolean enabled) {
+            this.priorityScheduling = enabled;
+            return this;
+        }
+
+        /**
+         * Uses a custom scheduler, e.g. with other concurrency or queue
+         * limits, once {@link #priorityScheduling(boolean)} is enabled.
+         */
+        public Builder scheduler(RequestScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /** Gzip request bodies and send them with {@code Content-Encoding: gzip}. */
+        public Builder compressRequests(boolean enabled) {
+            this.compressRequests = enabled;
+            return this;
+        }
+
+        /** Minimum body size in bytes before request compression kicks in. */
+        public Builder gzipMinBytes(long minBytes) {
+            if (minBytes < 0) {
+                throw new IllegalArgumentException("minBytes must be >= 0");
+            }
+            this.gzipMinBytes = minBytes;
+            return this;
+        }
+
+        /**
+         * Advertise {@code Accept-Encoding: br, gzip} and transparently decode
+         * Brotli responses. Without this OkHttp still negotiates gzip.
+         */
+        public Builder brotliResponses(boolean enabled) {
+            this.brotliResponses = enabled;
+            return this;
+        }
+
+        /**
+         * Replaces the default Gson converter (with {@link JsonMapAdapter}
+         * pre-registered), e.g. with a CBOR or protobuf
+         * converter for back-ends that support a binary encoding.
+         */
+        public Builder converterFactory(Converter.Factory factory) {
+            this.converterFactory = factory;
+            return this;
+        }
+
+        /**
+         * Declares a regional deployment of the back-end. The first region is
+         * used until latency probes have ranked them; declaring regions
+         * overrides {@link #baseUrl(String)}.
+         *
+         * @param name    label used in logs and diagnostics, e.g. {@code "europe-west1"}
+         * @param baseUrl absolute URL of that region's Cloud Functions
+         */
+        public Builder region(String name, String baseUrl) {
+            if (name == null || baseUrl == null || baseUrl.isEmpty()) {
+                throw new IllegalArgumentException("region name and baseUrl are required");
+            }
+            regions.put(name, baseUrl);
+            return this;
+        }
+
+        /** Interval between background latency probes (default 60 s). */
+        public Builder probeIntervalMs(long intervalMs) {
+            if (intervalMs < 1_000) {
+                throw new IllegalArgumentException("intervalMs must be >= 1000");
+            }
+            this.probeIntervalMs = intervalMs;
+            return this;
+        }
+
+        /**
+         * Send card details in clear when the back-end has no tokenization key
+         * ({@code getTokenizationKey} answers 404), as back-ends deployed
+         * before tokenization require. Disabled by default: such purchases
+         * then fail with {@code TOKENIZATION_FAILED}.
+         */
+        public Builder plaintextCardFallback(boolean enabled) {
+            this.plaintextCardFallback = enabled;
+            return this;
+        }
+
+        public ApiConfig build() {
+            return new ApiConfig(this);
+        }
+    }
+}
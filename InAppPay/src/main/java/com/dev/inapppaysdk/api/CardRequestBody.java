@@ -0,0 +1,108 @@
+package com.dev.inapppaysdk.api;
+
+import com.dev.inapppaysdk.api.models.CardPayload;
+import com.dev.inapppaysdk.constants.InAppConstants;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * {@code processPurchase} body for card payments, written straight from a
+ * {@link CardPayload}'s char buffers into the request sink.
+ *
+ * <p>No String, map or Gson tree ever holds the PAN or CVV. The body is
+ * one-shot, which also keeps OkHttp's logging interceptor from printing it,
+ * and the payload is wiped as soon as it has been written.</p>
+ */
+public class CardRequestBody extends RequestBody {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String projectName;
+    private final String userId;
+    private final String productId;
+    private final String cardType;
+    private final CardPayload card;
+
+    public CardRequestBody(String projectName, String userId, String productId, String cardType, CardPayload card) {
+        this.projectName = projectName;
+        this.userId = userId;
+        this.productId = productId;
+        this.cardType = cardType;
+        this.card = card;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (card.isWiped()) {
+            throw new IOException("Card payload already sent");
+        }
+        try {
+            sink.writeUtf8("{\"projectName\":");
+            writeString(sink, projectName);
+            sink.writeUtf8(",\"userId\":");
+            writeString(sink, userId);
+            sink.writeUtf8(",\"productId\":");
+            writeString(sink, productId);
+            sink.writeUtf8(",\"paymentMethod\":\"" + InAppConstants.PAYMENT_METHOD_CARD + "\"");
+            sink.writeUtf8(",\"cardData\":{\"cardNumber\":");
+            writeChars(sink, card.getNumber());
+            sink.writeUtf8(",\"expiry\":");
+            writeChars(sink, card.getExpiry());
+            sink.writeUtf8(",\"cvv\":");
+            writeChars(sink, card.getCvv());
+            sink.writeUtf8(",\"name\":");
+            writeChars(sink, card.getName());
+            sink.writeUtf8(",\"cardType\":");
+            writeString(sink, cardType);
+            sink.writeUtf8("}}");
+        } finally {
+            card.wipe();
+        }
+    }
+
+    private static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            sink.writeUtf8("null");
+            return;
+        }
+        writeChars(sink, value.toCharArray());
+    }
+
+    // JSON string literal, one code point at a time
+    private static void writeChars(BufferedSink sink, char[] value) throws IOException {
+        sink.writeByte('"');
+        for (int i = 0; i < value.length; i++) {
+            char c = value[i];
+            if (c == '"' || c == '\\') {
+                sink.writeByte('\\').writeByte(c);
+            } else if (c < 0x20) {
+                sink.writeUtf8("\\u00").writeByte(HEX[c >> 4]).writeByte(HEX[c & 0xF]);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length
+                    && Character.isLowSurrogate(value[i + 1])) {
+                sink.writeUtf8CodePoint(Character.toCodePoint(c, value[++i]));
+            } else {
+                sink.writeUtf8CodePoint(c);
+            }
+        }
+        sink.writeByte('"');
+    }
+}
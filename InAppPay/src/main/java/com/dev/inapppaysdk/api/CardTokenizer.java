@@ -0,0 +1,193 @@
+package com.dev.inapppaysdk.api;
+
+import com.dev.inapppaysdk.api.models.CardPayload;
+import com.dev.inapppaysdk.api.models.CardToken;
+import com.dev.inapppaysdk.api.models.TokenizationKey;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+
+/**
+ * Encrypts card details on the device so that {@code processPurchase} never
+ * carries the PAN or CVV in clear.
+ *
+ * <p>The card fields are sealed with a fresh AES-256-GCM key, which is in turn
+ * encrypted with the back-end's RSA key (OAEP, SHA-256). The result is a
+ * compact string:</p>
+ *
+ * <pre>v1.&lt;encrypted AES key&gt;.&lt;IV&gt;.&lt;ciphertext&gt;</pre>
+ *
+ * <p>with every part Base64url-encoded and the key id bound as GCM associated
+ * data. The plaintext is the JSON object
+ * {@code {"cardNumber","expiry","cvv","name","iat"}}, where {@code iat} lets
+ * the back-end reject stale tokens.</p>
+ */
+public final class CardTokenizer {
+    /** Prefix identifying the token format. */
+    public static final String VERSION = "v1";
+
+    private static final OAEPParameterSpec OAEP_SHA256 = new OAEPParameterSpec(
+            "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private CardTokenizer() {}
+
+    /**
+     * Resolves the cipher providers ahead of time; the first lookup scans
+     * every installed security provider. Failures are left for
+     * {@link #tokenize} to report.
+     */
+    public static void warmUp() {
+        try {
+            KeyGenerator.getInstance("AES");
+            Cipher.getInstance("AES/GCM/NoPadding");
+            Cipher.getInstance("RSA/ECB/OAEPPadding");
+        } catch (GeneralSecurityException ignored) {
+            // reported on first use
+        }
+    }
+
+    /**
+     * Encrypts {@code card} under {@code key}. The payload is wiped whether or
+     * not encryption succeeds.
+     *
+     * @param key      current tokenization key
+     * @param card     card buffers, unusable afterwards
+     * @param cardType detected card brand, sent in clear for routing
+     * @return a token that may be re-sent on retries
+     * @throws GeneralSecurityException if the payload was already used or the
+     *                                  platform lacks the required ciphers
+     */
+    public static CardToken tokenize(TokenizationKey key, CardPayload card, String cardType)
+            throws GeneralSecurityException {
+        byte[] plaintext = null;
+        byte[] rawKey = null;
+        try {
+            if (card.isWiped()) {
+                throw new GeneralSecurityException("Card payload already used");
+            }
+            String last4 = last4(card.getNumber());
+            plaintext = plaintext(card);
+
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, RANDOM);
+            SecretKey aesKey = generator.generateKey();
+            byte[] iv = new byte[12];
+            RANDOM.nextBytes(iv);
+
+            Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+            aes.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+            aes.updateAAD(key.getKeyId().getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = aes.doFinal(plaintext);
+
+            rawKey = aesKey.getEncoded();
+            Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            rsa.init(Cipher.ENCRYPT_MODE, key.getPublicKey(), OAEP_SHA256);
+            byte[] wrappedKey = rsa.doFinal(rawKey);
+
+            String token = VERSION
+                    + "." + BASE64.encodeToString(wrappedKey)
+                    + "." + BASE64.encodeToString(iv)
+                    + "." + BASE64.encodeToString(ciphertext);
+            return new CardToken(key.getKeyId(), token, cardType, last4);
+        } finally {
+            if (plaintext != null) Arrays.fill(plaintext, (byte) 0);
+            if (rawKey != null) Arrays.fill(rawKey, (byte) 0);
+            card.wipe();
+        }
+    }
+
+    private static String last4(char[] digits) {
+        return digits.length < 4 ? "" : new String(digits, digits.length - 4, 4);
+    }
+
+    private static byte[] plaintext(CardPayload card) {
+        SecureBytes out = new SecureBytes(128);
+        out.ascii("{\"cardNumber\":").json(card.getNumber())
+                .ascii(",\"expiry\":").json(card.getExpiry())
+                .ascii(",\"cvv\":").json(card.getCvv())
+                .ascii(",\"name\":").json(card.getName())
+                .ascii(",\"iat\":").ascii(Long.toString(System.currentTimeMillis()))
+                .ascii("}");
+        return out.toByteArray();
+    }
+
+    /** UTF-8 byte builder that zeroes every buffer it discards. */
+    private static final class SecureBytes {
+        private byte[] buf;
+        private int len;
+
+        SecureBytes(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        SecureBytes ascii(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                put(s.charAt(i));
+            }
+            return this;
+        }
+
+        // JSON string literal, encoded to UTF-8 one code point at a time
+        SecureBytes json(char[] value) {
+            put('"');
+            for (int i = 0; i < value.length; i++) {
+                char c = value[i];
+                int cp = c;
+                if (Character.isHighSurrogate(c) && i + 1 < value.length
+                        && Character.isLowSurrogate(value[i + 1])) {
+                    cp = Character.toCodePoint(c, value[++i]);
+                }
+                if (cp == '"' || cp == '\\') {
+                    put('\\');
+                    put(cp);
+                } else if (cp < 0x20) {
+                    ascii(String.format("\\u%04x", cp));
+                } else if (cp < 0x80) {
+                    put(cp);
+                } else if (cp < 0x800) {
+                    put(0xC0 | (cp >> 6));
+                    put(0x80 | (cp & 0x3F));
+                } else if (cp < 0x10000) {
+                    put(0xE0 | (cp >> 12));
+                    put(0x80 | ((cp >> 6) & 0x3F));
+                    put(0x80 | (cp & 0x3F));
+                } else {
+                    put(0xF0 | (cp >> 18));
+                    put(0x80 | ((cp >> 12) & 0x3F));
+                    put(0x80 | ((cp >> 6) & 0x3F));
+                    put(0x80 | (cp & 0x3F));
+                }
+            }
+            put('"');
+            return this;
+        }
+
+        private void put(int b) {
+            if (len == buf.length) {
+                byte[] grown = Arrays.copyOf(buf, len * 2);
+                Arrays.fill(buf, (byte) 0);
+                buf = grown;
+            }
+            buf[len++] = (byte) b;
+        }
+
+        byte[] toByteArray() {
+            byte[] out = Arrays.copyOf(buf, len);
+            Arrays.fill(buf, (byte) 0);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.dev.inapppaysdk.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * OkHttp interceptor that gzip-compresses request bodies and marks them with
+ * {@code Content-Encoding: gzip}.
+ *
+ * <p>Bodies smaller than the configured threshold are sent as-is, since gzip
+ * framing would make them larger rather than smaller.</p>
+ */
+public class GzipRequestInterceptor implements Interceptor {
+    private final long minBytes;
+
+    /**
+     * @param minBytes bodies with a known length below this are not compressed
+     */
+    public GzipRequestInterceptor(long minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        RequestBody body = original.body();
+        if (body == null || original.header("Content-Encoding") != null) {
+            return chain.proceed(original);
+        }
+
+        long length = body.contentLength();
+        if (length >= 0 && length < minBytes) {
+            return chain.proceed(original);
+        }
+
+        Request compressed = original.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(original.method(), gzip(body))
+                .build();
+        return chain.proceed(compressed);
+    }
+
+    private static RequestBody gzip(final RequestBody body) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return -1; // unknown until compressed
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return body.isOneShot();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+                body.writeTo(gzipSink);
+                gzipSink.close();
+            }
+        };
+    }
+}
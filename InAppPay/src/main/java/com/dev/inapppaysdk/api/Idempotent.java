@@ -0,0 +1,17 @@
+package com.dev.inapppaysdk.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link InAppApiService} endpoint as a side-effect free read that
+ * may be sent twice. Such calls are hedged by {@link AdaptiveCallAdapterFactory}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
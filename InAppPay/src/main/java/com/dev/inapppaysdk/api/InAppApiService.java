@@ -6,12 +6,23 @@ import com.dev.inapppaysdk.api.models.ValidationRequest;
 
 import java.util.Map;
 
+import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
+import retrofit2.http.Header;
 import retrofit2.http.POST;
 
 /**
  * Retrofit API interface defining all endpoints used by the SDK.
+ *
+ * <p>{@link TimeoutBounds} and {@link Idempotent} drive the adaptive timeouts
+ * and request hedging applied by {@link AdaptiveCallAdapterFactory};
+ * {@link Priority} decides the order in which {@link RequestScheduler} lets
+ * calls through.</p>
+ *
+ * <p>Calls of one purchase carry the same {@link RegionSelector#SESSION_HEADER}
+ * so that, with several regions configured, they reach the same deployment.
+ * A {@code null} session id omits the header.</p>
  */
 public interface InAppApiService {
 
@@ -19,35 +30,82 @@ public interface InAppApiService {
      * Validates whether a user is eligible to purchase the item.
      */
     @POST("validateItemForPurchase")
-    Call<Map<String, Object>> validateItemForPurchase(@Body Map<String, Object> request);
+    @Priority(RequestPriority.INTERACTIVE)
+    @TimeoutBounds(floorMs = 3_000, ceilingMs = 20_000)
+    Call<Map<String, Object>> validateItemForPurchase(@Body Map<String, Object> request,
+                                                      @Header(RegionSelector.SESSION_HEADER) String sessionId);
 
     /**
      * Processes the actual purchase after validation.
      */
     @POST("processPurchase")
-    Call<Map<String, Object>> processPurchase(@Body Map<String, Object> request);
+    @Priority(RequestPriority.PAYMENT)
+    @TimeoutBounds(floorMs = 10_000, ceilingMs = 60_000)
+    Call<Map<String, Object>> processPurchase(@Body Map<String, Object> request,
+                                              @Header(RegionSelector.SESSION_HEADER) String sessionId);
+
+    /**
+     * Processes a card purchase whose body is streamed from wipeable buffers,
+     * see {@link CardRequestBody}.
+     */
+    @POST("processPurchase")
+    @Priority(RequestPriority.PAYMENT)
+    @TimeoutBounds(floorMs = 10_000, ceilingMs = 60_000)
+    Call<Map<String, Object>> processCardPurchase(@Body RequestBody request,
+                                                  @Header(RegionSelector.SESSION_HEADER) String sessionId);
+
+    /**
+     * Fetches the public key used to tokenize card data on the device, see
+     * {@link CardTokenizer}.
+     */
+    @POST("getTokenizationKey")
+    @Priority(RequestPriority.INTERACTIVE)
+    @Idempotent
+    @TimeoutBounds(floorMs = 2_000, ceilingMs = 15_000)
+    Call<Map<String, Object>> getTokenizationKey(@Body Map<String, Object> request);
 
     /**
      * Checks if the user already purchased a specific item.
      */
     @POST("checkUserPurchased")
+    @Priority(RequestPriority.BACKGROUND)
+    @Idempotent
+    @TimeoutBounds(floorMs = 2_000, ceilingMs = 15_000)
     Call<Map<String, Object>> checkUserPurchased(@Body Map<String, Object> request);
 
     /**
      * Checks if the user is subscribed to a specific subscription.
      */
     @POST("checkUserSubscribed")
+    @Priority(RequestPriority.BACKGROUND)
+    @Idempotent
+    @TimeoutBounds(floorMs = 2_000, ceilingMs = 15_000)
     Call<Map<String, Object>> checkUserSubscribed(@Body Map<String, Object> request);
 
     /**
      * Retrieves all purchase records for the project.
      */
     @POST("getPurchases")
+    @Priority(RequestPriority.BACKGROUND)
+    @Idempotent
+    @TimeoutBounds(floorMs = 3_000, ceilingMs = 30_000)
     Call<Map<String, Object>> getPurchases(@Body Map<String, Object> requestData);
 
     /**
      * Retrieves all subscription records for the project.
      */
     @POST("getSubscriptions")
+    @Priority(RequestPriority.BACKGROUND)
+    @Idempotent
+    @TimeoutBounds(floorMs = 3_000, ceilingMs = 30_000)
     Call<Map<String, Object>> getSubscriptions(@Body Map<String, Object> requestData);
+
+    /**
+     * Retrieves every product of the project (name, type, price) in one call.
+     */
+    @POST("getCatalog")
+    @Priority(RequestPriority.INTERACTIVE)
+    @Idempotent
+    @TimeoutBounds(floorMs = 3_000, ceilingMs = 30_000)
+    Call<Map<String, Object>> getCatalog(@Body Map<String, Object> requestData);
 }
@@ -0,0 +1,133 @@
+package com.dev.inapppaysdk.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Gson adapter for the SDK's {@code Map<String, Object>} request
+ * and response bodies.
+ *
+ * <p>Gson's default path resolves {@code MapTypeAdapterFactory} and
+ * {@code ObjectTypeAdapter} reflectively on the first call. This adapter
+ * streams the JSON tree directly and decodes exactly like Gson does by
+ * default: objects become {@link LinkedHashMap}s, arrays {@link ArrayList}s
+ * and every number a {@link Double}, so existing casts keep working.</p>
+ */
+public final class JsonMapAdapter extends TypeAdapter<Map<String, Object>> {
+    /** {@code Map<String, Object>}, the type every endpoint uses. */
+    public static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    private static final JsonMapAdapter INSTANCE = new JsonMapAdapter();
+
+    private JsonMapAdapter() {}
+
+    /** @return a Gson with the adapter pre-registered */
+    public static Gson gson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(MAP_TYPE, INSTANCE)
+                .create();
+    }
+
+    @Override
+    public Map<String, Object> read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        // As Gson's map adapter: the body must be an object, and repeating a
+        // top-level key is an error (nested objects keep the last value)
+        Map<String, Object> map = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (map.put(name, readValue(in)) != null) {
+                throw new JsonSyntaxException("duplicate key: " + name);
+            }
+        }
+        in.endObject();
+        return map;
+    }
+
+    private static Object readValue(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    map.put(in.nextName(), readValue(in));
+                }
+                in.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readValue(in));
+                }
+                in.endArray();
+                return list;
+            case STRING:
+                return in.nextString();
+            case NUMBER:
+                return in.nextDouble();
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                throw new IllegalStateException("Unexpected JSON token " + in.peek());
+        }
+    }
+
+    @Override
+    public void write(JsonWriter out, Map<String, Object> value) throws IOException {
+        writeValue(out, value);
+    }
+
+    private static void writeValue(JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof String) {
+            out.value((String) value);
+        } else if (value instanceof Boolean) {
+            out.value((Boolean) value);
+        } else if (value instanceof Number) {
+            out.value((Number) value);
+        } else if (value instanceof Map) {
+            out.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+            out.endObject();
+        } else if (value instanceof Iterable) {
+            out.beginArray();
+            for (Object item : (Iterable<?>) value) {
+                writeValue(out, item);
+            }
+            out.endArray();
+        } else if (value instanceof Object[]) {
+            out.beginArray();
+            for (Object item : (Object[]) value) {
+                writeValue(out, item);
+            }
+            out.endArray();
+        } else {
+            out.value(String.valueOf(value)); // request bodies only carry JSON primitives
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.dev.inapppaysdk.api;
+
+/**
+ * Rolling latency histogram over the last {@link #WINDOW} samples.
+ *
+ * <p>Samples fall into exponentially sized buckets (each 25% wider than the
+ * previous, from 10 ms to roughly 75 s), so percentiles are accurate to about
+ * one bucket width. The oldest sample is evicted as each new one arrives,
+ * which lets the estimate follow changing network conditions.</p>
+ */
+public class LatencyHistogram {
+    /** Number of most recent samples the percentiles are computed over. */
+    public static final int WINDOW = 256;
+
+    private static final int BUCKETS = 41;
+    private static final double FIRST_BOUND_MS = 10;
+    private static final double GROWTH = 1.25;
+    private static final long[] UPPER_BOUNDS_MS = new long[BUCKETS];
+
+    static {
+        double bound = FIRST_BOUND_MS;
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS_MS[i] = Math.round(bound);
+            bound *= GROWTH;
+        }
+        UPPER_BOUNDS_MS[BUCKETS - 1] = Long.MAX_VALUE;
+    }
+
+    private final int[] counts = new int[BUCKETS];
+    private final byte[] ring = new byte[WINDOW];
+    private int next;
+    private int size;
+
+    /** Records one completed call. */
+    public synchronized void record(long latencyMs) {
+        int bucket = bucketOf(latencyMs);
+        if (size == WINDOW) {
+            counts[ring[next]]--;
+        } else {
+            size++;
+        }
+        ring[next] = (byte) bucket;
+        counts[bucket]++;
+        next = (next + 1) % WINDOW;
+    }
+
+    /** @return number of samples currently in the window */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile value in (0, 100]
+     * @return upper bound of the bucket holding the percentile, or -1 when
+     *         no sample was recorded yet
+     */
+    public synchronized long percentileMs(double percentile) {
+        if (size == 0) {
+            return -1;
+        }
+        int target = (int) Math.ceil(percentile / 100.0 * size);
+        int seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return UPPER_BOUNDS_MS[i];
+            }
+        }
+        return UPPER_BOUNDS_MS[BUCKETS - 1];
+    }
+
+    private static int bucketOf(long latencyMs) {
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            if (latencyMs <= UPPER_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKETS - 1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.dev.inapppaysdk.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint {@link LatencyHistogram}s, keyed by Cloud Function name.
+ */
+public class LatencyTracker {
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /** @return the histogram of {@code endpoint}, created on first use */
+    public LatencyHistogram histogram(String endpoint) {
+        LatencyHistogram histogram = histograms.get(endpoint);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(endpoint, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    public void record(String endpoint, long latencyMs) {
+        histogram(endpoint).record(latencyMs);
+    }
+
+    /** @return p-th percentile of {@code endpoint}, or -1 if never called */
+    public long percentileMs(String endpoint, double percentile) {
+        LatencyHistogram histogram = histograms.get(endpoint);
+        return histogram != null ? histogram.percentileMs(percentile) : -1;
+    }
+}
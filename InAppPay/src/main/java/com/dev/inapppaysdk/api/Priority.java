@@ -0,0 +1,18 @@
+package com.dev.inapppaysdk.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Scheduling class of an {@link InAppApiService} endpoint, see
+ * {@link RequestScheduler}. Endpoints without it are {@code INTERACTIVE}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+    RequestPriority value();
+}
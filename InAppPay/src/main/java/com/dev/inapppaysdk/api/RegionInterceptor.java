@@ -0,0 +1,106 @@
+package com.dev.inapppaysdk.api;
+
+import com.dev.inapppaysdk.utils.FlightRecorder;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * OkHttp interceptor that rewrites each request onto the region chosen by
+ * {@link RegionSelector} and fails over to the next best region.
+ *
+ * <p>A call is retried in another region when the failed region was never
+ * reached (DNS, connect or routing errors), or when the endpoint is
+ * {@link Idempotent} and the region answered with a 5xx or broke the
+ * connection. Payments are therefore never sent twice.</p>
+ */
+class RegionInterceptor implements Interceptor {
+    private final RegionSelector selector;
+
+    RegionInterceptor(RegionSelector selector) {
+        this.selector = selector;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        String sessionId = original.header(RegionSelector.SESSION_HEADER);
+        Request stripped = original.newBuilder().removeHeader(RegionSelector.SESSION_HEADER).build();
+        boolean idempotent = isIdempotent(original);
+
+        List<RegionSelector.Region> tried = new ArrayList<>();
+        int attempts = selector.getRegions().size();
+        while (true) {
+            RegionSelector.Region region = selector.select(sessionId, tried);
+            tried.add(region);
+            Request routed = stripped.newBuilder().url(rewrite(original.url(), region)).build();
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = chain.proceed(routed);
+            } catch (IOException e) {
+                selector.recordFailure(region);
+                if (tried.size() < attempts && (neverReached(e) || idempotent)) {
+                    recordFailover(original, tried.size() + 1);
+                    continue;
+                }
+                throw e;
+            }
+            if (response.code() >= 500) {
+                selector.recordFailure(region);
+                if (idempotent && tried.size() < attempts) {
+                    response.close();
+                    recordFailover(original, tried.size() + 1);
+                    continue;
+                }
+            } else {
+                selector.recordSuccess(region, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return response;
+        }
+    }
+
+    private static void recordFailover(Request request, int attempt) {
+        FlightRecorder.getInstance().record(FlightRecorder.RETRY, request.url().encodedPath(),
+                "failover", attempt);
+    }
+
+    // Moves the path below the primary base URL under the region's base URL
+    private HttpUrl rewrite(HttpUrl url, RegionSelector.Region region) {
+        HttpUrl primary = selector.primary().getBaseUrl();
+        HttpUrl target = region.getBaseUrl();
+        if (target.equals(primary)) {
+            return url;
+        }
+        String path = url.encodedPath();
+        String basePath = primary.encodedPath();
+        String relative = path.startsWith(basePath) ? path.substring(basePath.length()) : path.substring(1);
+        String targetPath = target.encodedPath().endsWith("/") ? target.encodedPath() : target.encodedPath() + "/";
+        return target.newBuilder()
+                .encodedPath(targetPath + relative)
+                .encodedQuery(url.encodedQuery())
+                .build();
+    }
+
+    private static boolean neverReached(IOException e) {
+        return e instanceof UnknownHostException
+                || e instanceof ConnectException
+                || e instanceof NoRouteToHostException;
+    }
+
+    private static boolean isIdempotent(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Idempotent.class);
+    }
+}
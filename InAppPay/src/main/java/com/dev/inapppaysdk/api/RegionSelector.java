@@ -0,0 +1,227 @@
+package com.dev.inapppaysdk.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Tracks latency and health of every regional back-end and picks the region
+ * each call is sent to.
+ *
+ * <ul>
+ *   <li><strong>Latency</strong> &mdash; an exponentially weighted moving
+ *       average fed by real calls and by background {@code HEAD} probes.</li>
+ *   <li><strong>Health</strong> &mdash; after {@link #FAILURES_TO_EJECT}
+ *       consecutive failures a region is skipped for a back-off period that
+ *       doubles on every further failure, up to {@link #MAX_BACKOFF_MS}.
+ *       Probes keep running, so a recovered region is picked up again.</li>
+ *   <li><strong>Stickiness</strong> &mdash; calls carrying the same
+ *       {@link #SESSION_HEADER} stay in the region their first call used for
+ *       as long as it is healthy, so validation and payment of one purchase
+ *       hit the same deployment.</li>
+ * </ul>
+ *
+ * <p>Regions without any sample rank after measured ones, in declaration
+ * order. All methods are thread-safe.</p>
+ */
+public class RegionSelector {
+    /** Request header naming the purchase session a call belongs to; stripped before sending. */
+    public static final String SESSION_HEADER = "X-InAppPay-Session";
+    /** Consecutive failures after which a region is ejected. */
+    public static final int FAILURES_TO_EJECT = 2;
+    /** Longest time a failing region is skipped before being retried. */
+    public static final long MAX_BACKOFF_MS = 5 * 60 * 1000L;
+
+    private static final long BASE_BACKOFF_MS = 15_000;
+    private static final double EWMA_WEIGHT = 0.3;
+    private static final int MAX_SESSIONS = 64;
+
+    private final List<Region> regions;
+    private final Map<String, Region> sessions =
+            new LinkedHashMap<String, Region>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Region> eldest) {
+                    return size() > MAX_SESSIONS;
+                }
+            };
+    private ScheduledFuture<?> probes;
+
+    /**
+     * @param baseUrls region name → base URL; the first entry is preferred
+     *                 until latencies are known
+     */
+    public RegionSelector(Map<String, String> baseUrls) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("at least one region is required");
+        }
+        List<Region> list = new ArrayList<>();
+        for (Map.Entry<String, String> entry : baseUrls.entrySet()) {
+            list.add(new Region(entry.getKey(), HttpUrl.get(entry.getValue())));
+        }
+        this.regions = Collections.unmodifiableList(list);
+    }
+
+    /** @return every region in declaration order */
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    /** @return the region the first declared base URL belongs to */
+    Region primary() {
+        return regions.get(0);
+    }
+
+    /**
+     * Picks the region for a call.
+     *
+     * @param sessionId value of {@link #SESSION_HEADER}, or {@code null}
+     * @param exclude   regions already tried by this call, or {@code null}
+     * @return the chosen region; never {@code null}
+     */
+    public synchronized Region select(String sessionId, List<Region> exclude) {
+        long now = System.currentTimeMillis();
+        if (sessionId != null) {
+            Region pinned = sessions.get(sessionId);
+            if (pinned != null && pinned.isHealthy(now) && (exclude == null || !exclude.contains(pinned))) {
+                return pinned;
+            }
+        }
+        Region best = null;
+        for (Region region : regions) {
+            if (exclude != null && exclude.contains(region)) {
+                continue;
+            }
+            if (best == null || rank(region, now) < rank(best, now)) {
+                best = region;
+            }
+        }
+        if (best == null) {
+            best = primary(); // everything tried: start over at the top
+        }
+        if (sessionId != null) {
+            sessions.put(sessionId, best);
+        }
+        return best;
+    }
+
+    // Healthy and measured < healthy and unmeasured < ejected
+    private static double rank(Region region, long now) {
+        if (!region.isHealthy(now)) {
+            return Double.MAX_VALUE;
+        }
+        double latency = region.latencyMs;
+        return latency > 0 ? latency : Double.MAX_VALUE / 2;
+    }
+
+    /** Records a call or probe that reached the region. */
+    public void recordSuccess(Region region, long latencyMs) {
+        region.onSuccess(latencyMs);
+    }
+
+    /** Records a call or probe that could not reach the region. */
+    public void recordFailure(Region region) {
+        region.onFailure(System.currentTimeMillis());
+    }
+
+    /**
+     * Starts probing every region in the background.
+     *
+     * @param client     client used for the probes; its interceptors are bypassed
+     * @param timer      schedules probe rounds
+     * @param intervalMs time between rounds
+     */
+    public synchronized void startProbing(OkHttpClient client, ScheduledExecutorService timer, long intervalMs) {
+        stopProbing();
+        // Shares the connection pool, so a probe also keeps a warm connection
+        OkHttpClient.Builder builder = client.newBuilder().callTimeout(5, TimeUnit.SECONDS);
+        builder.interceptors().clear(); // no logging, no routing
+        final OkHttpClient probeClient = builder.build();
+        probes = timer.scheduleWithFixedDelay(() -> {
+            for (Region region : regions) {
+                probe(probeClient, region);
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops background probes; routing keeps using the last known state. */
+    public synchronized void stopProbing() {
+        if (probes != null) {
+            probes.cancel(false);
+            probes = null;
+        }
+    }
+
+    private void probe(OkHttpClient client, final Region region) {
+        final long start = System.nanoTime();
+        Request request = new Request.Builder().url(region.baseUrl).head().build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Any HTTP answer means the region is reachable
+                response.close();
+                recordSuccess(region, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                recordFailure(region);
+            }
+        });
+    }
+
+    /** One regional deployment and what is known about it. */
+    public static final class Region {
+        private final String name;
+        private final HttpUrl baseUrl;
+        private volatile double latencyMs;
+        private int consecutiveFailures;
+        private volatile long ejectedUntil;
+
+        Region(String name, HttpUrl baseUrl) {
+            this.name = name;
+            this.baseUrl = baseUrl;
+        }
+
+        public String getName() { return name; }
+        public HttpUrl getBaseUrl() { return baseUrl; }
+        /** @return smoothed latency, or 0 before the first sample */
+        public double getLatencyMs() { return latencyMs; }
+
+        public boolean isHealthy(long now) {
+            return now >= ejectedUntil;
+        }
+
+        synchronized void onSuccess(long sampleMs) {
+            consecutiveFailures = 0;
+            ejectedUntil = 0;
+            latencyMs = latencyMs == 0 ? sampleMs : latencyMs + EWMA_WEIGHT * (sampleMs - latencyMs);
+        }
+
+        synchronized void onFailure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures >= FAILURES_TO_EJECT) {
+                int doublings = Math.min(consecutiveFailures - FAILURES_TO_EJECT, 5);
+                ejectedUntil = now + Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << doublings);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Region{" + name + ", " + Math.round(latencyMs) + " ms"
+                    + (isHealthy(System.currentTimeMillis()) ? "" : ", ejected") + "}";
+        }
+    }
+}
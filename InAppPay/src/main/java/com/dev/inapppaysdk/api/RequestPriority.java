@@ -0,0 +1,13 @@
+package com.dev.inapppaysdk.api;
+
+/**
+ * Scheduling classes of SDK network calls, highest priority first.
+ */
+public enum RequestPriority {
+    /** Charging the user; never shed and always has a reserved slot. */
+    PAYMENT,
+    /** Calls a user is actively waiting on, e.g. item validation. */
+    INTERACTIVE,
+    /** Status checks and sync that nobody is staring at. */
+    BACKGROUND
+}
@@ -0,0 +1,202 @@
+package com.dev.inapppaysdk.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Priority-aware admission control in front of OkHttp's dispatcher.
+ *
+ * <p>At most {@code maxConcurrent} calls run at once. Waiting calls start in
+ * {@link RequestPriority} order, FIFO within a class, and one slot is
+ * reserved for {@link RequestPriority#PAYMENT} so a burst of other calls
+ * cannot hold every slot when a purchase arrives. Payments are never shed.
+ * Every other class has a bounded queue: when it is full the new call is
+ * shed, and calls that waited longer than the class's maximum age are shed
+ * instead of being sent late.</p>
+ *
+ * <p>Thread-safe. Start and shed actions run outside the internal lock on the
+ * thread that triggered them.</p>
+ */
+public class RequestScheduler {
+    /** Default number of calls allowed in flight at once. */
+    public static final int DEFAULT_MAX_CONCURRENT = 8;
+
+    private static final int CLASSES = RequestPriority.values().length;
+
+    private final int maxConcurrent;
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Ticket>[] queues = new ArrayDeque[CLASSES];
+    private final int[] capacity = {Integer.MAX_VALUE, 32, 64};
+    private final long[] maxAgeNanos = {
+            Long.MAX_VALUE,
+            TimeUnit.SECONDS.toNanos(30),
+            TimeUnit.SECONDS.toNanos(10)
+    };
+    private int running;
+
+    public RequestScheduler() {
+        this(DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * @param maxConcurrent calls allowed in flight at once; must be at least 2
+     *                      so that one slot can be reserved for payments
+     */
+    public RequestScheduler(int maxConcurrent) {
+        if (maxConcurrent < 2) {
+            throw new IllegalArgumentException("maxConcurrent must be >= 2");
+        }
+        this.maxConcurrent = maxConcurrent;
+        for (int i = 0; i < CLASSES; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Overrides the queue bound and maximum wait of one priority class.
+     *
+     * @param priority any class but {@link RequestPriority#PAYMENT}, which is never shed
+     * @param capacity calls that may wait in the class's queue
+     * @param maxAgeMs waiting calls older than this are shed; {@code 0} disables
+     * @return this instance for chaining
+     */
+    public synchronized RequestScheduler setQueueLimit(RequestPriority priority, int capacity, long maxAgeMs) {
+        if (priority == RequestPriority.PAYMENT) {
+            throw new IllegalArgumentException("Payments are never shed");
+        }
+        this.capacity[priority.ordinal()] = capacity;
+        this.maxAgeNanos[priority.ordinal()] = maxAgeMs > 0
+                ? TimeUnit.MILLISECONDS.toNanos(maxAgeMs)
+                : Long.MAX_VALUE;
+        return this;
+    }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+
+    /**
+     * @return calls of {@code priority} that may run at once: every slot for
+     *         payments, all but the reserved one for the other classes
+     */
+    public int getMaxConcurrent(RequestPriority priority) {
+        return priority == RequestPriority.PAYMENT ? maxConcurrent : maxConcurrent - 1;
+    }
+
+    public synchronized int getRunning() { return running; }
+
+    public synchronized int getQueued(RequestPriority priority) {
+        return queues[priority.ordinal()].size();
+    }
+
+    /**
+     * Submits a call. {@code start} runs as soon as a slot is free (possibly
+     * immediately, on the caller's thread); the started call must report back
+     * through {@link #finished()}. {@code shed} runs instead if the call is
+     * dropped.
+     */
+    public Ticket submit(RequestPriority priority, Runnable start, Runnable shed) {
+        Ticket ticket = new Ticket(priority, start, shed);
+        List<Ticket> toShed = new ArrayList<>();
+        List<Ticket> toStart = new ArrayList<>();
+        synchronized (this) {
+            ArrayDeque<Ticket> queue = queues[priority.ordinal()];
+            dropStale(priority.ordinal(), System.nanoTime(), toShed);
+            if (queue.size() >= capacity[priority.ordinal()]) {
+                ticket.state = Ticket.SHED;
+                toShed.add(ticket);
+            } else {
+                queue.addLast(ticket);
+                promote(toStart, toShed);
+            }
+        }
+        run(toStart, toShed);
+        return ticket;
+    }
+
+    /** Releases the slot of a started call and starts the next waiting one. */
+    public void finished() {
+        List<Ticket> toShed = new ArrayList<>();
+        List<Ticket> toStart = new ArrayList<>();
+        synchronized (this) {
+            running--;
+            promote(toStart, toShed);
+        }
+        run(toStart, toShed);
+    }
+
+    private void promote(List<Ticket> toStart, List<Ticket> toShed) {
+        long now = System.nanoTime();
+        while (running < maxConcurrent) {
+            Ticket next = null;
+            for (int i = 0; i < CLASSES && next == null; i++) {
+                // The last slot is reserved for payments
+                if (i != RequestPriority.PAYMENT.ordinal() && running >= maxConcurrent - 1) {
+                    break;
+                }
+                dropStale(i, now, toShed);
+                next = queues[i].pollFirst();
+            }
+            if (next == null) {
+                return;
+            }
+            next.state = Ticket.STARTED;
+            running++;
+            toStart.add(next);
+        }
+    }
+
+    private void dropStale(int index, long now, List<Ticket> toShed) {
+        ArrayDeque<Ticket> queue = queues[index];
+        while (!queue.isEmpty() && now - queue.peekFirst().enqueuedAt > maxAgeNanos[index]) {
+            Ticket stale = queue.pollFirst();
+            stale.state = Ticket.SHED;
+            toShed.add(stale);
+        }
+    }
+
+    private synchronized boolean remove(Ticket ticket) {
+        if (ticket.state == Ticket.QUEUED && queues[ticket.priority.ordinal()].remove(ticket)) {
+            ticket.state = Ticket.CANCELLED;
+            return true;
+        }
+        return false;
+    }
+
+    private static void run(List<Ticket> toStart, List<Ticket> toShed) {
+        for (Ticket ticket : toShed) {
+            ticket.shed.run();
+        }
+        for (Ticket ticket : toStart) {
+            ticket.start.run();
+        }
+    }
+
+    /** Handle of a submitted call. */
+    public final class Ticket {
+        static final int QUEUED = 0;
+        static final int STARTED = 1;
+        static final int SHED = 2;
+        static final int CANCELLED = 3;
+
+        final RequestPriority priority;
+        final Runnable start;
+        final Runnable shed;
+        final long enqueuedAt = System.nanoTime();
+        int state = QUEUED; // guarded by the scheduler
+
+        Ticket(RequestPriority priority, Runnable start, Runnable shed) {
+            this.priority = priority;
+            this.start = start;
+            this.shed = shed;
+        }
+
+        /**
+         * Withdraws the call if it is still waiting.
+         * @return true if it was removed before starting
+         */
+        public boolean cancel() {
+            return remove(this);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.dev.inapppaysdk.api;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * Retrofit {@link CallAdapter.Factory} routing every asynchronous call through
+ * a {@link RequestScheduler}, using the endpoint's {@link Priority}.
+ *
+ * <p>Synchronous {@code execute()} calls bypass the scheduler: the caller
+ * already dedicated a thread to them.</p>
+ */
+public class ScheduledCallAdapterFactory extends CallAdapter.Factory {
+    private final RequestScheduler scheduler;
+
+    public ScheduledCallAdapterFactory(RequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Object> delegate =
+                (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+
+        RequestPriority priority = RequestPriority.INTERACTIVE;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Priority) {
+                priority = ((Priority) annotation).value();
+            }
+        }
+
+        final RequestPriority resolved = priority;
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return delegate.adapt(new ScheduledCall<>(call, resolved));
+            }
+        };
+    }
+
+    /** Call wrapper that waits for a scheduler slot before enqueueing. */
+    final class ScheduledCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final RequestPriority priority;
+        private volatile RequestScheduler.Ticket ticket;
+        private volatile Callback<T> pendingCallback;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+
+        ScheduledCall(Call<T> delegate, RequestPriority priority) {
+            this.delegate = delegate;
+            this.priority = priority;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            return delegate.execute();
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+            pendingCallback = callback;
+            ticket = scheduler.submit(priority,
+                    () -> {
+                        if (canceled) {
+                            scheduler.finished();
+                            callback.onFailure(ScheduledCall.this, new IOException("Canceled"));
+                            return;
+                        }
+                        delegate.enqueue(new Callback<T>() {
+                            @Override
+                            public void onResponse(Call<T> call, Response<T> response) {
+                                scheduler.finished();
+                                callback.onResponse(ScheduledCall.this, response);
+                            }
+
+                            @Override
+                            public void onFailure(Call<T> call, Throwable t) {
+                                scheduler.finished();
+                                callback.onFailure(ScheduledCall.this, t);
+                            }
+                        });
+                    },
+                    () -> callback.onFailure(ScheduledCall.this,
+                            new IOException("Request shed by scheduler (" + priority + " queue)")));
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            RequestScheduler.Ticket queued = ticket;
+            Callback<T> callback = pendingCallback;
+            if (queued != null && queued.cancel() && callback != null) {
+                callback.onFailure(this, new IOException("Canceled"));
+                return;
+            }
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || delegate.isCanceled();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new ScheduledCall<>(delegate.clone(), priority);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
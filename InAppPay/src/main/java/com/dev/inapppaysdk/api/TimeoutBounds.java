@@ -0,0 +1,20 @@
+package com.dev.inapppaysdk.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Floor and ceiling for the adaptive call timeout of an
+ * {@link InAppApiService} endpoint. The ceiling also applies until enough
+ * latency samples have been observed.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimeoutBounds {
+    long floorMs();
+    long ceilingMs();
+}
@@ -0,0 +1,82 @@
+package com.dev.inapppaysdk.api.models;
+
+import java.util.Arrays;
+
+/**
+ * Card details held in wipeable {@code char[]} buffers instead of immutable
+ * Strings, so the PAN and CVV can be zeroed as soon as they are sent.
+ *
+ * <p>The payload owns its arrays: callers must not keep references to the
+ * arrays they pass in. {@link #wipe()} is idempotent and is called by the SDK
+ * once the {@code processPurchase} request has been written or has failed.</p>
+ */
+public class CardPayload {
+    private final char[] number;
+    private final char[] expiry;
+    private final char[] cvv;
+    private final char[] name;
+    private volatile boolean wiped;
+
+    /**
+     * @param number card digits; any non-digit is dropped
+     * @param expiry {@code MM/YY}
+     * @param cvv    3–4 digit security code
+     * @param name   cardholder name
+     */
+    public CardPayload(char[] number, char[] expiry, char[] cvv, char[] name) {
+        this.number = digitsOnly(number);
+        this.expiry = expiry != null ? expiry : new char[0];
+        this.cvv = cvv != null ? cvv : new char[0];
+        this.name = name != null ? name : new char[0];
+    }
+
+    /**
+     * Copies the contents of a text field (e.g. an {@code Editable}) into a
+     * new buffer without creating an intermediate String.
+     */
+    public static char[] copyOf(CharSequence text) {
+        if (text == null) {
+            return new char[0];
+        }
+        char[] out = new char[text.length()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = text.charAt(i);
+        }
+        return out;
+    }
+
+    public char[] getNumber() { return number; }
+    public char[] getExpiry() { return expiry; }
+    public char[] getCvv() { return cvv; }
+    public char[] getName() { return name; }
+    public boolean isWiped() { return wiped; }
+
+    /** Overwrites every buffer with zeros. */
+    public void wipe() {
+        Arrays.fill(number, '\0');
+        Arrays.fill(expiry, '\0');
+        Arrays.fill(cvv, '\0');
+        Arrays.fill(name, '\0');
+        wiped = true;
+    }
+
+    private static char[] digitsOnly(char[] raw) {
+        if (raw == null) {
+            return new char[0];
+        }
+        int digits = 0;
+        for (char c : raw) {
+            if (c >= '0' && c <= '9') digits++;
+        }
+        if (digits == raw.length) {
+            return raw;
+        }
+        char[] out = new char[digits];
+        int j = 0;
+        for (char c : raw) {
+            if (c >= '0' && c <= '9') out[j++] = c;
+        }
+        Arrays.fill(raw, '\0');
+        return out;
+    }
+}
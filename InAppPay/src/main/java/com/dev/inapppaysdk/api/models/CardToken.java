@@ -0,0 +1,46 @@
+package com.dev.inapppaysdk.api.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Card details encrypted on the device, sent with {@code processPurchase}
+ * instead of the raw {@code cardData}.
+ *
+ * <p>A token holds no plaintext card data besides the card type and last four
+ * digits, so unlike a {@link CardPayload} it can be kept and re-sent when a
+ * purchase is retried. Instances are immutable.</p>
+ */
+public class CardToken {
+    private final String keyId;
+    private final String token;
+    private final String cardType;
+    private final String last4;
+
+    public CardToken(String keyId, String token, String cardType, String last4) {
+        this.keyId = keyId;
+        this.token = token;
+        this.cardType = cardType;
+        this.last4 = last4;
+    }
+
+    public String getKeyId() { return keyId; }
+    public String getToken() { return token; }
+    public String getCardType() { return cardType; }
+    public String getLast4() { return last4; }
+
+    /** @return the {@code cardToken} object of the request body */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("keyId", keyId);
+        map.put("token", token);
+        map.put("cardType", cardType);
+        map.put("last4", last4);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "CardToken{" + cardType + " ****" + last4 + ", key " + keyId + "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.dev.inapppaysdk.api.models;
+
+import com.dev.inapppaysdk.constants.InAppConstants;
+
+/**
+ * Payment details submitted with {@code processPurchase}.
+ * Create instances through {@link #card} or {@link #paypal}.
+ *
+ * <p>Card details are carried as a {@link CardPayload} and wiped once they
+ * have been tokenized or sent, so a card {@code PaymentDetails} can be used
+ * for a single purchase only. To retry a purchase, tokenize the card once and
+ * pass the {@link CardToken} through {@link #token} instead.</p>
+ */
+public class PaymentDetails {
+    private final String paymentMethod;
+    private final CardPayload card;
+    private final CardToken cardToken;
+    private final String email;
+
+    private PaymentDetails(String paymentMethod, CardPayload card, CardToken cardToken, String email) {
+        this.paymentMethod = paymentMethod;
+        this.card = card;
+        this.cardToken = cardToken;
+        this.email = email;
+    }
+
+    /**
+     * @param card card buffers, wiped after the purchase request
+     */
+    public static PaymentDetails card(CardPayload card) {
+        return new PaymentDetails(InAppConstants.PAYMENT_METHOD_CARD, card, null, null);
+    }
+
+    /**
+     * @param cardToken card encrypted on the device; reusable across retries
+     */
+    public static PaymentDetails token(CardToken cardToken) {
+        return new PaymentDetails(InAppConstants.PAYMENT_METHOD_CARD, null, cardToken, null);
+    }
+
+    /**
+     * Convenience overload for callers that already hold the card as Strings.
+     * Prefer {@link #card(CardPayload)} to keep the PAN out of String objects.
+     *
+     * @param cardNumber card digits, spaces allowed
+     * @param expiry     {@code MM/YY}
+     * @param cvv        3–4 digit security code
+     * @param name       cardholder name
+     */
+    public static PaymentDetails card(String cardNumber, String expiry, String cvv, String name) {
+        return card(new CardPayload(
+                CardPayload.copyOf(cardNumber),
+                CardPayload.copyOf(expiry),
+                CardPayload.copyOf(cvv),
+                CardPayload.copyOf(name)));
+    }
+
+    /**
+     * @param email PayPal account e-mail; kept for the host, not sent to
+     *              {@code processPurchase}
+     */
+    public static PaymentDetails paypal(String email) {
+        return new PaymentDetails(InAppConstants.PAYMENT_METHOD_PAYPAL, null, null, email);
+    }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public CardPayload getCard() { return card; }
+    public CardToken getCardToken() { return cardToken; }
+    public String getEmail() { return email; }
+}
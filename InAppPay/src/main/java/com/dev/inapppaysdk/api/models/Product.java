@@ -0,0 +1,88 @@
+package com.dev.inapppaysdk.api.models;
+
+import java.util.Map;
+
+/**
+ * Typed view of a single catalog entry as returned by the {@code getCatalog}
+ * Cloud Function.
+ *
+ * <p>Instances are immutable and safe to share between threads and caches.</p>
+ */
+public class Product {
+    private final String id;
+    private final String name;
+    private final String description;
+    private final String type;
+    private final String price;
+    private final String currency;
+    private final boolean active;
+
+    public Product(String id, String name, String description, String type,
+                   String price, String currency, boolean active) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.type = type;
+        this.price = price;
+        this.currency = currency;
+        this.active = active;
+    }
+
+    /**
+     * Builds a product from the raw map produced by Gson.
+     *
+     * @param raw     one entry of the catalog response
+     * @param fallbackId key to use when the entry itself carries no id
+     *                (catalogs keyed by product id)
+     * @return the parsed product, or {@code null} if the entry has no id
+     */
+    public static Product fromMap(Map<String, Object> raw, String fallbackId) {
+        if (raw == null) {
+            return null;
+        }
+        String id = asString(raw.get("id"));
+        if (id == null) id = asString(raw.get("productId"));
+        if (id == null) id = fallbackId;
+        if (id == null) {
+            return null;
+        }
+        Object active = raw.get("active");
+        return new Product(
+                id,
+                asString(raw.get("name")),
+                asString(raw.get("description")),
+                asString(raw.get("type")),
+                asString(raw.get("price")),
+                asString(raw.get("currency")),
+                !(active instanceof Boolean) || (Boolean) active
+        );
+    }
+
+    // Gson decodes every JSON number as Double; prices are shown verbatim so
+    // drop the trailing ".0" it introduces for whole amounts.
+    private static String asString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d == Math.rint(d) && !Double.isInfinite(d)) {
+                return String.valueOf((long) d);
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public String getType() { return type; }
+    public String getPrice() { return price; }
+    public String getCurrency() { return currency; }
+    public boolean isActive() { return active; }
+
+    @Override
+    public String toString() {
+        return "Product{" + id + ", " + type + ", " + price + " " + currency + "}";
+    }
+}
@@ -0,0 +1,61 @@
+package com.dev.inapppaysdk.api.models;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Result of a successful {@code validateItemForPurchase} call: the validated
+ * product plus the raw item data returned by the back-end.
+ *
+ * <p>A session is the ticket required by
+ * {@link com.dev.inapppaysdk.InAppPayClient#purchase}. It holds no payment
+ * data and is immutable. Its {@link #getSessionId() id} keeps validation and
+ * payment in the same back-end region.</p>
+ */
+public class PurchaseSession {
+    private final String sessionId;
+    private final String productId;
+    private final Product item;
+    private final Map<String, Object> itemData;
+    private final long validatedAt;
+    private final long serverValidatedAt;
+
+    public PurchaseSession(String productId, Product item, Map<String, Object> itemData, long validatedAt) {
+        this(UUID.randomUUID().toString(), productId, item, itemData, validatedAt);
+    }
+
+    public PurchaseSession(String sessionId, String productId, Product item, Map<String, Object> itemData,
+                           long validatedAt) {
+        this(sessionId, productId, item, itemData, validatedAt, 0);
+    }
+
+    /**
+     * @param validatedAt       device wall-clock time (ms) of the validation
+     * @param serverValidatedAt the back-end's time (ms) of the validation, or
+     *                          {@code 0} if it did not say
+     */
+    public PurchaseSession(String sessionId, String productId, Product item, Map<String, Object> itemData,
+                           long validatedAt, long serverValidatedAt) {
+        this.sessionId = sessionId;
+        this.productId = productId;
+        this.item = item;
+        this.itemData = itemData != null ? Collections.unmodifiableMap(itemData) : Collections.emptyMap();
+        this.validatedAt = validatedAt;
+        this.serverValidatedAt = serverValidatedAt;
+    }
+
+    /** @return opaque id sent with every call of this purchase */
+    public String getSessionId() { return sessionId; }
+    public String getProductId() { return productId; }
+    public Product getItem() { return item; }
+    public String getItemType() { return item.getType(); }
+    public Map<String, Object> getItemData() { return itemData; }
+    /** @return device wall-clock time (ms) at which the back-end validated the item */
+    public long getValidatedAt() { return validatedAt; }
+    /**
+     * @return the back-end's clock (ms, from the response's {@code Date}
+     *         header) when it validated the item, or {@code 0} if unknown
+     */
+    public long getServerValidatedAt() { return serverValidatedAt; }
+}
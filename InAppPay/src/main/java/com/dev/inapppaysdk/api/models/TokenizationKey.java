@@ -0,0 +1,56 @@
+package com.dev.inapppaysdk.api.models;
+
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * RSA public key returned by the {@code getTokenizationKey} Cloud Function.
+ *
+ * <p>Instances are immutable and safe to share between threads and caches.</p>
+ */
+public class TokenizationKey {
+    private final String keyId;
+    private final PublicKey publicKey;
+    private final long expiresAt;
+
+    public TokenizationKey(String keyId, PublicKey publicKey, long expiresAt) {
+        this.keyId = keyId;
+        this.publicKey = publicKey;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Builds a key from the raw map produced by Gson.
+     *
+     * @param raw        {@code data} of the response: {@code keyId},
+     *                   {@code publicKey} (Base64 X.509) and optionally
+     *                   {@code expiresAt} (epoch millis)
+     * @param defaultTtl lifetime to assume when the server sends no expiry
+     * @return the parsed key
+     * @throws IllegalArgumentException if the map is not a valid RSA key
+     */
+    public static TokenizationKey fromMap(Map<String, Object> raw, long defaultTtl) {
+        if (raw == null || !(raw.get("keyId") instanceof String) || !(raw.get("publicKey") instanceof String)) {
+            throw new IllegalArgumentException("Malformed tokenization key");
+        }
+        PublicKey publicKey;
+        try {
+            byte[] der = Base64.getDecoder().decode((String) raw.get("publicKey"));
+            publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(der));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid tokenization key: " + e.getMessage(), e);
+        }
+        Object expiresAt = raw.get("expiresAt");
+        return new TokenizationKey((String) raw.get("keyId"), publicKey,
+                expiresAt instanceof Number
+                        ? ((Number) expiresAt).longValue()
+                        : System.currentTimeMillis() + defaultTtl);
+    }
+
+    public String getKeyId() { return keyId; }
+    public PublicKey getPublicKey() { return publicKey; }
+    public long getExpiresAt() { return expiresAt; }
+}
@@ -0,0 +1,15 @@
+package com.dev.inapppaysdk.callbacks;
+
+import com.dev.inapppaysdk.admin.BatchReport;
+
+/**
+ * Callback of a {@link com.dev.inapppaysdk.admin.BatchChecker} run. Every
+ * method is called on the main thread.
+ */
+public interface BatchCallback {
+    /** Called as each query completes, in completion order. */
+    void onProgress(BatchReport.Result result, int completed, int total);
+
+    /** Called once, after the last query or after a cancel. */
+    void onComplete(BatchReport report);
+}
@@ -0,0 +1,13 @@
+package com.dev.inapppaysdk.callbacks;
+
+import com.dev.inapppaysdk.api.models.Product;
+
+import java.util.List;
+
+/**
+ * Callback used when fetching the product catalog of a project.
+ */
+public interface CatalogCallback {
+    void onSuccess(List<Product> products);
+    void onError(String error, String errorCode);
+}
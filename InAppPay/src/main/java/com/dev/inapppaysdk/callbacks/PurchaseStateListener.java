@@ -0,0 +1,10 @@
+package com.dev.inapppaysdk.callbacks;
+
+import com.dev.inapppaysdk.utils.PurchaseStateMachine;
+
+/**
+ * Callback used to observe purchase flow transitions of a product.
+ */
+public interface PurchaseStateListener {
+    void onStateChanged(String productId, PurchaseStateMachine.State from, PurchaseStateMachine.State to);
+}
@@ -0,0 +1,12 @@
+package com.dev.inapppaysdk.callbacks;
+
+import java.util.Map;
+
+/**
+ * Callback used to observe expiries and renewals of cached subscriptions,
+ * delivered on the main thread.
+ */
+public interface SubscriptionListener {
+    void onSubscriptionExpired(String productId, Map<String, Object> subscriptionData);
+    void onSubscriptionRenewed(String productId, Map<String, Object> subscriptionData);
+}
@@ -0,0 +1,11 @@
+package com.dev.inapppaysdk.callbacks;
+
+import com.dev.inapppaysdk.api.models.CardToken;
+
+/**
+ * Callback used when card details have been tokenized on the device.
+ */
+public interface TokenizeCallback {
+    void onTokenized(CardToken token);
+    void onError(String error, String errorCode);
+}
@@ -0,0 +1,11 @@
+package com.dev.inapppaysdk.callbacks;
+
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+
+/**
+ * Callback used when an item has been validated for purchase.
+ */
+public interface ValidationCallback {
+    void onValidated(PurchaseSession session);
+    void onError(String error, String errorCode);
+}
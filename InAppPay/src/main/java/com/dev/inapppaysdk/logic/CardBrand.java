@@ -0,0 +1,176 @@
+package com.dev.inapppaysdk.logic;
+
+import java.util.Arrays;
+
+/**
+ * Card brands with their number length, CVV and grouping rules, detected
+ * from the card's BIN/IIN prefix.
+ *
+ * <p>Detection looks the first six digits up in an embedded table of sorted
+ * {@code int} ranges with a binary search; nothing is allocated, so it can run
+ * on every keystroke. An incomplete prefix resolves to a brand only once every
+ * range it could still fall into belongs to that brand, e.g. {@code "3"} stays
+ * {@link #UNKNOWN} while {@code "34"} is already {@link #AMEX}.</p>
+ */
+public enum CardBrand {
+    VISA("visa", lengths(13, 16, 19), 3, 4, 8, 12),
+    MASTERCARD("mastercard", lengths(16), 3, 4, 8, 12),
+    AMEX("amex", lengths(15), 4, 4, 10),
+    DINERS("diners", lengths(14, 16, 19), 3, 4, 10),
+    DISCOVER("discover", lengths(16, 17, 18, 19), 3, 4, 8, 12),
+    JCB("jcb", lengths(16, 17, 18, 19), 3, 4, 8, 12),
+    UNIONPAY("unionpay", lengths(14, 15, 16, 17, 18, 19), 3, 4, 8, 12),
+    MAESTRO("maestro", lengths(12, 13, 14, 15, 16, 17, 18, 19), 3, 4, 8, 12),
+    MIR("mir", lengths(16, 17, 18, 19), 3, 4, 8, 12),
+    /** Prefix not (yet) recognised; any common card length is accepted. */
+    UNKNOWN("unknown", lengths(12, 13, 14, 15, 16, 17, 18, 19), 3, 4, 8, 12);
+
+    /** Digits of the prefix the table is keyed on. */
+    static final int BIN_DIGITS = 6;
+
+    private static final CardBrand[] BRANDS = values();
+    private static final int[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    // ── BIN table: six-digit ranges, sorted and non-overlapping ─────────────
+    private static final int[] RANGE_LOW;
+    private static final int[] RANGE_HIGH;
+    private static final byte[] RANGE_BRAND;
+
+    static {
+        Object[][] ranges = {
+                {220000, 220499, MIR},
+                {222100, 272099, MASTERCARD},
+                {300000, 305999, DINERS},
+                {309500, 309599, DINERS},
+                {340000, 349999, AMEX},
+                {352800, 358999, JCB},
+                {360000, 369999, DINERS},
+                {370000, 379999, AMEX},
+                {380000, 399999, DINERS},
+                {400000, 499999, VISA},
+                {500000, 509999, MAESTRO},
+                {510000, 559999, MASTERCARD},
+                {560000, 589999, MAESTRO},
+                {601100, 601199, DISCOVER},
+                {620000, 629999, UNIONPAY},
+                {630400, 630499, MAESTRO},
+                {639000, 639099, MAESTRO},
+                {644000, 659999, DISCOVER},
+                {675900, 675999, MAESTRO},
+                {676700, 676799, MAESTRO},
+                {810000, 817199, UNIONPAY},
+        };
+        RANGE_LOW = new int[ranges.length];
+        RANGE_HIGH = new int[ranges.length];
+        RANGE_BRAND = new byte[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            RANGE_LOW[i] = (Integer) ranges[i][0];
+            RANGE_HIGH[i] = (Integer) ranges[i][1];
+            RANGE_BRAND[i] = (byte) ((CardBrand) ranges[i][2]).ordinal();
+        }
+    }
+
+    private final String code;
+    private final int lengthMask;
+    private final int cvvLength;
+    private final int[] gaps;
+
+    CardBrand(String code, int lengthMask, int cvvLength, int... gaps) {
+        this.code = code;
+        this.lengthMask = lengthMask;
+        this.cvvLength = cvvLength;
+        this.gaps = gaps;
+    }
+
+    /** @return the brand name sent to the back-end, e.g. {@code "visa"} */
+    public String getCode() { return code; }
+    public int getCvvLength() { return cvvLength; }
+
+    /** @return the longest number this brand issues */
+    public int getMaxLength() {
+        return 31 - Integer.numberOfLeadingZeros(lengthMask);
+    }
+
+    public boolean isValidLength(int digits) {
+        return digits > 0 && digits < 32 && (lengthMask & (1 << digits)) != 0;
+    }
+
+    /**
+     * {@link #UNKNOWN} accepts 3 or 4 digits, since the brand is not known.
+     */
+    public boolean isValidCvvLength(int digits) {
+        return this == UNKNOWN ? digits == 3 || digits == 4 : digits == cvvLength;
+    }
+
+    /** @return whether a separator goes after the given number of digits */
+    public boolean isGroupBoundary(int digits) {
+        for (int gap : gaps) {
+            if (gap == digits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Detects the brand of a (partial) card number. Spaces and dashes are
+     * skipped; any other non-digit yields {@link #UNKNOWN}.
+     */
+    public static CardBrand detect(CharSequence number) {
+        if (number == null) {
+            return UNKNOWN;
+        }
+        int prefix = 0;
+        int digits = 0;
+        for (int i = 0, n = number.length(); i < n && digits < BIN_DIGITS; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                prefix = prefix * 10 + (c - '0');
+                digits++;
+            } else if (c != ' ' && c != '-') {
+                return UNKNOWN;
+            }
+        }
+        return lookup(prefix, digits);
+    }
+
+    /** As {@link #detect(CharSequence)}, for a digits-only buffer. */
+    public static CardBrand detect(char[] number) {
+        if (number == null) {
+            return UNKNOWN;
+        }
+        int prefix = 0;
+        int digits = Math.min(number.length, BIN_DIGITS);
+        for (int i = 0; i < digits; i++) {
+            char c = number[i];
+            if (c < '0' || c > '9') {
+                return UNKNOWN;
+            }
+            prefix = prefix * 10 + (c - '0');
+        }
+        return lookup(prefix, digits);
+    }
+
+    // A prefix of n digits covers a block of BINs; it has a brand only if one range holds the whole block
+    static CardBrand lookup(int prefix, int digits) {
+        if (digits == 0) {
+            return UNKNOWN;
+        }
+        int scale = POW10[BIN_DIGITS - digits];
+        int low = prefix * scale;
+        int high = low + scale - 1;
+        int i = Arrays.binarySearch(RANGE_LOW, low);
+        if (i < 0) {
+            i = -i - 2; // last range starting below the block
+        }
+        return i >= 0 && RANGE_HIGH[i] >= high ? BRANDS[RANGE_BRAND[i]] : UNKNOWN;
+    }
+
+    private static int lengths(int... lengths) {
+        int mask = 0;
+        for (int length : lengths) {
+            mask |= 1 << length;
+        }
+        return mask;
+    }
+}
@@ -4,88 +4,277 @@ import android.icu.util.Calendar;
 import com.google.android.material.textfield.TextInputLayout;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.widget.EditText;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Validator {
-    private final TextInputLayout inputLayout;
+    // Shared by every validator; async checks are short and rarely overlap
+    private static ExecutorService asyncExecutor;
+
+    private final Field field;
     private final List<Watcher> watchers;
+    private final List<Watcher.AsyncWatcher> asyncWatchers;
+    private final long debounceMs;
+    private final boolean memoizable;
+    private final Runnable debouncedValidation = this::validateCurrent;
+
+    // Main-thread state: memo of the last validated input and its outcome
+    private String lastText;
+    private Watcher lastFailed;
+    private int generation;
+    private Future<?> pendingAsync;
+    // Async watchers still checking lastText; it is not valid until they pass
+    private boolean pending;
 
 
     /**
      * The Validator class attaches a group of Watchers to a TextInputLayout
      * and manages validation + error display.
      */
-    private Validator(TextInputLayout inputLayout, List<Watcher> watchers) {
-        this.inputLayout = inputLayout;
+    private Validator(Field field, List<Watcher> watchers,
+                      List<Watcher.AsyncWatcher> asyncWatchers, long debounceMs,
+                      List<Field> dependencies) {
+        this.field = field;
         this.watchers = watchers;
-        attachListener();
+        this.asyncWatchers = asyncWatchers;
+        this.debounceMs = debounceMs;
+        this.memoizable = allMemoizable(watchers) && allMemoizable(asyncWatchers);
+        attachListener(dependencies);
+    }
+
+    private static boolean allMemoizable(List<? extends Watcher> watchers) {
+        for (Watcher w : watchers) {
+            if (!w.isMemoizable()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Attaches live text change listener to validate input as user types.
      */
-    private void attachListener() {
-        if (inputLayout.getEditText() == null)
-            return;
-        inputLayout.getEditText()
-                .addTextChangedListener(new SimpleTextWatcher() {
-                    @Override
-                    public void onTextChanged(CharSequence s, int start, int before, int count) {
-                        // update error state live
-                        runValidation(s.toString());
-                    }
-                });
+    private void attachListener(List<Field> dependencies) {
+        // update error state live, once typing pauses if debounced
+        field.onTextChanged(this::scheduleValidation);
+        for (Field dependency : dependencies) {
+            dependency.onTextChanged(() -> {
+                // an untouched field is not flagged while the other one is typed
+                String text = field.text();
+                if (text != null && !text.isEmpty()) {
+                    lastText = null;
+                    scheduleValidation();
+                }
+            });
+        }
+    }
+
+    private void scheduleValidation() {
+        if (debounceMs > 0) {
+            field.removeCallbacks(debouncedValidation);
+            field.postDelayed(debouncedValidation, debounceMs);
+        } else {
+            validateCurrent();
+        }
+    }
+
+    private void validateCurrent() {
+        String text = field.text();
+        if (text != null) {
+            runValidation(text);
+        }
     }
 
     /**
-     * Validates the input and updates the error message.
+     * Validates the input and updates the error message. Synchronous watchers
+     * run in order and stop at the first failure; async watchers are then
+     * started in the background. Unchanged input reuses the last outcome,
+     * unless a watcher is not {@link Watcher#isMemoizable() memoizable}.
      * @param text the current input string
-     * @return true if all watchers passed
+     * @return true if every watcher passed; false while async watchers are
+     *         still checking
      */
     private boolean runValidation(String text) {
+        if (memoizable && text.equals(lastText)) {
+            return lastFailed == null && !pending;
+        }
+        lastText = text;
+        generation++;
+        cancelAsync();
         for (Watcher w : watchers) {
             if (!w.validate(text)) {
-                inputLayout.setError(w.errorMessage);
+                return fail(w);
+            }
+        }
+        for (Watcher.AsyncWatcher w : asyncWatchers) {
+            Boolean known = w.memoized(text);
+            if (known == null) {
+                lastFailed = null;
+                field.setError(null);
+                startAsync(text);
                 return false;
             }
+            if (!known) {
+                return fail(w);
+            }
         }
-        inputLayout.setError(null);
+        lastFailed = null;
+        field.setError(null);
         return true;
     }
 
+    private boolean fail(Watcher w) {
+        lastFailed = w;
+        field.setError(w.errorMessage);
+        return false;
+    }
+
+    // Runs the async watchers in order; a result for older input is dropped
+    private void startAsync(String text) {
+        final int started = generation;
+        pending = true;
+        pendingAsync = asyncExecutor().submit(() -> {
+            Watcher failed = null;
+            for (Watcher.AsyncWatcher w : asyncWatchers) {
+                boolean passed = w.validate(text);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (!passed) {
+                    failed = w;
+                    break;
+                }
+            }
+            Watcher outcome = failed;
+            field.post(() -> {
+                if (generation == started) {
+                    pending = false;
+                    pendingAsync = null;
+                    if (outcome != null) {
+                        fail(outcome);
+                    }
+                }
+            });
+        });
+    }
+
+    private void cancelAsync() {
+        pending = false;
+        if (pendingAsync != null) {
+            pendingAsync.cancel(true);
+            pendingAsync = null;
+        }
+    }
+
+    private static synchronized ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "InAppPay-validate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return asyncExecutor;
+    }
+
     /**
-     * Public method to trigger validation manually.
+     * Public method to trigger validation manually. Pending debounced
+     * validation runs now. Input that async watchers are still checking is
+     * not valid yet; see {@link #isPending()}.
      * @return true if the current text in the field is valid
      */
     public boolean isValid() {
-        if (inputLayout.getEditText() == null)
+        String current = field.text();
+        if (current == null)
             return false;
-        String current = inputLayout.getEditText().getText().toString();
+        field.removeCallbacks(debouncedValidation);
         return runValidation(current);
     }
 
+    /**
+     * @return whether async watchers are still checking the last validated
+     *         text; {@link #isValid()} answers {@code false} until they are done
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
     /**
      * Fluent Builder for creating Validator instances.
      */
     public static class Builder {
-        private final TextInputLayout inputLayout;
+        private final Field field;
         private final List<Watcher> watchers = new ArrayList<>();
+        private final List<Watcher.AsyncWatcher> asyncWatchers = new ArrayList<>();
+        private final List<Field> dependencies = new ArrayList<>();
+        private boolean orderByCost = false;
+        private long debounceMs = 0;
         private boolean built = false;
 
-        private Builder(TextInputLayout inputLayout) {
-            this.inputLayout = inputLayout;
+        private Builder(Field field) {
+            this.field = field;
         }
 
         public static Builder with(TextInputLayout inputLayout) {
-            return new Builder(inputLayout);
+            return new Builder(Field.of(inputLayout));
+        }
+
+        // For tests: a field without Android views
+        static Builder with(Field field) {
+            return new Builder(field);
         }
 
+        /**
+         * Adds a check. {@link Watcher.AsyncWatcher}s run on a background
+         * thread after all synchronous watchers have passed.
+         */
         public Builder addWatcher(Watcher watcher) {
             if (built) {
                 throw new IllegalStateException("Cannot add watcher: Validator already built");
             }
-            watchers.add(watcher);
+            if (watcher instanceof Watcher.AsyncWatcher) {
+                asyncWatchers.add((Watcher.AsyncWatcher) watcher);
+            } else {
+                watchers.add(watcher);
+            }
+            return this;
+        }
+
+        /**
+         * Runs the cheapest watchers first (see {@link Watcher#getCost()}), so
+         * that a failing cheap check skips the expensive ones. Watchers of
+         * equal cost keep the order they were added in.
+         */
+        public Builder orderByCost() {
+            this.orderByCost = true;
+            return this;
+        }
+
+        /**
+         * Validates while typing only once input has been idle for
+         * {@code delayMs}; {@link Validator#isValid()} is never delayed.
+         */
+        public Builder debounce(long delayMs) {
+            this.debounceMs = delayMs;
+            return this;
+        }
+
+        /**
+         * Validates again when {@code other} changes, for watchers that read
+         * it, such as a {@link Watcher.CvvWatcher} reading the card number.
+         * An empty field is left alone until the user has typed into it.
+         */
+        public Builder dependsOn(TextInputLayout other) {
+            return dependsOn(Field.of(other));
+        }
+
+        Builder dependsOn(Field other) {
+            dependencies.add(other);
             return this;
         }
 
@@ -94,7 +283,80 @@ public class Validator {
                 throw new IllegalStateException("Validator already built");
             }
             built = true;
-            return new Validator(inputLayout, watchers);
+            if (orderByCost) {
+                Comparator<Watcher> byCost = Comparator.comparingInt(Watcher::getCost);
+                watchers.sort(byCost); // List.sort is stable
+                asyncWatchers.sort(byCost);
+            }
+            return new Validator(field, watchers, asyncWatchers, debounceMs, dependencies);
+        }
+    }
+
+    /**
+     * The parts of an input field a Validator uses. Called on the main
+     * thread only.
+     */
+    interface Field {
+        /** @return the current text, or {@code null} if there is no EditText */
+        String text();
+
+        void setError(CharSequence error);
+
+        void onTextChanged(Runnable listener);
+
+        void post(Runnable action);
+
+        void postDelayed(Runnable action, long delayMs);
+
+        void removeCallbacks(Runnable action);
+
+        static Field of(TextInputLayout inputLayout) {
+            return new Field() {
+                @Override
+                public String text() {
+                    EditText editText = inputLayout.getEditText();
+                    return editText != null ? editText.getText().toString() : null;
+                }
+
+                @Override
+                public void setError(CharSequence error) {
+                    inputLayout.setError(error);
+                }
+
+                @Override
+                public void onTextChanged(Runnable listener) {
+                    EditText editText = inputLayout.getEditText();
+                    if (editText != null) {
+                        editText.addTextChangedListener(new SimpleTextWatcher() {
+                            @Override
+                            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                                listener.run();
+                            }
+                        });
+                    }
+                }
+
+                @Override
+                public void post(Runnable action) {
+                    inputLayout.post(action);
+                }
+
+                @Override
+                public void postDelayed(Runnable action, long delayMs) {
+                    EditText editText = inputLayout.getEditText();
+                    if (editText != null) {
+                        editText.postDelayed(action, delayMs);
+                    }
+                }
+
+                @Override
+                public void removeCallbacks(Runnable action) {
+                    EditText editText = inputLayout.getEditText();
+                    if (editText != null) {
+                        editText.removeCallbacks(action);
+                    }
+                }
+            };
         }
     }
 
@@ -3,7 +3,12 @@ package com.dev.inapppaysdk.logic;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -11,6 +16,12 @@ import java.util.regex.Pattern;
  * Subclasses implement different rules (e.g., not blank, valid email, card number format, etc.).
  */
 public abstract class Watcher {
+    /** Relative cost of a check, used by {@link Validator.Builder#orderByCost()}. */
+    public static final int COST_TRIVIAL = 0;
+    public static final int COST_REGEX = 10;
+    public static final int COST_PARSE = 20;
+    public static final int COST_REMOTE = 100;
+
     protected final String errorMessage;
 
     protected Watcher(String errorMessage) {
@@ -28,12 +39,27 @@ public abstract class Watcher {
     /** To be implemented by subclasses to define the rule logic. */
     protected abstract boolean check(String input);
 
+    /** @return how expensive {@link #check} is; cheaper watchers can run first */
+    public int getCost() {
+        return COST_REGEX;
+    }
+
+    /**
+     * @return whether the outcome depends on the input alone, so that
+     *         {@link Validator} may reuse it while the text is unchanged.
+     *         Watchers reading other fields return {@code false}.
+     */
+    public boolean isMemoizable() {
+        return true;
+    }
+
     // === Built-in Validators ===
     public static class NotBlank extends Watcher {
         public NotBlank(String errorMessage) { super(errorMessage); }
         @Override protected boolean check(String input) {
             return !input.isEmpty();
         }
+        @Override public int getCost() { return COST_TRIVIAL; }
     }
 
     public static class PatternWatcher extends Watcher {
@@ -47,6 +73,11 @@ public abstract class Watcher {
         }
     }
 
+    /**
+     * @deprecated shares one non-thread-safe {@link SimpleDateFormat} and
+     * throws on every invalid keystroke; use {@link ExpiryWatcher}.
+     */
+    @Deprecated
     public static class DateFormatWatcher extends Watcher {
         private final DateFormat dateFormat;
         public DateFormatWatcher(String errorMessage, String pattern) {
@@ -62,6 +93,260 @@ public abstract class Watcher {
                 return false;
             }
         }
+        @Override public int getCost() { return COST_PARSE; }
+    }
+
+    /**
+     * Card expiry check without {@link SimpleDateFormat}: the digits are
+     * scanned by hand, so invalid input costs no exception and no allocation.
+     * Instances are immutable and thread-safe.
+     *
+     * <p>Accepts {@link #MM_YY} and/or {@link #MM_YYYY}. With a {@link Clock}
+     * the date must also lie between the current month (inclusive, cards are
+     * valid through their expiry month) and {@code maxYearsAhead} years
+     * from now; {@link #notExpired} and {@link #notTooFar} check one bound
+     * each, so each can have its own message. The current month is cached
+     * and only recomputed when the clock crosses into the next month.</p>
+     */
+    public static class ExpiryWatcher extends Watcher {
+        /** {@code MM/yy}, e.g. 07/29; read as 2000 + yy. */
+        public static final int MM_YY = 1;
+        /** {@code MM/yyyy}, e.g. 07/2029. */
+        public static final int MM_YYYY = 2;
+        /** Limit commonly used for card expiry dates. */
+        public static final int DEFAULT_MAX_YEARS_AHEAD = 20;
+
+        private final int formats;
+        private final MonthClock clock;
+        private final int minMonthsAhead;
+        private final int maxMonthsAhead;
+
+        /** Checks the format only. */
+        public ExpiryWatcher(String errorMessage, int formats) {
+            this(errorMessage, formats, null, 0, 0);
+        }
+
+        /**
+         * Checks the format and that the date is neither past nor more than
+         * {@code maxYearsAhead} years away.
+         */
+        public ExpiryWatcher(String errorMessage, int formats, Clock clock, int maxYearsAhead) {
+            this(errorMessage, formats, clock, 0, maxYearsAhead * 12);
+        }
+
+        private ExpiryWatcher(String errorMessage, int formats, Clock clock, int minMonthsAhead, int maxMonthsAhead) {
+            super(errorMessage);
+            if ((formats & (MM_YY | MM_YYYY)) == 0) {
+                throw new IllegalArgumentException("No expiry format selected");
+            }
+            this.formats = formats;
+            this.clock = clock != null ? MonthClock.of(clock) : null;
+            this.minMonthsAhead = minMonthsAhead;
+            this.maxMonthsAhead = maxMonthsAhead;
+        }
+
+        /** Checks the format and that the date is not in the past. */
+        public static ExpiryWatcher notExpired(String errorMessage, int formats, Clock clock) {
+            return new ExpiryWatcher(errorMessage, formats, clock, 0, Integer.MAX_VALUE);
+        }
+
+        /** Checks the format and that the date is at most {@code maxYearsAhead} years away. */
+        public static ExpiryWatcher notTooFar(String errorMessage, int formats, Clock clock, int maxYearsAhead) {
+            return new ExpiryWatcher(errorMessage, formats, clock, Integer.MIN_VALUE, maxYearsAhead * 12);
+        }
+
+        @Override protected boolean check(String input) {
+            int month = parseMonths(input, formats);
+            if (month < 0) {
+                return false;
+            }
+            if (clock == null) {
+                return true;
+            }
+            int ahead = month - clock.currentMonths();
+            return ahead >= minMonthsAhead && ahead <= maxMonthsAhead;
+        }
+
+        @Override public int getCost() { return COST_TRIVIAL; }
+
+        /**
+         * @return {@code year * 12 + (month - 1)} of an expiry in one of
+         *         {@code formats}, or -1 if it matches none
+         */
+        public static int parseMonths(CharSequence input, int formats) {
+            int length = input.length();
+            if (length != 5 && length != 7 || input.charAt(2) != '/') {
+                return -1;
+            }
+            int month = digits(input, 0, 2);
+            if (month < 1 || month > 12) {
+                return -1;
+            }
+            int year;
+            if (length == 5 && (formats & MM_YY) != 0) {
+                year = digits(input, 3, 5);
+                year = year < 0 ? -1 : 2000 + year;
+            } else if (length == 7 && (formats & MM_YYYY) != 0) {
+                year = digits(input, 3, 7);
+            } else {
+                return -1;
+            }
+            return year < 0 ? -1 : year * 12 + (month - 1);
+        }
+
+        private static int digits(CharSequence s, int from, int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Card number check: digits (spaces and dashes ignored) in a length the
+     * detected {@link CardBrand} issues. Allocation-free.
+     */
+    public static class CardNumberWatcher extends Watcher {
+        public CardNumberWatcher(String errorMessage) { super(errorMessage); }
+        @Override protected boolean check(String input) {
+            int digits = 0;
+            for (int i = 0, n = input.length(); i < n; i++) {
+                char c = input.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digits++;
+                } else if (c != ' ' && c != '-') {
+                    return false;
+                }
+            }
+            return CardBrand.detect(input).isValidLength(digits);
+        }
+        @Override public int getCost() { return COST_TRIVIAL; }
+    }
+
+    /**
+     * CVV check whose length follows the brand of the card number currently
+     * in {@code cardNumber}, e.g. 4 digits for Amex and 3 for Visa.
+     */
+    public static class CvvWatcher extends Watcher {
+        private final Supplier<? extends CharSequence> cardNumber;
+        public CvvWatcher(String errorMessage, Supplier<? extends CharSequence> cardNumber) {
+            super(errorMessage);
+            this.cardNumber = cardNumber;
+        }
+        @Override protected boolean check(String input) {
+            for (int i = 0, n = input.length(); i < n; i++) {
+                char c = input.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return CardBrand.detect(cardNumber.get()).isValidCvvLength(input.length());
+        }
+        @Override public int getCost() { return COST_TRIVIAL; }
+        /** Reads the card number as well; see {@link Validator.Builder#dependsOn}. */
+        @Override public boolean isMemoizable() { return false; }
+    }
+
+    /** Current month of a {@link Clock}, recomputed once per month. */
+    static final class MonthClock {
+        private static volatile MonthClock system;
+
+        private final Clock clock;
+        private volatile Snapshot snapshot = new Snapshot(0, Long.MIN_VALUE);
+
+        private MonthClock(Clock clock) {
+            this.clock = clock;
+        }
+
+        // The system clock is shared so every watcher reuses one cached month
+        static MonthClock of(Clock clock) {
+            if (!clock.equals(Clock.systemDefaultZone())) {
+                return new MonthClock(clock);
+            }
+            MonthClock shared = system;
+            if (shared == null || !shared.clock.equals(clock)) {
+                shared = new MonthClock(clock);
+                system = shared;
+            }
+            return shared;
+        }
+
+        int currentMonths() {
+            Snapshot current = snapshot;
+            if (clock.millis() < current.untilMillis) {
+                return current.months;
+            }
+            YearMonth month = YearMonth.now(clock);
+            long until = month.plusMonths(1).atDay(1).atStartOfDay(clock.getZone())
+                    .toInstant().toEpochMilli();
+            current = new Snapshot(month.getYear() * 12 + month.getMonthValue() - 1, until);
+            snapshot = current;
+            return current.months;
+        }
+
+        private static final class Snapshot {
+            final int months;
+            final long untilMillis;
+
+            Snapshot(int months, long untilMillis) {
+                this.months = months;
+                this.untilMillis = untilMillis;
+            }
+        }
+    }
+
+    /**
+     * Watcher for expensive or remote checks (BIN lookup, e-mail
+     * verification). {@link Validator} runs it on a background thread once
+     * every synchronous watcher has passed, cancels it when the input changes
+     * and ignores stale results. The last {@value #MEMO_SIZE} answers are
+     * remembered, so retyping a value does not repeat the check.
+     */
+    public abstract static class AsyncWatcher extends Watcher {
+        static final int MEMO_SIZE = 16;
+
+        private final Map<String, Boolean> memo = new LinkedHashMap<String, Boolean>(MEMO_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MEMO_SIZE;
+            }
+        };
+
+        protected AsyncWatcher(String errorMessage) { super(errorMessage); }
+
+        /**
+         * Runs the check; may block and is called on a background thread.
+         * Implementations should stop early when the thread is interrupted.
+         */
+        protected abstract boolean checkBlocking(String input);
+
+        @Override protected final boolean check(String input) {
+            Boolean known = memoized(input);
+            if (known != null) {
+                return known;
+            }
+            boolean result = checkBlocking(input);
+            if (!Thread.currentThread().isInterrupted()) {
+                synchronized (memo) {
+                    memo.put(input, result);
+                }
+            }
+            return result;
+        }
+
+        /** @return the remembered answer for {@code input}, or {@code null} */
+        final Boolean memoized(String input) {
+            synchronized (memo) {
+                return memo.get(input.trim());
+            }
+        }
+
+        @Override public int getCost() { return COST_REMOTE; }
     }
 
 }
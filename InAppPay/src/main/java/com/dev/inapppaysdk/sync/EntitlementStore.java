@@ -0,0 +1,111 @@
+package com.dev.inapppaysdk.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.dev.inapppaysdk.api.JsonMapAdapter;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton on-disk cache of {@link Entitlements}, one snapshot per project
+ * and user, written by {@link EntitlementSyncWorker} and read on launch.
+ *
+ * <p>Snapshots are stored as JSON in private {@link SharedPreferences}; they
+ * hold purchase records only, never payment details.</p>
+ */
+public class EntitlementStore {
+    private static final String PREFS = "inapppay_entitlements";
+
+    private static EntitlementStore instance;
+
+    private final SharedPreferences prefs;
+    private final Gson gson = JsonMapAdapter.gson();
+
+    private EntitlementStore(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Retrieves the singleton instance of this store.
+     * @param context any context; only the application context is kept
+     * @return a shared instance of EntitlementStore
+     */
+    public static synchronized EntitlementStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new EntitlementStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the last synced snapshot, or {@code null} if there is none or it
+     *         cannot be read. May touch the disk; avoid the main thread.
+     */
+    public Entitlements load(String projectName, String userId) {
+        String json = prefs.getString(key(projectName, userId), null);
+        if (json == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> root = gson.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            Object syncedAt = root.get("syncedAt");
+            return new Entitlements(
+                    records(root.get("purchases")),
+                    records(root.get("subscriptions")),
+                    syncedAt instanceof Number ? ((Number) syncedAt).longValue() : 0);
+        } catch (JsonParseException | ClassCastException e) {
+            return null; // rewritten by the next sync
+        }
+    }
+
+    /**
+     * Replaces the snapshot of a user. Writes synchronously, so call it from
+     * a background thread such as {@link EntitlementSyncWorker#doWork()}: a
+     * worker may be stopped once it returns, before an asynchronous write
+     * would reach the disk.
+     *
+     * @return whether the snapshot was written
+     */
+    public boolean save(String projectName, String userId, Entitlements entitlements) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("syncedAt", entitlements.getSyncedAt());
+        root.put("purchases", entitlements.getPurchases());
+        root.put("subscriptions", entitlements.getSubscriptions());
+        return prefs.edit().putString(key(projectName, userId), gson.toJson(root, JsonMapAdapter.MAP_TYPE)).commit();
+    }
+
+    /** Removes the snapshot of a user, e.g. on logout. */
+    public void remove(String projectName, String userId) {
+        prefs.edit().remove(key(projectName, userId)).apply();
+    }
+
+    /**
+     * Normalises a {@code getPurchases} / {@code getSubscriptions} payload,
+     * either a list of records or a map keyed by record id, to a list.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> records(Object payload) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        Iterable<?> items = payload instanceof List ? (List<?>) payload
+                : payload instanceof Map ? ((Map<?, ?>) payload).values()
+                : null;
+        if (items != null) {
+            for (Object item : items) {
+                if (item instanceof Map) {
+                    records.add((Map<String, Object>) item);
+                }
+            }
+        }
+        return records;
+    }
+
+    private static String key(String projectName, String userId) {
+        return projectName + "/" + userId;
+    }
+}
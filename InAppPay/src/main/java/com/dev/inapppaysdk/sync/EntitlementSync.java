@@ -0,0 +1,90 @@
+package com.dev.inapppaysdk.sync;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules {@link EntitlementSyncWorker} with WorkManager so entitlements
+ * are refreshed without an Activity and app launches start from a warm
+ * {@link EntitlementStore}.
+ *
+ * <p>Periodic syncs wait for an unmetered network, a charging and idle
+ * device; they are unique per project and user, so scheduling again keeps
+ * the existing one. A manual {@link #syncNow} only needs connectivity.</p>
+ *
+ * <pre>{@code
+ * EntitlementSync.schedule(context, "MyProject", userId);
+ * Entitlements cached = EntitlementStore.getInstance(context).load("MyProject", userId);
+ * }</pre>
+ */
+public final class EntitlementSync {
+    /** Interval between periodic syncs. */
+    public static final long DEFAULT_INTERVAL_HOURS = 12;
+
+    private static final String WORK_PREFIX = "inapppay-entitlements-";
+
+    private EntitlementSync() {}
+
+    /** Schedules periodic syncs every {@link #DEFAULT_INTERVAL_HOURS} hours. */
+    public static void schedule(Context context, String projectName, String userId) {
+        schedule(context, projectName, userId, DEFAULT_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Schedules periodic syncs; an existing schedule for the same project and
+     * user is kept.
+     *
+     * @param interval at least 15 minutes, WorkManager's minimum
+     */
+    public static void schedule(Context context, String projectName, String userId,
+                                long interval, TimeUnit unit) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                EntitlementSyncWorker.class, interval, unit)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 5, TimeUnit.MINUTES)
+                .setInputData(EntitlementSyncWorker.inputData(projectName, userId))
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                workName(projectName, userId), ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /** Syncs once as soon as the device is online, e.g. after a purchase elsewhere. */
+    public static void syncNow(Context context, String projectName, String userId) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EntitlementSyncWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .setInputData(EntitlementSyncWorker.inputData(projectName, userId))
+                .build();
+        // Coalesces with a manual sync still queued for the same user
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                workName(projectName, userId) + "-now", ExistingWorkPolicy.KEEP, request);
+    }
+
+    /** Cancels periodic and pending syncs of a user. */
+    public static void cancel(Context context, String projectName, String userId) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.cancelUniqueWork(workName(projectName, userId));
+        workManager.cancelUniqueWork(workName(projectName, userId) + "-now");
+    }
+
+    private static String workName(String projectName, String userId) {
+        return WORK_PREFIX + projectName + "-" + userId;
+    }
+}
@@ -0,0 +1,102 @@
+package com.dev.inapppaysdk.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.tenant.Tenant;
+import com.dev.inapppaysdk.tenant.TenantRegistry;
+import com.dev.inapppaysdk.utils.SdkLog;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Response;
+
+/**
+ * Refreshes one user's entitlements in the background: a single
+ * {@code getPurchases} and a single {@code getSubscriptions} call, whatever
+ * the number of products, written to {@link EntitlementStore}.
+ *
+ * <p>Scheduled through {@link EntitlementSync}. Network failures and 5xx
+ * responses are retried with WorkManager's back-off; rejected requests fail
+ * the run.</p>
+ */
+public class EntitlementSyncWorker extends Worker {
+    static final String KEY_PROJECT_NAME = "projectName";
+    static final String KEY_USER_ID = "userId";
+
+    public EntitlementSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    static Data inputData(String projectName, String userId) {
+        return new Data.Builder()
+                .putString(KEY_PROJECT_NAME, projectName)
+                .putString(KEY_USER_ID, userId)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String projectName = getInputData().getString(KEY_PROJECT_NAME);
+        String userId = getInputData().getString(KEY_USER_ID);
+        if (projectName == null || userId == null) {
+            return Result.failure();
+        }
+
+        Map<String, Object> requestData = new HashMap<>();
+        requestData.put("projectName", projectName);
+        requestData.put("userId", userId);
+
+        InAppApiService apiService = ApiClient.getApiService();
+        try {
+            List<Map<String, Object>> purchases = fetch(apiService.getPurchases(requestData).execute());
+            List<Map<String, Object>> subscriptions = fetch(apiService.getSubscriptions(requestData).execute());
+            Entitlements entitlements = new Entitlements(purchases, subscriptions, System.currentTimeMillis());
+            if (!EntitlementStore.getInstance(getApplicationContext()).save(projectName, userId, entitlements)) {
+                throw new IOException("Could not write entitlements");
+            }
+
+            // Keep a running process's expiry timers in step as well
+            Tenant tenant = TenantRegistry.getInstance().peek(projectName);
+            if (tenant != null) {
+                tenant.getSubscriptionTracker().updateAll(userId, subscriptions);
+            }
+            SdkLog.i(SdkLog.Category.CACHE, "Entitlements synced for {}", projectName);
+            return Result.success();
+        } catch (IOException e) {
+            SdkLog.w(SdkLog.Category.CACHE, "Entitlement sync failed, will retry", e);
+            return Result.retry();
+        } catch (SyncRejectedException e) {
+            SdkLog.w(SdkLog.Category.CACHE, "Entitlement sync rejected: {}", e.getMessage());
+            return Result.failure();
+        }
+    }
+
+    private static List<Map<String, Object>> fetch(Response<Map<String, Object>> response)
+            throws IOException, SyncRejectedException {
+        if (response.code() >= 500) {
+            throw new IOException("HTTP " + response.code());
+        }
+        Map<String, Object> body = response.body();
+        if (!response.isSuccessful() || body == null || !Boolean.TRUE.equals(body.get("success"))) {
+            throw new SyncRejectedException("HTTP " + response.code());
+        }
+        return EntitlementStore.records(body.get("data"));
+    }
+
+    private static final class SyncRejectedException extends Exception {
+        SyncRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.dev.inapppaysdk.sync;
+
+import com.dev.inapppaysdk.utils.SubscriptionTracker;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user's purchases and subscriptions in one project, as of the last
+ * background sync.
+ *
+ * <p>Instances are immutable and safe to share between threads.</p>
+ */
+public class Entitlements {
+    private final List<Map<String, Object>> purchases;
+    private final List<Map<String, Object>> subscriptions;
+    private final long syncedAt;
+
+    public Entitlements(List<Map<String, Object>> purchases, List<Map<String, Object>> subscriptions,
+                        long syncedAt) {
+        this.purchases = Collections.unmodifiableList(purchases);
+        this.subscriptions = Collections.unmodifiableList(subscriptions);
+        this.syncedAt = syncedAt;
+    }
+
+    /** @return raw purchase records from {@code getPurchases} */
+    public List<Map<String, Object>> getPurchases() { return purchases; }
+    /** @return raw subscription records from {@code getSubscriptions} */
+    public List<Map<String, Object>> getSubscriptions() { return subscriptions; }
+    /** @return wall-clock time (ms) of the sync that produced this snapshot */
+    public long getSyncedAt() { return syncedAt; }
+
+    /** @return whether a purchase of {@code productId} was recorded */
+    public boolean isPurchased(String productId) {
+        return find(purchases, productId) != null;
+    }
+
+    /** @return whether a subscription to {@code productId} had not expired at {@code nowMillis} */
+    public boolean isSubscribed(String productId, long nowMillis) {
+        for (Map<String, Object> record : subscriptions) {
+            if (productId.equals(record.get("productId"))
+                    && SubscriptionTracker.expiresAt(record) > nowMillis) {
+                return true; // history may hold expired periods as well
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Object> find(List<Map<String, Object>> records, String productId) {
+        for (Map<String, Object> record : records) {
+            if (productId.equals(record.get("productId"))) {
+                return record;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dev.inapppaysdk.tenant;
+
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.LatencyTracker;
+import com.dev.inapppaysdk.utils.CatalogCache;
+import com.dev.inapppaysdk.utils.PurchaseContextManager;
+import com.dev.inapppaysdk.utils.PurchaseStateMachine;
+import com.dev.inapppaysdk.utils.SubscriptionTracker;
+import com.dev.inapppaysdk.utils.TokenizationKeyCache;
+
+/**
+ * Everything the SDK keeps for one project (storefront): its API service and
+ * latency statistics, catalog cache, purchase context, purchase state and
+ * subscription expiries.
+ *
+ * <p>Tenants share the OkHttp connection pool but nothing else, so a purchase
+ * running in one project never blocks or leaks into another. Obtain instances
+ * from {@link TenantRegistry}.</p>
+ */
+public class Tenant {
+    private final String projectName;
+    private final LatencyTracker latencyTracker;
+    private final InAppApiService apiService;
+    private final CatalogCache catalogCache;
+    private final PurchaseContextManager contextManager;
+    private final PurchaseStateMachine stateMachine;
+    private final SubscriptionTracker subscriptionTracker;
+    private volatile long lastUsedAt;
+    // Outstanding acquires; guarded by the registry
+    int holders;
+
+    Tenant(String projectName, LatencyTracker latencyTracker, InAppApiService apiService) {
+        this.projectName = projectName;
+        this.latencyTracker = latencyTracker;
+        this.apiService = apiService;
+        this.catalogCache = new CatalogCache();
+        this.contextManager = new PurchaseContextManager();
+        this.stateMachine = new PurchaseStateMachine();
+        this.subscriptionTracker = new SubscriptionTracker(projectName, apiService);
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    public String getProjectName() { return projectName; }
+    /** @return per-endpoint latencies observed for this project only */
+    public LatencyTracker getLatencyTracker() { return latencyTracker; }
+    public InAppApiService getApiService() { return apiService; }
+    public CatalogCache getCatalogCache() { return catalogCache; }
+    public PurchaseContextManager getContextManager() { return contextManager; }
+    public PurchaseStateMachine getStateMachine() { return stateMachine; }
+    public SubscriptionTracker getSubscriptionTracker() { return subscriptionTracker; }
+    /** @return wall-clock time (ms) of the last {@link TenantRegistry#acquire} */
+    public long getLastUsedAt() { return lastUsedAt; }
+
+    /** @return whether no purchase flow is running in this tenant */
+    public boolean isIdle() {
+        return stateMachine.getActiveProductId() == null;
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    // Drops cached data; instances still holding the tenant keep working
+    void release() {
+        catalogCache.clear();
+        contextManager.reset();
+        subscriptionTracker.clear();
+        TokenizationKeyCache.getInstance().invalidate(projectName);
+    }
+
+    @Override
+    public String toString() {
+        return "Tenant{" + projectName + (isIdle() ? "" : ", busy") + "}";
+    }
+}
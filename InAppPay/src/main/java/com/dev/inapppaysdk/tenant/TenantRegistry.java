@@ -0,0 +1,206 @@
+package com.dev.inapppaysdk.tenant;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.LatencyTracker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton registry of {@link Tenant}s, one per project name.
+ *
+ * <p>Apps hosting several storefronts get isolated caches, purchase state and
+ * latency statistics per project, while every tenant's API service runs on
+ * the one shared OkHttp client. The registry holds at most
+ * {@link #DEFAULT_MAX_TENANTS} tenants; beyond that the least recently used
+ * tenant that is neither held nor busy is evicted and its caches are
+ * released. A tenant is held from {@link #acquire} until the matching
+ * {@link #release}, and busy while a purchase runs in it. Held and busy
+ * tenants are never evicted, so the limit may be exceeded temporarily. All
+ * methods are thread-safe.</p>
+ *
+ * <pre>{@code
+ * Tenant shop = TenantRegistry.getInstance().acquire("ShopA");
+ * shop.getCatalogCache().get("ShopA");
+ * ...
+ * TenantRegistry.getInstance().release(shop);
+ * }</pre>
+ */
+public class TenantRegistry {
+    /** Number of tenants kept before idle ones are evicted. */
+    public static final int DEFAULT_MAX_TENANTS = 4;
+
+    private static TenantRegistry instance;
+
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>(8, 0.75f, true);
+    private final Services services;
+    private int maxTenants = DEFAULT_MAX_TENANTS;
+
+    /** Private constructor for singleton pattern. */
+    private TenantRegistry() {
+        this(new Services() {
+            @Override
+            public InAppApiService create(LatencyTracker tracker) {
+                return ApiClient.createApiService(tracker);
+            }
+
+            @Override
+            public void warmUp(InAppApiService service) {
+                // Parse the new service's methods before its first call
+                ApiClient.warmUpAsync(service);
+            }
+        });
+    }
+
+    // For tests: services that need no OkHttp client or timer
+    TenantRegistry(Services services) {
+        this.services = services;
+    }
+
+    /**
+     * Retrieves the singleton instance of this registry.
+     * @return a shared instance of TenantRegistry
+     */
+    public static synchronized TenantRegistry getInstance() {
+        if (instance == null) {
+            instance = new TenantRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the tenant of a project, creating it on first use, marks it as
+     * most recently used and holds it until {@link #release} is called.
+     *
+     * @param projectName Firebase Functions project name
+     */
+    public Tenant acquire(String projectName) {
+        Tenant created = null;
+        while (true) {
+            List<Tenant> evicted;
+            Tenant tenant;
+            boolean added = false;
+            synchronized (this) {
+                tenant = tenants.get(projectName);
+                if (tenant == null && created != null) {
+                    tenant = created;
+                    tenants.put(projectName, tenant);
+                    added = true;
+                }
+                if (tenant == null) {
+                    evicted = null;
+                } else {
+                    tenant.holders++;
+                    tenant.touch();
+                    evicted = evictIdle(tenant);
+                }
+            }
+            if (tenant != null) {
+                releaseAll(evicted);
+                if (added) {
+                    services.warmUp(tenant.getApiService());
+                }
+                // A candidate that lost the race was never published
+                return tenant;
+            }
+            // Building a service is slow; other projects must not wait for it
+            LatencyTracker tracker = new LatencyTracker();
+            created = new Tenant(projectName, tracker, services.create(tracker));
+        }
+    }
+
+    /**
+     * Ends one {@link #acquire} of a tenant, so it may be evicted once no one
+     * holds it. Releasing a tenant more often than it was acquired has no
+     * effect.
+     */
+    public void release(Tenant tenant) {
+        List<Tenant> evicted;
+        synchronized (this) {
+            if (tenant.holders > 0) {
+                tenant.holders--;
+            }
+            evicted = evictIdle(null);
+        }
+        releaseAll(evicted);
+    }
+
+    /** @return the tenant of a project if it is registered, without touching it */
+    public synchronized Tenant peek(String projectName) {
+        return tenants.get(projectName);
+    }
+
+    /** @return a snapshot of the registered tenants, least recently used first */
+    public synchronized List<Tenant> getTenants() {
+        return new ArrayList<>(tenants.values());
+    }
+
+    /** Changes the tenant limit, evicting idle tenants if it shrank. */
+    public void setMaxTenants(int maxTenants) {
+        if (maxTenants < 1) {
+            throw new IllegalArgumentException("maxTenants must be >= 1");
+        }
+        List<Tenant> evicted;
+        synchronized (this) {
+            this.maxTenants = maxTenants;
+            evicted = evictIdle(null);
+        }
+        releaseAll(evicted);
+    }
+
+    /**
+     * Removes a tenant and releases its caches, e.g. when a storefront is
+     * closed. A purchase still running in it completes normally.
+     */
+    public void remove(String projectName) {
+        Tenant removed;
+        synchronized (this) {
+            removed = tenants.remove(projectName);
+        }
+        if (removed != null) {
+            removed.release();
+        }
+    }
+
+    /** Removes every tenant, held or not, and releases its caches. */
+    public void clear() {
+        List<Tenant> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(tenants.values());
+            tenants.clear();
+        }
+        releaseAll(removed);
+    }
+
+    // Caller holds the lock; eldest (least recently used) first, never keep
+    private List<Tenant> evictIdle(Tenant keep) {
+        List<Tenant> evicted = new ArrayList<>();
+        Iterator<Tenant> it = tenants.values().iterator();
+        while (tenants.size() > maxTenants && it.hasNext()) {
+            Tenant candidate = it.next();
+            if (candidate != keep && candidate.holders == 0 && candidate.isIdle()) {
+                it.remove();
+                evicted.add(candidate);
+            }
+        }
+        return evicted;
+    }
+
+    private static void releaseAll(List<Tenant> gone) {
+        for (Tenant tenant : gone) {
+            tenant.release();
+        }
+    }
+
+    /** Builds the API service of new tenants. */
+    interface Services {
+        InAppApiService create(LatencyTracker tracker);
+
+        /** Called once the tenant of {@code service} is registered. */
+        void warmUp(InAppApiService service);
+    }
+}
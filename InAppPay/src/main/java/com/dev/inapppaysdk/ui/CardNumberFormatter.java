@@ -0,0 +1,75 @@
+package com.dev.inapppaysdk.ui;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+
+import com.dev.inapppaysdk.logic.CardBrand;
+
+/**
+ * Groups the card number field as the user types, following the detected
+ * {@link CardBrand} ({@code 4242 4242 4242 4242}, {@code 3782 822463 10005}),
+ * and drops digits beyond the brand's longest number.
+ *
+ * <p>The {@link Editable} is edited in place: correctly placed separators are
+ * kept and only missing or misplaced ones are touched, so a keystroke
+ * allocates nothing. Deleting a separator deletes the digit before it.</p>
+ */
+final class CardNumberFormatter implements TextWatcher {
+    private static final char SEPARATOR = ' ';
+    private static final String SEPARATOR_TEXT = " ";
+
+    private boolean formatting;
+    private int deletedSeparatorAt = -1;
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        if (!formatting && count == 1 && after == 0 && s.charAt(start) == SEPARATOR) {
+            deletedSeparatorAt = start;
+        }
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        if (formatting) {
+            return;
+        }
+        formatting = true;
+        try {
+            if (deletedSeparatorAt > 0 && deletedSeparatorAt <= s.length()) {
+                s.delete(deletedSeparatorAt - 1, deletedSeparatorAt);
+            }
+            deletedSeparatorAt = -1;
+            format(s, CardBrand.detect(s));
+        } finally {
+            formatting = false;
+        }
+    }
+
+    private static void format(Editable s, CardBrand brand) {
+        int maxDigits = brand.getMaxLength();
+        int digits = 0;
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9' && digits < maxDigits) {
+                if (brand.isGroupBoundary(digits) && s.charAt(i - 1) != SEPARATOR) {
+                    s.insert(i++, SEPARATOR_TEXT);
+                }
+                digits++;
+                i++;
+            } else if (c == SEPARATOR && brand.isGroupBoundary(digits)
+                    && s.charAt(i - 1) != SEPARATOR) {
+                i++; // already in place
+            } else {
+                s.delete(i, i + 1);
+            }
+        }
+        int last = s.length() - 1;
+        if (last >= 0 && s.charAt(last) == SEPARATOR) {
+            s.delete(last, last + 1); // added again with the next digit
+        }
+    }
+}
@@ -3,11 +3,11 @@ package com.dev.inapppaysdk.ui;
 import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
+import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -16,12 +16,17 @@ import android.widget.TextView;
 import androidx.appcompat.view.ContextThemeWrapper;
 
 import com.dev.inapppaysdk.R;
+import com.dev.inapppaysdk.api.models.CardPayload;
 import com.dev.inapppaysdk.constants.InAppConstants;
 import com.dev.inapppaysdk.logic.Validator;
 import com.dev.inapppaysdk.logic.Watcher;
+import com.dev.inapppaysdk.utils.FlightRecorder;
 import com.dev.inapppaysdk.utils.PurchaseContextManager;
+import com.dev.inapppaysdk.utils.SdkLog;
+import com.dev.inapppaysdk.utils.SdkTrace;
 import com.google.android.material.textfield.TextInputLayout;
 
+import java.time.Clock;
 import java.util.Map;
 
 /**
@@ -49,9 +54,18 @@ public class PurchaseDialogManager {
     public interface PurchaseDialogCallback {
         void onPurchaseRequested(String paymentMethod, String cardNumber, String expiry, String cvv, String name);
 
+        /**
+         * Card submission. The payload owns copies of the field contents; the
+         * receiver must hand it on or {@link CardPayload#wipe() wipe} it.
+         */
+        void onCardPurchaseRequested(CardPayload card);
+
         void onPurchaseCancelled();
     }
 
+    /** Typing pause after which fields are validated live. */
+    private static final long INPUT_DEBOUNCE_MS = 150;
+
     private Context context;
     private PurchaseDialogCallback dialogCallback;
     private PurchaseContextManager contextManager;
@@ -64,6 +78,19 @@ public class PurchaseDialogManager {
      * @throws IllegalArgumentException if the context is not an Activity
      */
     public PurchaseDialogManager(Context context, PurchaseDialogCallback dialogCallback) {
+        this(context, dialogCallback, PurchaseContextManager.getInstance());
+    }
+
+    /**
+     * Creates a dialog manager reading the purchase context of one tenant.
+     *
+     * @param context        an Activity context, not application context
+     * @param dialogCallback a callback to handle user actions
+     * @param contextManager purchase context the dialogs display
+     * @throws IllegalArgumentException if the context is not an Activity
+     */
+    public PurchaseDialogManager(Context context, PurchaseDialogCallback dialogCallback,
+                                 PurchaseContextManager contextManager) {
         // Ensure we have an Activity context
         if (!(context instanceof Activity)) {
             throw new IllegalArgumentException("Context must be an Activity context");
@@ -71,30 +98,48 @@ public class PurchaseDialogManager {
 
         this.context = new ContextThemeWrapper(context, R.style.Theme_SDK_Dialog);
         this.dialogCallback = dialogCallback;
-        this.contextManager = PurchaseContextManager.getInstance();
+        this.contextManager = contextManager;
     }
 
-    public void showOnetimeDialog(String title, String description) {
-        showPurchaseDialog("One-Time Purchase", title, description);
+    /**
+     * Shows the dialog of a one-time product.
+     *
+     * @return {@code false} if the host Activity cannot show a dialog any
+     *         more, e.g. because it is finishing; nothing was shown then
+     */
+    public boolean showOnetimeDialog(String title, String description) {
+        return showPurchaseDialog("One-Time Purchase", title, description);
     }
 
-    public void showRepurchaseDialog(String title, String description) {
-        showPurchaseDialog("Repurchase Item", title, description);
+    /** @see #showOnetimeDialog(String, String) */
+    public boolean showRepurchaseDialog(String title, String description) {
+        return showPurchaseDialog("Repurchase Item", title, description);
     }
 
-    public void showSubscriptionDialog(String title, String description) {
-        showPurchaseDialog("Subscription", title, description);
+    /** @see #showOnetimeDialog(String, String) */
+    public boolean showSubscriptionDialog(String title, String description) {
+        return showPurchaseDialog("Subscription", title, description);
     }
 
-    public void showGeneralDialog(String title, String description) {
-        showPurchaseDialog(title, null, description);
+    /** @see #showOnetimeDialog(String, String) */
+    public boolean showGeneralDialog(String title, String description) {
+        return showPurchaseDialog(title, null, description);
     }
 
-    private void showPurchaseDialog(String dialogTitle, String productName, String productDescription) {
+    private boolean showPurchaseDialog(String dialogTitle, String productName, String productDescription) {
+        SdkTrace.begin(SdkTrace.DIALOG);
+        try {
+            return inflatePurchaseDialog(dialogTitle, productName, productDescription);
+        } finally {
+            SdkTrace.end();
+        }
+    }
+
+    private boolean inflatePurchaseDialog(String dialogTitle, String productName, String productDescription) {
         // Validate context before showing dialog
         if (context == null) {
-            Log.e("Dialog", "Context is null");
-            return;
+            SdkLog.w(SdkLog.Category.DIALOG, "Purchase dialog not shown: context is null");
+            return false;
         }
 
         // Get the base context (Activity) from ContextThemeWrapper
@@ -102,8 +147,8 @@ public class PurchaseDialogManager {
         if (baseContext instanceof Activity) {
             Activity activity = (Activity) baseContext;
             if (activity.isFinishing() || activity.isDestroyed()) {
-                Log.e("Dialog", "Activity is finishing or destroyed");
-                return;
+                SdkLog.w(SdkLog.Category.DIALOG, "Purchase dialog not shown: activity is finishing or destroyed");
+                return false;
             }
         }
 
@@ -120,7 +165,15 @@ public class PurchaseDialogManager {
         );
 
         setupViews(dialog, view, dialogTitle, productName, productDescription);
-        dialog.show();
+        try {
+            dialog.show();
+        } catch (WindowManager.BadTokenException e) {
+            // The window went away between the checks above and show()
+            SdkLog.w(SdkLog.Category.DIALOG, "Purchase dialog not shown", e);
+            return false;
+        }
+        FlightRecorder.getInstance().record(FlightRecorder.DIALOG_SHOWN, productName);
+        return true;
     }
 
     private void setupViews(Dialog dialog, View view, String dialogTitle, String productName, String productDescription) {
@@ -219,16 +272,22 @@ public class PurchaseDialogManager {
         TextInputLayout etCvv = view.findViewById(R.id.etCvv);
         TextInputLayout etName = view.findViewById(R.id.etName);
 
+        if (etCardNumber.getEditText() != null) {
+            etCardNumber.getEditText().addTextChangedListener(new CardNumberFormatter());
+        }
+
         // Setup validators
         Validator cardValidator = createCardValidator(etCardNumber);
         Validator expiryValidator = createExpiryValidator(etExpiry);
-        Validator cvvValidator = createCvvValidator(etCvv);
+        Validator cvvValidator = createCvvValidator(etCvv, etCardNumber);
         Validator nameValidator = createNameValidator(etName);
 
         btnCard.setOnClickListener(v -> {
             stepOneLayout.setVisibility(View.GONE);
             stepTwoLayout.setVisibility(View.VISIBLE);
             selectedMethodText.setText("You selected: Card");
+            FlightRecorder.getInstance().record(FlightRecorder.METHOD_SELECTED, null,
+                    InAppConstants.PAYMENT_METHOD_CARD);
             titleText.setText("Input details");
 
             showCardInputs(etCardNumber, etExpiry, etCvv, etName);
@@ -240,6 +299,8 @@ public class PurchaseDialogManager {
             stepTwoLayout.setVisibility(View.VISIBLE);
             titleText.setText("PayPal Payment");
             selectedMethodText.setText("You selected: PayPal");
+            FlightRecorder.getInstance().record(FlightRecorder.METHOD_SELECTED, null,
+                    InAppConstants.PAYMENT_METHOD_PAYPAL);
 
             // Hide card inputs and show PayPal-specific inputs
             hideCardInputs(etCardNumber, etExpiry, etCvv);
@@ -271,13 +332,19 @@ public class PurchaseDialogManager {
             } else {
                 // Existing card validation logic
                 if (validateCardInputs(cardValidator, expiryValidator, cvvValidator, nameValidator)) {
-                    String cardNumber = etCardNumber.getEditText().getText().toString();
-                    String expiry = etExpiry.getEditText().getText().toString();
-                    String cvv = etCvv.getEditText().getText().toString();
-                    String name = etName.getEditText().getText().toString();
+                    // Copy straight from the Editables into char[] buffers; no
+                    // String is created, then the fields are cleared
+                    CardPayload card = new CardPayload(
+                            CardPayload.copyOf(etCardNumber.getEditText().getText()),
+                            CardPayload.copyOf(etExpiry.getEditText().getText()),
+                            CardPayload.copyOf(etCvv.getEditText().getText()),
+                            CardPayload.copyOf(etName.getEditText().getText()));
+                    clearInputs(etCardNumber, etExpiry, etCvv, etName);
 
                     if (dialogCallback != null) {
-                        dialogCallback.onPurchaseRequested(InAppConstants.PAYMENT_METHOD_CARD, cardNumber, expiry, cvv, name);
+                        dialogCallback.onCardPurchaseRequested(card);
+                    } else {
+                        card.wipe();
                     }
                     dialog.dismiss();
                 }
@@ -293,6 +360,14 @@ public class PurchaseDialogManager {
         }
     }
 
+    private void clearInputs(TextInputLayout... inputs) {
+        for (TextInputLayout input : inputs) {
+            if (input != null && input.getEditText() != null) {
+                input.getEditText().getText().clear();
+            }
+        }
+    }
+
     private void showCardInputs(TextInputLayout... inputs) {
         for (TextInputLayout input : inputs) {
             if (input != null) {
@@ -314,30 +389,45 @@ public class PurchaseDialogManager {
     private Validator createCardValidator(TextInputLayout etCardNumber) {
         return Validator.Builder
                 .with(etCardNumber)
+                .orderByCost()
+                .debounce(INPUT_DEBOUNCE_MS)
                 .addWatcher(new Watcher.NotBlank("Card number is required"))
-                .addWatcher(new Watcher.PatternWatcher("Invalid card format", "\\d{16}"))
+                .addWatcher(new Watcher.CardNumberWatcher("Invalid card number"))
                 .build();
     }
 
     private Validator createExpiryValidator(TextInputLayout etExpiry) {
         return Validator.Builder
                 .with(etExpiry)
+                .orderByCost()
+                .debounce(INPUT_DEBOUNCE_MS)
                 .addWatcher(new Watcher.NotBlank("Expiry is required"))
-                .addWatcher(new Watcher.DateFormatWatcher("Use MM/yy format", "MM/yy"))
+                .addWatcher(new Watcher.ExpiryWatcher("Use MM/yy format", Watcher.ExpiryWatcher.MM_YY))
+                .addWatcher(Watcher.ExpiryWatcher.notExpired("Card has expired", Watcher.ExpiryWatcher.MM_YY,
+                        Clock.systemDefaultZone()))
+                .addWatcher(Watcher.ExpiryWatcher.notTooFar("Expiry date is too far ahead",
+                        Watcher.ExpiryWatcher.MM_YY, Clock.systemDefaultZone(),
+                        Watcher.ExpiryWatcher.DEFAULT_MAX_YEARS_AHEAD))
                 .build();
     }
 
-    private Validator createCvvValidator(TextInputLayout etCvv) {
+    private Validator createCvvValidator(TextInputLayout etCvv, TextInputLayout etCardNumber) {
         return Validator.Builder
                 .with(etCvv)
+                .orderByCost()
+                .debounce(INPUT_DEBOUNCE_MS)
+                .dependsOn(etCardNumber)
                 .addWatcher(new Watcher.NotBlank("CVV is required"))
-                .addWatcher(new Watcher.PatternWatcher("Invalid CVV", "\\d{3,4}"))
+                .addWatcher(new Watcher.CvvWatcher("Invalid CVV",
+                        () -> etCardNumber.getEditText() != null ? etCardNumber.getEditText().getText() : null))
                 .build();
     }
 
     private Validator createNameValidator(TextInputLayout etName) {
         return Validator.Builder
                 .with(etName)
+                .orderByCost()
+                .debounce(INPUT_DEBOUNCE_MS)
                 .addWatcher(new Watcher.NotBlank("Name is required"))
                 .addWatcher(new Watcher.PatternWatcher("Invalid name", "^[a-zA-Z ]+$"))
                 .build();
@@ -346,6 +436,8 @@ public class PurchaseDialogManager {
     private Validator createEmailValidator(TextInputLayout etEmail) {
         return Validator.Builder
                 .with(etEmail)
+                .orderByCost()
+                .debounce(INPUT_DEBOUNCE_MS)
                 .addWatcher(new Watcher.NotBlank("Email is required"))
                 .addWatcher(new Watcher.PatternWatcher("Invalid email format",
                         "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$"))
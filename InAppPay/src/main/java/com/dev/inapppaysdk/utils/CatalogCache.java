@@ -0,0 +1,133 @@
+package com.dev.inapppaysdk.utils;
+
+import android.os.SystemClock;
+
+import com.dev.inapppaysdk.api.models.Product;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Singleton in-memory cache for project catalogs fetched via
+ * {@code getCatalog}.
+ *
+ * <p>Entries expire after {@link #DEFAULT_TTL_MS} and the cache holds at most
+ * {@link #MAX_PROJECTS} catalogs, evicting the least recently used one when
+ * full. All methods are thread-safe.</p>
+ */
+public class CatalogCache {
+    /** How long a fetched catalog is served without hitting the network. */
+    public static final long DEFAULT_TTL_MS = 5 * 60 * 1000L;
+    /** Maximum number of project catalogs kept in memory. */
+    public static final int MAX_PROJECTS = 8;
+
+    private static CatalogCache instance;
+
+    private final Map<String, Entry> entries =
+            new LinkedHashMap<String, Entry>(MAX_PROJECTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_PROJECTS;
+                }
+            };
+    private final LongSupplier clock;
+    private long ttlMs = DEFAULT_TTL_MS;
+
+    /**
+     * Creates an isolated cache, e.g. for one tenant. The SDK-wide instance is
+     * available through {@link #getInstance()}.
+     */
+    public CatalogCache() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * Creates an isolated cache that reads time from {@code clock}.
+     * @param clock monotonic time in milliseconds
+     */
+    public CatalogCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieves the singleton instance of this cache.
+     * @return a shared instance of CatalogCache
+     */
+    public static synchronized CatalogCache getInstance() {
+        if (instance == null) {
+            instance = new CatalogCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached catalog for a project if it has not expired yet.
+     *
+     * @param projectName project the catalog belongs to
+     * @return an unmodifiable product list, or {@code null} on miss/expiry
+     */
+    public synchronized List<Product> get(String projectName) {
+        Entry entry = entries.get(projectName);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.fetchedAt > ttlMs) {
+            entries.remove(projectName);
+            return null;
+        }
+        return entry.products;
+    }
+
+    /**
+     * Looks up a single product in a cached catalog.
+     *
+     * @return the product, or {@code null} if the catalog is not cached or
+     *         does not contain {@code productId}
+     */
+    public synchronized Product getProduct(String projectName, String productId) {
+        List<Product> products = get(projectName);
+        if (products == null) {
+            return null;
+        }
+        for (Product p : products) {
+            if (p.getId().equals(productId)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /** Stores a freshly fetched catalog, replacing any previous one. */
+    public synchronized void put(String projectName, List<Product> products) {
+        entries.put(projectName, new Entry(
+                Collections.unmodifiableList(products), clock.getAsLong()));
+    }
+
+    /** Drops the cached catalog of one project. */
+    public synchronized void invalidate(String projectName) {
+        entries.remove(projectName);
+    }
+
+    /** Drops every cached catalog. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /** Overrides the time-to-live applied to cached catalogs. */
+    public synchronized void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    private static final class Entry {
+        final List<Product> products;
+        final long fetchedAt;
+
+        Entry(List<Product> products, long fetchedAt) {
+            this.products = products;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -1,11 +1,60 @@
 package com.dev.inapppaysdk.utils;
 
+import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.os.SystemClock;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Shows SDK error dialogs.
+ *
+ * <p>All methods may be called from any thread; dialogs are always created on
+ * the main thread. At most one error dialog is visible at a time: a new error
+ * updates the visible dialog instead of stacking another one on top, and the
+ * same error code is shown at most once per {@link #MIN_REPEAT_INTERVAL_MS}.
+ * Every {@code onDismiss} passed for a merged error runs, in order, when the
+ * user closes the dialog.</p>
+ */
 public class ErrorDialogHelper {
 
+    /** Minimum delay before the same error code may pop up again. */
+    public static final long MIN_REPEAT_INTERVAL_MS = 5000;
+
+    // Only touched on the main thread
+    private static final Map<String, Long> lastShownAt = new HashMap<>();
+    private static Shown visibleDialog;
+    // Context the visible dialog was shown for: the dialog's own context is
+    // a theme wrapper around it and never equals what callers pass in
+    private static WeakReference<Context> visibleOwner;
+    // Callbacks of every error merged into the visible dialog
+    private static List<Runnable> visibleDismissActions;
+    private static LongSupplier clock = SystemClock::elapsedRealtime;
+    private static DialogPresenter presenter = ErrorDialogHelper::showAlertDialog;
+
+    /** Puts an error dialog on screen; replaced in tests. */
+    interface DialogPresenter {
+        /**
+         * Shows a dialog whose button dismisses it and then runs
+         * {@code onOkay}; {@code onGone} runs whenever it is dismissed.
+         */
+        Shown show(Context context, String title, String message, Runnable onOkay, Runnable onGone);
+    }
+
+    /** An error dialog on screen. */
+    interface Shown {
+        boolean isShowing();
+
+        void update(String title, String message);
+    }
+
     /**
      * Shows an error dialog with the provided error message
      * @param context The context to show the dialog
@@ -27,21 +76,80 @@ public class ErrorDialogHelper {
         if (context == null) {
             return;
         }
+        UiThread.run(() -> showNow(context, title, message, onDismiss));
+    }
+
+    // Must run on the main thread
+    static void showNow(Context context, String title, String message, Runnable onDismiss) {
+        if (context instanceof Activity
+                && (((Activity) context).isFinishing() || ((Activity) context).isDestroyed())) {
+            return;
+        }
+
+        String resolvedTitle = title != null ? title : "Error";
+        String resolvedMessage = message != null ? message : "An error occurred";
+
+        // Coalesce into the dialog that is already on screen for this window
+        if (visibleDialog != null && visibleDialog.isShowing()
+                && visibleOwner != null && visibleOwner.get() == context) {
+            visibleDialog.update(resolvedTitle, resolvedMessage);
+            if (onDismiss != null) {
+                visibleDismissActions.add(onDismiss);
+            }
+            return;
+        }
 
+        List<Runnable> dismissActions = new ArrayList<>();
+        if (onDismiss != null) {
+            dismissActions.add(onDismiss);
+        }
+        Shown dialog = presenter.show(context, resolvedTitle, resolvedMessage,
+                () -> {
+                    for (Runnable action : new ArrayList<>(dismissActions)) {
+                        action.run();
+                    }
+                },
+                () -> {
+                    // The actions list identifies the dialog
+                    if (visibleDismissActions == dismissActions) {
+                        visibleDialog = null;
+                        visibleOwner = null;
+                        visibleDismissActions = null;
+                    }
+                });
+        visibleDialog = dialog;
+        visibleOwner = new WeakReference<>(context);
+        visibleDismissActions = dismissActions;
+    }
+
+    private static Shown showAlertDialog(Context context, String title, String message,
+                                         Runnable onOkay, Runnable onGone) {
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
-        builder.setTitle(title != null ? title : "Error")
-                .setMessage(message != null ? message : "An error occurred")
+        AlertDialog dialog = builder.setTitle(title)
+                .setMessage(message)
                 .setPositiveButton("Okay", new DialogInterface.OnClickListener() {
                     @Override
                     public void onClick(DialogInterface dialog, int which) {
                         dialog.dismiss();
-                        if (onDismiss != null) {
-                            onDismiss.run();
-                        }
+                        onOkay.run();
                     }
                 })
                 .setCancelable(false) // Prevent dismissing by tapping outside
-                .show();
+                .create();
+        dialog.setOnDismissListener(d -> onGone.run());
+        dialog.show();
+        return new Shown() {
+            @Override
+            public boolean isShowing() {
+                return dialog.isShowing();
+            }
+
+            @Override
+            public void update(String title, String message) {
+                dialog.setTitle(title);
+                dialog.setMessage(message);
+            }
+        };
     }
 
     /**
@@ -51,8 +159,55 @@ public class ErrorDialogHelper {
      * @param errorCode The error code
      */
     public static void showErrorDialogWithCode(Context context, String message, String errorCode) {
+        if (context == null) {
+            return;
+        }
+        UiThread.run(() -> showWithCodeNow(context, message, errorCode));
+    }
+
+    // Must run on the main thread
+    static void showWithCodeNow(Context context, String message, String errorCode) {
+        if (isThrottled(errorCode)) {
+            return;
+        }
         String userFriendlyMessage = getUserFriendlyMessage(message, errorCode);
-        showErrorDialog(context, "Purchase Error", userFriendlyMessage);
+        showNow(context, "Purchase Error", userFriendlyMessage, null);
+    }
+
+    /**
+     * Rate-limits dialogs per error code. Must run on the main thread.
+     * @return true if the same code was shown less than the repeat interval ago
+     */
+    private static boolean isThrottled(String errorCode) {
+        String key = errorCode != null ? errorCode : "";
+        long now = clock.getAsLong();
+        Long last = lastShownAt.get(key);
+        if (last != null && now - last < MIN_REPEAT_INTERVAL_MS) {
+            return true;
+        }
+        lastShownAt.put(key, now);
+        return false;
+    }
+
+    /**
+     * Replaces the monotonic clock the repeat interval is measured with, for
+     * tests, and forgets which codes were shown. Must run on the main thread.
+     */
+    static void setClock(LongSupplier clock) {
+        ErrorDialogHelper.clock = clock;
+        lastShownAt.clear();
+    }
+
+    /**
+     * Replaces how dialogs are put on screen, for tests, and forgets the
+     * visible dialog; {@code null} restores {@link AlertDialog}s. Must run on
+     * the main thread.
+     */
+    static void setPresenter(DialogPresenter presenter) {
+        ErrorDialogHelper.presenter = presenter != null ? presenter : ErrorDialogHelper::showAlertDialog;
+        visibleDialog = null;
+        visibleOwner = null;
+        visibleDismissActions = null;
     }
 
     /**
@@ -115,6 +270,14 @@ public class ErrorDialogHelper {
             case "ERROR_PARSE_FAILED":
                 return "Communication error with server. Please try again.";
 
+            case "PURCHASE_IN_PROGRESS":
+                return "A purchase is already in progress. Please wait for it to finish.";
+
+            case "TOKENIZATION_FAILED":
+            case "TOKENIZATION_KEY_EXPIRED":
+            case "INVALID_CARD_TOKEN":
+                return "Your card details could not be secured. Please re-enter them and try again.";
+
             // Handle payment-related errors that start with common patterns
             default:
                 if (originalMessage != null) {
@@ -0,0 +1,108 @@
+package com.dev.inapppaysdk.utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link SdkLog.Sink} that appends to a size-bounded log file on a background
+ * thread, e.g. for attaching to support tickets.
+ *
+ * <p>The file acts as a two-segment ring: once it reaches half of
+ * {@code maxBytes} it is renamed to {@code <name>.1} (replacing the previous
+ * segment) and a new one is started, so at most {@code maxBytes} are kept on
+ * disk. Messages are already redacted by {@link SdkLog}; stack traces, whose
+ * exception messages may quote request data, are redacted here before they
+ * are written.</p>
+ *
+ * <pre>{@code
+ * SdkLog.addSink(new FileLogSink(new File(context.getFilesDir(), "inapppay.log"), 256 * 1024));
+ * }</pre>
+ */
+public class FileLogSink implements SdkLog.Sink {
+    private final File file;
+    private final File previous;
+    private final long segmentBytes;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "InAppPay-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched on the writer thread
+    private final SimpleDateFormat timestamp = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+    private Writer out;
+
+    /**
+     * @param file     log file; its parent directory must exist
+     * @param maxBytes bound on the combined size of both segments
+     */
+    public FileLogSink(File file, long maxBytes) {
+        this.file = file;
+        this.previous = new File(file.getPath() + ".1");
+        this.segmentBytes = Math.max(1024, maxBytes / 2);
+    }
+
+    @Override
+    public void log(SdkLog.Level level, SdkLog.Category category, String message, Throwable error) {
+        long now = System.currentTimeMillis();
+        writer.execute(() -> write(now, level, category, message, error));
+    }
+
+    /** Flushes pending messages and closes the file; later messages are dropped. */
+    public void close() {
+        writer.execute(this::closeQuietly);
+        writer.shutdown();
+    }
+
+    private void write(long time, SdkLog.Level level, SdkLog.Category category, String message, Throwable error) {
+        try {
+            if (out == null || file.length() >= segmentBytes) {
+                rotate();
+            }
+            out.write(timestamp.format(new Date(time)));
+            out.write(' ');
+            out.write(level.name().charAt(0));
+            out.write(' ');
+            out.write(category.getTag());
+            out.write(": ");
+            out.write(message);
+            out.write('\n');
+            if (error != null) {
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                out.write(SdkLog.redact(trace.toString()));
+            }
+            out.flush(); // the process may die at any time
+        } catch (IOException e) {
+            closeQuietly(); // retried with a fresh writer on the next message
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeQuietly();
+        if (file.length() >= segmentBytes) {
+            previous.delete();
+            file.renameTo(previous);
+        }
+        out = new FileWriter(file, true);
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // nothing left to do
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.dev.inapppaysdk.utils;
+
+import com.google.gson.Gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded in-memory record of recent SDK events, for diagnosing purchases
+ * that failed on a user's device.
+ *
+ * <p>Every validation, dialog, payment-method choice, purchase, tokenization,
+ * retry and error code is appended to a fixed-size ring; the oldest events
+ * are overwritten. Recording is lock-free and allocation-free: one atomic
+ * increment and four ordered stores into a {@code long} array. Strings
+ * (product ids, error codes, endpoints) are interned into a small table
+ * once.</p>
+ *
+ * <p>The ring can be exported as JSON ({@link #toJson()}) or as a compact
+ * binary dump ({@link #writeBinary}, decoded by {@link #readBinary}).
+ * {@link #startSpilling} periodically copies the dump into a memory-mapped
+ * file, which survives the process being killed:</p>
+ *
+ * <pre>{@code
+ * FlightRecorder.getInstance().startSpilling(
+ *         new File(context.getFilesDir(), "inapppay.flight"), 5_000);
+ * // later, e.g. from a "report a problem" screen
+ * String json = FlightRecorder.getInstance().toJson();
+ * }</pre>
+ */
+public class FlightRecorder {
+    /** Events kept by the shared instance. */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    // Event types; the subject / code / value of each are noted alongside
+    public static final int BUY = 1;               // productId
+    public static final int VALIDATE_START = 2;    // productId
+    public static final int VALIDATE_OK = 3;       // productId, -, duration ms
+    public static final int VALIDATE_ERROR = 4;    // productId, errorCode, duration ms
+    public static final int DIALOG_SHOWN = 5;      // product name
+    public static final int METHOD_SELECTED = 6;   // -, payment method
+    public static final int PURCHASE_START = 7;    // productId, payment method
+    public static final int PURCHASE_OK = 8;       // productId, -, duration ms
+    public static final int PURCHASE_ERROR = 9;    // productId, errorCode, duration ms
+    public static final int TOKENIZE = 10;         // -, -, duration ms
+    public static final int RETRY = 11;            // endpoint, reason, attempt
+    public static final int ERROR = 12;            // productId, errorCode
+
+    private static final String[] TYPE_NAMES = {
+            "?", "BUY", "VALIDATE_START", "VALIDATE_OK", "VALIDATE_ERROR", "DIALOG_SHOWN",
+            "METHOD_SELECTED", "PURCHASE_START", "PURCHASE_OK", "PURCHASE_ERROR", "TOKENIZE",
+            "RETRY", "ERROR"};
+
+    private static final int MAGIC = 0x49415046; // "IAPF"
+    private static final short VERSION = 1;
+    private static final int STRIDE = 4;         // stamp, time, type|subject|code, value
+    // Binary dump: seq, time (8 each), type, subject, code (2 each), value (8)
+    static final int EVENT_BYTES = 30;
+    private static final int MAX_STRINGS = 4096;
+    private static final int NO_STRING = 0;
+    private static final int OVERFLOW = 1;
+
+    private static FlightRecorder instance;
+
+    private final int mask;
+    // A slot's stamp is seq + 1 once written, -(seq + 1) while being written
+    private final AtomicLongArray slots;
+    private final AtomicLong next = new AtomicLong();
+    private final ConcurrentHashMap<String, Integer> stringIds = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> strings = new AtomicReferenceArray<>(MAX_STRINGS);
+    private int stringCount = 2; // guarded by stringIds
+    private volatile boolean enabled = true;
+
+    private ScheduledExecutorService spiller;
+    private RandomAccessFile spillFile;
+    private MappedByteBuffer spillBuffer;
+    private int spilledBytes;
+
+    /**
+     * Creates a standalone recorder; the SDK records into
+     * {@link #getInstance()}.
+     *
+     * @param capacity events kept, rounded up to a power of two
+     */
+    public FlightRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicLongArray(size * STRIDE);
+        strings.set(NO_STRING, "");
+        strings.set(OVERFLOW, "?");
+    }
+
+    /**
+     * Retrieves the singleton instance of this recorder.
+     * @return a shared instance of FlightRecorder
+     */
+    public static synchronized FlightRecorder getInstance() {
+        if (instance == null) {
+            instance = new FlightRecorder(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /** Turns recording on or off; on by default. */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** @return the number of events the ring holds */
+    public int getCapacity() { return mask + 1; }
+
+    // ── Recording ───────────────────────────────────────────────────────────
+
+    public void record(int type, String subject) {
+        record(type, subject, null, 0);
+    }
+
+    public void record(int type, String subject, String code) {
+        record(type, subject, code, 0);
+    }
+
+    /**
+     * Appends an event, overwriting the oldest one if the ring is full.
+     *
+     * @param type    one of the event constants
+     * @param subject product id, name or endpoint, may be {@code null}
+     * @param code    error code, payment method or reason, may be {@code null}
+     * @param value   duration in ms or attempt number, depending on type
+     */
+    public void record(int type, String subject, String code, long value) {
+        if (!enabled) {
+            return;
+        }
+        long packed = ((long) (type & 0xFFFF) << 48)
+                | ((long) intern(subject) << 32)
+                | ((long) intern(code) << 16);
+        long time = System.currentTimeMillis();
+        long seq = next.getAndIncrement();
+        int base = (int) (seq & mask) * STRIDE;
+        slots.set(base, -(seq + 1));        // readers skip the slot until...
+        slots.lazySet(base + 1, time);
+        slots.lazySet(base + 2, packed);
+        slots.lazySet(base + 3, value);
+        slots.lazySet(base, seq + 1);       // ...the fields are published
+    }
+
+    // Lock-free for known strings; the table only locks to add a new one
+    private int intern(String s) {
+        if (s == null) {
+            return NO_STRING;
+        }
+        Integer id = stringIds.get(s);
+        if (id != null) {
+            return id;
+        }
+        synchronized (stringIds) {
+            id = stringIds.get(s);
+            if (id != null) {
+                return id;
+            }
+            if (stringCount == MAX_STRINGS) {
+                return OVERFLOW;
+            }
+            int created = stringCount++;
+            strings.set(created, s);
+            stringIds.put(s, created);
+            return created;
+        }
+    }
+
+    // ── Export ──────────────────────────────────────────────────────────────
+
+    /** @return the recorded events, oldest first; events being written are skipped */
+    public List<Event> snapshot() {
+        long end = next.get();
+        long start = Math.max(0, end - (mask + 1));
+        List<Event> events = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            int base = (int) (seq & mask) * STRIDE;
+            long stamp = slots.get(base);
+            long time = slots.get(base + 1);
+            long packed = slots.get(base + 2);
+            long value = slots.get(base + 3);
+            if (stamp != seq + 1 || slots.get(base) != stamp) {
+                continue; // overwritten or torn while reading
+            }
+            events.add(new Event(seq, time, (int) (packed >>> 48),
+                    string((int) (packed >>> 32) & 0xFFFF),
+                    string((int) (packed >>> 16) & 0xFFFF), value));
+        }
+        return events;
+    }
+
+    private String string(int id) {
+        String s = strings.get(id);
+        return s != null ? s : "?";
+    }
+
+    /** Forgets every recorded event. */
+    public void clear() {
+        next.set(0);
+        for (int i = 0; i < slots.length(); i += STRIDE) {
+            slots.set(i, 0);
+        }
+    }
+
+    /** @return the events as {@code {"events":[{"seq","time","type","subject","code","value"}]}} */
+    public String toJson() {
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (Event event : snapshot()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("seq", event.seq);
+            json.put("time", event.timeMillis);
+            json.put("type", event.getTypeName());
+            if (!event.subject.isEmpty()) json.put("subject", event.subject);
+            if (!event.code.isEmpty()) json.put("code", event.code);
+            if (event.value != 0) json.put("value", event.value);
+            events.add(json);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("events", events);
+        return new Gson().toJson(root);
+    }
+
+    /**
+     * Writes the events in the compact binary format: a string table followed
+     * by 30 bytes per event. Trailing bytes after a dump are ignored by
+     * {@link #readBinary}.
+     */
+    public void writeBinary(OutputStream out) throws IOException {
+        List<Event> events = snapshot();
+        Map<String, Integer> table = new LinkedHashMap<>();
+        table.put("", 0);
+        for (Event event : events) {
+            table.putIfAbsent(event.subject, table.size());
+            table.putIfAbsent(event.code, table.size());
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(table.size());
+        for (String s : table.keySet()) {
+            data.writeUTF(s);
+        }
+        data.writeInt(events.size());
+        for (Event event : events) {
+            data.writeLong(event.seq);
+            data.writeLong(event.timeMillis);
+            data.writeShort(event.type);
+            data.writeShort(table.get(event.subject));
+            data.writeShort(table.get(event.code));
+            data.writeLong(event.value);
+        }
+        data.flush();
+    }
+
+    /**
+     * Decodes a dump written by {@link #writeBinary} or spilled by
+     * {@link #startSpilling}.
+     *
+     * @throws IOException if the stream holds no dump
+     */
+    public static List<Event> readBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readShort() != VERSION) {
+            throw new IOException("Not a flight recorder dump");
+        }
+        String[] table = new String[data.readInt()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = data.readUTF();
+        }
+        int count = data.readInt();
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long seq = data.readLong();
+            long time = data.readLong();
+            int type = data.readUnsignedShort();
+            String subject = table[data.readUnsignedShort()];
+            String code = table[data.readUnsignedShort()];
+            events.add(new Event(seq, time, type, subject, code, data.readLong()));
+        }
+        return events;
+    }
+
+    // ── Spilling ────────────────────────────────────────────────────────────
+
+    /**
+     * Copies the binary dump into a memory-mapped {@code file} every
+     * {@code periodMs} on a background thread. The kernel writes mapped pages
+     * back even if the process is killed, so the last spill can be read with
+     * {@link #readBinary} on the next launch. Replaces any previous spill.
+     */
+    public synchronized void startSpilling(File file, long periodMs) throws IOException {
+        stopSpilling();
+        spillFile = new RandomAccessFile(file, "rw");
+        spiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "InAppPay-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        spiller.scheduleWithFixedDelay(this::spillQuietly, 0, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes a last spill and stops the background thread. */
+    public synchronized void stopSpilling() {
+        if (spiller == null) {
+            return;
+        }
+        spiller.shutdownNow();
+        spillQuietly();
+        try {
+            spillFile.close();
+        } catch (IOException ignored) {
+            // the mapping stays valid until collected
+        }
+        spiller = null;
+        spillFile = null;
+        spillBuffer = null;
+        spilledBytes = 0;
+    }
+
+    private synchronized void spillQuietly() {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream dump = new ByteArrayOutputStream(1024 + (mask + 1) * EVENT_BYTES);
+            writeBinary(dump);
+            byte[] bytes = dump.toByteArray();
+            if (spillBuffer == null || spillBuffer.capacity() < bytes.length) {
+                int size = Math.max(bytes.length, spillBuffer == null ? 0 : spillBuffer.capacity() * 2);
+                spillBuffer = spillFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            spillBuffer.position(0);
+            spillBuffer.put(bytes);
+            for (int i = bytes.length; i < spilledBytes; i++) {
+                spillBuffer.put((byte) 0); // clear the tail of a longer previous dump
+            }
+            spilledBytes = bytes.length;
+        } catch (IOException e) {
+            SdkLog.w(SdkLog.Category.SDK, "Flight recorder spill failed", e);
+        }
+    }
+
+    /** One recorded event. */
+    public static final class Event {
+        private final long seq;
+        private final long timeMillis;
+        private final int type;
+        private final String subject;
+        private final String code;
+        private final long value;
+
+        Event(long seq, long timeMillis, int type, String subject, String code, long value) {
+            this.seq = seq;
+            this.timeMillis = timeMillis;
+            this.type = type;
+            this.subject = subject;
+            this.code = code;
+            this.value = value;
+        }
+
+        public long getSeq() { return seq; }
+        public long getTimeMillis() { return timeMillis; }
+        public int getType() { return type; }
+        public String getSubject() { return subject; }
+        public String getCode() { return code; }
+        public long getValue() { return value; }
+
+        public String getTypeName() {
+            return type > 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : "TYPE_" + type;
+        }
+
+        @Override
+        public String toString() {
+            return seq + " " + timeMillis + " " + getTypeName() + " " + subject + " " + code + " " + value;
+        }
+    }
+}
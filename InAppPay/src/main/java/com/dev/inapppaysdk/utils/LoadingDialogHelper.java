@@ -1,11 +1,15 @@
 package com.dev.inapppaysdk.utils;
 
+import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.graphics.drawable.ColorDrawable;
 import android.view.ViewGroup;
 import android.view.Window;
 
+import com.airbnb.lottie.LottieAnimationView;
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieCompositionFactory;
 import com.dev.inapppaysdk.R;
 
 /**
@@ -14,6 +18,11 @@ import com.dev.inapppaysdk.R;
  * <p>
  * This is typically used during network operations like verifying purchases or fetching data,
  * to indicate that processing is ongoing.
+ * <p>
+ * The Lottie animation is parsed once per process (see {@link #preload(Context)}) and the
+ * resulting composition is shared by every dialog. {@link #show(Context)} and
+ * {@link #dismiss()} may be called from any thread; the dialog itself is always touched
+ * on the main thread.
  *
  * <h2>Usage Example:</h2>
  * <pre>{@code
@@ -28,7 +37,35 @@ import com.dev.inapppaysdk.R;
  * to avoid leaking the dialog or blocking UI interactions.
  */
 public class LoadingDialogHelper {
+    private static volatile LottieComposition composition;
+    private static volatile boolean preloading;
+
     private Dialog loadingDialog;
+    private volatile boolean dismissRequested;
+
+    /**
+     * Starts parsing the loading animation on Lottie's background executor so the
+     * first {@link #show(Context)} does not pay for it. Safe to call repeatedly.
+     *
+     * @param context any context; only its application context is retained
+     */
+    public static void preload(Context context) {
+        if (composition != null || preloading || context == null) {
+            return;
+        }
+        preloading = true;
+        final int trace = SdkTrace.beginAsync(SdkTrace.LOTTIE_PRELOAD);
+        LottieCompositionFactory.fromRawRes(context.getApplicationContext(), R.raw.loading)
+                .addListener(result -> {
+                    composition = result;
+                    preloading = false;
+                    SdkTrace.endAsync(SdkTrace.LOTTIE_PRELOAD, trace);
+                })
+                .addFailureListener(error -> {
+                    preloading = false;
+                    SdkTrace.endAsync(SdkTrace.LOTTIE_PRELOAD, trace);
+                });
+    }
 
     /**
      * Shows the loading dialog with a Lottie animation.
@@ -37,11 +74,34 @@ public class LoadingDialogHelper {
      *                Must be an Activity context or a context with a valid window token.
      */
     public void show(Context context) {
+        dismissRequested = false;
+        UiThread.run(() -> showNow(context));
+    }
+
+    private void showNow(Context context) {
+        // dismiss() may have overtaken a show() posted from a background thread
+        if (dismissRequested || (loadingDialog != null && loadingDialog.isShowing())) {
+            return;
+        }
+        if (context == null || (context instanceof Activity
+                && (((Activity) context).isFinishing() || ((Activity) context).isDestroyed()))) {
+            return;
+        }
+
         loadingDialog = new Dialog(context);
         loadingDialog.requestWindowFeature(Window.FEATURE_NO_TITLE);
         loadingDialog.setContentView(R.layout.sdk_loading_dialog);
         loadingDialog.setCancelable(false);
 
+        LottieAnimationView animationView = loadingDialog.findViewById(R.id.lottieLoader);
+        LottieComposition cached = composition;
+        if (cached != null) {
+            animationView.setComposition(cached);
+        } else {
+            animationView.setAnimation(R.raw.loading);
+            preload(context);
+        }
+
         // Set transparent background and wrap content size
         loadingDialog.getWindow().setBackgroundDrawable(new ColorDrawable(android.graphics.Color.TRANSPARENT));
         loadingDialog.getWindow().setLayout(
@@ -55,8 +115,11 @@ public class LoadingDialogHelper {
      * Dismisses the loading dialog if it is currently shown.
      */
     public void dismiss() {
-        if (loadingDialog != null && loadingDialog.isShowing()) {
-            loadingDialog.dismiss();
-        }
+        dismissRequested = true;
+        UiThread.run(() -> {
+            if (loadingDialog != null && loadingDialog.isShowing()) {
+                loadingDialog.dismiss();
+            }
+        });
     }
 }
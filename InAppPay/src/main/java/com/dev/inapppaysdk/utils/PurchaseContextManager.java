@@ -2,6 +2,7 @@ package com.dev.inapppaysdk.utils;
 
 import static com.dev.inapppaysdk.constants.InAppConstants.DEFAULT_CURRENCY;
 
+import com.dev.inapppaysdk.api.models.PurchaseSession;
 import com.dev.inapppaysdk.callbacks.PurchaseCallback;
 import java.util.Map;
 
@@ -16,13 +17,17 @@ public class PurchaseContextManager {
     private PurchaseCallback currentPurchaseCallback;
     private String currentItemType;
     private Map<String, Object> currentItemData;
+    private PurchaseSession currentSession;
     private String price;
     private String label;
 
     private static PurchaseContextManager instance;
 
-    /** Private constructor for singleton pattern. */
-    private PurchaseContextManager() {}
+    /**
+     * Creates an isolated context, e.g. for one tenant. The SDK-wide instance
+     * is available through {@link #getInstance()}.
+     */
+    public PurchaseContextManager() {}
 
     /**
      * Retrieves the singleton instance of this manager.
@@ -65,6 +70,16 @@ public class PurchaseContextManager {
         }
     }
 
+    /**
+     * Stores the validated session and its item data.
+     *
+     * @param session result of a successful validation
+     */
+    public void setSession(PurchaseSession session) {
+        this.currentSession = session;
+        setItemData(session.getItemData(), session.getItemType());
+    }
+
     /**
      * Gets the current item data
      * @return Map containing item data or null if not set
@@ -79,6 +94,7 @@ public class PurchaseContextManager {
         currentPurchaseCallback = null;
         currentItemType = null;
         currentItemData = null;
+        currentSession = null;
         price = null;
         label = null;
     }
@@ -96,6 +112,7 @@ public class PurchaseContextManager {
     public PurchaseCallback getCurrentPurchaseCallback() { return currentPurchaseCallback; }
     public String getCurrentItemType() { return currentItemType; }
     public Map<String, Object> getCurrentItemData() { return currentItemData; }
+    public PurchaseSession getCurrentSession() { return currentSession; }
     public String getPrice() { return price; }
     public String getLabel() { return label; }
 
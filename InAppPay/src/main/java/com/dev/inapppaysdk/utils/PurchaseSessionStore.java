@@ -0,0 +1,226 @@
+package com.dev.inapppaysdk.utils;
+
+import android.content.Context;
+
+import com.dev.inapppaysdk.api.JsonMapAdapter;
+import com.dev.inapppaysdk.api.models.Product;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the purchase session whose dialog is open on disk, so a flow
+ * interrupted by process death can be resumed instead of restarted.
+ *
+ * <p>One small binary record per project and user holds what the
+ * {@code validateItemForPurchase} call returned: session id, product id,
+ * validation time and item data. Card details never reach this store; they
+ * live only in the dialog's fields and the wipeable
+ * {@link com.dev.inapppaysdk.api.models.CardPayload}.</p>
+ *
+ * <p>A record younger than {@link #FRESH_MS} is reused as is; an older one
+ * still names the product to re-validate, up to {@link #MAX_AGE_MS}. Once
+ * the payment is sent the record is {@linkplain #markSubmitted marked
+ * submitted}: the back-end may have charged, so a resumed flow must ask for
+ * the outcome instead of opening the dialog again. Writes run in order on
+ * a thread of their own, so they never wait behind network set-up on the
+ * SDK timer; {@link #load} reads the disk.</p>
+ */
+public class PurchaseSessionStore {
+    /** How long a validated item is reused without asking the back-end again. */
+    public static final long FRESH_MS = 10 * 60 * 1000L;
+    /** Older records are dropped: the user has moved on. */
+    public static final long MAX_AGE_MS = 60 * 60 * 1000L;
+
+    private static final String DIR = "inapppay_sessions";
+    private static final int MAGIC = 0x49415053; // "IAPS"
+    private static final int VERSION = 3;
+    private static final int MAX_ITEM_BYTES = 64 * 1024;
+
+    private static PurchaseSessionStore instance;
+    private static Executor defaultWriter;
+
+    private final File dir;
+    private final Executor writer;
+    private final Gson gson = JsonMapAdapter.gson();
+
+    /**
+     * @param dir directory holding the records; created on the first save
+     */
+    public PurchaseSessionStore(File dir) {
+        this(dir, defaultWriter());
+    }
+
+    /**
+     * @param dir    directory holding the records; created on the first save
+     * @param writer runs the writes, one at a time and in order
+     */
+    public PurchaseSessionStore(File dir, Executor writer) {
+        this.dir = dir;
+        this.writer = writer;
+    }
+
+    private static synchronized Executor defaultWriter() {
+        if (defaultWriter == null) {
+            defaultWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "InAppPay-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Retrieves the singleton instance, storing its records in the app's
+     * no-backup directory so they never leave the device.
+     * @param context any context; only the application context is used
+     * @return a shared instance of PurchaseSessionStore
+     */
+    public static synchronized PurchaseSessionStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new PurchaseSessionStore(
+                    new File(context.getApplicationContext().getNoBackupFilesDir(), DIR));
+        }
+        return instance;
+    }
+
+    /** Records the open session of a user; written asynchronously. */
+    public void save(String projectName, String userId, PurchaseSession session) {
+        writer.execute(() -> write(projectName, userId, session, false));
+    }
+
+    /**
+     * Marks the session of a user as sent to {@code processPurchase}, then
+     * runs {@code then} on the main thread. If the mark cannot be written
+     * the record is deleted instead, so it can never reopen the dialog.
+     *
+     * @param then sends the payment; runs only once the mark is on disk
+     */
+    public void markSubmitted(String projectName, String userId, PurchaseSession session, Runnable then) {
+        writer.execute(() -> {
+            if (!write(projectName, userId, session, true)) {
+                file(projectName, userId).delete();
+            }
+            UiThread.run(then);
+        });
+    }
+
+    /** Forgets the session of a user once its flow has ended; asynchronous. */
+    public void remove(String projectName, String userId) {
+        writer.execute(() -> file(projectName, userId).delete());
+    }
+
+    /**
+     * @return the stored record, or {@code null} if there is none, it is
+     *         older than {@link #MAX_AGE_MS} or it cannot be read
+     */
+    public Pending load(String projectName, String userId) {
+        File file = file(projectName, userId);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION
+                    || !projectName.equals(in.readUTF()) || !userId.equals(in.readUTF())) {
+                return null; // another user's record under a colliding name, or an old format
+            }
+            boolean submitted = in.readBoolean();
+            String sessionId = in.readUTF();
+            String productId = in.readUTF();
+            long validatedAt = in.readLong();
+            long serverValidatedAt = in.readLong();
+            int length = in.readInt();
+            if (length < 0 || length > MAX_ITEM_BYTES) {
+                throw new IOException("Corrupt record");
+            }
+            byte[] json = new byte[length];
+            in.readFully(json);
+            if (System.currentTimeMillis() - validatedAt > MAX_AGE_MS) {
+                file.delete();
+                return null;
+            }
+            Map<String, Object> itemData = gson.fromJson(
+                    new String(json, StandardCharsets.UTF_8), JsonMapAdapter.MAP_TYPE);
+            if (itemData == null) {
+                return null;
+            }
+            return new Pending(new PurchaseSession(sessionId, productId,
+                    Product.fromMap(itemData, productId), itemData, validatedAt, serverValidatedAt), submitted);
+        } catch (IOException | JsonParseException | ClassCastException e) {
+            SdkLog.w(SdkLog.Category.PURCHASE, "Dropping unreadable purchase session", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /** @return whether a session can be reused without validating it again */
+    public static boolean isFresh(PurchaseSession session) {
+        return System.currentTimeMillis() - session.getValidatedAt() < FRESH_MS;
+    }
+
+    // @return whether the record is on disk
+    private boolean write(String projectName, String userId, PurchaseSession session, boolean submitted) {
+        File target = file(projectName, userId);
+        File temp = new File(dir, target.getName() + ".tmp");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return false;
+        }
+        byte[] json = gson.toJson(session.getItemData(), JsonMapAdapter.MAP_TYPE).getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(projectName);
+            out.writeUTF(userId);
+            out.writeBoolean(submitted);
+            out.writeUTF(session.getSessionId());
+            out.writeUTF(session.getProductId());
+            out.writeLong(session.getValidatedAt());
+            out.writeLong(session.getServerValidatedAt());
+            out.writeInt(json.length);
+            out.write(json);
+        } catch (IOException e) {
+            SdkLog.w(SdkLog.Category.PURCHASE, "Could not save purchase session", e);
+            temp.delete();
+            return false;
+        }
+        // Rename is atomic: a crash leaves either the old record or the new one
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    private File file(String projectName, String userId) {
+        return new File(dir, Integer.toHexString((projectName + '/' + userId).hashCode()));
+    }
+
+    /** A stored session and whether its payment was already sent. */
+    public static final class Pending {
+        private final PurchaseSession session;
+        private final boolean submitted;
+
+        Pending(PurchaseSession session, boolean submitted) {
+            this.session = session;
+            this.submitted = submitted;
+        }
+
+        public PurchaseSession getSession() { return session; }
+        /** @return whether {@code processPurchase} may already have charged */
+        public boolean isSubmitted() { return submitted; }
+    }
+}
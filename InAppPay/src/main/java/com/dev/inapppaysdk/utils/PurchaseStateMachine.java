@@ -0,0 +1,203 @@
+package com.dev.inapppaysdk.utils;
+
+import com.dev.inapppaysdk.callbacks.PurchaseStateListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Singleton tracking the purchase flow state of every product.
+ *
+ * <pre>
+ * IDLE ─► VALIDATING ─► AWAITING_INPUT ─► PROCESSING ─► DONE
+ *   ▲          │               │               │          │
+ *   └──────────┴───────────────┴───────────────┘◄─────────┘ (new flow)
+ * </pre>
+ *
+ * <p>All transitions are compare-and-set operations, so they are safe to call
+ * from any thread and exactly one of several racing callers wins. Because the
+ * purchase UI and {@link PurchaseContextManager} hold a single flow at a time,
+ * a new flow can only start while no other product is in flight: states are
+ * kept per product, but at most one product is active per instance. Use one
+ * instance per tenant for flows that must run side by side.</p>
+ *
+ * <p>A flow that is still validating or waiting for input after
+ * {@link #STALE_FLOW_MS}, e.g. because its dialog went away with the
+ * Activity, no longer blocks new flows: the next {@link #tryBegin} aborts it.
+ * A flow in {@link State#PROCESSING} is never taken over, since a charge may
+ * be under way.</p>
+ */
+public class PurchaseStateMachine {
+
+    /** Lifecycle of a single purchase flow. */
+    public enum State {
+        /** No flow running for the product. */
+        IDLE,
+        /** {@code validateItemForPurchase} is in flight. */
+        VALIDATING,
+        /** The purchase dialog is waiting for payment details. */
+        AWAITING_INPUT,
+        /** {@code processPurchase} is in flight. */
+        PROCESSING,
+        /** The last flow completed successfully. */
+        DONE
+    }
+
+    /** Age after which a flow that never reached {@code processPurchase} is abandoned. */
+    public static final long STALE_FLOW_MS = 15 * 60 * 1000L;
+
+    private static PurchaseStateMachine instance;
+
+    private final ConcurrentHashMap<String, AtomicReference<State>> states = new ConcurrentHashMap<>();
+    // The single product in flight; deliberately not keyed by product
+    private final AtomicReference<String> activeProduct = new AtomicReference<>();
+    private final List<PurchaseStateListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongSupplier clock;
+    private volatile long activeSince;
+
+    /**
+     * Creates an isolated state machine, e.g. for one tenant. The SDK-wide
+     * instance is available through {@link #getInstance()}.
+     */
+    public PurchaseStateMachine() {
+        this(System::currentTimeMillis);
+    }
+
+    PurchaseStateMachine(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieves the singleton instance of this state machine.
+     * @return a shared instance of PurchaseStateMachine
+     */
+    public static synchronized PurchaseStateMachine getInstance() {
+        if (instance == null) {
+            instance = new PurchaseStateMachine();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a new flow for {@code productId} ({@code IDLE/DONE → VALIDATING}).
+     *
+     * @return {@code false} if this product or any other product is already in
+     *         flight and not stale, in which case the request must be dropped
+     * @throws IllegalArgumentException if {@code productId} is {@code null}
+     */
+    public boolean tryBegin(String productId) {
+        requireProduct(productId);
+        if (!activeProduct.compareAndSet(null, productId)
+                && !(abortIfStale() && activeProduct.compareAndSet(null, productId))) {
+            return false;
+        }
+        activeSince = clock.getAsLong();
+        AtomicReference<State> ref = stateOf(productId);
+        State current = ref.get();
+        if ((current == State.IDLE || current == State.DONE) && ref.compareAndSet(current, State.VALIDATING)) {
+            notifyListeners(productId, current, State.VALIDATING);
+            return true;
+        }
+        activeProduct.compareAndSet(productId, null);
+        return false;
+    }
+
+    /**
+     * Atomically moves {@code productId} from {@code from} to {@code to}.
+     *
+     * @return {@code false} if the product was not in {@code from}, e.g. because
+     *         a duplicate event already performed the transition
+     * @throws IllegalArgumentException if {@code productId} is {@code null}
+     */
+    public boolean transition(String productId, State from, State to) {
+        requireProduct(productId);
+        if (!stateOf(productId).compareAndSet(from, to)) {
+            return false;
+        }
+        if (to == State.IDLE || to == State.DONE) {
+            activeProduct.compareAndSet(productId, null);
+        }
+        notifyListeners(productId, from, to);
+        return true;
+    }
+
+    /**
+     * Aborts whatever flow is running for {@code productId} and returns it to
+     * {@link State#IDLE}. Safe to call when nothing is running.
+     */
+    public void abort(String productId) {
+        if (productId == null) {
+            return;
+        }
+        State previous = stateOf(productId).getAndSet(State.IDLE);
+        activeProduct.compareAndSet(productId, null);
+        if (previous != State.IDLE) {
+            notifyListeners(productId, previous, State.IDLE);
+        }
+    }
+
+    // Aborts the active flow if it has been stuck before PROCESSING for too long
+    private boolean abortIfStale() {
+        String active = activeProduct.get();
+        if (active == null || clock.getAsLong() - activeSince < STALE_FLOW_MS) {
+            return false;
+        }
+        State state = getState(active);
+        if (state != State.VALIDATING && state != State.AWAITING_INPUT) {
+            return false;
+        }
+        SdkLog.w(SdkLog.Category.PURCHASE, "Abandoning stale purchase flow of {}", active);
+        abort(active);
+        return true;
+    }
+
+    /** @return the current state of {@code productId}, {@link State#IDLE} if never seen */
+    public State getState(String productId) {
+        AtomicReference<State> ref = productId != null ? states.get(productId) : null;
+        return ref != null ? ref.get() : State.IDLE;
+    }
+
+    /** @return the product whose flow is currently running, or {@code null} */
+    public String getActiveProductId() {
+        return activeProduct.get();
+    }
+
+    /**
+     * Registers an observer. Listeners are invoked synchronously on the thread
+     * that performed the transition.
+     */
+    public void addListener(PurchaseStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PurchaseStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void requireProduct(String productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("productId is required");
+        }
+    }
+
+    private AtomicReference<State> stateOf(String productId) {
+        AtomicReference<State> ref = states.get(productId);
+        if (ref == null) {
+            AtomicReference<State> created = new AtomicReference<>(State.IDLE);
+            ref = states.putIfAbsent(productId, created);
+            if (ref == null) {
+                ref = created;
+            }
+        }
+        return ref;
+    }
+
+    private void notifyListeners(String productId, State from, State to) {
+        for (PurchaseStateListener listener : listeners) {
+            listener.onStateChanged(productId, from, to);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.dev.inapppaysdk.utils;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Structured SDK logger with per-category levels, sampling and pluggable
+ * {@link Sink}s.
+ *
+ * <p>A disabled statement costs one array read and a compare. Messages are
+ * built only when they pass the level and sampling checks, either from a
+ * {@code {}} template or a lazy {@link Supplier}:</p>
+ *
+ * <pre>{@code
+ * SdkLog.d(SdkLog.Category.PURCHASE, "Purchase {} done in {} ms", productId, elapsed);
+ * if (SdkLog.isLoggable(SdkLog.Level.DEBUG, SdkLog.Category.DIALOG)) {
+ *     SdkLog.log(SdkLog.Level.DEBUG, SdkLog.Category.DIALOG, () -> describe(view));
+ * }
+ * }</pre>
+ *
+ * <p>Template arguments should already be objects: autoboxing a primitive or
+ * capturing a lambda allocates even when the statement is disabled, so guard
+ * such calls with {@link #isLoggable}. Every message is passed through
+ * {@link #redact} before it reaches a sink, so card numbers and CVVs never
+ * leave the SDK. Logs go to logcat by default; see {@link #addSink} and
+ * {@link FileLogSink}.</p>
+ */
+public final class SdkLog {
+
+    /** Severity, lowest first. {@link #NONE} as a threshold disables a category. */
+    public enum Level {
+        VERBOSE(Log.VERBOSE), DEBUG(Log.DEBUG), INFO(Log.INFO), WARN(Log.WARN), ERROR(Log.ERROR), NONE(0);
+
+        final int priority;
+
+        Level(int priority) {
+            this.priority = priority;
+        }
+    }
+
+    /** Area of the SDK a message comes from; levels and sampling are set per category. */
+    public enum Category {
+        SDK("sdk"), NETWORK("network"), VALIDATE("validate"), PURCHASE("purchase"),
+        TOKENIZE("tokenize"), DIALOG("dialog"), REGION("region"), TENANT("tenant"), CACHE("cache");
+
+        final String tag;
+
+        Category(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() { return tag; }
+    }
+
+    /**
+     * Receives every message that passes the level and sampling checks.
+     * Called on the logging thread, so implementations must be thread-safe and
+     * cheap; hand slow work (disk, network) to another thread.
+     */
+    public interface Sink {
+        void log(Level level, Category category, String message, Throwable error);
+    }
+
+    /** Writes to logcat with the tag {@code InAppPay/<category>}. */
+    public static final Sink LOGCAT = (level, category, message, error) -> {
+        String text = error != null ? message + '\n' + Log.getStackTraceString(error) : message;
+        Log.println(level.priority, "InAppPay/" + category.tag, text);
+    };
+
+    private static final Object NO_ARG = new Object();
+    private static final Category[] CATEGORIES = Category.values();
+    private static final List<Sink> sinks = new CopyOnWriteArrayList<>(Arrays.asList(LOGCAT));
+    // Copy-on-write: readers see a consistent array through one volatile read
+    private static volatile int[] thresholds = filled(Level.INFO.ordinal());
+    private static volatile int[] sampleEvery = filled(1);
+    private static final AtomicIntegerArray sampleCounters = new AtomicIntegerArray(CATEGORIES.length);
+
+    // 13-19 digits, in any grouping by spaces or dashes (4-4-4-4, Amex 4-6-5, 4-4-4-4-3);
+    // only runs passing the Luhn check are masked, which spares 9 in 10 ids and epoch millis
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\b\\d(?:[ -]?\\d){12,18}\\b");
+    private static final Pattern CARD_FIELD = Pattern.compile(
+            "(\"(?:cardNumber|cvv|cvc|expiry)\"\\s*:\\s*)\"[^\"]*\"", Pattern.CASE_INSENSITIVE);
+
+    private SdkLog() {}
+
+    // ── Configuration ───────────────────────────────────────────────────────
+
+    /** Sets the minimum level of every category. */
+    public static synchronized void setLevel(Level level) {
+        thresholds = filled(level.ordinal());
+    }
+
+    /** Sets the minimum level of one category. */
+    public static synchronized void setLevel(Category category, Level level) {
+        int[] updated = thresholds.clone();
+        updated[category.ordinal()] = level.ordinal();
+        thresholds = updated;
+    }
+
+    /**
+     * Keeps one in {@code oneIn} messages of a category below
+     * {@link Level#ERROR}; errors are never sampled out.
+     *
+     * @param oneIn 1 keeps everything
+     */
+    public static synchronized void setSampling(Category category, int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("oneIn must be >= 1");
+        }
+        int[] updated = sampleEvery.clone();
+        updated[category.ordinal()] = oneIn;
+        sampleEvery = updated;
+    }
+
+    /** Adds a sink, e.g. a {@link FileLogSink} or a host-app callback. */
+    public static void addSink(Sink sink) {
+        sinks.add(sink);
+    }
+
+    /** Removes a sink, including {@link #LOGCAT}. */
+    public static void removeSink(Sink sink) {
+        sinks.remove(sink);
+    }
+
+    // ── Logging ─────────────────────────────────────────────────────────────
+
+    /** @return whether {@code level} is enabled for {@code category}; never allocates */
+    public static boolean isLoggable(Level level, Category category) {
+        return level.ordinal() >= thresholds[category.ordinal()];
+    }
+
+    /** Logs a message built only if the statement is enabled and sampled in. */
+    public static void log(Level level, Category category, Supplier<String> message) {
+        if (isLoggable(level, category) && sampled(level, category)) {
+            dispatch(level, category, message.get(), null);
+        }
+    }
+
+    // d/i/w/e: "{}" templates with up to two arguments, formatted lazily
+
+    public static void d(Category category, String message) {
+        log(Level.DEBUG, category, message, NO_ARG, NO_ARG, null);
+    }
+
+    public static void d(Category category, String template, Object arg) {
+        log(Level.DEBUG, category, template, arg, NO_ARG, null);
+    }
+
+    public static void d(Category category, String template, Object arg1, Object arg2) {
+        log(Level.DEBUG, category, template, arg1, arg2, null);
+    }
+
+    public static void i(Category category, String message) {
+        log(Level.INFO, category, message, NO_ARG, NO_ARG, null);
+    }
+
+    public static void i(Category category, String template, Object arg) {
+        log(Level.INFO, category, template, arg, NO_ARG, null);
+    }
+
+    public static void i(Category category, String template, Object arg1, Object arg2) {
+        log(Level.INFO, category, template, arg1, arg2, null);
+    }
+
+    public static void w(Category category, String message) {
+        log(Level.WARN, category, message, NO_ARG, NO_ARG, null);
+    }
+
+    public static void w(Category category, String template, Object arg) {
+        log(Level.WARN, category, template, arg, NO_ARG, null);
+    }
+
+    public static void w(Category category, String message, Throwable error) {
+        log(Level.WARN, category, message, NO_ARG, NO_ARG, error);
+    }
+
+    public static void w(Category category, String template, Object arg, Throwable error) {
+        log(Level.WARN, category, template, arg, NO_ARG, error);
+    }
+
+    public static void e(Category category, String message) {
+        log(Level.ERROR, category, message, NO_ARG, NO_ARG, null);
+    }
+
+    public static void e(Category category, String template, Object arg) {
+        log(Level.ERROR, category, template, arg, NO_ARG, null);
+    }
+
+    public static void e(Category category, String message, Throwable error) {
+        log(Level.ERROR, category, message, NO_ARG, NO_ARG, error);
+    }
+
+    public static void e(Category category, String template, Object arg, Throwable error) {
+        log(Level.ERROR, category, template, arg, NO_ARG, error);
+    }
+
+    private static void log(Level level, Category category, String template,
+                            Object arg1, Object arg2, Throwable error) {
+        if (isLoggable(level, category) && sampled(level, category)) {
+            dispatch(level, category, format(template, arg1, arg2), error);
+        }
+    }
+
+    private static boolean sampled(Level level, Category category) {
+        int oneIn = sampleEvery[category.ordinal()];
+        if (oneIn == 1 || level == Level.ERROR) {
+            return true;
+        }
+        return sampleCounters.getAndIncrement(category.ordinal()) % oneIn == 0;
+    }
+
+    private static void dispatch(Level level, Category category, String message, Throwable error) {
+        String safe = redact(message);
+        for (Sink sink : sinks) {
+            try {
+                sink.log(level, category, safe, error);
+            } catch (RuntimeException ignored) {
+                // a broken sink must not break the SDK
+            }
+        }
+    }
+
+    // Replaces up to two "{}" placeholders
+    private static String format(String template, Object arg1, Object arg2) {
+        if (arg1 == NO_ARG) {
+            return template;
+        }
+        StringBuilder out = new StringBuilder(template.length() + 32);
+        Object[] args = {arg1, arg2};
+        int used = 0;
+        int from = 0;
+        int at;
+        while (used < args.length && args[used] != NO_ARG && (at = template.indexOf("{}", from)) >= 0) {
+            out.append(template, from, at).append(args[used++]);
+            from = at + 2;
+        }
+        return out.append(template, from, template.length()).toString();
+    }
+
+    /**
+     * Masks card data in a log message: card numbers (13 to 19 digits that
+     * pass the Luhn check) keep their last four digits and the
+     * {@code cardNumber}, {@code cvv} and {@code expiry} JSON fields are
+     * blanked.
+     */
+    public static String redact(String message) {
+        if (message == null) {
+            return "null";
+        }
+        Matcher fields = CARD_FIELD.matcher(message);
+        if (fields.find()) {
+            message = fields.replaceAll("$1\"[REDACTED]\"");
+        }
+        Matcher numbers = CARD_NUMBER.matcher(message);
+        StringBuilder masked = null;
+        int last = 0;
+        while (numbers.find()) {
+            int[] card = findCardNumber(message, numbers.start(), numbers.end());
+            if (card == null) {
+                continue;
+            }
+            if (masked == null) {
+                masked = new StringBuilder(message.length());
+            }
+            masked.append(message, last, card[0]).append("****");
+            appendLastDigits(masked, message, card[1], 4);
+            last = card[1];
+        }
+        return masked == null ? message : masked.append(message, last, message.length()).toString();
+    }
+
+    // The first, longest part of a digit run that starts and ends on a group
+    // boundary, has at least 13 digits and passes Luhn, e.g. the card in
+    // "4242 4242 4242 4242 123"; null if there is none
+    private static int[] findCardNumber(String text, int start, int end) {
+        for (int from = start; from < end; from++) {
+            if (!Character.isDigit(text.charAt(from)) || from > start && Character.isDigit(text.charAt(from - 1))) {
+                continue;
+            }
+            for (int to = end; to > from; to--) {
+                if (!Character.isDigit(text.charAt(to - 1)) || to < end && Character.isDigit(text.charAt(to))) {
+                    continue;
+                }
+                if (countDigits(text, from, to) < 13) {
+                    break;
+                }
+                if (passesLuhn(text, from, to)) {
+                    return new int[] {from, to};
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int countDigits(String text, int start, int end) {
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                digits++;
+            }
+        }
+        return digits;
+    }
+
+    // Mod-10 checksum over the digits of text[start, end), skipping separators
+    private static boolean passesLuhn(String text, int start, int end) {
+        int sum = 0;
+        boolean twice = false;
+        for (int i = end - 1; i >= start; i--) {
+            char c = text.charAt(i);
+            if (!Character.isDigit(c)) {
+                continue;
+            }
+            int digit = c - '0';
+            if (twice) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            twice = !twice;
+        }
+        return sum % 10 == 0;
+    }
+
+    // The last group may be shorter than four digits, so count digits, not chars
+    private static void appendLastDigits(StringBuilder out, String text, int end, int count) {
+        int start = end;
+        for (int found = 0; found < count; start--) {
+            if (Character.isDigit(text.charAt(start - 1))) {
+                found++;
+            }
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isDigit(c)) {
+                out.append(c);
+            }
+        }
+    }
+
+    private static int[] filled(int value) {
+        int[] array = new int[CATEGORIES.length];
+        Arrays.fill(array, value);
+        return array;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dev.inapppaysdk.utils;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Trace} sections around each SDK phase, visible in Perfetto / system
+ * traces and picked up by Macrobenchmark's {@code TraceSectionMetric}.
+ *
+ * <p>Synchronous phases (construction, dialog inflation, tokenization) use
+ * {@link #begin}/{@link #end} and must close on the thread that opened them.
+ * Network phases span threads and use async sections, which are recorded on
+ * API 29+ only. Every section name starts with {@link #PREFIX}. Off-device,
+ * e.g. in JVM unit tests, every method is a no-op.</p>
+ */
+public final class SdkTrace {
+    /** Common prefix of every section, for filtering traces. */
+    public static final String PREFIX = "InAppPay:";
+
+    public static final String INIT = PREFIX + "init";
+    public static final String BUY = PREFIX + "buy";
+    public static final String HTTP_CLIENT = PREFIX + "httpClient";
+    public static final String RETROFIT = PREFIX + "retrofit";
+    public static final String WARM_UP = PREFIX + "warmUp";
+    public static final String VALIDATE = PREFIX + "validate";
+    public static final String PURCHASE = PREFIX + "purchase";
+    public static final String TOKENIZE = PREFIX + "tokenize";
+    public static final String DIALOG = PREFIX + "dialog";
+    public static final String LOTTIE_PRELOAD = PREFIX + "lottiePreload";
+
+    private static final AtomicInteger COOKIES = new AtomicInteger();
+    // SDK_INT is 0 in the stub android.jar that JVM unit tests run against
+    private static final boolean ON_DEVICE = Build.VERSION.SDK_INT > 0;
+
+    private SdkTrace() {}
+
+    /** Opens a section on the calling thread. */
+    public static void begin(String name) {
+        if (ON_DEVICE) {
+            Trace.beginSection(name);
+        }
+    }
+
+    /** Closes the innermost section opened on the calling thread. */
+    public static void end() {
+        if (ON_DEVICE) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Opens a section that may be closed from another thread.
+     *
+     * @return cookie to pass to {@link #endAsync}
+     */
+    public static int beginAsync(String name) {
+        int cookie = COOKIES.incrementAndGet();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+        return cookie;
+    }
+
+    /** Closes a section opened by {@link #beginAsync}. */
+    public static void endAsync(String name, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, cookie);
+        }
+    }
+}
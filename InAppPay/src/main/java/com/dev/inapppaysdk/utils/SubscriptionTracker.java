@@ -0,0 +1,327 @@
+package com.dev.inapppaysdk.utils;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.callbacks.SubscriptionListener;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Keeps the subscription state returned by {@code checkUserSubscribed},
+ * {@code getSubscriptions} and subscription purchases, and schedules work
+ * only around each subscription's expiry instead of polling.
+ *
+ * <p>The expiry is read from {@code subscriptionData} ({@code expiresAt},
+ * {@code expiryDate} or {@code currentPeriodEnd}, as epoch millis, a Firestore
+ * timestamp or an ISO-8601 string). Per subscription one timer is kept on a
+ * {@link TimerWheel}:</p>
+ * <ul>
+ *   <li>a non-renewing subscription is re-checked {@link #RECHECK_LEAD_MS}
+ *       before it expires, in case the user renewed manually, and then
+ *       expires locally at its deadline without another request;</li>
+ *   <li>an auto-renewing one ({@code autoRenew} / {@code willRenew}) is
+ *       predicted to renew and re-checked {@link #RENEWAL_GRACE_MS} after
+ *       the old deadline, once the store has had time to charge.</li>
+ * </ul>
+ * <p>{@link SubscriptionListener}s hear about expiries and renewals on the
+ * main thread. All methods are thread-safe.</p>
+ */
+public class SubscriptionTracker {
+    /** How long before a non-renewing expiry the back-end is asked again. */
+    public static final long RECHECK_LEAD_MS = 2 * 60 * 1000L;
+    /** How long after an auto-renewing expiry the renewal is confirmed. */
+    public static final long RENEWAL_GRACE_MS = 5 * 60 * 1000L;
+    /** Delay before retrying a re-check that failed or saw no change. */
+    public static final long RECHECK_RETRY_MS = 15 * 60 * 1000L;
+
+    private static final String[] EXPIRY_FIELDS = {"expiresAt", "expiryDate", "currentPeriodEnd"};
+    private static final double SECONDS_LIMIT = 1e11;
+
+    private final String projectName;
+    private final InAppApiService apiService;
+    private final TimerWheel wheel;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param projectName project whose subscriptions are tracked
+     * @param apiService  service used for targeted re-checks
+     */
+    public SubscriptionTracker(String projectName, InAppApiService apiService) {
+        this(projectName, apiService, new TimerWheel(
+                TimerWheel.DEFAULT_TICK_MS, TimerWheel.DEFAULT_WHEEL_SIZE, ApiClient::getTimer));
+    }
+
+    SubscriptionTracker(String projectName, InAppApiService apiService, TimerWheel wheel) {
+        this.projectName = projectName;
+        this.apiService = apiService;
+        this.wheel = wheel;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SubscriptionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the cached answer of {@code isUserSubscribed}, or {@code null}
+     *         if the subscription is unknown
+     */
+    public synchronized Boolean isSubscribed(String userId, String productId) {
+        Entry entry = entries.get(key(userId, productId));
+        return entry != null ? entry.subscribed : null;
+    }
+
+    /** @return the cached expiry (epoch millis), or 0 if unknown */
+    public synchronized long getExpiresAt(String userId, String productId) {
+        Entry entry = entries.get(key(userId, productId));
+        return entry != null ? entry.expiresAt : 0;
+    }
+
+    /** @return number of subscriptions with a pending timer */
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Records a subscription's state, e.g. from a {@code checkUserSubscribed}
+     * response or a completed purchase, and reschedules its timer.
+     */
+    public void update(String userId, String productId, boolean subscribed, Map<String, Object> data) {
+        long expiresAt = expiresAt(data);
+        boolean autoRenew = data != null && (Boolean.TRUE.equals(data.get("autoRenew"))
+                || Boolean.TRUE.equals(data.get("willRenew")));
+        // The back-end's answer wins over the local clock
+        Entry entry = new Entry(userId, productId, subscribed, expiresAt, autoRenew, data);
+        Entry previous;
+        synchronized (this) {
+            previous = entries.put(key(userId, productId), entry);
+            if (previous != null && previous.timeout != null) {
+                previous.timeout.cancel();
+            }
+            if (entry.subscribed && expiresAt > 0) {
+                schedule(entry);
+            }
+        }
+        if (previous == null || !previous.subscribed) {
+            return;
+        }
+        if (!entry.subscribed) {
+            notifyExpired(entry);
+        } else if (expiresAt > previous.expiresAt && previous.expiresAt > 0) {
+            notifyRenewed(entry);
+        }
+    }
+
+    /**
+     * Records every subscription of a {@code getSubscriptions} response.
+     *
+     * <p>The response is a history: one product may have a record per
+     * period. Only the record with the latest expiry decides whether the
+     * product is active. Records without a {@code productId} or an expiry
+     * are skipped, since they say nothing about the current state; the
+     * tracker keeps what it knew before.</p>
+     */
+    @SuppressWarnings("unchecked")
+    public void updateAll(String userId, Object subscriptions) {
+        if (!(subscriptions instanceof List)) {
+            return;
+        }
+        Map<String, Map<String, Object>> latest = new LinkedHashMap<>();
+        Map<String, Long> latestExpiry = new HashMap<>();
+        for (Object item : (List<Object>) subscriptions) {
+            if (!(item instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> data = (Map<String, Object>) item;
+            Object productId = data.get("productId");
+            long expiresAt = expiresAt(data);
+            if (!(productId instanceof String) || expiresAt == 0) {
+                continue;
+            }
+            Long known = latestExpiry.get(productId);
+            if (known == null || expiresAt > known) {
+                latest.put((String) productId, data);
+                latestExpiry.put((String) productId, expiresAt);
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, Object>> entry : latest.entrySet()) {
+            String productId = entry.getKey();
+            update(userId, productId, latestExpiry.get(productId) > now, entry.getValue());
+        }
+    }
+
+    /** Forgets every subscription and cancels its timer. */
+    public synchronized void clear() {
+        entries.clear();
+        wheel.clear();
+    }
+
+    // Caller holds the lock
+    private void schedule(Entry entry) {
+        long now = System.currentTimeMillis();
+        long recheckAt = entry.autoRenew
+                ? entry.expiresAt + RENEWAL_GRACE_MS
+                : entry.expiresAt - RECHECK_LEAD_MS;
+        if (recheckAt > now) {
+            entry.timeout = wheel.schedule(recheckAt, () -> recheck(entry));
+        } else if (entry.expiresAt > now) {
+            // Already re-checked close to the deadline: expire without a request
+            entry.timeout = wheel.schedule(entry.expiresAt, () -> expireLocally(entry));
+        } else {
+            // Past its deadline and grace, yet reported active: ask again later
+            entry.timeout = wheel.schedule(now + RECHECK_RETRY_MS, () -> recheck(entry));
+        }
+    }
+
+    private void expireLocally(Entry entry) {
+        synchronized (this) {
+            if (entries.get(key(entry.userId, entry.productId)) != entry || !entry.subscribed) {
+                return;
+            }
+            entry.subscribed = false;
+            entry.timeout = null;
+        }
+        notifyExpired(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recheck(Entry entry) {
+        synchronized (this) {
+            if (entries.get(key(entry.userId, entry.productId)) != entry) {
+                return; // superseded by a newer answer
+            }
+        }
+        Map<String, Object> requestData = new HashMap<>();
+        requestData.put("projectName", projectName);
+        requestData.put("productId", entry.productId);
+        requestData.put("userId", entry.userId);
+        apiService.checkUserSubscribed(requestData).enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                Map<String, Object> body = response.body();
+                if (response.isSuccessful() && body != null && Boolean.TRUE.equals(body.get("success"))) {
+                    Map<String, Object> data = (Map<String, Object>) body.get("data");
+                    if (data != null) {
+                        update(entry.userId, entry.productId, Boolean.TRUE.equals(data.get("subscribed")),
+                                (Map<String, Object>) data.get("subscriptionData"));
+                        return;
+                    }
+                }
+                retryLater(entry);
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                SdkLog.w(SdkLog.Category.CACHE, "Subscription re-check failed for {}", entry.productId, t);
+                retryLater(entry);
+            }
+        });
+    }
+
+    // Offline: keep the local view, expiring on time, and try again later
+    private synchronized void retryLater(Entry entry) {
+        if (entries.get(key(entry.userId, entry.productId)) != entry || !entry.subscribed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!entry.autoRenew && entry.expiresAt > now) {
+            entry.timeout = wheel.schedule(entry.expiresAt, () -> expireLocally(entry));
+        } else {
+            entry.timeout = wheel.schedule(now + RECHECK_RETRY_MS, () -> recheck(entry));
+        }
+    }
+
+    private void notifyExpired(Entry entry) {
+        for (SubscriptionListener listener : listeners) {
+            UiThread.run(() -> listener.onSubscriptionExpired(entry.productId, entry.data));
+        }
+    }
+
+    private void notifyRenewed(Entry entry) {
+        for (SubscriptionListener listener : listeners) {
+            UiThread.run(() -> listener.onSubscriptionRenewed(entry.productId, entry.data));
+        }
+    }
+
+    /**
+     * @return the expiry in {@code data} as epoch millis, or 0 if absent.
+     *         Numbers below 10<sup>11</sup> are read as epoch seconds.
+     */
+    public static long expiresAt(Map<String, Object> data) {
+        if (data == null) {
+            return 0;
+        }
+        for (String field : EXPIRY_FIELDS) {
+            long millis = toMillis(data.get(field));
+            if (millis > 0) {
+                return millis;
+            }
+        }
+        return 0;
+    }
+
+    private static long toMillis(Object value) {
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            // Epoch seconds stay below this until the year 5138; epoch millis
+            // have been above it since 1973
+            return Math.abs(number.doubleValue()) < SECONDS_LIMIT
+                    ? Math.round(number.doubleValue() * 1000)
+                    : number.longValue();
+        }
+        if (value instanceof Map) { // Firestore Timestamp serialized by the function
+            Object seconds = ((Map<?, ?>) value).get("_seconds");
+            if (seconds == null) {
+                seconds = ((Map<?, ?>) value).get("seconds");
+            }
+            return seconds instanceof Number ? ((Number) seconds).longValue() * 1000 : 0;
+        }
+        if (value instanceof String) {
+            try {
+                return Instant.parse((String) value).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static String key(String userId, String productId) {
+        return userId + '\u0000' + productId;
+    }
+
+    private static final class Entry {
+        final String userId;
+        final String productId;
+        final long expiresAt;
+        final boolean autoRenew;
+        final Map<String, Object> data;
+        boolean subscribed;             // guarded by the tracker
+        TimerWheel.Timeout timeout;     // guarded by the tracker
+
+        Entry(String userId, String productId, boolean subscribed, long expiresAt,
+              boolean autoRenew, Map<String, Object> data) {
+            this.userId = userId;
+            this.productId = productId;
+            this.subscribed = subscribed;
+            this.expiresAt = expiresAt;
+            this.autoRenew = autoRenew;
+            this.data = data;
+        }
+    }
+}
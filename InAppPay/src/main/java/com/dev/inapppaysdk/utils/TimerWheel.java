@@ -0,0 +1,208 @@
+package com.dev.inapppaysdk.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Hashed timer wheel for wall-clock deadlines that are far apart, such as
+ * subscription expiries.
+ *
+ * <p>Each timer is linked into the slot of its tick, so scheduling and
+ * cancelling are O(1) however many timers are pending. A single wake-up is
+ * armed on the executor for the next slot that holds a due timer; while the
+ * wheel is empty nothing is scheduled at all, and timers further away than
+ * one revolution cost one wake-up per revolution. Deadlines are rounded up
+ * to the tick. Tasks run on the executor thread and must not block.</p>
+ */
+public class TimerWheel {
+    /** Deadline resolution of the wheel. */
+    public static final long DEFAULT_TICK_MS = 10_000;
+    /** Slots per revolution; with the default tick one revolution is ~85 min. */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMs;
+    private final int mask;
+    private final Timeout[] slots;
+    private final Supplier<ScheduledExecutorService> executor;
+    private long processedTick;          // every tick up to this one has run
+    private int pending;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpTick = Long.MAX_VALUE;
+
+    /**
+     * @param tickMs    deadline resolution
+     * @param wheelSize slots, rounded up to a power of two
+     * @param executor  supplies the thread that runs due timers
+     */
+    public TimerWheel(long tickMs, int wheelSize, Supplier<ScheduledExecutorService> executor) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = size - 1;
+        this.slots = new Timeout[size];
+        this.executor = executor;
+        this.processedTick = System.currentTimeMillis() / tickMs;
+    }
+
+    /**
+     * Runs {@code task} at or shortly after {@code atMillis}; a deadline in
+     * the past runs on the next tick.
+     *
+     * @return handle for {@link Timeout#cancel()}
+     */
+    public synchronized Timeout schedule(long atMillis, Runnable task) {
+        long tick = Math.max(ceilDiv(atMillis, tickMs), processedTick + 1);
+        Timeout timeout = new Timeout(task, tick);
+        link(timeout);
+        pending++;
+        if (tick < wakeUpTick) {
+            arm(tick);
+        }
+        return timeout;
+    }
+
+    /** @return number of timers not yet run or cancelled */
+    public synchronized int size() {
+        return pending;
+    }
+
+    /** Cancels every pending timer. */
+    public synchronized void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            for (Timeout t = slots[i]; t != null; t = t.next) {
+                t.slot = -1;
+            }
+            slots[i] = null;
+        }
+        pending = 0;
+        disarm();
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.slot < 0) {
+            return false;
+        }
+        unlink(timeout);
+        pending--;
+        if (pending == 0) {
+            disarm();
+        }
+        return true;
+    }
+
+    private void advance() {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpTick = Long.MAX_VALUE;
+            long nowTick = System.currentTimeMillis() / tickMs;
+            // A late wake-up (e.g. after Doze) never walks more than one revolution
+            long from = Math.max(processedTick + 1, nowTick - mask);
+            for (long tick = from; tick <= nowTick; tick++) {
+                Timeout t = slots[(int) (tick & mask)];
+                while (t != null) {
+                    Timeout next = t.next;
+                    if (t.tick <= nowTick) {
+                        unlink(t);
+                        pending--;
+                        due.add(t.task);
+                    }
+                    t = next;
+                }
+            }
+            processedTick = Math.max(processedTick, nowTick);
+            if (pending > 0) {
+                arm(nextDueTick());
+            }
+        }
+        for (Runnable task : due) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                SdkLog.e(SdkLog.Category.SDK, "Timer task failed", e);
+            }
+        }
+    }
+
+    // First slot ahead holding a timer for this revolution, else one revolution on
+    private long nextDueTick() {
+        long horizon = processedTick + mask + 1;
+        for (long tick = processedTick + 1; tick < horizon; tick++) {
+            for (Timeout t = slots[(int) (tick & mask)]; t != null; t = t.next) {
+                if (t.tick <= tick) {
+                    return tick;
+                }
+            }
+        }
+        return horizon;
+    }
+
+    private void arm(long tick) {
+        disarm();
+        long delay = Math.max(0, tick * tickMs - System.currentTimeMillis());
+        wakeUpTick = tick;
+        wakeUp = executor.get().schedule(this::advance, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void disarm() {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        wakeUpTick = Long.MAX_VALUE;
+    }
+
+    private void link(Timeout t) {
+        int slot = (int) (t.tick & mask);
+        t.slot = slot;
+        t.prev = null;
+        t.next = slots[slot];
+        if (t.next != null) {
+            t.next.prev = t;
+        }
+        slots[slot] = t;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            slots[t.slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = null;
+        t.next = null;
+        t.slot = -1;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /** A scheduled task; fields are guarded by the wheel. */
+    public final class Timeout {
+        private final Runnable task;
+        private final long tick;
+        private Timeout prev;
+        private Timeout next;
+        private int slot = -1;
+
+        Timeout(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        /** @return the deadline, rounded up to the wheel's tick */
+        public long getDeadlineMillis() { return tick * tickMs; }
+
+        /** @return whether the timer was still pending */
+        public boolean cancel() {
+            return TimerWheel.this.cancel(this);
+        }
+    }
+}
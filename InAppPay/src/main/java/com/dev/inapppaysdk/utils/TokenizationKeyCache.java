@@ -0,0 +1,131 @@
+package com.dev.inapppaysdk.utils;
+
+import com.dev.inapppaysdk.api.models.TokenizationKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton cache for the per-project tokenization keys fetched via
+ * {@code getTokenizationKey}.
+ *
+ * <p>A key is served until {@link #REFRESH_MARGIN_MS} before its expiry.
+ * Concurrent requests for the same project share one fetch: the first caller
+ * of {@link #join} performs it and reports through {@link #complete}, every
+ * other caller just waits. Projects whose back-end has no tokenization
+ * endpoint are remembered for {@link #UNSUPPORTED_TTL_MS}. All methods are
+ * thread-safe.</p>
+ */
+public class TokenizationKeyCache {
+    /** Keys this close to their expiry are refreshed before use. */
+    public static final long REFRESH_MARGIN_MS = 60 * 1000L;
+    /** How long a missing tokenization endpoint is remembered. */
+    public static final long UNSUPPORTED_TTL_MS = 60 * 60 * 1000L;
+
+    /** Receives the outcome of a shared key fetch. */
+    public interface Waiter {
+        /**
+         * @param key       the fetched key, or {@code null} on error
+         * @param error     error message when {@code key} is {@code null}
+         * @param errorCode error code when {@code key} is {@code null}
+         */
+        void onKey(TokenizationKey key, String error, String errorCode);
+    }
+
+    private static TokenizationKeyCache instance;
+
+    private final Map<String, TokenizationKey> keys = new HashMap<>();
+    private final Map<String, Long> unsupportedUntil = new HashMap<>();
+    private final Map<String, List<Waiter>> pending = new HashMap<>();
+
+    /** Private constructor for singleton pattern. */
+    private TokenizationKeyCache() {}
+
+    /**
+     * Retrieves the singleton instance of this cache.
+     * @return a shared instance of TokenizationKeyCache
+     */
+    public static synchronized TokenizationKeyCache getInstance() {
+        if (instance == null) {
+            instance = new TokenizationKeyCache();
+        }
+        return instance;
+    }
+
+    /**
+     * @return the cached key, or {@code null} if missing or about to expire
+     */
+    public synchronized TokenizationKey get(String projectName) {
+        TokenizationKey key = keys.get(projectName);
+        if (key != null && System.currentTimeMillis() > key.getExpiresAt() - REFRESH_MARGIN_MS) {
+            keys.remove(projectName);
+            return null;
+        }
+        return key;
+    }
+
+    /** @return whether the project's back-end recently had no tokenization endpoint */
+    public synchronized boolean isUnsupported(String projectName) {
+        Long until = unsupportedUntil.get(projectName);
+        if (until != null && System.currentTimeMillis() > until) {
+            unsupportedUntil.remove(projectName);
+            return false;
+        }
+        return until != null;
+    }
+
+    /**
+     * Registers interest in the project's key.
+     *
+     * @return {@code true} if no fetch is running and the caller must start one
+     */
+    public synchronized boolean join(String projectName, Waiter waiter) {
+        List<Waiter> waiters = pending.get(projectName);
+        if (waiters != null) {
+            waiters.add(waiter);
+            return false;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(waiter);
+        pending.put(projectName, waiters);
+        return true;
+    }
+
+    /**
+     * Ends a fetch started after {@link #join} returned {@code true}, storing
+     * the key on success and notifying every waiter outside the lock.
+     */
+    public void complete(String projectName, TokenizationKey key, String error, String errorCode) {
+        List<Waiter> waiters;
+        synchronized (this) {
+            if (key != null) {
+                keys.put(projectName, key);
+                unsupportedUntil.remove(projectName);
+            }
+            waiters = pending.remove(projectName);
+        }
+        if (waiters != null) {
+            for (Waiter waiter : waiters) {
+                waiter.onKey(key, error, errorCode);
+            }
+        }
+    }
+
+    /** Remembers that the project's back-end cannot tokenize. */
+    public synchronized void markUnsupported(String projectName) {
+        unsupportedUntil.put(projectName, System.currentTimeMillis() + UNSUPPORTED_TTL_MS);
+    }
+
+    /** Drops the cached key of one project, e.g. after the server rotated it. */
+    public synchronized void invalidate(String projectName) {
+        keys.remove(projectName);
+    }
+
+    /** Drops every cached key and unsupported marker. */
+    public synchronized void clear() {
+        keys.clear();
+        unsupportedUntil.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package com.dev.inapppaysdk.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Small helper that guarantees UI work runs on the main thread.
+ *
+ * <p>The main thread is the Android main looper unless a JVM test installs
+ * its own with {@link #setMainThread}.</p>
+ */
+public class UiThread {
+
+    /** The thread SDK callbacks and UI work are delivered on. */
+    public interface MainThread {
+        /** @return true if the caller is running on this thread */
+        boolean isCurrent();
+
+        /** Queues {@code action} to run on this thread. */
+        void post(Runnable action);
+    }
+
+    private static volatile MainThread main;
+
+    private UiThread() {}
+
+    /**
+     * Replaces the main thread, for tests running off-device.
+     * @param mainThread thread to deliver on, or null to restore the main looper
+     */
+    public static void setMainThread(MainThread mainThread) {
+        main = mainThread;
+    }
+
+    /** @return true if the caller is already on the main thread */
+    public static boolean isMainThread() {
+        return main().isCurrent();
+    }
+
+    /**
+     * Runs {@code action} immediately when called on the main thread,
+     * otherwise posts it to the main looper.
+     */
+    public static void run(Runnable action) {
+        MainThread thread = main();
+        if (thread.isCurrent()) {
+            action.run();
+        } else {
+            thread.post(action);
+        }
+    }
+
+    /**
+     * Posts {@code action} to the main looper even when called on the main
+     * thread, so that it never runs before the caller returns.
+     */
+    public static void post(Runnable action) {
+        main().post(action);
+    }
+
+    private static MainThread main() {
+        MainThread thread = main;
+        if (thread == null) {
+            synchronized (UiThread.class) {
+                if (main == null) {
+                    main = new LooperThread();
+                }
+                thread = main;
+            }
+        }
+        return thread;
+    }
+
+    private static final class LooperThread implements MainThread {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public boolean isCurrent() {
+            return Looper.myLooper() == Looper.getMainLooper();
+        }
+
+        @Override
+        public void post(Runnable action) {
+            handler.post(action);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.dev.inapppaysdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.ApiConfig;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.models.PaymentDetails;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+import com.dev.inapppaysdk.callbacks.PurchaseCallback;
+import com.dev.inapppaysdk.testing.FakeBackend;
+import com.dev.inapppaysdk.testing.MockApi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card purchases of {@link InAppPayClient} against a back-end deployed before
+ * tokenization, whose {@code getTokenizationKey} answers 404.
+ */
+public class InAppPayClientTest {
+    private static final String PROJECT = "legacy";
+    private static final String USER = "user-1";
+
+    private MockApi api;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+    private InAppPayClient client;
+
+    @Before
+    public void setUp() {
+        api = MockApi.start(FakeBackend.withDefaultCatalog(PROJECT).withoutTokenization());
+        InAppApiService service = api.getService();
+        InAppApiService watched = (InAppApiService) Proxy.newProxyInstance(
+                InAppApiService.class.getClassLoader(), new Class<?>[] {InAppApiService.class},
+                (proxy, method, args) -> {
+                    sent.add(method.getName());
+                    try {
+                        return method.invoke(service, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        client = new InAppPayClient(PROJECT, USER, watched);
+    }
+
+    @After
+    public void tearDown() {
+        ApiClient.configure(null);
+        api.close();
+    }
+
+    @Test
+    public void missingTokenizationKeyNeverSendsCardDataInClear() throws Exception {
+        purchaseByCard();
+
+        assertEquals("error:TOKENIZATION_FAILED", next());
+        assertFalse(sent.contains("processCardPurchase"));
+        assertFalse(sent.contains("processPurchase"));
+        assertFalse(owns("premium_01"));
+    }
+
+    @Test
+    public void plaintextFallbackIsAnExplicitOptIn() throws Exception {
+        ApiClient.configure(new ApiConfig.Builder().plaintextCardFallback(true).build());
+
+        purchaseByCard();
+
+        assertEquals("success", next());
+        assertTrue(sent.contains("processCardPurchase"));
+        assertTrue(owns("premium_01"));
+    }
+
+    private void purchaseByCard() {
+        PurchaseSession session = new PurchaseSession("premium_01", null, null, System.currentTimeMillis());
+        PaymentDetails card = PaymentDetails.card("4242424242424242", "12/30", "123", "Jane Doe");
+        api.getMainThread().run(() -> client.purchase(session, card, new PurchaseCallback() {
+            @Override
+            public void onSuccess(String message, Map<String, Object> data) {
+                outcomes.add("success");
+            }
+
+            @Override
+            public void onError(String error, String errorCode) {
+                outcomes.add("error:" + errorCode);
+            }
+        }));
+    }
+
+    private String next() throws InterruptedException {
+        String outcome = outcomes.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No callback", outcome);
+        return outcome;
+    }
+
+    private boolean owns(String productId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("projectName", PROJECT);
+        body.put("userId", USER);
+        body.put("productId", productId);
+        Map<?, ?> data = (Map<?, ?>) api.getBackend().checkUserPurchased(body).get("data");
+        return data != null && Boolean.TRUE.equals(data.get("purchased"));
+    }
+}
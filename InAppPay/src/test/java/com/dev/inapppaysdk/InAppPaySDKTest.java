@@ -0,0 +1,439 @@
+package com.dev.inapppaysdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.models.Product;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+import com.dev.inapppaysdk.callbacks.CatalogCallback;
+import com.dev.inapppaysdk.callbacks.PurchaseCallback;
+import com.dev.inapppaysdk.testing.FakeBackend;
+import com.dev.inapppaysdk.testing.MockApi;
+import com.dev.inapppaysdk.testing.MockInAppApiService;
+import com.dev.inapppaysdk.testing.TestMainThread;
+import com.dev.inapppaysdk.utils.CatalogCache;
+import com.dev.inapppaysdk.utils.PurchaseSessionStore;
+import com.dev.inapppaysdk.utils.PurchaseStateMachine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Purchase flows of {@link InAppPaySDK} against a {@link FakeBackend}, with
+ * the purchase dialog replaced by a {@link InAppPaySDK.DialogPresenter}.
+ * SDK calls are made from a {@link TestMainThread} and every callback must
+ * arrive back on it.
+ */
+public class InAppPaySDKTest {
+    private static final String PROJECT = "demo";
+    private static final String USER = "user-1";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockApi api;
+    private TestMainThread main;
+    private FakeBackend backend;
+    private MockInAppApiService service;
+    private PurchaseStateMachine stateMachine;
+    private PurchaseSessionStore sessionStore;
+    private final BlockingQueue<Product> shown = new LinkedBlockingQueue<>();
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Before
+    public void setUp() {
+        api = MockApi.start(FakeBackend.withDefaultCatalog(PROJECT));
+        backend = api.getBackend();
+        service = api.getService();
+        main = api.getMainThread();
+        stateMachine = new PurchaseStateMachine();
+        sessionStore = new PurchaseSessionStore(folder.getRoot(), Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+    }
+
+    @Test
+    public void dialogThatCannotBeShownEndsTheFlow() throws Exception {
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return false;
+        });
+        RecordingCallback callback = new RecordingCallback();
+
+        main.run(() -> sdk.buy("premium_01", callback));
+
+        assertEquals("error:DIALOG_UNAVAILABLE", callback.next());
+        assertNull(stateMachine.getActiveProductId());
+        assertEquals(PurchaseStateMachine.State.IDLE, stateMachine.getState("premium_01"));
+
+        // The next attempt is not locked out by the failed one
+        RecordingCallback retry = new RecordingCallback();
+        main.run(() -> sdk.buy("premium_01", retry));
+        assertEquals("error:DIALOG_UNAVAILABLE", retry.next());
+        assertEquals(2, shown.size());
+    }
+
+    @Test
+    public void completedPurchaseReleasesTheFlow() throws Exception {
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+        main.run(() -> sdk.buy("premium_01", callback));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+        assertEquals(PurchaseStateMachine.State.AWAITING_INPUT, stateMachine.getState("premium_01"));
+
+        main.run(() -> sdk.onPurchaseRequested("paypal", "buyer@example.com", null, null, null));
+
+        assertEquals("success", callback.next());
+        assertEquals(PurchaseStateMachine.State.DONE, stateMachine.getState("premium_01"));
+        assertNull(stateMachine.getActiveProductId());
+    }
+
+    @Test
+    public void resumeAfterChargeReportsSuccessWithoutDialog() throws Exception {
+        submitAndDie("premium_01");
+        backend.purchaseWithPayPal(USER, "premium_01");
+
+        // A new process: fresh state, same store
+        stateMachine = new PurchaseStateMachine();
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+
+        assertTrue(main.call(() -> sdk.resumePurchase(callback)));
+
+        assertEquals("success", callback.next());
+        assertTrue(shown.isEmpty());
+        assertNull(sessionStore.load(PROJECT, USER));
+        assertNull(stateMachine.getActiveProductId());
+    }
+
+    @Test
+    public void resumeAfterLostSubmitReportsUnconfirmedWithoutDialog() throws Exception {
+        submitAndDie("premium_01");
+
+        stateMachine = new PurchaseStateMachine();
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+
+        assertTrue(main.call(() -> sdk.resumePurchase(callback)));
+
+        assertEquals("error:PURCHASE_UNCONFIRMED", callback.next());
+        assertTrue(shown.isEmpty());
+        assertNull(sessionStore.load(PROJECT, USER));
+    }
+
+    @Test
+    public void resumeAfterRotationTakesOverWaitingFlow() throws Exception {
+        InAppPaySDK before = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback abandoned = new RecordingCallback();
+        main.run(() -> before.buy("premium_01", abandoned));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+
+        // Same process, recreated Activity: the old dialog is gone
+        InAppPaySDK after = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+
+        assertTrue(main.call(() -> after.resumePurchase(callback)));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+        assertEquals(PurchaseStateMachine.State.AWAITING_INPUT, stateMachine.getState("premium_01"));
+
+        main.run(() -> after.onPurchaseRequested("paypal", "buyer@example.com", null, null, null));
+
+        assertEquals("success", callback.next());
+        assertEquals(PurchaseStateMachine.State.DONE, stateMachine.getState("premium_01"));
+        assertNull(sessionStore.load(PROJECT, USER));
+    }
+
+    @Test
+    public void paymentIsSentFromTheMainThreadOnceMarked() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        sessionStore = new PurchaseSessionStore(folder.getRoot(), writer);
+        BlockingQueue<String> sends = new LinkedBlockingQueue<>();
+        InAppApiService watched = watch(method -> {
+            if (method.equals("processPurchase")) {
+                sends.add((main.isCurrent() ? "main" : Thread.currentThread().getName())
+                        + (sessionStore.load(PROJECT, USER).isSubmitted() ? ", marked" : ", unmarked"));
+            }
+        });
+        try {
+            InAppPaySDK sdk = new InAppPaySDK(PROJECT, USER, watched, stateMachine, sessionStore, item -> {
+                shown.add(item);
+                return true;
+            });
+            RecordingCallback callback = new RecordingCallback();
+            main.run(() -> sdk.buy("premium_01", callback));
+            assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+
+            main.run(() -> sdk.onPurchaseRequested("paypal", "buyer@example.com", null, null, null));
+
+            assertEquals("success", callback.next());
+            assertEquals("main, marked", sends.poll(5, TimeUnit.SECONDS));
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lostPaymentAnswerIsKeptForResume() throws Exception {
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+        main.run(() -> sdk.buy("premium_01", callback));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+
+        // The back-end charges, then the connection drops before the answer
+        backend.purchaseWithPayPal(USER, "premium_01");
+        api.getBehavior().setFailurePercent(100);
+        main.run(() -> sdk.onPurchaseRequested("paypal", "buyer@example.com", null, null, null));
+
+        assertEquals("error:NETWORK_ERROR", callback.next());
+        assertTrue(sessionStore.load(PROJECT, USER).isSubmitted());
+        assertNull(stateMachine.getActiveProductId());
+
+        api.getBehavior().setFailurePercent(0);
+        RecordingCallback resumed = new RecordingCallback();
+        assertTrue(main.call(() -> sdk.resumePurchase(resumed)));
+
+        assertEquals("success", resumed.next());
+        assertNull(sessionStore.load(PROJECT, USER));
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void rejectedPaymentLeavesNothingToResume() throws Exception {
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+        main.run(() -> sdk.buy("premium_01", callback));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+
+        backend.deactivate("premium_01");
+        main.run(() -> sdk.onPurchaseRequested("paypal", "buyer@example.com", null, null, null));
+
+        assertEquals("error:PRODUCT_INACTIVE", callback.next());
+        assertNull(sessionStore.load(PROJECT, USER));
+        assertFalse(main.call(() -> sdk.resumePurchase(new RecordingCallback())));
+    }
+
+    @Test
+    public void resumedConsumableToleratesADeviceClockAhead() throws Exception {
+        submitAndDie("coins_100");
+        PurchaseSession saved = sessionStore.load(PROJECT, USER).getSession();
+        PurchaseSession ahead = new PurchaseSession(saved.getSessionId(), saved.getProductId(),
+                saved.getItem(), saved.getItemData(), saved.getValidatedAt() + 60_000);
+        sessionStore.markSubmitted(PROJECT, USER, ahead, () -> { });
+        backend.purchaseWithPayPal(USER, "coins_100");
+
+        stateMachine = new PurchaseStateMachine();
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        RecordingCallback callback = new RecordingCallback();
+
+        assertTrue(main.call(() -> sdk.resumePurchase(callback)));
+
+        assertEquals("success", callback.next());
+    }
+
+    @Test
+    public void catalogIsFetchedOnceThenServedFromTheCache() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        InAppPaySDK sdk = catalogSdk(fetches);
+        CatalogRecorder miss = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(miss));
+        assertEquals("products:3", miss.next());
+
+        backend.addProduct("gems_10", "repurchase", "10 Gems", "A few gems", "0.49");
+        CatalogRecorder hit = new CatalogRecorder();
+        boolean deferred = main.call(() -> {
+            sdk.getCatalog(hit);
+            return hit.outcomes.isEmpty();
+        });
+
+        assertTrue("Cache hit delivered before getCatalog returned", deferred);
+        assertEquals("products:3", hit.next());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void expiredOrBypassedCatalogIsFetchedAgain() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        InAppPaySDK sdk = catalogSdk(fetches);
+        CatalogRecorder first = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(first));
+        assertEquals("products:3", first.next());
+        backend.addProduct("gems_10", "repurchase", "10 Gems", "A few gems", "0.49");
+
+        clock.addAndGet(CatalogCache.DEFAULT_TTL_MS + 1);
+        CatalogRecorder expired = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(expired));
+        assertEquals("products:4", expired.next());
+
+        CatalogRecorder forced = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(true, forced));
+        assertEquals("products:4", forced.next());
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    public void catalogErrorsAreReportedAndNotCached() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        InAppPaySDK sdk = catalogSdk(fetches);
+        api.getBehavior().setErrorPercent(100);
+        CatalogRecorder failed = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(failed));
+        assertEquals("error:INJECTED_ERROR", failed.next());
+
+        api.getBehavior().setErrorPercent(0);
+        CatalogRecorder retried = new CatalogRecorder();
+        main.run(() -> sdk.getCatalog(retried));
+        assertEquals("products:3", retried.next());
+        assertEquals(2, fetches.get());
+
+        InAppPaySDK unknown = new InAppPaySDK("unknown", USER, service, stateMachine, sessionStore,
+                item -> true, new CatalogCache(clock::get));
+        CatalogRecorder rejected = new CatalogRecorder();
+        main.run(() -> unknown.getCatalog(rejected));
+        assertEquals("error:GET_CATALOG_FAILED", rejected.next());
+    }
+
+    // Opens the dialog, then marks the payment sent as if the process died right after
+    private void submitAndDie(String productId) throws Exception {
+        InAppPaySDK sdk = newSdk(item -> {
+            shown.add(item);
+            return true;
+        });
+        main.run(() -> sdk.buy(productId, new RecordingCallback()));
+        assertNotNull(shown.poll(5, TimeUnit.SECONDS));
+        PurchaseSessionStore.Pending pending = sessionStore.load(PROJECT, USER);
+        assertNotNull(pending);
+        sessionStore.markSubmitted(PROJECT, USER, pending.getSession(), () -> { });
+        assertTrue(sessionStore.load(PROJECT, USER).isSubmitted());
+    }
+
+    private InAppPaySDK newSdk(InAppPaySDK.DialogPresenter presenter) {
+        return new InAppPaySDK(PROJECT, USER, service, stateMachine, sessionStore, presenter);
+    }
+
+    // Catalog on the manual clock, counting getCatalog calls that reach the network
+    private InAppPaySDK catalogSdk(AtomicInteger fetches) {
+        InAppApiService watched = watch(method -> {
+            if (method.equals("getCatalog")) {
+                fetches.incrementAndGet();
+            }
+        });
+        return new InAppPaySDK(PROJECT, USER, watched, stateMachine, sessionStore, item -> true,
+                new CatalogCache(clock::get));
+    }
+
+    // The mock service, telling onCall the name of each method called
+    private InAppApiService watch(Consumer<String> onCall) {
+        return (InAppApiService) Proxy.newProxyInstance(
+                InAppApiService.class.getClassLoader(), new Class<?>[] {InAppApiService.class},
+                (proxy, method, args) -> {
+                    onCall.accept(method.getName());
+                    try {
+                        return method.invoke(service, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /** Records catalogs as {@code "products:<count>"} or {@code "error:<code>"}. */
+    class CatalogRecorder implements CatalogCallback {
+        final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSuccess(List<Product> products) {
+            record("products:" + products.size());
+        }
+
+        @Override
+        public void onError(String error, String errorCode) {
+            record("error:" + errorCode);
+        }
+
+        private void record(String outcome) {
+            outcomes.add(main.isCurrent() ? outcome
+                    : outcome + " on " + Thread.currentThread().getName());
+        }
+
+        String next() throws InterruptedException {
+            String outcome = outcomes.poll(5, TimeUnit.SECONDS);
+            assertNotNull("No callback", outcome);
+            return outcome;
+        }
+    }
+
+    /**
+     * Records outcomes as {@code "success"} or {@code "error:<code>"}, with
+     * a suffix when delivered off the main thread.
+     */
+    class RecordingCallback implements PurchaseCallback {
+        private final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSuccess(String message, Map<String, Object> data) {
+            record("success");
+        }
+
+        @Override
+        public void onError(String error, String errorCode) {
+            record("error:" + errorCode);
+        }
+
+        private void record(String outcome) {
+            outcomes.add(main.isCurrent() ? outcome
+                    : outcome + " on " + Thread.currentThread().getName());
+        }
+
+        String next() throws InterruptedException {
+            String outcome = outcomes.poll(5, TimeUnit.SECONDS);
+            assertNotNull("No callback", outcome);
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.dev.inapppaysdk.admin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.api.RequestPriority;
+import com.dev.inapppaysdk.api.RequestScheduler;
+import com.dev.inapppaysdk.callbacks.BatchCallback;
+import com.dev.inapppaysdk.constants.InAppConstants;
+import com.dev.inapppaysdk.testing.FakeBackend;
+import com.dev.inapppaysdk.testing.MockApi;
+import com.dev.inapppaysdk.testing.MockInAppApiService;
+import com.dev.inapppaysdk.testing.TestMainThread;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link BatchChecker} against a {@link FakeBackend} that holds every check
+ * until the test opens its gate, so the calls in flight can be counted.
+ * Progress and completion must be delivered on the {@link TestMainThread}.
+ */
+public class BatchCheckerTest {
+    private static final String PROJECT = "demo";
+
+    private MockApi api;
+    private TestMainThread main;
+    private GatedBackend backend;
+    private MockInAppApiService service;
+
+    @Before
+    public void setUp() {
+        backend = new GatedBackend();
+        api = MockApi.start(backend);
+        service = api.getService();
+        main = api.getMainThread();
+    }
+
+    @After
+    public void tearDown() {
+        backend.open();
+        api.close();
+    }
+
+    @Test
+    public void neverExceedsParallelism() throws Exception {
+        Recorder recorder = new Recorder();
+        BatchChecker.Batch batch = new BatchChecker(PROJECT, service, 3).run(purchases(20), recorder);
+
+        backend.awaitEntered(3);
+        Thread.sleep(100);
+        assertEquals("A fourth call was sent while three were held", 3, backend.entered.get());
+        assertEquals(0, batch.getCompleted());
+
+        backend.open();
+        BatchReport report = recorder.await();
+
+        assertEquals(20, report.getTotal());
+        assertEquals(20, report.getResults().size());
+        assertEquals(20, recorder.progress.size());
+        assertTrue(backend.maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void clampsParallelism() throws Exception {
+        Recorder recorder = new Recorder();
+        new BatchChecker(PROJECT, service, 0).run(purchases(5), recorder);
+        backend.awaitEntered(1);
+        Thread.sleep(100);
+        assertEquals(1, backend.entered.get());
+
+        backend.open();
+        recorder.await();
+        backend.close();
+        backend.entered.set(0);
+        new BatchChecker(PROJECT, service, 1000).run(purchases(BatchChecker.MAX_PARALLELISM + 8), new Recorder());
+        backend.awaitEntered(BatchChecker.MAX_PARALLELISM);
+        Thread.sleep(100);
+        assertEquals(BatchChecker.MAX_PARALLELISM, backend.entered.get());
+    }
+
+    @Test
+    public void parallelismFitsTheSchedulersBackgroundSlots() {
+        RequestScheduler scheduler = new RequestScheduler(4);
+
+        assertEquals(3, BatchChecker.maxParallelism(scheduler));
+        assertEquals(3, new BatchChecker(PROJECT, service, 1000, scheduler).getParallelism());
+        assertEquals(2, new BatchChecker(PROJECT, service, 2, scheduler).getParallelism());
+        assertEquals(BatchChecker.MAX_PARALLELISM, BatchChecker.maxParallelism(null));
+    }
+
+    @Test
+    public void batchLargerThanTheSchedulerQueueIsNotShed() throws Exception {
+        // Room for two waiting background calls, far fewer than the batch
+        RequestScheduler scheduler = new RequestScheduler(4)
+                .setQueueLimit(RequestPriority.BACKGROUND, 2, 0);
+        api.close();
+        api = MockApi.start(backend, scheduler);
+        service = api.getService();
+        main = api.getMainThread();
+        backend.open();
+        Recorder recorder = new Recorder();
+
+        new BatchChecker(PROJECT, service, 1000, scheduler).run(purchases(50), recorder);
+        BatchReport report = recorder.await();
+
+        assertEquals(50, report.getResults().size());
+        assertEquals(0, report.getFailedCount());
+        assertTrue(backend.maxInFlight.get() <= 3);
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(0, scheduler.getQueued(RequestPriority.BACKGROUND));
+    }
+
+    @Test
+    public void duplicateQueriesAreSentOnce() throws Exception {
+        backend.open();
+        Recorder recorder = new Recorder();
+        List<EntitlementQuery> queries = Arrays.asList(
+                EntitlementQuery.purchase("u1", "premium_01"),
+                EntitlementQuery.purchase("u1", "premium_01"),
+                EntitlementQuery.subscription("u1", "premium_01"),
+                EntitlementQuery.purchase("u2", "premium_01"),
+                EntitlementQuery.purchase("u1", "premium_01"));
+
+        BatchChecker.Batch batch = new BatchChecker(PROJECT, service, 2).run(queries, recorder);
+        BatchReport report = recorder.await();
+
+        assertEquals(3, batch.getTotal());
+        assertEquals(3, report.getTotal());
+        assertEquals(Arrays.asList(queries.get(0), queries.get(2), queries.get(3)), queriesOf(report));
+        assertEquals(3, backend.calls.size());
+        for (AtomicInteger count : backend.calls.values()) {
+            assertEquals(1, count.get());
+        }
+    }
+
+    @Test
+    public void cancelStopsSendingAndReportsWhatCompleted() throws Exception {
+        Recorder recorder = new Recorder();
+        BatchChecker.Batch batch = new BatchChecker(PROJECT, service, 2).run(purchases(10), recorder);
+        backend.awaitEntered(2);
+
+        batch.cancel();
+        BatchReport report = recorder.await();
+
+        assertTrue(report.isCancelled());
+        assertEquals(10, report.getTotal());
+        assertEquals(0, report.getResults().size());
+
+        // Nothing is sent or reported after the cancel
+        backend.open();
+        Thread.sleep(100);
+        assertEquals(2, backend.entered.get());
+        assertTrue(recorder.progress.isEmpty());
+        assertNull(recorder.reports.poll(100, TimeUnit.MILLISECONDS));
+        batch.cancel(); // a second cancel is a no-op
+        assertNull(recorder.reports.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void reportsOwnedNotOwnedAndFailed() throws Exception {
+        backend.open();
+        backend.purchaseWithPayPal("u1", "premium_01");
+        Recorder recorder = new Recorder();
+        EntitlementQuery owned = EntitlementQuery.purchase("u1", "premium_01");
+        EntitlementQuery notOwned = EntitlementQuery.purchase("u2", "premium_01");
+        EntitlementQuery unknown = EntitlementQuery.subscription("u1", "no_such_product");
+
+        new BatchChecker(PROJECT, service, 2).run(Arrays.asList(owned, notOwned, unknown), recorder);
+        BatchReport report = recorder.await();
+
+        assertEquals(Arrays.asList(owned, notOwned, unknown), queriesOf(report));
+        assertEquals(1, report.getOwnedCount());
+        assertEquals(1, report.getNotOwnedCount());
+        assertEquals(1, report.getFailedCount());
+        BatchReport.Result first = report.getResults().get(0);
+        assertEquals(BatchReport.Status.OWNED, first.getStatus());
+        assertNotNull(first.getData());
+        assertEquals("premium_01", first.getData().get("productId"));
+        assertEquals("CHECK_FAILED", report.filter(BatchReport.Status.FAILED).get(0).getErrorCode());
+    }
+
+    private static List<EntitlementQuery> purchases(int users) {
+        List<EntitlementQuery> queries = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            queries.add(EntitlementQuery.purchase("user-" + i, "premium_01"));
+        }
+        return queries;
+    }
+
+    private static List<EntitlementQuery> queriesOf(BatchReport report) {
+        List<EntitlementQuery> queries = new ArrayList<>();
+        for (BatchReport.Result result : report.getResults()) {
+            queries.add(result.getQuery());
+        }
+        return queries;
+    }
+
+    /** Holds every check until {@link #open()}; counts calls and concurrency. */
+    private static final class GatedBackend extends FakeBackend {
+        final AtomicInteger entered = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private volatile CountDownLatch gate = new CountDownLatch(1);
+
+        GatedBackend() {
+            super(PROJECT);
+            addProduct("premium_01", InAppConstants.TYPE_ONETIME, "Premium", "Unlock everything", "4.99");
+            addProduct("pro_monthly", InAppConstants.TYPE_SUBSCRIPTION, "Pro", "Monthly plan", "9.99");
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        void close() {
+            gate = new CountDownLatch(1);
+        }
+
+        void awaitEntered(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (entered.get() < count) {
+                assertTrue("Only " + entered.get() + " of " + count + " calls arrived",
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+        }
+
+        @Override
+        public Map<String, Object> checkUserPurchased(Map<String, Object> body) {
+            return gated("purchase", body, super::checkUserPurchased);
+        }
+
+        @Override
+        public Map<String, Object> checkUserSubscribed(Map<String, Object> body) {
+            return gated("subscription", body, super::checkUserSubscribed);
+        }
+
+        private Map<String, Object> gated(String kind, Map<String, Object> body,
+                                          Function<Map<String, Object>, Map<String, Object>> check) {
+            calls.computeIfAbsent(kind + "/" + body.get("userId") + "/" + body.get("productId"),
+                    key -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch current = gate;
+            entered.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                current.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // the call was cancelled
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return check.apply(body);
+        }
+    }
+
+    private final class Recorder implements BatchCallback {
+        final List<BatchReport.Result> progress = new CopyOnWriteArrayList<>();
+        final BlockingQueue<BatchReport> reports = new LinkedBlockingQueue<>();
+        final List<String> offMainThread = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onProgress(BatchReport.Result result, int completed, int total) {
+            checkThread("onProgress");
+            progress.add(result);
+        }
+
+        @Override
+        public void onComplete(BatchReport report) {
+            checkThread("onComplete");
+            reports.add(report);
+        }
+
+        private void checkThread(String method) {
+            if (!main.isCurrent()) {
+                offMainThread.add(method + " on " + Thread.currentThread().getName());
+            }
+        }
+
+        BatchReport await() throws InterruptedException {
+            BatchReport report = reports.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Batch did not complete", report);
+            assertTrue("Delivered off the main thread: " + offMainThread, offMainThread.isEmpty());
+            return report;
+        }
+    }
+}
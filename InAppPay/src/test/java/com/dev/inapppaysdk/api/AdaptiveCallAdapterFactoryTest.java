@@ -0,0 +1,240 @@
+package com.dev.inapppaysdk.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Timeouts and hedging of {@link AdaptiveCallAdapterFactory} over calls that
+ * answer only when the test says so.
+ */
+public class AdaptiveCallAdapterFactoryTest {
+    private static final String ENDPOINT = "checkUserPurchased";
+
+    private final LatencyTracker tracker = new LatencyTracker();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final AdaptiveCallAdapterFactory factory = new AdaptiveCallAdapterFactory(tracker, 2, true, timer);
+    private final BlockingQueue<FakeCall> clones = new LinkedBlockingQueue<>();
+    private final BlockingQueue<FakeCall> sent = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void timeoutIsTwiceP99WithinTheEndpointBounds() {
+        AdaptiveCallAdapterFactory.Policy policy = new AdaptiveCallAdapterFactory.Policy(ENDPOINT, 1_000, 5_000, false);
+
+        // Too few samples to trust: the ceiling applies
+        record(AdaptiveCallAdapterFactory.MIN_SAMPLES - 1, 1_500);
+        assertEquals(5_000, factory.timeoutMs(policy));
+
+        record(1, 1_500);
+        assertEquals(2 * tracker.percentileMs(ENDPOINT, 99), factory.timeoutMs(policy));
+
+        record(LatencyHistogram.WINDOW, 20);
+        assertEquals(1_000, factory.timeoutMs(policy));
+
+        record(LatencyHistogram.WINDOW, 4_000);
+        assertEquals(5_000, factory.timeoutMs(policy));
+    }
+
+    @Test
+    public void callTimeoutIsSetOnTheNetworkCall() {
+        FakeCall primary = new FakeCall();
+
+        adaptive(primary, false).enqueue(new Recorder());
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5_000), primary.timeout().timeoutNanos());
+    }
+
+    @Test
+    public void slowCallIsHedgedAndTheLoserCancelled() throws Exception {
+        record(AdaptiveCallAdapterFactory.MIN_SAMPLES, 10);
+        FakeCall primary = new FakeCall();
+
+        adaptive(primary, true).enqueue(new Recorder());
+
+        assertEquals(primary, sent.poll());
+        FakeCall hedge = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No hedge", hedge);
+        hedge.respond("hedge");
+
+        assertEquals("response:hedge", outcomes.poll(5, TimeUnit.SECONDS));
+        assertTrue(primary.isCanceled());
+        assertFalse(hedge.isCanceled());
+    }
+
+    @Test
+    public void fastCallIsNotHedged() throws Exception {
+        record(AdaptiveCallAdapterFactory.MIN_SAMPLES, 50);
+        FakeCall primary = new FakeCall();
+
+        adaptive(primary, true).enqueue(new Recorder());
+        primary.respond("primary");
+
+        assertEquals("response:primary", outcomes.poll(5, TimeUnit.SECONDS));
+        drainTimer();
+        assertTrue(clones.isEmpty());
+    }
+
+    @Test
+    public void cancelledCallIsNeverHedged() throws Exception {
+        record(AdaptiveCallAdapterFactory.MIN_SAMPLES, 10);
+        FakeCall primary = new FakeCall();
+        Call<String> call = adaptive(primary, true);
+
+        call.enqueue(new Recorder());
+        call.cancel();
+
+        assertEquals("failure:Canceled", outcomes.poll(5, TimeUnit.SECONDS));
+        drainTimer();
+        assertTrue(clones.isEmpty());
+        assertTrue(call.isCanceled());
+    }
+
+    @Test
+    public void answerArrivingWhileTheHedgeIsBuiltCancelsIt() throws Exception {
+        record(AdaptiveCallAdapterFactory.MIN_SAMPLES, 10);
+        FakeCall primary = new FakeCall();
+        // The primary answers after the timer checked for a result, before hedge is set
+        primary.onClone = () -> primary.respond("primary");
+
+        adaptive(primary, true).enqueue(new Recorder());
+
+        assertEquals("response:primary", outcomes.poll(5, TimeUnit.SECONDS));
+        drainTimer();
+        FakeCall hedge = clones.poll();
+        assertNotNull(hedge);
+        assertTrue(hedge.isCanceled());
+        assertFalse(hedge.enqueued);
+        assertNull(outcomes.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private Call<String> adaptive(FakeCall primary, boolean hedged) {
+        return factory.new AdaptiveCall<>(primary,
+                new AdaptiveCallAdapterFactory.Policy(ENDPOINT, 1_000, 5_000, hedged));
+    }
+
+    private void record(int count, long latencyMs) {
+        for (int i = 0; i < count; i++) {
+            tracker.record(ENDPOINT, latencyMs);
+        }
+    }
+
+    // Waits for hedge timers already due to have run
+    private void drainTimer() throws InterruptedException {
+        Thread.sleep(50);
+        timer.shutdown();
+        assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private final class Recorder implements Callback<String> {
+        @Override
+        public void onResponse(Call<String> call, Response<String> response) {
+            outcomes.add("response:" + response.body());
+        }
+
+        @Override
+        public void onFailure(Call<String> call, Throwable t) {
+            outcomes.add("failure:" + t.getMessage());
+        }
+    }
+
+    /** Network call that answers when told to, or fails as soon as it is cancelled. */
+    private final class FakeCall implements Call<String> {
+        private final Timeout timeout = new Timeout();
+        private volatile Callback<String> callback;
+        private volatile boolean enqueued;
+        private volatile boolean canceled;
+        private volatile boolean done;
+        private Runnable onClone;
+
+        @Override
+        public void enqueue(Callback<String> callback) {
+            this.callback = callback;
+            enqueued = true;
+            sent.add(this);
+            if (canceled) {
+                fail();
+            }
+        }
+
+        void respond(String body) {
+            if (!done) {
+                done = true;
+                callback.onResponse(this, Response.success(body));
+            }
+        }
+
+        private void fail() {
+            if (!done) {
+                done = true;
+                callback.onFailure(this, new IOException("Canceled"));
+            }
+        }
+
+        @Override
+        public Response<String> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return enqueued;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            if (enqueued) {
+                fail();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public FakeCall clone() {
+            FakeCall clone = new FakeCall();
+            clones.add(clone);
+            if (onClone != null) {
+                onClone.run();
+            }
+            return clone;
+        }
+
+        @Override
+        public Request request() {
+            return null;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return timeout;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.dev.inapppaysdk.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.dev.inapppaysdk.testing.FakeBackend;
+import com.dev.inapppaysdk.testing.MockBackend;
+import com.dev.inapppaysdk.utils.SdkLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+
+/**
+ * {@link ApiClient}'s OkHttp stack pointed at a {@link MockBackend} through
+ * {@link ApiConfig.Builder#baseUrl(String)}.
+ */
+public class ApiClientTest {
+    private static final String PROJECT = "demo";
+
+    @Before
+    public void setUp() {
+        // Logcat is not available on the JVM
+        SdkLog.removeSink(SdkLog.LOGCAT);
+    }
+
+    @After
+    public void tearDown() {
+        ApiClient.shutdown();
+        ApiClient.configure(null);
+        SdkLog.addSink(SdkLog.LOGCAT);
+    }
+
+    @Test
+    public void callsGoToTheConfiguredBaseUrl() throws Exception {
+        try (MockBackend backend = MockBackend.start(FakeBackend.withDefaultCatalog(PROJECT))) {
+            ApiClient.configure(config(backend));
+
+            Response<Map<String, Object>> response = ApiClient.getApiService().checkUserPurchased(query()).execute();
+
+            assertEquals(200, response.code());
+            assertEquals(Boolean.TRUE, response.body().get("success"));
+            RecordedRequest request = backend.server().takeRequest(5, TimeUnit.SECONDS);
+            assertNotNull(request);
+            assertEquals("/checkUserPurchased", request.getPath());
+            assertEquals(1, backend.server().getRequestCount());
+        }
+    }
+
+    @Test
+    public void seededBackendInjectsTheSameFaults() throws Exception {
+        List<Integer> first = statusCodes(42);
+
+        assertEquals(first, statusCodes(42));
+        assertNotEquals(first, statusCodes(7));
+    }
+
+    private List<Integer> statusCodes(long seed) throws Exception {
+        List<Integer> codes = new ArrayList<>();
+        try (MockBackend backend = MockBackend.start(FakeBackend.withDefaultCatalog(PROJECT), new Random(seed))) {
+            backend.dispatcher().failureRate(0.5);
+            ApiClient.configure(config(backend));
+            InAppApiService service = ApiClient.getApiService();
+            for (int i = 0; i < 32; i++) {
+                codes.add(service.checkUserPurchased(query()).execute().code());
+            }
+        } finally {
+            ApiClient.shutdown();
+        }
+        return codes;
+    }
+
+    private static ApiConfig config(MockBackend backend) {
+        return backend.apiConfig().httpLogLevel(HttpLoggingInterceptor.Level.NONE).build();
+    }
+
+    private static Map<String, Object> query() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("projectName", PROJECT);
+        body.put("userId", "user-1");
+        body.put("productId", "premium_01");
+        return body;
+    }
+}
@@ -0,0 +1,122 @@
+package com.dev.inapppaysdk.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.dev.inapppaysdk.api.models.CardPayload;
+import com.dev.inapppaysdk.api.models.CardToken;
+import com.dev.inapppaysdk.api.models.TokenizationKey;
+import com.dev.inapppaysdk.testing.FakeBackend;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link CardTokenizer} tokens opened by {@link FakeBackend#detokenize}, which
+ * mirrors the back-end's side of the format.
+ */
+public class CardTokenizerTest {
+    private FakeBackend backend;
+    private TokenizationKey key;
+
+    @Before
+    public void setUp() {
+        backend = FakeBackend.withDefaultCatalog("demo");
+        key = currentKey();
+    }
+
+    @Test
+    public void tokenOpensToTheCardFields() throws Exception {
+        CardToken token = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", "Jane Doe"), "VISA");
+
+        Map<?, ?> opened = backend.detokenize(token.getToken());
+
+        assertNotNull(opened);
+        assertEquals("4111111111111111", opened.get("cardNumber"));
+        assertEquals("12/30", opened.get("expiry"));
+        assertEquals("123", opened.get("cvv"));
+        assertEquals("Jane Doe", opened.get("name"));
+        long issuedAt = ((Number) opened.get("iat")).longValue();
+        assertTrue(Math.abs(System.currentTimeMillis() - issuedAt) < 60_000);
+    }
+
+    @Test
+    public void tokenCarriesRoutingFieldsInClear() throws Exception {
+        CardToken token = CardTokenizer.tokenize(key, card("5555555555554444", "01/29", "999", "A"), "MASTERCARD");
+
+        assertEquals(key.getKeyId(), token.getKeyId());
+        assertEquals("MASTERCARD", token.getCardType());
+        assertEquals("4444", token.getLast4());
+        assertTrue(token.getToken().startsWith(CardTokenizer.VERSION + "."));
+        assertFalse(token.getToken().contains("5555555555554444"));
+    }
+
+    @Test
+    public void namesNeedingEscapesRoundTrip() throws Exception {
+        String name = "Zoë \"Z\" O\\Brien é中 😀\n";
+        CardToken token = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", name), "VISA");
+
+        assertEquals(name, backend.detokenize(token.getToken()).get("name"));
+    }
+
+    @Test
+    public void tokensAreNotReused() throws Exception {
+        CardToken first = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", "A"), "VISA");
+        CardToken second = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", "A"), "VISA");
+
+        assertFalse(first.getToken().equals(second.getToken()));
+    }
+
+    @Test
+    public void payloadIsWipedAndSingleUse() throws Exception {
+        CardPayload payload = card("4111111111111111", "12/30", "123", "A");
+        CardTokenizer.tokenize(key, payload, "VISA");
+
+        assertTrue(payload.isWiped());
+        try {
+            CardTokenizer.tokenize(key, payload, "VISA");
+            fail("Wiped payload was tokenized");
+        } catch (GeneralSecurityException expected) {
+            // the payload is single-use
+        }
+    }
+
+    @Test
+    public void tokenSealedUnderAnOldKeyIdDoesNotOpen() throws Exception {
+        CardToken token = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", "A"), "VISA");
+
+        backend.rotateTokenizationKey();
+
+        assertNull(backend.detokenize(token.getToken()));
+    }
+
+    @Test
+    public void tamperedTokenDoesNotOpen() throws Exception {
+        String token = CardTokenizer.tokenize(key, card("4111111111111111", "12/30", "123", "A"), "VISA").getToken();
+        int i = token.lastIndexOf('.') + 2; // inside the ciphertext, where every bit counts
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+
+        assertNull(backend.detokenize(tampered));
+        assertNull(backend.detokenize("v0." + token.substring(3)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TokenizationKey currentKey() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("projectName", "demo");
+        Map<String, Object> response = backend.getTokenizationKey(body);
+        return TokenizationKey.fromMap((Map<String, Object>) response.get("data"), 60_000);
+    }
+
+    private static CardPayload card(String number, String expiry, String cvv, String name) {
+        return new CardPayload(number.toCharArray(), expiry.toCharArray(), cvv.toCharArray(), name.toCharArray());
+    }
+}
@@ -0,0 +1,124 @@
+package com.dev.inapppaysdk.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link JsonMapAdapter} must decode and encode exactly like a plain
+ * {@link Gson}, which the SDK used before it and whose casts callers rely on.
+ */
+public class JsonMapAdapterTest {
+    private static final String[] DOCUMENTS = {
+            "{}",
+            "{\"success\":true,\"message\":\"ok\"}",
+            "{\"data\":{\"purchased\":false,\"purchaseData\":null}}",
+            "{\"n\":1,\"big\":12345678901234,\"neg\":-0.5,\"exp\":1e3,\"frac\":0.1}",
+            "{\"list\":[1,\"two\",null,true,{\"k\":[]},[[]]]}",
+            "{\"s\":\"quote \\\" slash \\\\ tab \\t nl \\n \\u00e9 \\ud83d\\ude00\"}",
+            "{\"o\":{\"dup\":1,\"dup\":2}}",
+            "{\"order\":{\"z\":1,\"a\":2,\"m\":3}}",
+    };
+
+    private final Gson plain = new Gson();
+    private final Gson adapted = JsonMapAdapter.gson();
+
+    @Test
+    public void readsLikeGson() {
+        for (String json : DOCUMENTS) {
+            Map<String, Object> expected = plain.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            Map<String, Object> actual = adapted.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            assertEquals(json, expected, actual);
+            assertEquals(json, plain.toJson(expected), plain.toJson(actual));
+        }
+    }
+
+    @Test
+    public void decodesTheSameTypes() {
+        Map<String, Object> map = adapted.fromJson(
+                "{\"o\":{\"a\":1},\"l\":[2],\"n\":3,\"s\":\"x\",\"b\":false}", JsonMapAdapter.MAP_TYPE);
+
+        assertEquals(LinkedHashMap.class, map.getClass());
+        assertEquals(LinkedHashMap.class, map.get("o").getClass());
+        assertEquals(ArrayList.class, map.get("l").getClass());
+        assertEquals(Double.class, map.get("n").getClass());
+        assertEquals(Double.class, ((List<?>) map.get("l")).get(0).getClass());
+        assertEquals(String.class, map.get("s").getClass());
+        assertEquals(Boolean.class, map.get("b").getClass());
+    }
+
+    @Test
+    public void keepsKeyOrder() {
+        Map<String, Object> map = adapted.fromJson("{\"z\":1,\"a\":2,\"m\":3}", JsonMapAdapter.MAP_TYPE);
+
+        assertEquals(Arrays.asList("z", "a", "m"), new ArrayList<>(map.keySet()));
+    }
+
+    @Test
+    public void writesLikeGson() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("cardNumber", "4111 1111 1111 1111");
+        nested.put("missing", null);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("projectName", "demo");
+        body.put("int", 7);
+        body.put("long", 1700000000000L);
+        body.put("double", 2.5);
+        body.put("whole", 3.0);
+        body.put("flag", true);
+        body.put("none", null);
+        body.put("nested", nested);
+        body.put("list", Arrays.asList(1, "a", null, nested));
+        body.put("text", "é \" \\ \n <tag> = &");
+
+        assertEquals(plain.toJson(body, JsonMapAdapter.MAP_TYPE), adapted.toJson(body, JsonMapAdapter.MAP_TYPE));
+    }
+
+    @Test
+    public void roundTripsLikeGson() {
+        // Both drop null map values when writing, so compare against Gson's own round trip
+        for (String json : DOCUMENTS) {
+            Map<String, Object> plainOnce = plain.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            Map<String, Object> adaptedOnce = adapted.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            Map<String, Object> expected = plain.fromJson(
+                    plain.toJson(plainOnce, JsonMapAdapter.MAP_TYPE), JsonMapAdapter.MAP_TYPE);
+            Map<String, Object> actual = adapted.fromJson(
+                    adapted.toJson(adaptedOnce, JsonMapAdapter.MAP_TYPE), JsonMapAdapter.MAP_TYPE);
+            assertEquals(json, expected, actual);
+        }
+    }
+
+    @Test
+    public void nullDocumentIsNull() {
+        assertNull(adapted.fromJson("null", JsonMapAdapter.MAP_TYPE));
+        assertEquals(plain.toJson(null, JsonMapAdapter.MAP_TYPE), adapted.toJson(null, JsonMapAdapter.MAP_TYPE));
+    }
+
+    @Test
+    public void rejectsWhatGsonRejects() {
+        for (String json : new String[] {"[1,2]", "{\"a\":", "\"text\"", "{\"dup\":1,\"dup\":2}"}) {
+            assertRejected(plain, json);
+            assertRejected(adapted, json);
+        }
+    }
+
+    private static void assertRejected(Gson gson, String json) {
+        try {
+            gson.fromJson(json, JsonMapAdapter.MAP_TYPE);
+            fail("Accepted " + json);
+        } catch (JsonParseException expected) {
+            // malformed, not an object or a repeated key
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.dev.inapppaysdk.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Admission order, the reserved payment slot and shedding of
+ * {@link RequestScheduler}. Calls only log when they start or are shed.
+ */
+public class RequestSchedulerTest {
+    private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void waitingCallsStartInPriorityOrder() {
+        RequestScheduler scheduler = new RequestScheduler(2);
+        submit(scheduler, RequestPriority.BACKGROUND, "b1");
+        submit(scheduler, RequestPriority.BACKGROUND, "b2");
+        submit(scheduler, RequestPriority.INTERACTIVE, "i1");
+        submit(scheduler, RequestPriority.BACKGROUND, "b3");
+        assertEquals(Arrays.asList("start b1"), log);
+
+        scheduler.finished();
+        scheduler.finished();
+        scheduler.finished();
+
+        assertEquals(Arrays.asList("start b1", "start i1", "start b2", "start b3"), log);
+    }
+
+    @Test
+    public void lastSlotIsKeptForPayments() {
+        RequestScheduler scheduler = new RequestScheduler(3);
+        for (int i = 0; i < 5; i++) {
+            submit(scheduler, RequestPriority.BACKGROUND, "b" + i);
+        }
+        assertEquals(2, scheduler.getRunning());
+
+        submit(scheduler, RequestPriority.PAYMENT, "p");
+
+        assertEquals(Arrays.asList("start b0", "start b1", "start p"), log);
+        assertEquals(3, scheduler.getRunning());
+        assertEquals(3, scheduler.getQueued(RequestPriority.BACKGROUND));
+    }
+
+    @Test
+    public void fullQueueShedsTheNewCall() {
+        RequestScheduler scheduler = new RequestScheduler(2)
+                .setQueueLimit(RequestPriority.BACKGROUND, 2, 0);
+        for (int i = 0; i < 4; i++) {
+            submit(scheduler, RequestPriority.BACKGROUND, "b" + i);
+        }
+
+        assertEquals(Arrays.asList("start b0", "shed b3"), log);
+        assertEquals(2, scheduler.getQueued(RequestPriority.BACKGROUND));
+    }
+
+    @Test
+    public void callsWaitingTooLongAreShed() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(2)
+                .setQueueLimit(RequestPriority.BACKGROUND, 64, 1);
+        submit(scheduler, RequestPriority.BACKGROUND, "b0");
+        submit(scheduler, RequestPriority.BACKGROUND, "b1");
+        submit(scheduler, RequestPriority.BACKGROUND, "b2");
+        Thread.sleep(20);
+        submit(scheduler, RequestPriority.BACKGROUND, "b3");
+
+        scheduler.finished();
+
+        assertEquals(Arrays.asList("start b0", "shed b1", "shed b2", "start b3"), log);
+    }
+
+    @Test
+    public void paymentsAreNeverShed() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(2);
+        for (int i = 0; i < 100; i++) {
+            submit(scheduler, RequestPriority.PAYMENT, "p" + i);
+        }
+        Thread.sleep(20);
+        for (int i = 0; i < 100; i++) {
+            scheduler.finished();
+        }
+
+        assertEquals(100, log.size());
+        for (String entry : log) {
+            assertTrue(entry, entry.startsWith("start "));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void paymentQueueCannotBeLimited() {
+        new RequestScheduler().setQueueLimit(RequestPriority.PAYMENT, 16, 0);
+    }
+
+    @Test
+    public void cancelledCallNeverStarts() {
+        RequestScheduler scheduler = new RequestScheduler(2);
+        submit(scheduler, RequestPriority.BACKGROUND, "b0");
+        RequestScheduler.Ticket waiting = submit(scheduler, RequestPriority.BACKGROUND, "b1");
+
+        assertTrue(waiting.cancel());
+        scheduler.finished();
+
+        assertEquals(Arrays.asList("start b0"), log);
+        assertFalse(waiting.cancel());
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    private RequestScheduler.Ticket submit(RequestScheduler scheduler, RequestPriority priority, String name) {
+        return scheduler.submit(priority, () -> log.add("start " + name), () -> log.add("shed " + name));
+    }
+}
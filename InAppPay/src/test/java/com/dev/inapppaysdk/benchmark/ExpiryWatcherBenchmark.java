@@ -0,0 +1,73 @@
+package com.dev.inapppaysdk.benchmark;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.dev.inapppaysdk.logic.Watcher;
+
+import org.junit.Test;
+
+import java.time.Clock;
+
+/**
+ * Compares {@link Watcher.ExpiryWatcher} with the deprecated
+ * {@link Watcher.DateFormatWatcher} on what the expiry field sees while the
+ * user types: mostly incomplete, i.e. invalid, input.
+ *
+ * <p>Skipped unless explicitly enabled:</p>
+ * <pre>
+ * ./gradlew :InAppPay:testDebugUnitTest --tests '*ExpiryWatcherBenchmark' -Pinapppay.benchmark=true
+ * </pre>
+ * Results are printed to the test's standard output.
+ */
+public class ExpiryWatcherBenchmark {
+    private static final int WARM_UP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    // Typing "07/29" keystroke by keystroke, plus a typo and a bad month
+    private static final String[] KEYSTROKES = {"0", "07", "07/", "07/2", "07/29", "07/2x", "13/29"};
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void formatCheckPerKeystroke() {
+        assumeTrue("Enable with -Pinapppay.benchmark=true", Boolean.getBoolean("inapppay.benchmark"));
+        Watcher legacy = new Watcher.DateFormatWatcher("Use MM/yy format", "MM/yy");
+        Watcher expiry = new Watcher.ExpiryWatcher("Use MM/yy format", Watcher.ExpiryWatcher.MM_YY);
+
+        double legacyNs = measure(legacy);
+        double expiryNs = measure(expiry);
+
+        System.out.printf("DateFormatWatcher: %.1f ns/check%n", legacyNs);
+        System.out.printf("ExpiryWatcher:     %.1f ns/check (%.0fx)%n", expiryNs, legacyNs / expiryNs);
+        assertTrue("ExpiryWatcher not faster: " + expiryNs + " vs " + legacyNs + " ns", expiryNs < legacyNs);
+    }
+
+    @Test
+    public void rangeCheckPerKeystroke() {
+        assumeTrue("Enable with -Pinapppay.benchmark=true", Boolean.getBoolean("inapppay.benchmark"));
+        Watcher expiry = new Watcher.ExpiryWatcher("Card has expired", Watcher.ExpiryWatcher.MM_YY,
+                Clock.systemDefaultZone(), Watcher.ExpiryWatcher.DEFAULT_MAX_YEARS_AHEAD);
+
+        double expiryNs = measure(expiry);
+
+        System.out.printf("ExpiryWatcher with range: %.1f ns/check%n", expiryNs);
+    }
+
+    private static double measure(Watcher watcher) {
+        run(watcher, WARM_UP);
+        long start = System.nanoTime();
+        int passed = run(watcher, ITERATIONS);
+        double ns = (System.nanoTime() - start) / (double) ITERATIONS;
+        assertTrue(passed > 0); // keeps the loop from being optimised away
+        return ns;
+    }
+
+    private static int run(Watcher watcher, int iterations) {
+        int passed = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (watcher.validate(KEYSTROKES[i % KEYSTROKES.length])) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dev.inapppaysdk.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.dev.inapppaysdk.utils.FlightRecorder;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link FlightRecorder#record} on the calling thread,
+ * alone and with several threads recording at once.
+ *
+ * <p>Skipped unless explicitly enabled:</p>
+ * <pre>
+ * ./gradlew :InAppPay:testDebugUnitTest --tests '*FlightRecorderBenchmark' -Pinapppay.benchmark=true
+ * </pre>
+ * Results are printed to the test's standard output. The bound asserted is
+ * deliberately loose; a purchase flow records about ten events against
+ * hundreds of milliseconds of network time.
+ */
+public class FlightRecorderBenchmark {
+    private static final int WARM_UP = 2_000_000;
+    private static final int ITERATIONS = 5_000_000;
+    private static final int THREADS = 4;
+    private static final double MAX_NS_PER_EVENT = 1_000;
+
+    @Test
+    public void recordSingleThread() {
+        assumeTrue("Enable with -Pinapppay.benchmark=true", Boolean.getBoolean("inapppay.benchmark"));
+        FlightRecorder recorder = new FlightRecorder(FlightRecorder.DEFAULT_CAPACITY);
+
+        recordLoop(recorder, WARM_UP);
+        long start = System.nanoTime();
+        recordLoop(recorder, ITERATIONS);
+        double nsPerEvent = (System.nanoTime() - start) / (double) ITERATIONS;
+
+        System.out.printf("FlightRecorder.record, 1 thread: %.1f ns/event%n", nsPerEvent);
+        assertTrue("record() too slow: " + nsPerEvent + " ns", nsPerEvent < MAX_NS_PER_EVENT);
+    }
+
+    @Test
+    public void recordContended() throws Exception {
+        assumeTrue("Enable with -Pinapppay.benchmark=true", Boolean.getBoolean("inapppay.benchmark"));
+        FlightRecorder recorder = new FlightRecorder(FlightRecorder.DEFAULT_CAPACITY);
+        recordLoop(recorder, WARM_UP);
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                threads.execute(() -> {
+                    try {
+                        go.await();
+                        recordLoop(recorder, ITERATIONS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long start = System.nanoTime();
+            go.countDown();
+            assertTrue("benchmark timed out", done.await(2, TimeUnit.MINUTES));
+            // Wall time per event on each thread, i.e. what a caller observes
+            double nsPerEvent = (System.nanoTime() - start) / (double) ITERATIONS;
+
+            System.out.printf("FlightRecorder.record, %d threads: %.1f ns/event%n", THREADS, nsPerEvent);
+            assertTrue("record() too slow under contention: " + nsPerEvent + " ns",
+                    nsPerEvent < MAX_NS_PER_EVENT);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void exportFullRing() throws Exception {
+        assumeTrue("Enable with -Pinapppay.benchmark=true", Boolean.getBoolean("inapppay.benchmark"));
+        FlightRecorder recorder = new FlightRecorder(FlightRecorder.DEFAULT_CAPACITY);
+        recordLoop(recorder, FlightRecorder.DEFAULT_CAPACITY * 4);
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        recorder.writeBinary(dump);
+        long elapsedUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        List<FlightRecorder.Event> events = FlightRecorder.readBinary(new ByteArrayInputStream(dump.toByteArray()));
+
+        System.out.printf("FlightRecorder.writeBinary: %d events, %d bytes in %d µs%n",
+                events.size(), dump.size(), elapsedUs);
+        assertEquals(recorder.getCapacity(), events.size());
+    }
+
+    // The mix of a purchase flow: a few interned strings, durations as values
+    private static void recordLoop(FlightRecorder recorder, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            switch (i & 3) {
+                case 0:
+                    recorder.record(FlightRecorder.VALIDATE_START, "premium_upgrade");
+                    break;
+                case 1:
+                    recorder.record(FlightRecorder.VALIDATE_OK, "premium_upgrade", null, i);
+                    break;
+                case 2:
+                    recorder.record(FlightRecorder.PURCHASE_START, "premium_upgrade", "card");
+                    break;
+                default:
+                    recorder.record(FlightRecorder.PURCHASE_ERROR, "premium_upgrade", "CARD_DECLINED", i);
+                    break;
+            }
+        }
+    }
+}
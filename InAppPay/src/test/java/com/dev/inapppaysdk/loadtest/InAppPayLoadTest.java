@@ -0,0 +1,85 @@
+package com.dev.inapppaysdk.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.testing.FakeBackend;
+import com.dev.inapppaysdk.testing.MockBackend;
+import com.dev.inapppaysdk.testing.MockInAppApiService;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.mock.NetworkBehavior;
+
+/**
+ * Campaign-burst load test for the headless purchase pipeline.
+ *
+ * <p>{@link #concurrentClientsAgainstMockBackend()} measures the SDK's own
+ * logic in-process; {@link #concurrentClientsOverHttp()} additionally goes
+ * through {@link ApiClient}'s shared OkHttp client against a local
+ * {@link MockBackend}, exposing dispatcher and connection-pool limits.</p>
+ *
+ * <p>Skipped unless explicitly enabled, since it runs for a while:</p>
+ * <pre>
+ * ./gradlew :InAppPay:testDebugUnitTest --tests '*InAppPayLoadTest' \
+ *     -Pinapppay.loadtest=true -Pinapppay.loadtest.clients=5000
+ * </pre>
+ * The report is printed to the test's standard output.
+ */
+public class InAppPayLoadTest {
+    private static final String PROJECT = "load-test";
+
+    @Test
+    public void concurrentClientsAgainstMockBackend() throws Exception {
+        assumeTrue("Enable with -Pinapppay.loadtest=true", Boolean.getBoolean("inapppay.loadtest"));
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        NetworkBehavior behavior = NetworkBehavior.create();
+        behavior.setDelay(config.latencyMs, TimeUnit.MILLISECONDS);
+        behavior.setVariancePercent(config.variancePercent);
+        behavior.setFailurePercent(config.failurePercent);
+        behavior.setErrorPercent(config.errorPercent);
+
+        ExecutorService backendThreads = Executors.newFixedThreadPool(config.backendThreads);
+        try {
+            MockInAppApiService service = MockInAppApiService.create(
+                    FakeBackend.withDefaultCatalog(PROJECT), behavior, backendThreads);
+            LoadTestReport report = new LoadTestHarness(PROJECT, service).run(config);
+            System.out.println(report);
+
+            assertEquals("flows still outstanding after timeout", 0, report.flowsTimedOut);
+        } finally {
+            backendThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentClientsOverHttp() throws Exception {
+        assumeTrue("Enable with -Pinapppay.loadtest=true", Boolean.getBoolean("inapppay.loadtest"));
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        try (MockBackend backend = MockBackend.start(FakeBackend.withDefaultCatalog(PROJECT))) {
+            backend.dispatcher()
+                    .latency(config.latencyMs, config.latencyMs * config.variancePercent / 100)
+                    .disconnectRate(config.failurePercent / 100.0)
+                    .failureRate(config.errorPercent / 100.0);
+            ApiClient.configure(backend.apiConfig()
+                    .httpLogLevel(HttpLoggingInterceptor.Level.NONE)
+                    .build());
+
+            LoadTestReport report = new LoadTestHarness(PROJECT, ApiClient.getApiService()).run(config);
+            System.out.println(report);
+
+            assertEquals("flows still outstanding after timeout", 0, report.flowsTimedOut);
+        } finally {
+            ApiClient.shutdown();
+            ApiClient.configure(null);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.dev.inapppaysdk.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free, fixed-capacity latency sample store. Samples beyond the capacity
+ * are dropped.
+ */
+class LatencyRecorder {
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    /** @return sorted copy of the recorded samples */
+    long[] snapshot() {
+        long[] copy = Arrays.copyOf(samples, Math.min(count.get(), samples.length));
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /** @param sorted output of {@link #snapshot()} */
+    static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
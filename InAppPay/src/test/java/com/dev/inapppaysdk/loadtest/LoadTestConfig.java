@@ -0,0 +1,56 @@
+package com.dev.inapppaysdk.loadtest;
+
+/**
+ * Parameters of one load-test run. Every field can be overridden with a
+ * {@code -Pinapppay.loadtest.<name>=<value>} Gradle property.
+ */
+public class LoadTestConfig {
+    /** Number of simulated SDK clients (distinct users). */
+    public final int clients;
+    /** Purchase flows (validate + processPurchase) run by each client. */
+    public final int flowsPerClient;
+    /** Mean injected back-end latency per call, in ms. */
+    public final long latencyMs;
+    /** Latency variance, in percent of {@link #latencyMs}. */
+    public final int variancePercent;
+    /** Share of calls failing with an IOException. */
+    public final int failurePercent;
+    /** Share of calls answered with HTTP 500. */
+    public final int errorPercent;
+    /** Threads serving the mock back-end (its concurrency limit). */
+    public final int backendThreads;
+    /** Give up on outstanding flows after this many seconds. */
+    public final long timeoutSeconds;
+
+    public LoadTestConfig(int clients, int flowsPerClient, long latencyMs, int variancePercent,
+                          int failurePercent, int errorPercent, int backendThreads, long timeoutSeconds) {
+        this.clients = clients;
+        this.flowsPerClient = flowsPerClient;
+        this.latencyMs = latencyMs;
+        this.variancePercent = variancePercent;
+        this.failurePercent = failurePercent;
+        this.errorPercent = errorPercent;
+        this.backendThreads = backendThreads;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /** Reads the configuration from {@code inapppay.loadtest.*} system properties. */
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("inapppay.loadtest.clients", 2000),
+                Integer.getInteger("inapppay.loadtest.flowsPerClient", 1),
+                Long.getLong("inapppay.loadtest.latencyMs", 150),
+                Integer.getInteger("inapppay.loadtest.variancePercent", 40),
+                Integer.getInteger("inapppay.loadtest.failurePercent", 1),
+                Integer.getInteger("inapppay.loadtest.errorPercent", 1),
+                Integer.getInteger("inapppay.loadtest.backendThreads", 256),
+                Long.getLong("inapppay.loadtest.timeoutSeconds", 120));
+    }
+
+    @Override
+    public String toString() {
+        return clients + " clients x " + flowsPerClient + " flows, latency " + latencyMs + "ms ±"
+                + variancePercent + "%, " + failurePercent + "% failures, " + errorPercent
+                + "% HTTP 500, " + backendThreads + " back-end threads";
+    }
+}
@@ -0,0 +1,144 @@
+package com.dev.inapppaysdk.loadtest;
+
+import com.dev.inapppaysdk.InAppPayClient;
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.models.PaymentDetails;
+import com.dev.inapppaysdk.api.models.PurchaseSession;
+import com.dev.inapppaysdk.callbacks.PurchaseCallback;
+import com.dev.inapppaysdk.callbacks.ValidationCallback;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives many headless {@link InAppPayClient}s concurrently against one
+ * {@link InAppApiService} and collects a {@link LoadTestReport}.
+ *
+ * <p>All clients start at the same instant (a campaign burst). Each client
+ * runs its flows back to back; a flow is {@code validate} followed by
+ * {@code purchase} with a test card, cycling through {@link #PRODUCTS}.</p>
+ */
+public class LoadTestHarness {
+    /** Products bought by the simulated users, one of each item type. */
+    public static final String[] PRODUCTS = {"coins_100", "premium_01", "pro_monthly"};
+
+    private final String projectName;
+    private final InAppApiService service;
+
+    public LoadTestHarness(String projectName, InAppApiService service) {
+        this.projectName = projectName;
+        this.service = service;
+    }
+
+    public LoadTestReport run(LoadTestConfig config) throws InterruptedException {
+        int totalFlows = config.clients * config.flowsPerClient;
+        LatencyRecorder validate = new LatencyRecorder(totalFlows);
+        LatencyRecorder purchase = new LatencyRecorder(totalFlows);
+        LatencyRecorder flow = new LatencyRecorder(totalFlows);
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(totalFlows);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < config.clients; i++) {
+            InAppPayClient client = new InAppPayClient(projectName, "load-user-" + i, service);
+            new SimulatedUser(client, i, config.flowsPerClient, validate, purchase, flow,
+                    failures, succeeded, done).next();
+        }
+
+        boolean finished = done.await(config.timeoutSeconds, TimeUnit.SECONDS);
+        long wall = System.nanoTime() - start;
+
+        Map<String, Integer> failureCounts = new ConcurrentHashMap<>();
+        for (Map.Entry<String, AtomicInteger> entry : failures.entrySet()) {
+            failureCounts.put(entry.getKey(), entry.getValue().get());
+        }
+        return new LoadTestReport(config, wall, totalFlows, succeeded.get(),
+                finished ? 0 : (int) done.getCount(),
+                validate.snapshot(), purchase.snapshot(), flow.snapshot(), failureCounts);
+    }
+
+    // Card payloads are wiped after one request, so every flow needs its own
+    private static PaymentDetails testCard() {
+        return PaymentDetails.card("4242424242424242", "12/30", "123", "Load Test");
+    }
+
+    /** One user running its flows sequentially through callbacks. */
+    private static final class SimulatedUser {
+        private final InAppPayClient client;
+        private final int index;
+        private final int flows;
+        private final LatencyRecorder validate;
+        private final LatencyRecorder purchase;
+        private final LatencyRecorder flow;
+        private final Map<String, AtomicInteger> failures;
+        private final AtomicInteger succeeded;
+        private final CountDownLatch done;
+        private int flowsRun;
+
+        SimulatedUser(InAppPayClient client, int index, int flows, LatencyRecorder validate,
+                      LatencyRecorder purchase, LatencyRecorder flow, Map<String, AtomicInteger> failures,
+                      AtomicInteger succeeded, CountDownLatch done) {
+            this.client = client;
+            this.index = index;
+            this.flows = flows;
+            this.validate = validate;
+            this.purchase = purchase;
+            this.flow = flow;
+            this.failures = failures;
+            this.succeeded = succeeded;
+            this.done = done;
+        }
+
+        void next() {
+            if (flowsRun == flows) {
+                return;
+            }
+            String productId = PRODUCTS[(index + flowsRun) % PRODUCTS.length];
+            flowsRun++;
+            long flowStart = System.nanoTime();
+
+            client.validate(productId, new ValidationCallback() {
+                @Override
+                public void onValidated(PurchaseSession session) {
+                    long purchaseStart = System.nanoTime();
+                    validate.record(purchaseStart - flowStart);
+
+                    client.purchase(session, testCard(), new PurchaseCallback() {
+                        @Override
+                        public void onSuccess(String message, Map<String, Object> data) {
+                            long end = System.nanoTime();
+                            purchase.record(end - purchaseStart);
+                            flow.record(end - flowStart);
+                            succeeded.incrementAndGet();
+                            finish();
+                        }
+
+                        @Override
+                        public void onError(String error, String errorCode) {
+                            fail("purchase/" + errorCode);
+                        }
+                    });
+                }
+
+                @Override
+                public void onError(String error, String errorCode) {
+                    fail("validate/" + errorCode);
+                }
+            });
+        }
+
+        private void fail(String mode) {
+            failures.computeIfAbsent(mode, k -> new AtomicInteger()).incrementAndGet();
+            finish();
+        }
+
+        private void finish() {
+            done.countDown();
+            next();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.dev.inapppaysdk.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of a load-test run: throughput, latency percentiles per phase and
+ * failure counts per error code.
+ */
+public class LoadTestReport {
+    public final LoadTestConfig config;
+    public final long wallTimeNanos;
+    public final int flowsStarted;
+    public final int flowsSucceeded;
+    public final int flowsTimedOut;
+    public final long[] validateLatencies;
+    public final long[] purchaseLatencies;
+    public final long[] flowLatencies;
+    public final Map<String, Integer> failuresByCode;
+
+    LoadTestReport(LoadTestConfig config, long wallTimeNanos, int flowsStarted, int flowsSucceeded,
+                   int flowsTimedOut, long[] validateLatencies, long[] purchaseLatencies,
+                   long[] flowLatencies, Map<String, Integer> failuresByCode) {
+        this.config = config;
+        this.wallTimeNanos = wallTimeNanos;
+        this.flowsStarted = flowsStarted;
+        this.flowsSucceeded = flowsSucceeded;
+        this.flowsTimedOut = flowsTimedOut;
+        this.validateLatencies = validateLatencies;
+        this.purchaseLatencies = purchaseLatencies;
+        this.flowLatencies = flowLatencies;
+        this.failuresByCode = new TreeMap<>(failuresByCode);
+    }
+
+    /** @return completed flows (successful or not) per second of wall time */
+    public double throughputPerSecond() {
+        int completed = flowsStarted - flowsTimedOut;
+        return wallTimeNanos == 0 ? 0 : completed / (wallTimeNanos / 1_000_000_000.0);
+    }
+
+    public int failures() {
+        int total = 0;
+        for (int count : failuresByCode.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append("=== InAppPay load test ===\n")
+                .append(config).append('\n')
+                .append(String.format("wall time     %.1f s%n", wallTimeNanos / 1_000_000_000.0))
+                .append(String.format("throughput    %.1f flows/s%n", throughputPerSecond()))
+                .append(String.format("flows         %d started, %d succeeded, %d failed, %d timed out%n",
+                        flowsStarted, flowsSucceeded, failures(), flowsTimedOut))
+                .append(String.format("%-10s %9s %9s %9s %9s %9s%n", "latency ms", "p50", "p90", "p99", "p99.9", "max"));
+        appendRow(out, "validate", validateLatencies);
+        appendRow(out, "purchase", purchaseLatencies);
+        appendRow(out, "flow", flowLatencies);
+        if (!failuresByCode.isEmpty()) {
+            out.append("failure modes\n");
+            for (Map.Entry<String, Integer> entry : failuresByCode.entrySet()) {
+                out.append(String.format("  %-24s %d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, String label, long[] sorted) {
+        out.append(String.format("%-10s %9.1f %9.1f %9.1f %9.1f %9.1f%n", label,
+                LatencyRecorder.percentileMs(sorted, 50),
+                LatencyRecorder.percentileMs(sorted, 90),
+                LatencyRecorder.percentileMs(sorted, 99),
+                LatencyRecorder.percentileMs(sorted, 99.9),
+                LatencyRecorder.percentileMs(sorted, 100)));
+    }
+}
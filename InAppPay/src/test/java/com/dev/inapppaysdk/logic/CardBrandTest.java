@@ -0,0 +1,127 @@
+package com.dev.inapppaysdk.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CardBrandTest {
+
+    @Test
+    public void detectsTestNumbers() {
+        assertEquals(CardBrand.VISA, CardBrand.detect("4242424242424242"));
+        assertEquals(CardBrand.VISA, CardBrand.detect("4222222222222"));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.detect("5555555555554444"));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.detect("2223003122003222"));
+        assertEquals(CardBrand.AMEX, CardBrand.detect("378282246310005"));
+        assertEquals(CardBrand.AMEX, CardBrand.detect("371449635398431"));
+        assertEquals(CardBrand.DINERS, CardBrand.detect("30569309025904"));
+        assertEquals(CardBrand.DISCOVER, CardBrand.detect("6011111111111117"));
+        assertEquals(CardBrand.JCB, CardBrand.detect("3530111333300000"));
+        assertEquals(CardBrand.UNIONPAY, CardBrand.detect("6200000000000005"));
+        assertEquals(CardBrand.MIR, CardBrand.detect("2200000000000004"));
+    }
+
+    @Test
+    public void skipsSeparators() {
+        assertEquals(CardBrand.AMEX, CardBrand.detect("3782 822463 10005"));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.detect("5555-5555-5555-4444"));
+        assertEquals(CardBrand.VISA, CardBrand.detect(" 4"));
+    }
+
+    @Test
+    public void partialPrefixResolvesOnceUnambiguous() {
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect(""));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("3"));   // Amex, Diners or JCB
+        assertEquals(CardBrand.AMEX, CardBrand.detect("34"));
+        assertEquals(CardBrand.AMEX, CardBrand.detect("37"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("35")); // 3528-3589 is JCB, 3500-3527 is not
+        assertEquals(CardBrand.JCB, CardBrand.detect("353"));
+        assertEquals(CardBrand.VISA, CardBrand.detect("4"));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.detect("51"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("2"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("22"));  // 2200-2204 Mir, 2221+ Mastercard
+        assertEquals(CardBrand.MASTERCARD, CardBrand.detect("23"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("6"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("601"));
+        assertEquals(CardBrand.DISCOVER, CardBrand.detect("6011"));
+    }
+
+    @Test
+    public void rangeEdges() {
+        assertEquals(CardBrand.MASTERCARD, CardBrand.lookup(222100, 6));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(222099, 6));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.lookup(272099, 6));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(272100, 6));
+        assertEquals(CardBrand.MIR, CardBrand.lookup(220499, 6));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(220500, 6));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(100000, 6)); // below the first range
+        assertEquals(CardBrand.UNIONPAY, CardBrand.lookup(817199, 6));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(817200, 6)); // above the last range
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(999999, 6));
+        // A block straddling a range edge stays unknown
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(222, 3));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.lookup(2221, 4));
+        assertEquals(CardBrand.MASTERCARD, CardBrand.lookup(2720, 4));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.lookup(2721, 4));
+    }
+
+    @Test
+    public void rejectsOtherCharacters() {
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("4x42"));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect((CharSequence) null));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect((char[]) null));
+    }
+
+    @Test
+    public void detectsCharBuffer() {
+        assertEquals(CardBrand.AMEX, CardBrand.detect("378282246310005".toCharArray()));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("3".toCharArray()));
+        assertEquals(CardBrand.UNKNOWN, CardBrand.detect("4 42".toCharArray()));
+    }
+
+    @Test
+    public void lengthsAndCvv() {
+        assertTrue(CardBrand.AMEX.isValidLength(15));
+        assertFalse(CardBrand.AMEX.isValidLength(16));
+        assertEquals(19, CardBrand.VISA.getMaxLength());
+        assertEquals(16, CardBrand.MASTERCARD.getMaxLength());
+        assertFalse(CardBrand.VISA.isValidLength(0));
+        assertFalse(CardBrand.VISA.isValidLength(40));
+
+        assertTrue(CardBrand.AMEX.isValidCvvLength(4));
+        assertFalse(CardBrand.AMEX.isValidCvvLength(3));
+        assertTrue(CardBrand.VISA.isValidCvvLength(3));
+        assertTrue(CardBrand.UNKNOWN.isValidCvvLength(3));
+        assertTrue(CardBrand.UNKNOWN.isValidCvvLength(4));
+        assertFalse(CardBrand.UNKNOWN.isValidCvvLength(5));
+    }
+
+    @Test
+    public void groupBoundaries() {
+        assertTrue(CardBrand.AMEX.isGroupBoundary(4));
+        assertTrue(CardBrand.AMEX.isGroupBoundary(10));
+        assertFalse(CardBrand.AMEX.isGroupBoundary(8));
+        assertTrue(CardBrand.VISA.isGroupBoundary(12));
+        assertFalse(CardBrand.VISA.isGroupBoundary(0));
+    }
+
+    @Test
+    public void cardWatchersFollowTheBrand() {
+        StringBuilder card = new StringBuilder("378282246310005");
+        Watcher cvv = new Watcher.CvvWatcher("Invalid CVV", () -> card);
+        Watcher number = new Watcher.CardNumberWatcher("Invalid card number");
+
+        assertTrue(number.validate("3782 822463 10005"));
+        assertFalse(number.validate("3782 822463 1000"));
+        assertFalse(number.validate("4242 4242 4242 424x"));
+        assertTrue(cvv.validate("1234"));
+        assertFalse(cvv.validate("123"));
+        assertFalse(cvv.isMemoizable());
+
+        card.replace(0, card.length(), "4242424242424242");
+        assertTrue(cvv.validate("123"));
+        assertFalse(cvv.validate("1234"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.dev.inapppaysdk.logic;
+
+import static com.dev.inapppaysdk.logic.Watcher.ExpiryWatcher.MM_YY;
+import static com.dev.inapppaysdk.logic.Watcher.ExpiryWatcher.MM_YYYY;
+import static com.dev.inapppaysdk.logic.Watcher.ExpiryWatcher.parseMonths;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+public class ExpiryWatcherTest {
+    // 15 March 2026, i.e. month 2026 * 12 + 2
+    private static final Clock MARCH_2026 = Clock.fixed(Instant.parse("2026-03-15T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void parsesBothFormats() {
+        assertEquals(2029 * 12 + 6, parseMonths("07/29", MM_YY));
+        assertEquals(2029 * 12 + 6, parseMonths("07/2029", MM_YYYY));
+        assertEquals(2000 * 12, parseMonths("01/00", MM_YY));
+        assertEquals(2099 * 12 + 11, parseMonths("12/99", MM_YY | MM_YYYY));
+        assertEquals(2031 * 12 + 11, parseMonths("12/2031", MM_YY | MM_YYYY));
+    }
+
+    @Test
+    public void rejectsFormatsNotSelected() {
+        assertEquals(-1, parseMonths("07/2029", MM_YY));
+        assertEquals(-1, parseMonths("07/29", MM_YYYY));
+    }
+
+    @Test
+    public void rejectsBadMonths() {
+        assertEquals(-1, parseMonths("00/29", MM_YY));
+        assertEquals(-1, parseMonths("13/29", MM_YY));
+        assertEquals(-1, parseMonths("99/2029", MM_YYYY));
+    }
+
+    @Test
+    public void rejectsBadShapes() {
+        for (String input : new String[] {"", "0", "07", "07/", "07/2", "7/29", "07/290", "07/20299", "07-29", "0729"}) {
+            assertEquals(input, -1, parseMonths(input, MM_YY | MM_YYYY));
+        }
+    }
+
+    @Test
+    public void rejectsNonDigits() {
+        for (String input : new String[] {"0a/29", "07/2x", "07/ 9", "+1/29", "07/-029", "٠٧/29"}) {
+            assertEquals(input, -1, parseMonths(input, MM_YY | MM_YYYY));
+        }
+    }
+
+    @Test
+    public void formatOnlyWatcherIgnoresTheDate() {
+        Watcher watcher = new Watcher.ExpiryWatcher("Use MM/yy", MM_YY);
+
+        assertTrue(watcher.validate("01/00"));
+        assertTrue(watcher.validate(" 07/29 "));
+        assertFalse(watcher.validate("07/2029"));
+        assertFalse(watcher.validate(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresAFormat() {
+        new Watcher.ExpiryWatcher("Use MM/yy", 0);
+    }
+
+    @Test
+    public void rangeIsFromThisMonthToMaxYearsAhead() {
+        Watcher watcher = new Watcher.ExpiryWatcher("Invalid expiry", MM_YY, MARCH_2026, 20);
+
+        assertFalse(watcher.validate("02/26"));
+        assertTrue(watcher.validate("03/26")); // valid through the end of the month
+        assertTrue(watcher.validate("03/46"));
+        assertFalse(watcher.validate("04/46"));
+        assertFalse(watcher.validate("12/25"));
+    }
+
+    @Test
+    public void notExpiredHasNoUpperBound() {
+        Watcher watcher = Watcher.ExpiryWatcher.notExpired("Card has expired", MM_YY | MM_YYYY, MARCH_2026);
+
+        assertFalse(watcher.validate("02/26"));
+        assertTrue(watcher.validate("03/26"));
+        assertTrue(watcher.validate("12/99"));
+        assertTrue(watcher.validate("12/9999"));
+        assertFalse(watcher.validate("13/26"));
+    }
+
+    @Test
+    public void notTooFarHasNoLowerBound() {
+        Watcher watcher = Watcher.ExpiryWatcher.notTooFar("Too far ahead", MM_YY | MM_YYYY, MARCH_2026, 20);
+
+        assertTrue(watcher.validate("01/00"));
+        assertTrue(watcher.validate("02/26"));
+        assertTrue(watcher.validate("03/2046"));
+        assertFalse(watcher.validate("04/2046"));
+        assertFalse(watcher.validate("12/9999"));
+        assertFalse(watcher.validate("13/26"));
+    }
+
+    @Test
+    public void bothChecksTogetherMatchTheRange() {
+        Watcher expired = Watcher.ExpiryWatcher.notExpired("Card has expired", MM_YY, MARCH_2026);
+        Watcher tooFar = Watcher.ExpiryWatcher.notTooFar("Too far ahead", MM_YY, MARCH_2026, 20);
+        Watcher range = new Watcher.ExpiryWatcher("Invalid expiry", MM_YY, MARCH_2026, 20);
+
+        for (int year = 20; year <= 50; year++) {
+            for (int month = 1; month <= 12; month++) {
+                String input = String.format("%02d/%02d", month, year);
+                assertEquals(input, range.validate(input), expired.validate(input) && tooFar.validate(input));
+            }
+        }
+    }
+
+    @Test
+    public void monthClockRollsOverAtMidnightInItsZone() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        MutableClock clock = new MutableClock(ZonedDateTime.of(2026, 3, 31, 23, 59, 59, 0, zone));
+        Watcher.MonthClock months = Watcher.MonthClock.of(clock);
+
+        assertEquals(2026 * 12 + 2, months.currentMonths());
+        clock.now = ZonedDateTime.of(2026, 4, 1, 0, 0, 0, 0, zone).toInstant();
+        assertEquals(2026 * 12 + 3, months.currentMonths());
+    }
+
+    @Test
+    public void watcherFollowsTheClockIntoTheNextMonth() {
+        MutableClock clock = new MutableClock(ZonedDateTime.of(2026, 3, 31, 12, 0, 0, 0, ZoneOffset.UTC));
+        Watcher watcher = Watcher.ExpiryWatcher.notExpired("Card has expired", MM_YY, clock);
+
+        assertTrue(watcher.validate("03/26"));
+        clock.now = Instant.parse("2026-04-01T00:00:00Z");
+        assertFalse(watcher.validate("03/26"));
+        assertTrue(watcher.validate("04/26"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        Instant now;
+
+        MutableClock(ZonedDateTime start) {
+            this.zone = start.getZone();
+            this.now = start.toInstant();
+        }
+
+        @Override public ZoneId getZone() { return zone; }
+        @Override public Clock withZone(ZoneId zone) { throw new UnsupportedOperationException(); }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,260 @@
+package com.dev.inapppaysdk.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Error display, debouncing and async checks of {@link Validator} on a field
+ * whose main-thread queue the test drains by hand.
+ */
+public class ValidatorTest {
+    private final FakeField field = new FakeField();
+
+    @Test
+    public void firstFailingWatcherSetsTheError() {
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Watcher.NotBlank("Required"))
+                .addWatcher(new Watcher.PatternWatcher("Digits only", "\\d+"))
+                .build();
+
+        field.type("");
+        assertFalse(validator.isValid());
+        assertEquals("Required", field.error);
+
+        field.type("12a");
+        assertFalse(validator.isValid());
+        assertEquals("Digits only", field.error);
+
+        field.type("123");
+        assertTrue(validator.isValid());
+        assertNull(field.error);
+    }
+
+    @Test
+    public void unchangedInputIsNotCheckedAgain() {
+        AtomicInteger checks = new AtomicInteger();
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Watcher("Never") {
+                    @Override
+                    protected boolean check(String input) {
+                        checks.incrementAndGet();
+                        return true;
+                    }
+                })
+                .build();
+
+        field.type("4242");
+        validator.isValid();
+        validator.isValid();
+
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    public void typingIsValidatedOncePaused() {
+        Validator validator = Validator.Builder.with(field)
+                .debounce(300)
+                .addWatcher(new Watcher.NotBlank("Required"))
+                .build();
+
+        field.type("");
+        assertNull(field.error);
+        assertEquals(1, field.delayed.size());
+
+        field.runDelayed();
+        assertEquals("Required", field.error);
+
+        field.type("4242");
+        assertTrue(validator.isValid());
+        assertNull(field.error);
+        assertTrue(field.delayed.isEmpty());
+    }
+
+    @Test
+    public void inputIsNotValidWhileAsyncCheckRuns() throws Exception {
+        CountDownLatch answer = new CountDownLatch(1);
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Remote("Unknown card", answer, "4242"))
+                .build();
+        field.text = "4242";
+
+        assertFalse(validator.isValid());
+        assertTrue(validator.isPending());
+        assertFalse(validator.isValid());
+
+        answer.countDown();
+        field.awaitPost();
+
+        assertFalse(validator.isPending());
+        assertTrue(validator.isValid());
+        assertNull(field.error);
+    }
+
+    @Test
+    public void failedAsyncCheckSetsTheError() throws Exception {
+        CountDownLatch answer = new CountDownLatch(1);
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Remote("Unknown card", answer, "4242"))
+                .build();
+        field.text = "5555";
+        validator.isValid();
+
+        answer.countDown();
+        field.awaitPost();
+
+        assertFalse(validator.isPending());
+        assertFalse(validator.isValid());
+        assertEquals("Unknown card", field.error);
+    }
+
+    @Test
+    public void answerForOlderInputIsDropped() throws Exception {
+        CountDownLatch answer = new CountDownLatch(1);
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Remote("Unknown card", answer, "4242"))
+                .build();
+        field.text = "5555";
+        validator.isValid();
+
+        field.text = "4242";
+        assertFalse(validator.isValid());
+        answer.countDown();
+        field.awaitPost();
+
+        assertFalse(validator.isPending());
+        assertTrue(validator.isValid());
+        assertNull(field.error);
+    }
+
+    @Test
+    public void rememberedAnswerNeedsNoBackgroundCheck() throws Exception {
+        Validator validator = Validator.Builder.with(field)
+                .addWatcher(new Remote("Unknown card", new CountDownLatch(0), "4242"))
+                .build();
+        field.text = "5555";
+        validator.isValid();
+        field.awaitPost();
+        field.text = "4242";
+        validator.isValid();
+        field.awaitPost();
+
+        field.text = "5555";
+        assertFalse(validator.isValid());
+        assertFalse(validator.isPending());
+        assertEquals("Unknown card", field.error);
+    }
+
+    @Test
+    public void dependencyRevalidatesATypedField() {
+        FakeField cardNumber = new FakeField();
+        Validator.Builder.with(field)
+                .dependsOn(cardNumber)
+                .addWatcher(new Watcher.PatternWatcher("Too short", "\\d{4}"))
+                .build();
+
+        cardNumber.type("4");
+        assertNull(field.error);
+
+        field.type("12");
+        assertEquals("Too short", field.error);
+        field.error = null;
+        cardNumber.type("42");
+        assertEquals("Too short", field.error);
+    }
+
+    /** Remote check that passes only {@code accepted}, once {@code answer} opens. */
+    private static final class Remote extends Watcher.AsyncWatcher {
+        private final CountDownLatch answer;
+        private final String accepted;
+
+        Remote(String errorMessage, CountDownLatch answer, String accepted) {
+            super(errorMessage);
+            this.answer = answer;
+            this.accepted = accepted;
+        }
+
+        @Override
+        protected boolean checkBlocking(String input) {
+            try {
+                assertTrue(answer.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return accepted.equals(input);
+        }
+    }
+
+    /** Field whose posted actions run when the test asks. */
+    private static final class FakeField implements Validator.Field {
+        private final List<Runnable> listeners = new ArrayList<>();
+        private final List<Runnable> delayed = new ArrayList<>();
+        private final BlockingQueue<Runnable> posted = new LinkedBlockingQueue<>();
+        private String text = "";
+        private CharSequence error;
+
+        void type(String text) {
+            this.text = text;
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+
+        void runDelayed() {
+            List<Runnable> due = new ArrayList<>(delayed);
+            delayed.clear();
+            for (Runnable action : due) {
+                action.run();
+            }
+        }
+
+        void awaitPost() throws InterruptedException {
+            Runnable action = posted.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Nothing posted", action);
+            action.run();
+        }
+
+        @Override
+        public String text() {
+            return text;
+        }
+
+        @Override
+        public void setError(CharSequence error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onTextChanged(Runnable listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void post(Runnable action) {
+            posted.add(action);
+        }
+
+        @Override
+        public void postDelayed(Runnable action, long delayMs) {
+            delayed.add(action);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable action) {
+            delayed.remove(action);
+        }
+    }
+}
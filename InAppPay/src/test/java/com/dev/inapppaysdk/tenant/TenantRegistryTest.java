@@ -0,0 +1,154 @@
+package com.dev.inapppaysdk.tenant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.api.InAppApiService;
+import com.dev.inapppaysdk.api.LatencyTracker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creation and eviction of tenants by {@link TenantRegistry}, with API
+ * services that are never called.
+ */
+public class TenantRegistryTest {
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger warmedUp = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile CountDownLatch creating;
+    private volatile CountDownLatch mayCreate;
+
+    private final TenantRegistry registry = new TenantRegistry(new TenantRegistry.Services() {
+        @Override
+        public InAppApiService create(LatencyTracker tracker) {
+            created.incrementAndGet();
+            try {
+                if (creating != null) {
+                    creating.countDown();
+                    assertTrue(mayCreate.await(5, TimeUnit.SECONDS));
+                }
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            return service();
+        }
+
+        @Override
+        public void warmUp(InAppApiService service) {
+            warmedUp.incrementAndGet();
+        }
+    });
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void slowServiceDoesNotBlockOtherProjects() throws Exception {
+        creating = new CountDownLatch(1);
+        mayCreate = new CountDownLatch(1);
+        Future<Tenant> slow = executor.submit(() -> registry.acquire("slow"));
+        assertTrue(creating.await(5, TimeUnit.SECONDS));
+        creating = null;
+
+        Tenant fast = executor.submit(() -> registry.acquire("fast")).get(5, TimeUnit.SECONDS);
+        mayCreate.countDown();
+
+        assertEquals("fast", fast.getProjectName());
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS).getProjectName());
+    }
+
+    @Test
+    public void racingAcquiresShareOneTenant() throws Exception {
+        creating = new CountDownLatch(2);
+        mayCreate = new CountDownLatch(1);
+        Future<Tenant> first = executor.submit(() -> registry.acquire("demo"));
+        Future<Tenant> second = executor.submit(() -> registry.acquire("demo"));
+        // Both build a candidate before either is published
+        assertTrue(creating.await(5, TimeUnit.SECONDS));
+        mayCreate.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, created.get());
+        assertEquals(1, warmedUp.get());
+        assertEquals(1, registry.getTenants().size());
+    }
+
+    @Test
+    public void heldTenantIsNotEvicted() {
+        registry.setMaxTenants(1);
+        Tenant a = registry.acquire("a");
+        a.getContextManager().setLabel("Premium");
+
+        registry.acquire("b");
+
+        assertSame(a, registry.peek("a"));
+        assertEquals("Premium", a.getContextManager().getLabel());
+        assertEquals(2, registry.getTenants().size());
+    }
+
+    @Test
+    public void releasedTenantIsEvicted() {
+        registry.setMaxTenants(1);
+        Tenant a = registry.acquire("a");
+        a.getContextManager().setLabel("Premium");
+        registry.acquire("b");
+
+        registry.release(a);
+
+        assertNull(registry.peek("a"));
+        assertNull(a.getContextManager().getLabel());
+        assertNotNull(registry.peek("b"));
+        assertNotSame(a, registry.acquire("a"));
+    }
+
+    @Test
+    public void tenantIsHeldUntilEveryAcquireIsReleased() {
+        registry.setMaxTenants(1);
+        Tenant a = registry.acquire("a");
+        registry.acquire("a");
+        registry.acquire("b");
+
+        registry.release(a);
+        assertSame(a, registry.peek("a"));
+
+        registry.release(a);
+        registry.release(a);
+        assertNull(registry.peek("a"));
+    }
+
+    @Test
+    public void busyTenantIsNotEvicted() {
+        registry.setMaxTenants(1);
+        Tenant a = registry.acquire("a");
+        assertTrue(a.getStateMachine().tryBegin("premium_01"));
+        registry.release(a);
+
+        registry.acquire("b");
+
+        assertSame(a, registry.peek("a"));
+    }
+
+    private static InAppApiService service() {
+        return (InAppApiService) Proxy.newProxyInstance(
+                InAppApiService.class.getClassLoader(), new Class<?>[] {InAppApiService.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,144 @@
+package com.dev.inapppaysdk.ui;
+
+import static org.junit.Assert.assertEquals;
+
+import android.text.Editable;
+import android.text.InputFilter;
+
+import org.junit.Test;
+
+public class CardNumberFormatterTest {
+    private final CardNumberFormatter formatter = new CardNumberFormatter();
+    private final FakeEditable text = new FakeEditable();
+
+    @Test
+    public void groupsVisaWhileTyping() {
+        type("4242424242424242");
+        assertEquals("4242 4242 4242 4242", text.toString());
+    }
+
+    @Test
+    public void groupsAmexFourSixFive() {
+        type("378282246310005");
+        assertEquals("3782 822463 10005", text.toString());
+    }
+
+    @Test
+    public void capsDigitsAtTheBrandsMaximum() {
+        type("37828224631000599");
+        assertEquals("3782 822463 10005", text.toString());
+        type("5555555555554444" + "1");
+        assertEquals("3782 822463 10005", text.toString());
+    }
+
+    @Test
+    public void regroupsPastedNumber() {
+        paste(0, "5555-5555 55554444");
+        assertEquals("5555 5555 5555 4444", text.toString());
+    }
+
+    @Test
+    public void dropsOtherCharacters() {
+        paste(0, "4242a4242.4242 4242");
+        assertEquals("4242 4242 4242 4242", text.toString());
+    }
+
+    @Test
+    public void deletingSeparatorDeletesDigitBeforeIt() {
+        type("42424");
+        assertEquals("4242 4", text.toString());
+
+        backspace(); // the 4 after the separator; the separator goes with it
+        assertEquals("4242", text.toString());
+
+        type("42");
+        assertEquals("4242 42", text.toString());
+        delete(4, 5); // cursor after the separator, backspace
+        assertEquals("4244 2", text.toString());
+    }
+
+    @Test
+    public void emptyStaysEmpty() {
+        paste(0, "");
+        assertEquals("", text.toString());
+    }
+
+    // Simulates the EditText's callbacks around an edit of [start, end)
+    private void edit(int start, int end, CharSequence replacement) {
+        formatter.beforeTextChanged(text, start, end - start, replacement.length());
+        text.replace(start, end, replacement);
+        formatter.onTextChanged(text, start, end - start, replacement.length());
+        formatter.afterTextChanged(text);
+    }
+
+    private void type(String digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            edit(text.length(), text.length(), String.valueOf(digits.charAt(i)));
+        }
+    }
+
+    private void paste(int at, String value) {
+        edit(at, at, value);
+    }
+
+    private void backspace() {
+        delete(text.length() - 1, text.length());
+    }
+
+    private void delete(int start, int end) {
+        edit(start, end, "");
+    }
+
+    /** Span-less {@link Editable} over a {@link StringBuilder}. */
+    private static final class FakeEditable implements Editable {
+        private final StringBuilder chars = new StringBuilder();
+
+        @Override public Editable replace(int st, int en, CharSequence source, int start, int end) {
+            chars.replace(st, en, source.subSequence(start, end).toString());
+            return this;
+        }
+        @Override public Editable replace(int st, int en, CharSequence text) {
+            return replace(st, en, text, 0, text.length());
+        }
+        @Override public Editable insert(int where, CharSequence text, int start, int end) {
+            return replace(where, where, text, start, end);
+        }
+        @Override public Editable insert(int where, CharSequence text) {
+            return replace(where, where, text);
+        }
+        @Override public Editable delete(int st, int en) {
+            return replace(st, en, "");
+        }
+        @Override public Editable append(CharSequence text) {
+            return replace(length(), length(), text);
+        }
+        @Override public Editable append(CharSequence text, int start, int end) {
+            return replace(length(), length(), text, start, end);
+        }
+        @Override public Editable append(char text) {
+            return append(String.valueOf(text));
+        }
+        @Override public void clear() { chars.setLength(0); }
+        @Override public void clearSpans() { }
+        @Override public void setFilters(InputFilter[] filters) { }
+        @Override public InputFilter[] getFilters() { return new InputFilter[0]; }
+        @Override public void getChars(int start, int end, char[] dest, int destoff) {
+            chars.getChars(start, end, dest, destoff);
+        }
+        @Override public void setSpan(Object what, int start, int end, int flags) { }
+        @Override public void removeSpan(Object what) { }
+        @Override public <T> T[] getSpans(int start, int end, Class<T> type) {
+            @SuppressWarnings("unchecked")
+            T[] none = (T[]) java.lang.reflect.Array.newInstance(type, 0);
+            return none;
+        }
+        @Override public int getSpanStart(Object tag) { return -1; }
+        @Override public int getSpanEnd(Object tag) { return -1; }
+        @Override public int getSpanFlags(Object tag) { return 0; }
+        @Override public int nextSpanTransition(int start, int limit, Class type) { return limit; }
+        @Override public int length() { return chars.length(); }
+        @Override public char charAt(int index) { return chars.charAt(index); }
+        @Override public CharSequence subSequence(int start, int end) { return chars.subSequence(start, end); }
+        @Override public String toString() { return chars.toString(); }
+    }
+}
@@ -0,0 +1,74 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.dev.inapppaysdk.api.models.Product;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expiry and eviction of {@link CatalogCache} on a manual clock.
+ */
+public class CatalogCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final CatalogCache cache = new CatalogCache(now::get);
+
+    @Test
+    public void servesCatalogUntilTtlElapses() {
+        cache.put("demo", catalog("premium_01"));
+
+        now.addAndGet(CatalogCache.DEFAULT_TTL_MS);
+        assertNotNull(cache.get("demo"));
+        assertNotNull(cache.getProduct("demo", "premium_01"));
+
+        now.incrementAndGet();
+        assertNull(cache.get("demo"));
+        assertNull(cache.getProduct("demo", "premium_01"));
+    }
+
+    @Test
+    public void ttlCanBeShortened() {
+        cache.setTtlMs(10);
+        cache.put("demo", catalog("premium_01"));
+
+        now.addAndGet(11);
+
+        assertNull(cache.get("demo"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedProject() {
+        for (int i = 0; i < CatalogCache.MAX_PROJECTS; i++) {
+            cache.put("project-" + i, catalog("premium_01"));
+        }
+        cache.get("project-0");
+
+        cache.put("one-more", catalog("premium_01"));
+
+        assertNotNull(cache.get("project-0"));
+        assertNull(cache.get("project-1"));
+        assertNotNull(cache.get("one-more"));
+    }
+
+    @Test
+    public void invalidateDropsOneProject() {
+        cache.put("a", catalog("premium_01"));
+        cache.put("b", catalog("premium_01"));
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.get("b").size());
+    }
+
+    private static List<Product> catalog(String productId) {
+        return Collections.singletonList(
+                new Product(productId, "Premium", "Unlock everything", "onetime", "4.99", "USD", true));
+    }
+}
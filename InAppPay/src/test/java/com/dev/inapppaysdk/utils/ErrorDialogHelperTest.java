@@ -0,0 +1,149 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merging and throttling of {@link ErrorDialogHelper}'s dialogs, shown by a
+ * fake presenter. Dialogs here have no window ({@code null} context), which
+ * the merge treats like any other owner.
+ */
+public class ErrorDialogHelperTest {
+    private static final Context WINDOW = null;
+
+    private final List<FakeDialog> shown = new ArrayList<>();
+    private final List<String> dismissed = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(100_000);
+
+    @Before
+    public void setUp() {
+        ErrorDialogHelper.setPresenter((context, title, message, onOkay, onGone) -> {
+            FakeDialog dialog = new FakeDialog(title, message, onOkay, onGone);
+            shown.add(dialog);
+            return dialog;
+        });
+        ErrorDialogHelper.setClock(now::get);
+    }
+
+    @After
+    public void tearDown() {
+        ErrorDialogHelper.setPresenter(null);
+        ErrorDialogHelper.setClock(SystemClock::elapsedRealtime);
+    }
+
+    @Test
+    public void mergedErrorsKeepEveryDismissCallback() {
+        ErrorDialogHelper.showNow(WINDOW, "Error", "first", () -> dismissed.add("first"));
+        ErrorDialogHelper.showNow(WINDOW, "Error", "second", null);
+        ErrorDialogHelper.showNow(WINDOW, "Error", "third", () -> dismissed.add("third"));
+
+        assertEquals(1, shown.size());
+        FakeDialog dialog = shown.get(0);
+        assertEquals("third", dialog.message);
+        assertTrue(dismissed.isEmpty());
+
+        dialog.tapOkay();
+
+        assertEquals(Arrays.asList("first", "third"), dismissed);
+    }
+
+    @Test
+    public void errorAfterDismissalOpensANewDialog() {
+        ErrorDialogHelper.showNow(WINDOW, "Error", "first", () -> dismissed.add("first"));
+        shown.get(0).tapOkay();
+
+        ErrorDialogHelper.showNow(WINDOW, "Error", "second", () -> dismissed.add("second"));
+        shown.get(1).tapOkay();
+
+        assertEquals(2, shown.size());
+        assertEquals(Arrays.asList("first", "second"), dismissed);
+    }
+
+    @Test
+    public void callbacksOfAClosedDialogDoNotLeakIntoTheNextOne() {
+        ErrorDialogHelper.showNow(WINDOW, "Error", "first", () -> dismissed.add("first"));
+        FakeDialog first = shown.get(0);
+        // Dismissed without the button, e.g. by its window going away
+        first.close();
+
+        ErrorDialogHelper.showNow(WINDOW, "Error", "second", () -> dismissed.add("second"));
+        shown.get(1).tapOkay();
+
+        assertEquals(Arrays.asList("second"), dismissed);
+    }
+
+    @Test
+    public void sameCodeIsShownOncePerInterval() {
+        ErrorDialogHelper.showWithCodeNow(WINDOW, "Network error: timeout", "NETWORK_ERROR");
+        shown.get(0).tapOkay();
+
+        now.addAndGet(ErrorDialogHelper.MIN_REPEAT_INTERVAL_MS - 1);
+        ErrorDialogHelper.showWithCodeNow(WINDOW, "Network error: timeout", "NETWORK_ERROR");
+        assertEquals(1, shown.size());
+
+        now.incrementAndGet();
+        ErrorDialogHelper.showWithCodeNow(WINDOW, "Network error: timeout", "NETWORK_ERROR");
+        assertEquals(2, shown.size());
+        assertEquals("Purchase Error", shown.get(1).title);
+        assertEquals("Check your internet connection and try again.", shown.get(1).message);
+    }
+
+    @Test
+    public void otherCodesAreNotThrottled() {
+        ErrorDialogHelper.showWithCodeNow(WINDOW, "Not found", "PRODUCT_NOT_FOUND");
+        shown.get(0).tapOkay();
+
+        ErrorDialogHelper.showWithCodeNow(WINDOW, "Busy", "PURCHASE_IN_PROGRESS");
+
+        assertEquals(2, shown.size());
+        assertEquals("A purchase is already in progress. Please wait for it to finish.", shown.get(1).message);
+    }
+
+    private static final class FakeDialog implements ErrorDialogHelper.Shown {
+        private final Runnable onOkay;
+        private final Runnable onGone;
+        private String title;
+        private String message;
+        private boolean showing = true;
+
+        FakeDialog(String title, String message, Runnable onOkay, Runnable onGone) {
+            this.title = title;
+            this.message = message;
+            this.onOkay = onOkay;
+            this.onGone = onGone;
+        }
+
+        void tapOkay() {
+            close();
+            onOkay.run();
+        }
+
+        void close() {
+            showing = false;
+            onGone.run();
+        }
+
+        @Override
+        public boolean isShowing() {
+            return showing;
+        }
+
+        @Override
+        public void update(String title, String message) {
+            this.title = title;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ring buffer, snapshot and binary dump of {@link FlightRecorder}.
+ */
+public class FlightRecorderTest {
+    private final FlightRecorder recorder = new FlightRecorder(4);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotReturnsEventsOldestFirst() {
+        recorder.record(FlightRecorder.BUY, "premium_01");
+        recorder.record(FlightRecorder.VALIDATE_ERROR, "premium_01", "NETWORK_ERROR", 250);
+
+        List<FlightRecorder.Event> events = recorder.snapshot();
+
+        assertEquals(2, events.size());
+        assertEquals(0, events.get(0).getSeq());
+        assertEquals("BUY", events.get(0).getTypeName());
+        assertEquals("", events.get(0).getCode());
+        FlightRecorder.Event error = events.get(1);
+        assertEquals(1, error.getSeq());
+        assertEquals(FlightRecorder.VALIDATE_ERROR, error.getType());
+        assertEquals("premium_01", error.getSubject());
+        assertEquals("NETWORK_ERROR", error.getCode());
+        assertEquals(250, error.getValue());
+    }
+
+    @Test
+    public void fullRingOverwritesTheOldestEvents() {
+        for (int i = 0; i < 6; i++) {
+            recorder.record(FlightRecorder.RETRY, "endpoint", null, i);
+        }
+
+        List<FlightRecorder.Event> events = recorder.snapshot();
+
+        assertEquals(recorder.getCapacity(), events.size());
+        assertEquals(2, events.get(0).getSeq());
+        assertEquals(2, events.get(0).getValue());
+        assertEquals(5, events.get(3).getValue());
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(4, recorder.getCapacity());
+        assertEquals(8, new FlightRecorder(5).getCapacity());
+    }
+
+    @Test
+    public void disabledRecorderKeepsNothing() {
+        recorder.setEnabled(false);
+        recorder.record(FlightRecorder.BUY, "premium_01");
+
+        assertTrue(recorder.snapshot().isEmpty());
+    }
+
+    @Test
+    public void clearForgetsEvents() {
+        recorder.record(FlightRecorder.BUY, "premium_01");
+        recorder.clear();
+        recorder.record(FlightRecorder.BUY, "coins_100");
+
+        List<FlightRecorder.Event> events = recorder.snapshot();
+        assertEquals(1, events.size());
+        assertEquals("coins_100", events.get(0).getSubject());
+    }
+
+    @Test
+    public void binaryDumpRoundTrips() throws IOException {
+        recorder.record(FlightRecorder.PURCHASE_START, "premium_01", "card");
+        recorder.record(FlightRecorder.PURCHASE_OK, "premium_01", null, 812);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        recorder.writeBinary(out);
+        List<FlightRecorder.Event> decoded = FlightRecorder.readBinary(new ByteArrayInputStream(out.toByteArray()));
+
+        assertSameEvents(recorder.snapshot(), decoded);
+    }
+
+    @Test
+    public void eachEventTakesThirtyBytes() throws IOException {
+        recorder.record(FlightRecorder.BUY, "premium_01");
+        int oneEvent = dumpSize();
+        recorder.record(FlightRecorder.BUY, "premium_01");
+
+        assertEquals(FlightRecorder.EVENT_BYTES, dumpSize() - oneEvent);
+    }
+
+    @Test
+    public void trailingBytesAreIgnored() throws IOException {
+        recorder.record(FlightRecorder.BUY, "premium_01");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeBinary(out);
+        out.write(new byte[64]);
+
+        assertSameEvents(recorder.snapshot(),
+                FlightRecorder.readBinary(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignDataIsRejected() throws IOException {
+        FlightRecorder.readBinary(new ByteArrayInputStream("{\"events\":[]}".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void spillCanBeReadBack() throws IOException {
+        File file = new File(folder.getRoot(), "inapppay.flight");
+        recorder.record(FlightRecorder.ERROR, "premium_01", "PURCHASE_IN_PROGRESS");
+
+        recorder.startSpilling(file, 60_000);
+        recorder.record(FlightRecorder.BUY, "coins_100");
+        recorder.stopSpilling();
+
+        try (InputStream in = new FileInputStream(file)) {
+            assertSameEvents(recorder.snapshot(), FlightRecorder.readBinary(in));
+        }
+    }
+
+    private int dumpSize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeBinary(out);
+        return out.size();
+    }
+
+    private static void assertSameEvents(List<FlightRecorder.Event> expected, List<FlightRecorder.Event> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            FlightRecorder.Event e = expected.get(i);
+            FlightRecorder.Event a = actual.get(i);
+            assertEquals(Arrays.asList(e.getSeq(), e.getTimeMillis(), e.getType(), e.getSubject(), e.getCode(), e.getValue()),
+                    Arrays.asList(a.getSeq(), a.getTimeMillis(), a.getType(), a.getSubject(), a.getCode(), a.getValue()));
+        }
+    }
+}
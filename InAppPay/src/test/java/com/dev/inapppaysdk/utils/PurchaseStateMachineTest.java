@@ -0,0 +1,155 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.utils.PurchaseStateMachine.State;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PurchaseStateMachineTest {
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final PurchaseStateMachine machine = new PurchaseStateMachine(now::get);
+
+    @Test
+    public void completedFlowReleasesTheLock() {
+        assertTrue(machine.tryBegin("premium_01"));
+        assertEquals(State.VALIDATING, machine.getState("premium_01"));
+        assertTrue(machine.transition("premium_01", State.VALIDATING, State.AWAITING_INPUT));
+        assertTrue(machine.transition("premium_01", State.AWAITING_INPUT, State.PROCESSING));
+        assertEquals("premium_01", machine.getActiveProductId());
+        assertTrue(machine.transition("premium_01", State.PROCESSING, State.DONE));
+
+        assertNull(machine.getActiveProductId());
+        assertTrue(machine.tryBegin("premium_01"));
+    }
+
+    @Test
+    public void onlyOneFlowRunsAtATime() {
+        assertTrue(machine.tryBegin("premium_01"));
+        assertFalse(machine.tryBegin("premium_01"));
+        assertFalse(machine.tryBegin("coins_100"));
+        assertEquals(State.IDLE, machine.getState("coins_100"));
+    }
+
+    @Test
+    public void racingFlowsOfDifferentProductsLetOneThrough() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> begun = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                String productId = "product_" + i;
+                begun.add(executor.submit(() -> {
+                    start.await();
+                    return machine.tryBegin(productId);
+                }));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Boolean> result : begun) {
+                winners += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, winners);
+            assertEquals(State.VALIDATING, machine.getState(machine.getActiveProductId()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nextProductStartsOnceTheFlowEnds() {
+        machine.tryBegin("premium_01");
+        machine.abort("premium_01");
+
+        assertTrue(machine.tryBegin("coins_100"));
+        assertEquals("coins_100", machine.getActiveProductId());
+    }
+
+    @Test
+    public void separateMachinesRunFlowsSideBySide() {
+        PurchaseStateMachine other = new PurchaseStateMachine(now::get);
+
+        assertTrue(machine.tryBegin("premium_01"));
+        assertTrue(other.tryBegin("coins_100"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void flowNeedsAProduct() {
+        machine.tryBegin(null);
+    }
+
+    @Test
+    public void duplicateTransitionIsRejected() {
+        machine.tryBegin("premium_01");
+        machine.transition("premium_01", State.VALIDATING, State.AWAITING_INPUT);
+
+        assertTrue(machine.transition("premium_01", State.AWAITING_INPUT, State.PROCESSING));
+        assertFalse(machine.transition("premium_01", State.AWAITING_INPUT, State.PROCESSING));
+    }
+
+    @Test
+    public void abortReturnsToIdleAndNotifiesOnce() {
+        List<String> events = new ArrayList<>();
+        machine.addListener((productId, from, to) -> events.add(from + ">" + to));
+        machine.tryBegin("premium_01");
+        machine.transition("premium_01", State.VALIDATING, State.AWAITING_INPUT);
+
+        machine.abort("premium_01");
+        machine.abort("premium_01");
+        machine.abort(null);
+
+        assertEquals(State.IDLE, machine.getState("premium_01"));
+        assertNull(machine.getActiveProductId());
+        assertEquals(List.of("IDLE>VALIDATING", "VALIDATING>AWAITING_INPUT", "AWAITING_INPUT>IDLE"), events);
+    }
+
+    @Test
+    public void abortOfAnotherProductKeepsTheActiveFlow() {
+        machine.tryBegin("premium_01");
+
+        machine.abort("coins_100");
+
+        assertEquals("premium_01", machine.getActiveProductId());
+        assertFalse(machine.tryBegin("coins_100"));
+    }
+
+    @Test
+    public void staleFlowIsTakenOver() {
+        machine.tryBegin("premium_01");
+        machine.transition("premium_01", State.VALIDATING, State.AWAITING_INPUT);
+
+        now.addAndGet(PurchaseStateMachine.STALE_FLOW_MS - 1);
+        assertFalse(machine.tryBegin("coins_100"));
+
+        now.addAndGet(1);
+        assertTrue(machine.tryBegin("coins_100"));
+        assertEquals(State.IDLE, machine.getState("premium_01"));
+        assertEquals("coins_100", machine.getActiveProductId());
+        assertFalse(machine.transition("premium_01", State.AWAITING_INPUT, State.PROCESSING));
+    }
+
+    @Test
+    public void processingFlowIsNeverTakenOver() {
+        machine.tryBegin("premium_01");
+        machine.transition("premium_01", State.VALIDATING, State.AWAITING_INPUT);
+        machine.transition("premium_01", State.AWAITING_INPUT, State.PROCESSING);
+
+        now.addAndGet(PurchaseStateMachine.STALE_FLOW_MS * 2);
+
+        assertFalse(machine.tryBegin("coins_100"));
+        assertEquals(State.PROCESSING, machine.getState("premium_01"));
+    }
+}
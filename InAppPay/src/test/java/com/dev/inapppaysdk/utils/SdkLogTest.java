@@ -0,0 +1,108 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SdkLogTest {
+    private final List<String> logged = new ArrayList<>();
+    private final SdkLog.Sink sink = (level, category, message, error) -> logged.add(message);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        SdkLog.removeSink(sink);
+    }
+
+    @Test
+    public void masksContiguousNumber() {
+        assertEquals("card ****4242 declined", SdkLog.redact("card 4242424242424242 declined"));
+    }
+
+    @Test
+    public void masksGroupedNumbers() {
+        assertEquals("card ****4242", SdkLog.redact("card 4242 4242 4242 4242"));
+        assertEquals("card ****4444", SdkLog.redact("card 5555-5555-5555-4444"));
+        assertEquals("card ****0005", SdkLog.redact("card 3782 822463 10005"));
+    }
+
+    @Test
+    public void masksShortAndLongNumbers() {
+        assertEquals("amex ****0005", SdkLog.redact("amex 378282246310005"));
+        assertEquals("visa ****2222", SdkLog.redact("visa 4222222222222"));
+        assertEquals("unionpay ****0125", SdkLog.redact("unionpay 6200 0000 0000 0000 125"));
+    }
+
+    @Test
+    public void masksEveryNumberInMessage() {
+        assertEquals("****4242 then ****1117",
+                SdkLog.redact("4242424242424242 then 6011111111111117"));
+    }
+
+    @Test
+    public void keepsShortDigitRuns() {
+        String message = "order 123456789012 of user 42 at 12:30";
+        assertEquals(message, SdkLog.redact(message));
+    }
+
+    @Test
+    public void keepsNumbersFailingLuhn() {
+        String message = "sync at 1760000000000 for order 4242424242424243";
+        assertEquals(message, SdkLog.redact(message));
+    }
+
+    @Test
+    public void masksCardWithinLongerDigitRun() {
+        assertEquals("card ****4242 123", SdkLog.redact("card 4242 4242 4242 4242 123"));
+        assertEquals("qty 12 ****4242", SdkLog.redact("qty 12 4242424242424242"));
+    }
+
+    @Test
+    public void blanksCardFields() {
+        assertEquals("{\"cardNumber\":\"[REDACTED]\",\"CVV\": \"[REDACTED]\",\"name\":\"Ann\"}",
+                SdkLog.redact("{\"cardNumber\":\"4242 4242\",\"CVV\": \"123\",\"name\":\"Ann\"}"));
+    }
+
+    @Test
+    public void redactsBeforeSinks() {
+        SdkLog.addSink(sink);
+        SdkLog.w(SdkLog.Category.PURCHASE, "Charging {}", "4242 4242 4242 4242");
+        assertEquals(List.of("Charging ****4242"), logged);
+    }
+
+    @Test
+    public void fileSinkRedactsStackTraces() throws Exception {
+        File file = new File(folder.getRoot(), "inapppay.log");
+        FileLogSink fileSink = new FileLogSink(file, 64 * 1024);
+        fileSink.log(SdkLog.Level.WARN, SdkLog.Category.PURCHASE, "Charge failed",
+                new IllegalStateException("Declined: 4242424242424242"));
+        fileSink.close();
+
+        String written = "";
+        for (int i = 0; i < 100 && !written.contains("IllegalStateException"); i++) {
+            Thread.sleep(50);
+            written = file.exists() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : "";
+        }
+
+        assertTrue(written, written.contains("IllegalStateException: Declined: ****4242"));
+        assertFalse(written, written.contains("4242424242424242"));
+    }
+
+    @Test
+    public void nullBecomesText() {
+        assertEquals("null", SdkLog.redact(null));
+    }
+}
@@ -0,0 +1,176 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dev.inapppaysdk.callbacks.SubscriptionListener;
+import com.dev.inapppaysdk.testing.TestMainThread;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling of {@link SubscriptionTracker} on a fast {@link TimerWheel}.
+ * No case here reaches a back-end re-check, so no service is needed.
+ * Listeners must be notified on the {@link TestMainThread}.
+ */
+public class SubscriptionTrackerTest {
+    private static final String USER = "user-1";
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private ScheduledExecutorService executor;
+    private TestMainThread main;
+    private SubscriptionTracker tracker;
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        main = TestMainThread.install();
+        tracker = new SubscriptionTracker("demo", null, new TimerWheel(10, 8, () -> executor));
+        tracker.addListener(new SubscriptionListener() {
+            @Override
+            public void onSubscriptionExpired(String productId, Map<String, Object> subscriptionData) {
+                events.add(onMain("expired:" + productId));
+            }
+
+            @Override
+            public void onSubscriptionRenewed(String productId, Map<String, Object> subscriptionData) {
+                events.add(onMain("renewed:" + productId));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        tracker.clear();
+        main.close();
+        executor.shutdownNow();
+    }
+
+    // Tags an event delivered off the main thread, so that it fails to match
+    private String onMain(String event) {
+        return main.isCurrent() ? event : event + " on " + Thread.currentThread().getName();
+    }
+
+    @Test
+    public void activeSubscriptionKeepsOneTimer() {
+        long expiresAt = System.currentTimeMillis() + DAY_MS;
+
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt));
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt));
+
+        assertEquals(Boolean.TRUE, tracker.isSubscribed(USER, "pro_monthly"));
+        assertEquals(expiresAt, tracker.getExpiresAt(USER, "pro_monthly"));
+        assertEquals(1, tracker.getScheduledCount());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void unsubscribedAnswerCancelsTimerAndNotifies() throws Exception {
+        long expiresAt = System.currentTimeMillis() + DAY_MS;
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt));
+
+        tracker.update(USER, "pro_monthly", false, record("pro_monthly", expiresAt));
+
+        assertEquals("expired:pro_monthly", events.poll(1, TimeUnit.SECONDS));
+        assertEquals(Boolean.FALSE, tracker.isSubscribed(USER, "pro_monthly"));
+        assertEquals(0, tracker.getScheduledCount());
+    }
+
+    @Test
+    public void laterExpiryIsARenewal() throws Exception {
+        long expiresAt = System.currentTimeMillis() + DAY_MS;
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt));
+
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt + 30 * DAY_MS));
+
+        assertEquals("renewed:pro_monthly", events.poll(1, TimeUnit.SECONDS));
+        assertEquals(1, tracker.getScheduledCount());
+    }
+
+    @Test
+    public void nonRenewingSubscriptionExpiresLocally() throws Exception {
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", System.currentTimeMillis() + 50));
+
+        assertEquals("expired:pro_monthly", events.poll(2, TimeUnit.SECONDS));
+        assertEquals(Boolean.FALSE, tracker.isSubscribed(USER, "pro_monthly"));
+        assertEquals(0, tracker.getScheduledCount());
+    }
+
+    @Test
+    public void historyIsReducedToLatestRecordPerProduct() {
+        long now = System.currentTimeMillis();
+        List<Object> history = new ArrayList<>();
+        history.add(record("pro_monthly", now + DAY_MS));
+        history.add(record("pro_monthly", now - 30 * DAY_MS));
+        history.add(record("pro_yearly", now - 400 * DAY_MS));
+        history.add(record("pro_yearly", now - 35 * DAY_MS));
+
+        tracker.updateAll(USER, history);
+
+        assertEquals(Boolean.TRUE, tracker.isSubscribed(USER, "pro_monthly"));
+        assertEquals(now + DAY_MS, tracker.getExpiresAt(USER, "pro_monthly"));
+        assertEquals(Boolean.FALSE, tracker.isSubscribed(USER, "pro_yearly"));
+        assertEquals(now - 35 * DAY_MS, tracker.getExpiresAt(USER, "pro_yearly"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void recordWithoutExpiryIsUnknown() {
+        long expiresAt = System.currentTimeMillis() + DAY_MS;
+        tracker.update(USER, "pro_monthly", true, record("pro_monthly", expiresAt));
+        List<Object> history = new ArrayList<>();
+        history.add(record("pro_monthly", 0));
+        history.add(record("pro_weekly", 0));
+
+        tracker.updateAll(USER, history);
+
+        assertEquals(Boolean.TRUE, tracker.isSubscribed(USER, "pro_monthly"));
+        assertEquals(expiresAt, tracker.getExpiresAt(USER, "pro_monthly"));
+        assertNull(tracker.isSubscribed(USER, "pro_weekly"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void readsEveryExpiryFormat() {
+        Map<String, Object> timestamp = new HashMap<>();
+        timestamp.put("_seconds", 1_800_000_000L);
+
+        assertEquals(1_800_000_000_000L, SubscriptionTracker.expiresAt(Map.of("expiresAt", 1_800_000_000_000L)));
+        assertEquals(1_800_000_000_000L, SubscriptionTracker.expiresAt(Map.of("expiryDate", timestamp)));
+        assertEquals(1_800_000_000_000L,
+                SubscriptionTracker.expiresAt(Map.of("currentPeriodEnd", "2027-01-15T08:00:00Z")));
+        assertEquals(0, SubscriptionTracker.expiresAt(Map.of("expiresAt", "soon")));
+        assertEquals(0, SubscriptionTracker.expiresAt(null));
+    }
+
+    @Test
+    public void numericExpiryInSecondsIsNormalised() {
+        assertEquals(1_800_000_000_000L, SubscriptionTracker.expiresAt(Map.of("expiresAt", 1_800_000_000L)));
+        // Gson reads JSON numbers as doubles
+        assertEquals(1_800_000_000_500L, SubscriptionTracker.expiresAt(Map.of("expiresAt", 1_800_000_000.5)));
+        assertEquals(1_800_000_000_000L, SubscriptionTracker.expiresAt(Map.of("expiresAt", 1.8e12)));
+    }
+
+    private static Map<String, Object> record(String productId, long expiresAt) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("productId", productId);
+        if (expiresAt != 0) {
+            data.put("expiresAt", expiresAt);
+        }
+        return data;
+    }
+}
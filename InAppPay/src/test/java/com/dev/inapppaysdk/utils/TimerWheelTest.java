@@ -0,0 +1,136 @@
+package com.dev.inapppaysdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TimerWheelTest {
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 8; // one revolution is 80 ms
+
+    private ScheduledExecutorService executor;
+    private TimerWheel wheel;
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        wheel = new TimerWheel(TICK_MS, WHEEL_SIZE, () -> executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runsTimersInDeadlineOrder() throws Exception {
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(3);
+        wheel.schedule(now + 60, record("c", done));
+        wheel.schedule(now + 20, record("a", done));
+        wheel.schedule(now + 40, record("b", done));
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", "c"), ran);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void pastDeadlineRunsOnNextTick() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(System.currentTimeMillis() - 60_000, record("late", done));
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void deadlineIsNotRunEarly() throws Exception {
+        long deadline = System.currentTimeMillis() + 150;
+        CountDownLatch done = new CountDownLatch(1);
+        long[] ranAt = new long[1];
+        TimerWheel.Timeout timeout = wheel.schedule(deadline, () -> {
+            ranAt[0] = System.currentTimeMillis();
+            done.countDown();
+        });
+
+        assertTrue(timeout.getDeadlineMillis() >= deadline);
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(ranAt[0] >= deadline);
+    }
+
+    @Test
+    public void lateWakeUpRunsEveryDueTimer() throws Exception {
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(3);
+        // Keep the only thread busy for more than one revolution, like Doze
+        executor.execute(() -> sleep(250));
+        wheel.schedule(now + 20, record("a", done));
+        wheel.schedule(now + 70, record("b", done));
+        wheel.schedule(now + 150, record("c", done)); // second revolution
+        TimerWheel.Timeout far = wheel.schedule(now + 60_000, record("far", null));
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(Set.of("a", "b", "c"), new HashSet<>(ran)); // one batch, in slot order
+        assertEquals(1, wheel.size());
+        assertTrue(far.cancel());
+    }
+
+    @Test
+    public void cancelledTimerDoesNotRun() throws Exception {
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(1);
+        TimerWheel.Timeout cancelled = wheel.schedule(now + 20, record("cancelled", null));
+        wheel.schedule(now + 50, record("kept", done));
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.size());
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), ran);
+    }
+
+    @Test
+    public void clearCancelsEverything() throws Exception {
+        long now = System.currentTimeMillis();
+        TimerWheel.Timeout timeout = wheel.schedule(now + 20, record("a", null));
+        wheel.schedule(now + 30, record("b", null));
+
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertFalse(timeout.cancel());
+        Thread.sleep(100);
+        assertTrue(ran.isEmpty());
+    }
+
+    private Runnable record(String name, CountDownLatch done) {
+        return () -> {
+            ran.add(name);
+            if (done != null) {
+                done.countDown();
+            }
+        };
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.dev.inapppaysdk.testing;
+
+import com.dev.inapppaysdk.constants.InAppConstants;
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * In-memory stand-in for the InAppPay Cloud Functions.
+ *
+ * <p>Implements the request/response contract of every
+ * {@link com.dev.inapppaysdk.api.InAppApiService} endpoint on top of a
+ * product catalog and per-user purchase / subscription records. All methods
+ * are thread-safe and never block, so the same instance can serve thousands of
+ * concurrent simulated clients.</p>
+ *
+ * <p>Card numbers listed in {@link #DECLINED_CARD} are declined, every other
+ * card and any PayPal payment succeeds. Cards may arrive in clear
+ * ({@code cardData}) or tokenized ({@code cardToken}) under the key served
+ * by {@code getTokenizationKey}.</p>
+ */
+public class FakeBackend {
+    /** Card number the fake payment processor always declines. */
+    public static final String DECLINED_CARD = "4000000000000002";
+    /** Length of a fake subscription period. */
+    public static final long SUBSCRIPTION_PERIOD_MS = TimeUnit.DAYS.toMillis(30);
+
+    private final String projectName;
+    private final Map<String, Map<String, Object>> products = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, Object>>> purchases = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, Object>>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong purchaseIds = new AtomicLong();
+    private volatile boolean tokenization = true;
+    private volatile String keyId = "fake-key-1";
+    private volatile KeyPair keyPair;
+
+    /**
+     * @param projectName the only project this back-end knows; other names
+     *                    yield {@code PROJECT_NOT_FOUND}
+     */
+    public FakeBackend(String projectName) {
+        this.projectName = projectName;
+    }
+
+    /** @return a back-end seeded with one product of each item type */
+    public static FakeBackend withDefaultCatalog(String projectName) {
+        return new FakeBackend(projectName)
+                .addProduct("premium_01", InAppConstants.TYPE_ONETIME, "Premium", "Unlock everything", "4.99")
+                .addProduct("coins_100", InAppConstants.TYPE_REPURCHASE, "100 Coins", "A bag of coins", "0.99")
+                .addProduct("pro_monthly", InAppConstants.TYPE_SUBSCRIPTION, "Pro", "Monthly plan", "9.99");
+    }
+
+    public String getProjectName() { return projectName; }
+
+    public FakeBackend addProduct(String id, String type, String name, String description, String price) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("id", id);
+        product.put("type", type);
+        product.put("name", name);
+        product.put("description", description);
+        product.put("price", price);
+        product.put("currency", InAppConstants.DEFAULT_CURRENCY);
+        product.put("active", Boolean.TRUE);
+        products.put(id, product);
+        return this;
+    }
+
+    /** Marks a product as no longer purchasable ({@code PRODUCT_INACTIVE}). */
+    public FakeBackend deactivate(String productId) {
+        Map<String, Object> product = products.get(productId);
+        if (product != null) {
+            product.put("active", Boolean.FALSE);
+        }
+        return this;
+    }
+
+    /**
+     * Makes {@code getTokenizationKey} unknown, like a back-end deployed before
+     * tokenization. Card purchases then fail, unless the client opted into
+     * sending card data in clear.
+     */
+    public FakeBackend withoutTokenization() {
+        tokenization = false;
+        return this;
+    }
+
+    /** Switches to a new key id; tokens sealed under the old one are rejected. */
+    public void rotateTokenizationKey() {
+        keyId = "fake-key-" + (Integer.parseInt(keyId.substring("fake-key-".length())) + 1);
+    }
+
+    /**
+     * Records a PayPal purchase as if {@code userId} had bought the product,
+     * to seed ownership before a test.
+     *
+     * @return the {@code processPurchase} response
+     */
+    public Map<String, Object> purchaseWithPayPal(String userId, String productId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("projectName", projectName);
+        body.put("userId", userId);
+        body.put("productId", productId);
+        body.put("paymentMethod", InAppConstants.PAYMENT_METHOD_PAYPAL);
+        body.put("paypalData", new HashMap<String, Object>());
+        return processPurchase(body);
+    }
+
+    /** Drops every purchase and subscription record. */
+    public void resetRecords() {
+        purchases.clear();
+        subscriptions.clear();
+    }
+
+    /**
+     * Dispatches a request by Cloud Function name.
+     *
+     * @param endpoint path segment, e.g. {@code "processPurchase"}
+     * @param body     decoded JSON request body
+     * @return decoded JSON response body, or {@code null} for unknown endpoints
+     */
+    public Map<String, Object> handle(String endpoint, Map<String, Object> body) {
+        switch (endpoint) {
+            case "validateItemForPurchase": return validateItemForPurchase(body);
+            case "processPurchase": return processPurchase(body);
+            case "checkUserPurchased": return checkUserPurchased(body);
+            case "checkUserSubscribed": return checkUserSubscribed(body);
+            case "getPurchases": return getPurchases(body);
+            case "getSubscriptions": return getSubscriptions(body);
+            case "getCatalog": return getCatalog(body);
+            case "getTokenizationKey": return getTokenizationKey(body);
+            default: return null;
+        }
+    }
+
+    public Map<String, Object> validateItemForPurchase(Map<String, Object> body) {
+        Map<String, Object> error = checkProductRequest(body);
+        if (error != null) {
+            return error;
+        }
+        String userId = (String) body.get("userId");
+        Map<String, Object> product = products.get((String) body.get("productId"));
+        Map<String, Object> ownershipError = checkOwnership(userId, product);
+        if (ownershipError != null) {
+            return ownershipError;
+        }
+        return success(null, new HashMap<>(product));
+    }
+
+    public Map<String, Object> processPurchase(Map<String, Object> body) {
+        Map<String, Object> error = checkProductRequest(body);
+        if (error != null) {
+            return error;
+        }
+        String userId = (String) body.get("userId");
+        String productId = (String) body.get("productId");
+        Map<String, Object> product = products.get(productId);
+        String paymentMethod = (String) body.get("paymentMethod");
+
+        Map<String, Object> ownershipError = checkOwnership(userId, product);
+        if (ownershipError != null) {
+            return ownershipError;
+        }
+
+        if (InAppConstants.PAYMENT_METHOD_CARD.equals(paymentMethod) && body.get("cardToken") instanceof Map) {
+            Map<?, ?> cardToken = (Map<?, ?>) body.get("cardToken");
+            if (!keyId.equals(cardToken.get("keyId"))) {
+                return failure("Tokenization key expired", "TOKENIZATION_KEY_EXPIRED");
+            }
+            Map<?, ?> card = detokenize(String.valueOf(cardToken.get("token")));
+            if (card == null) {
+                return failure("Invalid card token", "INVALID_CARD_TOKEN");
+            }
+            if (DECLINED_CARD.equals(card.get("cardNumber"))) {
+                return failure("Transaction failed: card declined", "PAYMENT_FAILED");
+            }
+        } else if (InAppConstants.PAYMENT_METHOD_CARD.equals(paymentMethod)) {
+            Object cardData = body.get("cardData");
+            if (!(cardData instanceof Map)) {
+                return failure("Card data is required", "MISSING_CARD_DATA");
+            }
+            Object number = ((Map<?, ?>) cardData).get("cardNumber");
+            if (number != null && DECLINED_CARD.equals(number.toString().replace(" ", ""))) {
+                return failure("Transaction failed: card declined", "PAYMENT_FAILED");
+            }
+        } else if (InAppConstants.PAYMENT_METHOD_PAYPAL.equals(paymentMethod)) {
+            if (!(body.get("paypalData") instanceof Map)) {
+                return failure("PayPal data is required", "MISSING_PAYPAL_DATA");
+            }
+        } else {
+            return failure("Invalid payment method", "INVALID_PAYMENT_METHOD");
+        }
+
+        String type = (String) product.get("type");
+        Map<String, Map<String, Object>> ledger = InAppConstants.TYPE_SUBSCRIPTION.equals(type)
+                ? subscriptions.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
+                : purchases.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+
+        long now = System.currentTimeMillis();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("purchaseId", "fake-" + purchaseIds.incrementAndGet());
+        record.put("userId", userId);
+        record.put("productId", productId);
+        record.put("type", type);
+        record.put("price", product.get("price"));
+        record.put("currency", product.get("currency"));
+        record.put("paymentMethod", paymentMethod);
+        record.put("purchasedAt", now);
+        if (InAppConstants.TYPE_SUBSCRIPTION.equals(type)) {
+            record.put("expiresAt", now + SUBSCRIPTION_PERIOD_MS);
+        }
+
+        if (InAppConstants.TYPE_REPURCHASE.equals(type)) {
+            ledger.put(productId, record);
+        } else {
+            // putIfAbsent lets exactly one of several racing purchases win
+            Map<String, Object> existing = ledger.putIfAbsent(productId, record);
+            if (existing != null) {
+                if (InAppConstants.TYPE_ONETIME.equals(type)) {
+                    return failure("Item already purchased", "ALREADY_PURCHASED");
+                }
+                if (isActive(existing)) {
+                    return failure("Subscription already active", "ALREADY_SUBSCRIBED");
+                }
+                ledger.put(productId, record); // renewal of an expired subscription
+            }
+        }
+        return success("Purchase completed successfully", record);
+    }
+
+    public Map<String, Object> checkUserPurchased(Map<String, Object> body) {
+        Map<String, Object> error = checkProductRequest(body);
+        if (error != null) {
+            return error;
+        }
+        Map<String, Object> record = find(purchases, (String) body.get("userId"), (String) body.get("productId"));
+        Map<String, Object> data = new HashMap<>();
+        data.put("purchased", record != null);
+        data.put("purchaseData", record);
+        return success(null, data);
+    }
+
+    public Map<String, Object> checkUserSubscribed(Map<String, Object> body) {
+        Map<String, Object> error = checkProductRequest(body);
+        if (error != null) {
+            return error;
+        }
+        Map<String, Object> record = find(subscriptions, (String) body.get("userId"), (String) body.get("productId"));
+        Map<String, Object> data = new HashMap<>();
+        data.put("subscribed", isActive(record));
+        data.put("subscriptionData", record);
+        return success(null, data);
+    }
+
+    public Map<String, Object> getPurchases(Map<String, Object> body) {
+        return listRecords(purchases, body);
+    }
+
+    public Map<String, Object> getSubscriptions(Map<String, Object> body) {
+        return listRecords(subscriptions, body);
+    }
+
+    public Map<String, Object> getCatalog(Map<String, Object> body) {
+        if (!projectName.equals(body.get("projectName"))) {
+            return failure("Project not found", "PROJECT_NOT_FOUND");
+        }
+        Map<String, Object> data = new HashMap<>();
+        List<Map<String, Object>> catalog = new ArrayList<>();
+        for (Map<String, Object> product : products.values()) {
+            catalog.add(new HashMap<>(product));
+        }
+        data.put("products", catalog);
+        return success(null, data);
+    }
+
+    /**
+     * @return the tokenization key, or {@code null} (unknown endpoint) after
+     *         {@link #withoutTokenization()}
+     */
+    public Map<String, Object> getTokenizationKey(Map<String, Object> body) {
+        if (!tokenization) {
+            return null;
+        }
+        if (body == null || !projectName.equals(body.get("projectName"))) {
+            return failure("Project not found", "PROJECT_NOT_FOUND");
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("keyId", keyId);
+        data.put("publicKey", Base64.getEncoder().encodeToString(keyPair().getPublic().getEncoded()));
+        data.put("expiresAt", System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        return success(null, data);
+    }
+
+    private KeyPair keyPair() {
+        KeyPair pair = keyPair;
+        if (pair == null) {
+            synchronized (this) {
+                pair = keyPair;
+                if (pair == null) {
+                    try {
+                        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                        generator.initialize(2048);
+                        keyPair = pair = generator.generateKeyPair();
+                    } catch (GeneralSecurityException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return pair;
+    }
+
+    /**
+     * Opens a {@code CardTokenizer} token as the back-end would:
+     * {@code v1.<RSA-OAEP key>.<IV>.<AES-GCM ciphertext>}, bound to the
+     * current key id.
+     *
+     * @return the card fields, or {@code null} if the token does not open
+     */
+    public Map<?, ?> detokenize(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 4 || !"v1".equals(parts[0])) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            rsa.init(Cipher.DECRYPT_MODE, keyPair().getPrivate(), new OAEPParameterSpec(
+                    "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+            byte[] aesKey = rsa.doFinal(decoder.decode(parts[1]));
+
+            Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+            aes.init(Cipher.DECRYPT_MODE, new SecretKeySpec(aesKey, "AES"),
+                    new GCMParameterSpec(128, decoder.decode(parts[2])));
+            aes.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            String json = new String(aes.doFinal(decoder.decode(parts[3])), StandardCharsets.UTF_8);
+            return new Gson().fromJson(json, Map.class);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> listRecords(Map<String, Map<String, Map<String, Object>>> ledger,
+                                            Map<String, Object> body) {
+        if (!projectName.equals(body.get("projectName"))) {
+            return failure("Project not found", "PROJECT_NOT_FOUND");
+        }
+        Object userId = body.get("userId");
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Map<String, Object>>> user : ledger.entrySet()) {
+            if (userId == null || userId.equals(user.getKey())) {
+                records.addAll(user.getValue().values());
+            }
+        }
+        return success(null, records);
+    }
+
+    private Map<String, Object> checkProductRequest(Map<String, Object> body) {
+        if (body == null || !projectName.equals(body.get("projectName"))) {
+            return failure("Project not found", "PROJECT_NOT_FOUND");
+        }
+        if (body.get("userId") == null) {
+            return failure("User ID is required", "MISSING_DEVICE_ID");
+        }
+        Map<String, Object> product = products.get((String) body.get("productId"));
+        if (product == null) {
+            return failure("Product not found", "PRODUCT_NOT_FOUND");
+        }
+        if (!Boolean.TRUE.equals(product.get("active"))) {
+            return failure("Product is inactive", "PRODUCT_INACTIVE");
+        }
+        return null;
+    }
+
+    private Map<String, Object> checkOwnership(String userId, Map<String, Object> product) {
+        String productId = (String) product.get("id");
+        String type = (String) product.get("type");
+        if (InAppConstants.TYPE_ONETIME.equals(type) && find(purchases, userId, productId) != null) {
+            return failure("Item already purchased", "ALREADY_PURCHASED");
+        }
+        if (InAppConstants.TYPE_SUBSCRIPTION.equals(type) && isActive(find(subscriptions, userId, productId))) {
+            return failure("Subscription already active", "ALREADY_SUBSCRIBED");
+        }
+        return null;
+    }
+
+    private static Map<String, Object> find(Map<String, Map<String, Map<String, Object>>> ledger,
+                                            String userId, String productId) {
+        Map<String, Map<String, Object>> records = ledger.get(userId);
+        return records != null ? records.get(productId) : null;
+    }
+
+    private static boolean isActive(Map<String, Object> subscription) {
+        if (subscription == null) {
+            return false;
+        }
+        Object expiresAt = subscription.get("expiresAt");
+        return expiresAt instanceof Number && ((Number) expiresAt).longValue() > System.currentTimeMillis();
+    }
+
+    private static Map<String, Object> success(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", Boolean.TRUE);
+        if (message != null) {
+            response.put("message", message);
+        }
+        response.put("data", data);
+        return response;
+    }
+
+    static Map<String, Object> failure(String error, String errorCode) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", Boolean.FALSE);
+        response.put("error", error);
+        response.put("message", error); // check endpoints report errors as "message"
+        response.put("errorCode", errorCode);
+        return response;
+    }
+}
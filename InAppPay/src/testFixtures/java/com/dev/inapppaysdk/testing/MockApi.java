@@ -0,0 +1,80 @@
+package com.dev.inapppaysdk.testing;
+
+import com.dev.inapppaysdk.api.RequestScheduler;
+import com.dev.inapppaysdk.api.ScheduledCallAdapterFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.mock.NetworkBehavior;
+
+/**
+ * A {@link MockInAppApiService} without latency or injected failures whose
+ * callbacks are delivered on a {@link TestMainThread}, the set-up shared by
+ * the SDK's unit tests.
+ *
+ * <pre>{@code
+ * api = MockApi.start(FakeBackend.withDefaultCatalog("demo"));
+ * api.getMainThread().run(() -> sdk.buy("premium_01", callback));
+ * ...
+ * api.close();
+ * }</pre>
+ */
+public final class MockApi implements AutoCloseable {
+    private final FakeBackend backend;
+    private final ExecutorService executor;
+    private final TestMainThread mainThread;
+    private final NetworkBehavior behavior;
+    private final MockInAppApiService service;
+
+    private MockApi(FakeBackend backend, RequestScheduler scheduler) {
+        this.backend = backend;
+        this.executor = Executors.newCachedThreadPool();
+        this.mainThread = TestMainThread.install();
+        this.behavior = instantBehavior();
+        this.service = scheduler != null
+                ? MockInAppApiService.create(backend, behavior, executor, mainThread,
+                        new ScheduledCallAdapterFactory(scheduler))
+                : MockInAppApiService.create(backend, behavior, executor, mainThread);
+    }
+
+    /**
+     * Serves {@code backend} and installs a fresh main thread.
+     * {@link #close()} must be called after the test.
+     */
+    public static MockApi start(FakeBackend backend) {
+        return new MockApi(backend, null);
+    }
+
+    /** Like {@link #start(FakeBackend)}, with every call going through {@code scheduler}. */
+    public static MockApi start(FakeBackend backend, RequestScheduler scheduler) {
+        return new MockApi(backend, scheduler);
+    }
+
+    /** A network that answers at once and never fails. */
+    public static NetworkBehavior instantBehavior() {
+        NetworkBehavior behavior = NetworkBehavior.create();
+        behavior.setDelay(0, TimeUnit.MILLISECONDS);
+        behavior.setVariancePercent(0);
+        behavior.setFailurePercent(0);
+        behavior.setErrorPercent(0);
+        return behavior;
+    }
+
+    public FakeBackend getBackend() { return backend; }
+
+    public MockInAppApiService getService() { return service; }
+
+    /** The network of {@link #getService()}; tests may make it fail part-way. */
+    public NetworkBehavior getBehavior() { return behavior; }
+
+    public TestMainThread getMainThread() { return mainThread; }
+
+    /** Stops the main thread and interrupts calls still in flight. */
+    @Override
+    public void close() {
+        mainThread.close();
+        executor.shutdownNow();
+    }
+}
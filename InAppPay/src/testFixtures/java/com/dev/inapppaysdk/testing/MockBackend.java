@@ -0,0 +1,65 @@
+package com.dev.inapppaysdk.testing;
+
+import com.dev.inapppaysdk.api.ApiClient;
+import com.dev.inapppaysdk.api.ApiConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Random;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Embeddable HTTP stand-in for the InAppPay Cloud Functions: a
+ * {@link MockWebServer} answering through a {@link MockBackendDispatcher}.
+ *
+ * <pre>{@code
+ * try (MockBackend backend = MockBackend.start(FakeBackend.withDefaultCatalog("demo"))) {
+ *     backend.dispatcher().latency(80, 40).failureRate(0.01);
+ *     ApiClient.configure(backend.apiConfig().build());
+ *     // ... exercise InAppPaySDK / InAppPayClient ...
+ * }
+ * }</pre>
+ */
+public class MockBackend implements Closeable {
+    private final MockWebServer server;
+    private final MockBackendDispatcher dispatcher;
+
+    private MockBackend(MockWebServer server, MockBackendDispatcher dispatcher) {
+        this.server = server;
+        this.dispatcher = dispatcher;
+    }
+
+    /** Starts a server on a free local port. */
+    public static MockBackend start(FakeBackend backend) throws IOException {
+        return start(backend, new Random());
+    }
+
+    /** Like {@link #start(FakeBackend)}, drawing injected faults from {@code random}. */
+    public static MockBackend start(FakeBackend backend, Random random) throws IOException {
+        MockBackendDispatcher dispatcher = new MockBackendDispatcher(backend, random);
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        return new MockBackend(server, dispatcher);
+    }
+
+    /** @return base URL to hand to {@link ApiConfig.Builder#baseUrl(String)} */
+    public String url() {
+        return server.url("/").toString();
+    }
+
+    /** @return a config builder already pointing at this server */
+    public ApiConfig.Builder apiConfig() {
+        return new ApiConfig.Builder().baseUrl(url());
+    }
+
+    public MockBackendDispatcher dispatcher() { return dispatcher; }
+    public FakeBackend backend() { return dispatcher.getBackend(); }
+    public MockWebServer server() { return server; }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+}
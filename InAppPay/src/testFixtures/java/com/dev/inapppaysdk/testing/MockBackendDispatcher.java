@@ -0,0 +1,155 @@
+package com.dev.inapppaysdk.testing;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * {@link Dispatcher} that serves every InAppPay Cloud Function from a
+ * {@link FakeBackend} over real HTTP.
+ *
+ * <p>Fault injection is configured fluently and may be changed while the
+ * server is running:</p>
+ * <ul>
+ *   <li>{@link #latency(long, long)} &mdash; delay before response headers</li>
+ *   <li>{@link #failureRate(double)} &mdash; share of HTTP 500 answers</li>
+ *   <li>{@link #disconnectRate(double)} &mdash; share of dropped connections</li>
+ *   <li>{@link #coldStart(long, long)} &mdash; extra delay for the first
+ *       request after an idle period, like a scaled-to-zero function</li>
+ * </ul>
+ *
+ * <p>Jitter and injected faults are drawn from the {@link Random} given to
+ * the constructor; with a seeded one, requests sent one at a time meet the
+ * same faults on every run.</p>
+ */
+public class MockBackendDispatcher extends Dispatcher {
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    private static final String INJECTED_ERROR =
+            "{\"success\":false,\"error\":\"Injected server error\",\"errorCode\":\"INJECTED_ERROR\"}";
+
+    private final FakeBackend backend;
+    private final Gson gson = new Gson();
+    private final AtomicLong lastRequestAt = new AtomicLong();
+    private final Random random;
+
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double failureRate;
+    private volatile double disconnectRate;
+    private volatile long coldStartMs;
+    private volatile long coldAfterIdleMs = Long.MAX_VALUE;
+
+    public MockBackendDispatcher(FakeBackend backend) {
+        this(backend, new Random());
+    }
+
+    /** @param random source of jitter and injected faults; seed it to reproduce a run */
+    public MockBackendDispatcher(FakeBackend backend, Random random) {
+        this.backend = backend;
+        this.random = random;
+    }
+
+    public FakeBackend getBackend() { return backend; }
+
+    /** Delays every response by {@code latencyMs} plus up to {@code jitterMs}. */
+    public MockBackendDispatcher latency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        return this;
+    }
+
+    /** Answers this share of requests (0..1) with HTTP 500. */
+    public MockBackendDispatcher failureRate(double rate) {
+        this.failureRate = rate;
+        return this;
+    }
+
+    /** Drops this share of connections (0..1) without answering. */
+    public MockBackendDispatcher disconnectRate(double rate) {
+        this.disconnectRate = rate;
+        return this;
+    }
+
+    /**
+     * Adds {@code delayMs} to the first request and to any request arriving
+     * after more than {@code afterIdleMs} without traffic.
+     */
+    public MockBackendDispatcher coldStart(long delayMs, long afterIdleMs) {
+        this.coldStartMs = delayMs;
+        this.coldAfterIdleMs = afterIdleMs;
+        return this;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        long now = System.nanoTime();
+        long previous = lastRequestAt.getAndSet(now);
+        long delay = latencyMs;
+        if (jitterMs > 0) {
+            delay += (long) (random.nextDouble() * (jitterMs + 1));
+        }
+        if (coldStartMs > 0 && (previous == 0 || TimeUnit.NANOSECONDS.toMillis(now - previous) > coldAfterIdleMs)) {
+            delay += coldStartMs;
+        }
+
+        if (disconnectRate > 0 && random.nextDouble() < disconnectRate) {
+            return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+        }
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            return json(500, INJECTED_ERROR, delay);
+        }
+
+        String path = request.getPath() != null ? request.getPath() : "/";
+        int query = path.indexOf('?');
+        String endpoint = (query >= 0 ? path.substring(0, query) : path).replaceFirst("^/+", "");
+
+        Map<String, Object> body;
+        try {
+            body = readBody(request);
+        } catch (IOException | RuntimeException e) {
+            return json(400, "{\"success\":false,\"error\":\"Malformed request body\",\"errorCode\":\"BAD_REQUEST\"}", delay);
+        }
+
+        Map<String, Object> response = backend.handle(endpoint, body);
+        if (response == null) {
+            return json(404, "{\"success\":false,\"error\":\"Unknown function " + endpoint
+                    + "\",\"errorCode\":\"NOT_FOUND\"}", delay);
+        }
+        return json(200, gson.toJson(response), delay);
+    }
+
+    private Map<String, Object> readBody(RecordedRequest request) throws IOException {
+        Buffer raw = request.getBody();
+        String text;
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            text = Okio.buffer(new GzipSource(raw)).readUtf8();
+        } else {
+            text = raw.readUtf8();
+        }
+        Map<String, Object> body = text.isEmpty() ? null : gson.fromJson(text, MAP_TYPE);
+        return body != null ? body : Collections.<String, Object>emptyMap();
+    }
+
+    private static MockResponse json(int code, String body, long delayMs) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body)
+                .setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,164 @@
+package com.dev.inapppaysdk.testing;
+
+import com.dev.inapppaysdk.api.InAppApiService;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.mock.BehaviorDelegate;
+import retrofit2.mock.Calls;
+import retrofit2.mock.MockRetrofit;
+import retrofit2.mock.NetworkBehavior;
+
+/**
+ * In-process {@link InAppApiService} backed by a {@link FakeBackend}.
+ *
+ * <p>Calls skip HTTP entirely; latency, network failures and HTTP 500s are
+ * injected by Retrofit's {@link NetworkBehavior}. The fake back-end is only
+ * consulted once the simulated latency has elapsed, like a real server.</p>
+ *
+ * <pre>{@code
+ * NetworkBehavior behavior = NetworkBehavior.create();
+ * behavior.setDelay(120, TimeUnit.MILLISECONDS);
+ * behavior.setFailurePercent(1);
+ * InAppApiService service = MockInAppApiService.create(FakeBackend.withDefaultCatalog("demo"),
+ *         behavior, Executors.newFixedThreadPool(64));
+ * }</pre>
+ */
+public class MockInAppApiService implements InAppApiService {
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final Gson GSON = new Gson();
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    private final BehaviorDelegate<InAppApiService> delegate;
+    private final FakeBackend backend;
+
+    private MockInAppApiService(BehaviorDelegate<InAppApiService> delegate, FakeBackend backend) {
+        this.delegate = delegate;
+        this.backend = backend;
+    }
+
+    /**
+     * @param backend  in-memory model answering the requests
+     * @param behavior latency / failure profile applied to every call
+     * @param executor threads on which simulated latency elapses; its size is
+     *                 the mock server's concurrency limit
+     */
+    public static MockInAppApiService create(FakeBackend backend, NetworkBehavior behavior, ExecutorService executor) {
+        return create(backend, behavior, executor, null);
+    }
+
+    /**
+     * @param backend          in-memory model answering the requests
+     * @param behavior         latency / failure profile applied to every call
+     * @param executor         threads on which simulated latency elapses
+     * @param callbackExecutor where callbacks are delivered, like the main
+     *                         thread on Android; null delivers them on
+     *                         {@code executor}
+     * @param callAdapters     wrap every call, e.g. a
+     *                         {@link com.dev.inapppaysdk.api.ScheduledCallAdapterFactory}
+     */
+    public static MockInAppApiService create(FakeBackend backend, NetworkBehavior behavior,
+                                             ExecutorService executor, Executor callbackExecutor,
+                                             CallAdapter.Factory... callAdapters) {
+        // Error responses look like the Cloud Functions' own error payloads
+        behavior.setErrorFactory(() -> Response.error(500, ResponseBody.create(
+                "{\"error\":\"Injected server error\",\"errorCode\":\"INJECTED_ERROR\"}", JSON)));
+
+        Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl("http://localhost/");
+        if (callbackExecutor != null) {
+            builder.callbackExecutor(callbackExecutor);
+        }
+        for (CallAdapter.Factory callAdapter : callAdapters) {
+            builder.addCallAdapterFactory(callAdapter);
+        }
+        Retrofit retrofit = builder.build();
+        MockRetrofit mockRetrofit = new MockRetrofit.Builder(retrofit)
+                .networkBehavior(behavior)
+                .backgroundExecutor(executor)
+                .build();
+        return new MockInAppApiService(mockRetrofit.create(InAppApiService.class), backend);
+    }
+
+    public FakeBackend getBackend() { return backend; }
+
+    private InAppApiService answer(Function<Map<String, Object>, Map<String, Object>> handler,
+                                   Map<String, Object> request) {
+        return delegate.returning(Calls.defer(() -> Calls.response(handler.apply(request))));
+    }
+
+    @Override
+    public Call<Map<String, Object>> validateItemForPurchase(Map<String, Object> request, String sessionId) {
+        return answer(backend::validateItemForPurchase, request).validateItemForPurchase(request, sessionId);
+    }
+
+    @Override
+    public Call<Map<String, Object>> processPurchase(Map<String, Object> request, String sessionId) {
+        return answer(backend::processPurchase, request).processPurchase(request, sessionId);
+    }
+
+    @Override
+    public Call<Map<String, Object>> processCardPurchase(RequestBody body, String sessionId) {
+        // The body is written when the simulated request is "sent", like OkHttp would
+        return delegate.returning(Calls.defer(() -> Calls.response(backend.processPurchase(read(body)))))
+                .processCardPurchase(body, sessionId);
+    }
+
+    private static Map<String, Object> read(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return GSON.fromJson(buffer.readUtf8(), MAP_TYPE);
+    }
+
+    @Override
+    public Call<Map<String, Object>> getTokenizationKey(Map<String, Object> request) {
+        return delegate.returning(Calls.defer(() -> {
+            Map<String, Object> response = backend.getTokenizationKey(request);
+            return response != null
+                    ? Calls.response(response)
+                    : Calls.response(Response.<Map<String, Object>>error(404, ResponseBody.create(
+                            "{\"success\":false,\"error\":\"Unknown function getTokenizationKey\"}", JSON)));
+        })).getTokenizationKey(request);
+    }
+
+    @Override
+    public Call<Map<String, Object>> checkUserPurchased(Map<String, Object> request) {
+        return answer(backend::checkUserPurchased, request).checkUserPurchased(request);
+    }
+
+    @Override
+    public Call<Map<String, Object>> checkUserSubscribed(Map<String, Object> request) {
+        return answer(backend::checkUserSubscribed, request).checkUserSubscribed(request);
+    }
+
+    @Override
+    public Call<Map<String, Object>> getPurchases(Map<String, Object> requestData) {
+        return answer(backend::getPurchases, requestData).getPurchases(requestData);
+    }
+
+    @Override
+    public Call<Map<String, Object>> getSubscriptions(Map<String, Object> requestData) {
+        return answer(backend::getSubscriptions, requestData).getSubscriptions(requestData);
+    }
+
+    @Override
+    public Call<Map<String, Object>> getCatalog(Map<String, Object> requestData) {
+        return answer(backend::getCatalog, requestData).getCatalog(requestData);
+    }
+}
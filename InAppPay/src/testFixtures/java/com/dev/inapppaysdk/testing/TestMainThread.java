@@ -0,0 +1,106 @@
+package com.dev.inapppaysdk.testing;
+
+import com.dev.inapppaysdk.utils.UiThread;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single named thread standing in for the Android main thread in JVM tests.
+ *
+ * <p>{@link #install()} makes it the thread {@link UiThread} delivers on; pass
+ * it as the callback executor of {@link MockInAppApiService#create(FakeBackend,
+ * retrofit2.mock.NetworkBehavior, ExecutorService, Executor)} so that Retrofit
+ * callbacks arrive on it too, as they do on a device. Tests then check
+ * {@link #isCurrent()} inside callbacks.</p>
+ *
+ * <pre>{@code
+ * try (TestMainThread main = TestMainThread.install()) {
+ *     main.run(() -> sdk.buy("premium_01", callback));
+ * }
+ * }</pre>
+ */
+public final class TestMainThread implements UiThread.MainThread, Executor, AutoCloseable {
+    /** Name of the thread, as seen in assertion messages. */
+    public static final String NAME = "test-main";
+
+    private final ExecutorService executor;
+    private volatile Thread thread;
+
+    private TestMainThread() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread t = new Thread(runnable, NAME);
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+    }
+
+    /** Starts a main thread and installs it in {@link UiThread}. */
+    public static TestMainThread install() {
+        TestMainThread main = new TestMainThread();
+        UiThread.setMainThread(main);
+        return main;
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void post(Runnable action) {
+        executor.execute(action);
+    }
+
+    @Override
+    public void execute(Runnable action) {
+        post(action);
+    }
+
+    /** Runs {@code action} on the main thread and waits for it to return. */
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** Runs {@code action} on the main thread and returns its result. */
+    public <T> T call(Callable<T> action) {
+        try {
+            return executor.submit(action).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Main thread blocked for 5 s", e);
+        }
+    }
+
+    /** Waits until every action posted so far has run. */
+    public void idle() {
+        run(() -> { });
+    }
+
+    /** Uninstalls the thread from {@link UiThread} and stops it. */
+    @Override
+    public void close() {
+        UiThread.setMainThread(null);
+        executor.shutdownNow();
+    }
+}